@@ -0,0 +1,212 @@
+package com.eatclub.cache;
+
+import com.eatclub.common.Constants;
+import com.eatclub.mapper.IRestaurantMapper;
+import com.eatclub.model.Deal;
+import com.eatclub.model.Restaurant;
+import com.eatclub.repository.ILocalRepository;
+import com.eatclub.repository.ISnapshotListener;
+import com.eatclub.service.IRestaurantService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/*
+ * The unfiltered /available responses of the snapshot being served, one per segment of
+ * the day. Segments are rebuilt when a snapshot is published, on a thread of their own
+ * rather than the publishing one, so neither a request nor the refresh (which holds the
+ * repository's refresh lock while listeners run) waits for them; until they are rebuilt,
+ * requests compute their responses as if there were no cache.
+ */
+@Component
+public class AvailableRestaurantsResponseCache implements ISnapshotListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailableRestaurantsResponseCache.class);
+
+    private final ILocalRepository restaurantRepository;
+    private final IRestaurantService restaurantService;
+    private final IRestaurantMapper restaurantMapper;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("available-responses-rebuild").daemon().factory());
+
+    private volatile Segments segments;
+
+    public AvailableRestaurantsResponseCache(ILocalRepository restaurantRepository, IRestaurantService restaurantService,
+            IRestaurantMapper restaurantMapper) {
+        this.restaurantRepository = restaurantRepository;
+        this.restaurantService = restaurantService;
+        this.restaurantMapper = restaurantMapper;
+        restaurantRepository.addSnapshotListener(this);
+    }
+
+    /*
+     * Returns the serialized AvailableRestaurantsDTO for the given time, or null when
+     * the cache can't answer (the segments of the current data aren't built yet).
+     * Callers are expected to fall back to computing the response. The returned array
+     * is shared between requests and must not be modified.
+     */
+    public byte[] getAvailableRestaurantsJson(LocalTime time) {
+        PrecompressedResponse response = getAvailableRestaurantsResponse(time);
+        return response != null ? response.identity() : null;
+    }
+
+    /*
+     * Same as getAvailableRestaurantsJson, with the gzip and deflate encodings of the
+     * body. They are made once per segment, when the refresh builds it, and carried
+     * over to the next snapshot along with the segment when it doesn't change.
+     */
+    public PrecompressedResponse getAvailableRestaurantsResponse(LocalTime time) {
+        if (time.getSecond() != 0 || time.getNano() != 0) {
+            return null;
+        }
+
+        Segments current = segments;
+        if (current == null || current.snapshotVersion != restaurantRepository.getSnapshotVersion()) {
+            return null;
+        }
+        return current.responseFor(toMinuteOfDay(time));
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @Override
+    public void afterPublish() {
+        rebuildExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.warn("Failed to rebuild the cached /available responses for version {}",
+                        restaurantRepository.getSnapshotVersion(), e);
+            }
+        });
+    }
+
+    /*
+     * Runs on the rebuild thread, so only one rebuild ever runs. A rebuild queued behind
+     * one that already caught up with the latest snapshot has nothing to do.
+     */
+    void rebuild() {
+        long snapshotVersion = restaurantRepository.getSnapshotVersion();
+        Segments current = segments;
+        if (current != null && current.snapshotVersion == snapshotVersion) {
+            return;
+        }
+
+        List<Restaurant> restaurants = restaurantRepository.findAllRestaurants();
+        List<Restaurant> changedRestaurants = current == null ? null
+                : restaurantRepository.findRestaurantIdsChangedSince(current.snapshotVersion)
+                        .map(changedIds -> changedRestaurants(current.restaurants, restaurants, changedIds))
+                        .orElse(null);
+
+        List<Deal> dealsWithOwnWindow = restaurants.stream()
+                .flatMap(restaurant -> restaurantRepository.findDealsByRestaurantId(restaurant.getObjectId()).stream())
+                .filter(Deal::hasOwnWindow)
+                .toList();
+        int[] segmentStarts = segmentStarts(restaurants, dealsWithOwnWindow);
+        PrecompressedResponse[] segmentResponses = new PrecompressedResponse[segmentStarts.length];
+        for (int i = 0; i < segmentStarts.length; i++) {
+            int segmentEnd = i + 1 < segmentStarts.length ? segmentStarts[i + 1] : Constants.MINUTES_PER_DAY;
+            segmentResponses[i] = changedRestaurants == null ? null
+                    : current.reusableResponse(segmentStarts[i], segmentEnd, changedRestaurants);
+            if (segmentResponses[i] == null) {
+                var restaurantDeals = restaurantService.getAvailableRestaurantDealsByTime(toLocalTime(segmentStarts[i]));
+                segmentResponses[i] = new PrecompressedResponse(restaurantMapper.toAvailableRestaurantsJson(restaurantDeals));
+            }
+        }
+
+        // Don't publish segments that may mix data from two snapshots; the next one has its own call
+        if (restaurantRepository.getSnapshotVersion() == snapshotVersion) {
+            this.segments = new Segments(snapshotVersion, restaurants, segmentStarts, segmentResponses);
+        }
+    }
+
+    /*
+     * The set of live deals only changes at an opening minute or at the minute right
+     * after a closing minute (close times are inclusive) of a restaurant or of a deal
+     * with its own window, so those minutes split the day into segments that all
+     * share one response.
+     */
+    static int[] segmentStarts(List<Restaurant> restaurants, List<Deal> dealsWithOwnWindow) {
+        IntStream restaurantBoundaries = restaurants.stream()
+                .flatMapToInt(restaurant -> IntStream.of(
+                        toMinuteOfDay(restaurant.getOpenTime()),
+                        toMinuteOfDay(restaurant.getCloseTime()) + 1));
+        IntStream dealBoundaries = dealsWithOwnWindow.stream()
+                .flatMapToInt(deal -> IntStream.of(
+                        toMinuteOfDay(deal.getOpenTime()),
+                        toMinuteOfDay(deal.getCloseTime()) + 1));
+        return IntStream.concat(IntStream.of(0), IntStream.concat(restaurantBoundaries, dealBoundaries))
+                .filter(minute -> minute < Constants.MINUTES_PER_DAY)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    /*
+     * Both the old and the new version of every changed restaurant: a segment is only
+     * affected by a change if one of them is open during it.
+     */
+    private static List<Restaurant> changedRestaurants(List<Restaurant> previous, List<Restaurant> current,
+            Set<String> changedRestaurantIds) {
+        return Stream.concat(previous.stream(), current.stream())
+                .filter(restaurant -> changedRestaurantIds.contains(restaurant.getObjectId()))
+                .toList();
+    }
+
+    private static boolean isOpenAt(Restaurant restaurant, int minuteOfDay) {
+        int openMinute = toMinuteOfDay(restaurant.getOpenTime());
+        int closeMinute = toMinuteOfDay(restaurant.getCloseTime());
+        return restaurant.getOpenTime().isBefore(restaurant.getCloseTime())
+                ? openMinute <= minuteOfDay && minuteOfDay <= closeMinute
+                : minuteOfDay >= openMinute || minuteOfDay <= closeMinute;
+    }
+
+    private static int toMinuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static LocalTime toLocalTime(int minuteOfDay) {
+        return LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    private record Segments(long snapshotVersion, List<Restaurant> restaurants, int[] segmentStarts,
+            PrecompressedResponse[] segmentResponses) {
+
+        PrecompressedResponse responseFor(int minuteOfDay) {
+            int index = Arrays.binarySearch(segmentStarts, minuteOfDay);
+            return segmentResponses[index >= 0 ? index : -index - 2];
+        }
+
+        /*
+         * The previous response for [start, end) still holds when that exact segment
+         * existed before and no changed restaurant is open during it, before or after
+         * the change. Unchanged restaurants keep their order (RestaurantFeedDiff is only
+         * incremental when positions are stable), so the response is byte-for-byte the same.
+         */
+        PrecompressedResponse reusableResponse(int start, int end, List<Restaurant> changedRestaurants) {
+            int index = Arrays.binarySearch(segmentStarts, start);
+            if (index < 0) {
+                return null;
+            }
+            int previousEnd = index + 1 < segmentStarts.length ? segmentStarts[index + 1] : Constants.MINUTES_PER_DAY;
+            if (previousEnd != end || changedRestaurants.stream().anyMatch(restaurant -> isOpenAt(restaurant, start))) {
+                return null;
+            }
+            return segmentResponses[index];
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.eatclub.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * A cached response body together with its gzip and deflate encodings, so a response
+ * that is served many times per snapshot is compressed once instead of once per
+ * request. Both encodings are made when the response is built, by the thread building
+ * the cache entry (the refresh for /available segments), so serving one never
+ * compresses or waits on a request that does.
+ *
+ * Brotli isn't offered: the JDK has no encoder for it.
+ */
+public final class PrecompressedResponse {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    /*
+     * Below this the compressed body plus headers is rarely worth it.
+     */
+    static final int MIN_COMPRESSED_LENGTH = 256;
+
+    private final byte[] identity;
+    // null when the encoding isn't smaller than the identity body
+    private final byte[] gzip;
+    private final byte[] deflate;
+
+    public PrecompressedResponse(byte[] identity) {
+        this.identity = identity;
+        boolean compressible = identity.length >= MIN_COMPRESSED_LENGTH;
+        this.gzip = compressible ? smallerOrNull(compress(identity, GZIPOutputStream::new), identity) : null;
+        this.deflate = compressible ? smallerOrNull(compress(identity, DeflaterOutputStream::new), identity) : null;
+    }
+
+    /*
+     * The uncompressed body. Shared between requests and must not be modified.
+     */
+    public byte[] identity() {
+        return identity;
+    }
+
+    /*
+     * The body to send for the given Accept-Encoding header: gzip or deflate when the
+     * client accepts it and it is smaller, otherwise the identity body with a null
+     * content encoding.
+     */
+    public Variant variantFor(String acceptEncoding) {
+        String contentEncoding = preferredEncoding(acceptEncoding);
+        byte[] body = contentEncoding == null ? null : GZIP.equals(contentEncoding) ? gzip : deflate;
+        return body != null ? new Variant(contentEncoding, body) : new Variant(null, identity);
+    }
+
+    private static byte[] smallerOrNull(byte[] encoded, byte[] identity) {
+        return encoded.length < identity.length ? encoded : null;
+    }
+
+    /*
+     * GZIPOutputStream writes gzip (RFC 1952); DeflaterOutputStream writes zlib
+     * (RFC 1950), which is what the "deflate" content coding means.
+     */
+    private static byte[] compress(byte[] body, CompressingStream compressing) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (OutputStream stream = compressing.wrap(out)) {
+            stream.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /*
+     * gzip or deflate, whichever the header gives the higher q-value (gzip on a tie),
+     * or null when neither is acceptable. "*" covers codings not listed; x-gzip is an
+     * alias for gzip.
+     */
+    static String preferredEncoding(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case GZIP, "x-gzip" -> gzip = Math.max(gzip, quality);
+                case DEFLATE -> deflate = Math.max(deflate, quality);
+                case "*" -> any = Math.max(any, quality);
+                default -> { }
+            }
+        }
+        gzip = gzip >= 0 ? gzip : any;
+        deflate = deflate >= 0 ? deflate : any;
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : null;
+    }
+
+    /*
+     * contentEncoding is null for the identity body.
+     */
+    public record Variant(String contentEncoding, byte[] body) {
+    }
+
+    @FunctionalInterface
+    private interface CompressingStream {
+        OutputStream wrap(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,72 @@
+package com.eatclub.cache;
+
+import com.eatclub.repository.ILocalRepository;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ResponseETags {
+
+    private final ILocalRepository restaurantRepository;
+
+    /*
+     * Snapshot versions start again from zero on every boot, so a per-process epoch
+     * keeps a tag handed out by a previous run from matching different data.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    public ResponseETags(ILocalRepository restaurantRepository) {
+        this.restaurantRepository = restaurantRepository;
+    }
+
+    /*
+     * Strong ETag for the response to the given canonical query against the current
+     * snapshot. Take the tag before computing the response: if the snapshot changes
+     * in between, the response is newer than its tag, which only costs a 200 on the
+     * next poll, never a wrong 304.
+     */
+    public String eTagFor(String query) {
+        return "\"" + epoch + "-" + restaurantRepository.getSnapshotVersion() + "-" + query + "\"";
+    }
+
+    /*
+     * The tag of a compressed variant of the response with the given tag. A compressed
+     * body is a different representation, so it gets its own strong tag.
+     */
+    public static String forContentEncoding(String eTag, String contentEncoding) {
+        return contentEncoding == null ? eTag : eTag.substring(0, eTag.length() - 1) + "-" + contentEncoding + "\"";
+    }
+
+    /*
+     * If-None-Match uses the weak comparison, so W/ prefixes are ignored. The tags of the
+     * compressed variants match too: whichever variant the client holds, it is still
+     * current.
+     */
+    public boolean isNotModified(String ifNoneMatch, String eTag) {
+        return matchedTag(ifNoneMatch, eTag) != null;
+    }
+
+    /*
+     * The tag of the variant the client holds, as isNotModified compares them, or null
+     * when none matches. "*" names no variant and gets the identity tag. Lets a 304 carry
+     * the client's variant tag without building the response to find out which it is.
+     */
+    public String matchedTag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return null;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return eTag;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag) || tag.equals(forContentEncoding(eTag, PrecompressedResponse.GZIP))
+                    || tag.equals(forContentEncoding(eTag, PrecompressedResponse.DEFLATE))) {
+                return tag;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,65 @@
+package com.eatclub.cache;
+
+import com.eatclub.repository.ILocalRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+ * Serialized responses that only depend on the query and the snapshot, such as the
+ * peak-time windows, kept until the snapshot changes so each is computed, and
+ * compressed, once per snapshot. The number of distinct queries kept is bounded;
+ * past that, responses are computed on every request as before.
+ */
+@Component
+public class SnapshotResponseCache {
+
+    static final int MAX_ENTRIES = 256;
+
+    private final ILocalRepository restaurantRepository;
+
+    private volatile Entries entries = new Entries(-1, new ConcurrentHashMap<>());
+
+    public SnapshotResponseCache(ILocalRepository restaurantRepository) {
+        this.restaurantRepository = restaurantRepository;
+    }
+
+    /*
+     * The response to the query with the given canonical key, computed by json on a
+     * miss. json runs outside of any lock; two requests missing on the same key at
+     * once both compute it and the first one is kept.
+     */
+    public PrecompressedResponse get(String key, Supplier<byte[]> json) {
+        long snapshotVersion = restaurantRepository.getSnapshotVersion();
+        Entries current = entries;
+        if (current.snapshotVersion != snapshotVersion) {
+            current = new Entries(snapshotVersion, new ConcurrentHashMap<>());
+            entries = current;
+        }
+
+        PrecompressedResponse response = current.responses.get(key);
+        if (response != null) {
+            return response;
+        }
+        response = new PrecompressedResponse(json.get());
+        // A response computed after the snapshot changed lands in the old entries and is dropped with them
+        if (current.responses.size() < MAX_ENTRIES) {
+            PrecompressedResponse existing = current.responses.putIfAbsent(key, response);
+            return existing != null ? existing : response;
+        }
+        return response;
+    }
+
+    /*
+     * The response kept for the key on the current snapshot, or null; never computes it.
+     */
+    public PrecompressedResponse peek(String key) {
+        Entries current = entries;
+        return current.snapshotVersion == restaurantRepository.getSnapshotVersion() ? current.responses.get(key) : null;
+    }
+
+    private record Entries(long snapshotVersion, Map<String, PrecompressedResponse> responses) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.eatclub.client;
+
+import java.io.IOException;
+
+/*
+ * An IOException so RestTemplate reports it like any other failed exchange, as a
+ * ResourceAccessException.
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
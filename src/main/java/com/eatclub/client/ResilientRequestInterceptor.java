@@ -0,0 +1,91 @@
+package com.eatclub.client;
+
+import com.eatclub.metrics.RestaurantMetrics;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+
+/*
+ * Retries failed upstream exchanges under the retry policy, behind a circuit breaker.
+ * An exchange fails when it throws (connection refused or reset, timeout before the
+ * response headers) or answers with a retryable status. Only GET and HEAD are retried,
+ * since they are safe to repeat.
+ *
+ * The breaker sees one outcome per call, after its retries, so a call that recovered
+ * on a retry counts as a success. When the last attempt still has a retryable status,
+ * that response is returned for the caller's error handling rather than thrown here.
+ *
+ * Failures while the body is read come after this interceptor has returned, so they
+ * are neither retried nor counted here; the caller's own retry covers them.
+ */
+public class ResilientRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final RestaurantMetrics metrics;
+
+    public ResilientRequestInterceptor(RetryPolicy retryPolicy, CircuitBreaker circuitBreaker, RestaurantMetrics metrics) {
+        this.retryPolicy = retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!circuitBreaker.tryAcquire()) {
+            metrics.countFeedRejection();
+            throw new CircuitBreakerOpenException("Circuit breaker is open, not calling " + request.getURI());
+        }
+
+        int maxAttempts = request.getMethod() == HttpMethod.GET || request.getMethod() == HttpMethod.HEAD
+                ? retryPolicy.maxAttempts()
+                : 1;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                ClientHttpResponse response;
+                try {
+                    response = execution.execute(request, body);
+                } catch (IOException e) {
+                    if (attempt == maxAttempts) {
+                        throw e;
+                    }
+                    metrics.countFeedRetry("io_error");
+                    backOff(attempt);
+                    continue;
+                }
+
+                if (!RetryPolicy.isRetryable(response.getStatusCode())) {
+                    circuitBreaker.recordSuccess();
+                    return response;
+                }
+                if (attempt == maxAttempts) {
+                    circuitBreaker.recordFailure();
+                    return response;
+                }
+                metrics.countFeedRetry(Integer.toString(response.getStatusCode().value()));
+                response.close();
+                backOff(attempt);
+            }
+        } catch (IOException | RuntimeException e) {
+            circuitBreaker.recordFailure();
+            throw e;
+        }
+    }
+
+    private void backOff(int retry) throws InterruptedIOException {
+        Duration delay = retryPolicy.backoff(retry);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off before retry " + retry);
+        }
+    }
+}
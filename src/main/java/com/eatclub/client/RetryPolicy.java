@@ -0,0 +1,52 @@
+package com.eatclub.client;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * How often and how patiently an upstream request is retried. Backoff is exponential
+ * with full jitter: the wait before retry n is random between zero and
+ * initialBackoff * 2^(n-1), capped at maxBackoff, so instances that failed together
+ * don't retry together.
+ */
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1, got " + maxAttempts);
+        }
+        if (initialBackoff.isNegative() || maxBackoff.isNegative()) {
+            throw new IllegalArgumentException("Backoff must not be negative");
+        }
+        if (maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("maxBackoff must be at least initialBackoff");
+        }
+    }
+
+    /*
+     * The longest the wait before the given retry (1 for the first) can be.
+     */
+    public Duration backoffCeiling(int retry) {
+        Duration ceiling = initialBackoff;
+        for (int i = 1; i < retry && ceiling.compareTo(maxBackoff) < 0; i++) {
+            ceiling = ceiling.multipliedBy(2);
+        }
+        return ceiling.compareTo(maxBackoff) < 0 ? ceiling : maxBackoff;
+    }
+
+    public Duration backoff(int retry) {
+        long ceiling = backoffCeiling(retry).toMillis();
+        return Duration.ofMillis(ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    /*
+     * Server errors and 429 are worth another try; any other answer from the upstream
+     * would come back the same.
+     */
+    public static boolean isRetryable(HttpStatusCode status) {
+        return status.is5xxServerError() || status.isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
@@ -0,0 +1,23 @@
+package com.eatclub.client;
+
+import java.time.Duration;
+
+/*
+ * Settings of the HTTP client used for the upstream feed (restaurants.feed.client.*).
+ *
+ * responseTimeout bounds the whole exchange, including streaming the body, so a
+ * stalled or trickling upstream can't hold a refresh (or startup) forever.
+ */
+public record UpstreamClientSettings(Duration connectTimeout, Duration responseTimeout, boolean http2,
+        boolean compression, RetryPolicy retryPolicy, int circuitBreakerFailureThreshold,
+        Duration circuitBreakerOpenDuration) {
+
+    public UpstreamClientSettings {
+        if (connectTimeout.isNegative() || connectTimeout.isZero()) {
+            throw new IllegalArgumentException("connect-timeout must be positive, got " + connectTimeout);
+        }
+        if (responseTimeout.isNegative() || responseTimeout.isZero()) {
+            throw new IllegalArgumentException("response-timeout must be positive, got " + responseTimeout);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.eatclub.client;
+
+import com.eatclub.metrics.RestaurantMetrics;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+
+/*
+ * Builds the RestTemplate for upstream calls on the JDK HttpClient, which keeps
+ * connections alive and reuses them across refreshes, and negotiates HTTP/2 when the
+ * upstream offers it (falling back to HTTP/1.1 when it doesn't). With compression on,
+ * requests send Accept-Encoding: gzip, deflate and compressed bodies are inflated as
+ * they are read, so the parser still streams.
+ */
+public final class UpstreamClients {
+
+    private UpstreamClients() {
+    }
+
+    public static RestTemplate restTemplate(UpstreamClientSettings settings, RestaurantMetrics metrics) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(settings.http2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(settings.connectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(settings.responseTimeout());
+        requestFactory.enableCompression(settings.compression());
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(new ResilientRequestInterceptor(settings.retryPolicy(),
+                new CircuitBreaker(settings.circuitBreakerFailureThreshold(), settings.circuitBreakerOpenDuration()),
+                metrics));
+        return restTemplate;
+    }
+}
@@ -11,4 +11,11 @@ public class Constants {
         .toFormatter(Locale.ENGLISH);
     public static final DateTimeFormatter HH_MM_TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
     public static final String EC_API_CHALLENGE_ENDPOINT = "https://eccdn.com.au/misc/challengedata.json";
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    public static final int PEAK_TIME_DEFAULT_WINDOW_MINUTES = 180;
+    public static final int PEAK_TIME_DEFAULT_STEP_MINUTES = 180;
+    public static final int PEAK_TIME_DEFAULT_LIMIT = 3;
+    public static final int AVAILABLE_DEFAULT_PAGE_LIMIT = 100;
+    public static final int AVAILABLE_MAX_PAGE_LIMIT = 1000;
 }
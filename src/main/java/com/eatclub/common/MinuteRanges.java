@@ -0,0 +1,103 @@
+package com.eatclub.common;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.MinuteRange;
+import com.eatclub.model.OpeningHours;
+import com.eatclub.model.Restaurant;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class MinuteRanges {
+
+    /*
+     * Open and close are both inclusive. Open at or after close means the hours wrap
+     * past midnight (open == close being open all day).
+     */
+    public static List<MinuteRange> of(LocalTime openTime, LocalTime closeTime) {
+        int openMinute = minuteOfDay(openTime);
+        int closeMinute = minuteOfDay(closeTime);
+        if (openTime.isBefore(closeTime)) {
+            return List.of(new MinuteRange(openMinute, closeMinute));
+        }
+        if (openMinute == closeMinute) {
+            // One range, so that callers can rely on the ranges being disjoint
+            return List.of(new MinuteRange(0, Constants.MINUTES_PER_DAY));
+        }
+        return List.of(new MinuteRange(0, closeMinute), new MinuteRange(openMinute, Constants.MINUTES_PER_DAY));
+    }
+
+    /*
+     * Minutes during which a deal can be redeemed: its own window when the feed gives
+     * one, cut down to the restaurant's opening hours.
+     */
+    public static List<MinuteRange> liveRanges(Restaurant restaurant, Deal deal) {
+        return deal.hasOwnWindow()
+                ? liveRanges(restaurant, deal.getOpenTime(), deal.getCloseTime())
+                : of(restaurant.getOpenTime(), restaurant.getCloseTime());
+    }
+
+    /*
+     * As above, for a deal window given as times (e.g. read from DealColumns).
+     */
+    public static List<MinuteRange> liveRanges(Restaurant restaurant, LocalTime dealOpenTime, LocalTime dealCloseTime) {
+        List<MinuteRange> openRanges = of(restaurant.getOpenTime(), restaurant.getCloseTime());
+        List<MinuteRange> liveRanges = new ArrayList<>();
+        for (MinuteRange dealRange : of(dealOpenTime, dealCloseTime)) {
+            for (MinuteRange openRange : openRanges) {
+                int fromMinute = Math.max(dealRange.fromMinute(), openRange.fromMinute());
+                int toMinute = Math.min(dealRange.toMinute(), openRange.toMinute());
+                if (fromMinute <= toMinute) {
+                    liveRanges.add(new MinuteRange(fromMinute, toMinute));
+                }
+            }
+        }
+        liveRanges.sort(Comparator.comparingInt(MinuteRange::fromMinute));
+        return liveRanges;
+    }
+
+    public static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /*
+     * Minutes of the week, from Monday 00:00, the restaurant is open: its opening hours
+     * when it has them, its daily hours on each day otherwise. Ranges are inclusive and
+     * hours running past Sunday midnight continue from minute 0, so every range lies
+     * within [0, MINUTES_PER_WEEK).
+     */
+    public static List<MinuteRange> weeklyRanges(Restaurant restaurant) {
+        List<MinuteRange> ranges = new ArrayList<>();
+        if (restaurant.getOpeningHours() == null || restaurant.getOpeningHours().isEmpty()) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                addWeeklyRanges(ranges, day, restaurant.getOpenTime(), restaurant.getCloseTime());
+            }
+        } else {
+            for (OpeningHours hours : restaurant.getOpeningHours()) {
+                addWeeklyRanges(ranges, hours.getDay(), hours.getOpenTime(), hours.getCloseTime());
+            }
+        }
+        return ranges;
+    }
+
+    public static int minuteOfWeek(DayOfWeek day, LocalTime time) {
+        return (day.getValue() - 1) * Constants.MINUTES_PER_DAY + minuteOfDay(time);
+    }
+
+    private static void addWeeklyRanges(List<MinuteRange> ranges, DayOfWeek day, LocalTime openTime, LocalTime closeTime) {
+        int openMinute = minuteOfWeek(day, openTime);
+        int closeMinute = minuteOfWeek(day, closeTime);
+        if (!openTime.isBefore(closeTime)) {
+            closeMinute += Constants.MINUTES_PER_DAY;
+        }
+        if (closeMinute < Constants.MINUTES_PER_WEEK) {
+            ranges.add(new MinuteRange(openMinute, closeMinute));
+        } else {
+            ranges.add(new MinuteRange(openMinute, Constants.MINUTES_PER_WEEK - 1));
+            ranges.add(new MinuteRange(0, closeMinute - Constants.MINUTES_PER_WEEK));
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package com.eatclub.config;
 
+import com.eatclub.client.RetryPolicy;
+import com.eatclub.client.UpstreamClientSettings;
+import com.eatclub.client.UpstreamClients;
+import com.eatclub.metrics.RestaurantMetrics;
+import com.eatclub.metrics.TimedJacksonJsonHttpMessageConverter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
@@ -13,9 +21,34 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${api.base-path}")
     private String apiBasePath;
 
+    /*
+     * Client for the upstream feed: pooled connections, bounded timeouts, compression,
+     * retries with backoff and a circuit breaker, all under restaurants.feed.client.*.
+     */
+    @Bean
+    public RestTemplate restTemplate(RestaurantMetrics metrics,
+            @Value("${restaurants.feed.client.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${restaurants.feed.client.response-timeout:30s}") Duration responseTimeout,
+            @Value("${restaurants.feed.client.http2:true}") boolean http2,
+            @Value("${restaurants.feed.client.compression:true}") boolean compression,
+            @Value("${restaurants.feed.client.retry.max-attempts:3}") int maxAttempts,
+            @Value("${restaurants.feed.client.retry.initial-backoff:200ms}") Duration initialBackoff,
+            @Value("${restaurants.feed.client.retry.max-backoff:2s}") Duration maxBackoff,
+            @Value("${restaurants.feed.client.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${restaurants.feed.client.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        return UpstreamClients.restTemplate(new UpstreamClientSettings(connectTimeout, responseTimeout, http2,
+                compression, new RetryPolicy(maxAttempts, initialBackoff, maxBackoff), failureThreshold, openDuration),
+                metrics);
+    }
+
+    /*
+     * Replaces Spring Boot's default JSON converter (same mapper) so response
+     * serialization is timed per endpoint.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public TimedJacksonJsonHttpMessageConverter jacksonJsonHttpMessageConverter(JsonMapper jsonMapper,
+            RestaurantMetrics metrics) {
+        return new TimedJacksonJsonHttpMessageConverter(jsonMapper, metrics);
     }
 
     @Override
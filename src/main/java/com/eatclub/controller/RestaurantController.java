@@ -1,20 +1,42 @@
 package com.eatclub.controller;
 
+import com.eatclub.cache.AvailableRestaurantsResponseCache;
+import com.eatclub.cache.PrecompressedResponse;
+import com.eatclub.cache.ResponseETags;
+import com.eatclub.cache.SnapshotResponseCache;
 import com.eatclub.common.Constants;
+import com.eatclub.common.MinuteRanges;
 import com.eatclub.mapper.IRestaurantMapper;
-import com.eatclub.model.dtos.AvailableRestaurantsDTO;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealCursor;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealPage;
+import com.eatclub.model.DealSort;
+import com.eatclub.model.OpeningHours;
+import com.eatclub.model.dtos.CompactAvailableRestaurantsDTO;
 import com.eatclub.model.dtos.ErrorDTO;
-import com.eatclub.model.dtos.PeakTimeDTO;
 import com.eatclub.service.IRestaurantService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.time.DayOfWeek;
 import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/restaurants")
@@ -22,35 +44,436 @@ public class RestaurantController {
 
     private final IRestaurantService restaurantService;
     private final IRestaurantMapper restaurantMapper;
+    private final AvailableRestaurantsResponseCache availableRestaurantsCache;
+    private final SnapshotResponseCache snapshotResponses;
+    private final ResponseETags responseETags;
+    private final JsonMapper jsonMapper;
 
-    public RestaurantController(IRestaurantService restaurantService, IRestaurantMapper restaurantMapper) {
+    public RestaurantController(IRestaurantService restaurantService, IRestaurantMapper restaurantMapper,
+            AvailableRestaurantsResponseCache availableRestaurantsCache, SnapshotResponseCache snapshotResponses,
+            ResponseETags responseETags, JsonMapper jsonMapper) {
         this.restaurantService = restaurantService;
         this.restaurantMapper = restaurantMapper;
+        this.availableRestaurantsCache = availableRestaurantsCache;
+        this.snapshotResponses = snapshotResponses;
+        this.responseETags = responseETags;
+        this.jsonMapper = jsonMapper;
     }
 
+    /*
+     * Responses only change when the snapshot does, so each one carries an ETag of the
+     * snapshot version and the query, and a matching If-None-Match is answered with a
+     * 304 before any service or mapper work.
+     */
     @GetMapping("/available")
-    public ResponseEntity<?> getAvailableRestaurants(@RequestParam String timeOfDay) {
+    public ResponseEntity<?> getAvailableRestaurants(@RequestParam String timeOfDay,
+            @RequestParam(required = false) String day,
+            DealFilter filter,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return getAvailableRestaurants(timeOfDay, day, filter, limit, cursor, sort, ifNoneMatch, acceptEncoding, false);
+    }
+
+    /*
+     * Same deals, filters, pages and rankings as /available, as a CBOR-encoded
+     * CompactAvailableRestaurantsDTO for clients that send Accept: application/cbor:
+     * values keep their types and each restaurant is sent once. JSON stays the default.
+     */
+    @GetMapping(value = "/available", produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<?> getAvailableRestaurantsCbor(@RequestParam String timeOfDay,
+            @RequestParam(required = false) String day,
+            DealFilter filter,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return getAvailableRestaurants(timeOfDay, day, filter, limit, cursor, sort, ifNoneMatch, null, true);
+    }
+
+    private ResponseEntity<?> getAvailableRestaurants(String timeOfDay, String day, DealFilter filter, Integer limit,
+            String cursor, String sort, String ifNoneMatch, String acceptEncoding, boolean compact) {
         try {
             LocalTime parsedTime = LocalTime.parse(timeOfDay, Constants.HH_MM_TIME_FORMATTER);
+            try {
+                filter.validate();
+            } catch (IllegalArgumentException e) {
+                ErrorDTO error = new ErrorDTO(e.getMessage(), "INVALID_FILTER_PARAMETERS");
+                return errorResponse(HttpStatus.BAD_REQUEST, error);
+            }
+            if (day != null) {
+                return getAvailableRestaurantsOnDay(day, parsedTime, filter, limit, cursor, sort, ifNoneMatch, compact);
+            }
+            if (sort != null) {
+                return getTopAvailableRestaurants(parsedTime, filter, sort, limit, cursor, ifNoneMatch, compact);
+            }
+            if (limit != null || cursor != null) {
+                return getAvailableRestaurantsPage(parsedTime, filter, limit, cursor, ifNoneMatch, compact);
+            }
+            String eTag = responseETags.eTagFor("available-" + parsedTime.format(Constants.HH_MM_TIME_FORMATTER)
+                    + filter.toQueryKey() + formatKey(compact));
+            // Only unfiltered JSON is cached, and only it can be sent compressed
+            PrecompressedResponse cached = compact || !filter.isEmpty() ? null
+                    : availableRestaurantsCache.getAvailableRestaurantsResponse(parsedTime);
+            if (responseETags.isNotModified(ifNoneMatch, eTag)) {
+                return notModified(cached != null ? variantETag(eTag, cached, acceptEncoding) : eTag);
+            }
+            if (!filter.isEmpty()) {
+                // Filtered results go straight to the indexes; only the unfiltered ones are cached
+                var filteredDeals = restaurantService.getAvailableRestaurantDealsByTime(parsedTime, filter);
+                if (compact) {
+                    return compactResponse(eTag, filteredDeals, null);
+                }
+                return ok(eTag).contentType(MediaType.APPLICATION_JSON)
+                        .body(restaurantMapper.toAvailableRestaurantsJson(filteredDeals));
+            }
+            if (compact) {
+                // The response cache holds JSON only
+                return compactResponse(eTag, restaurantService.getAvailableRestaurantDealsByTime(parsedTime), null);
+            }
+            if (cached != null) {
+                return precompressed(eTag, cached, acceptEncoding);
+            }
             var restaurantDeals = restaurantService.getAvailableRestaurantDealsByTime(parsedTime);
-            AvailableRestaurantsDTO availableRestaurants = restaurantMapper.toAvailableRestaurantsDTO(restaurantDeals);
-            return ResponseEntity.ok(availableRestaurants);
+            byte[] availableRestaurants = restaurantMapper.toAvailableRestaurantsJson(restaurantDeals);
+            return ok(eTag).contentType(MediaType.APPLICATION_JSON).body(availableRestaurants);
         } catch (DateTimeParseException e) {
-            String errorMessage = String.format(
-                    "Invalid time format: '%s'. Expected format is HH:mm (e.g., '14:30' or '09:00'). Please provide a valid time in 24-hour format.",
-                    timeOfDay);
-            ErrorDTO error = new ErrorDTO(errorMessage, "INVALID_TIME_FORMAT");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            return invalidTimeFormat(timeOfDay);
+        } catch (Exception e) {
+            ErrorDTO error = new ErrorDTO("An unexpected error occurred: " + e.getMessage(), "INTERNAL_ERROR");
+            return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, error);
+        }
+    }
+
+    /*
+     * Same deals as /available, written one JSON object per line as the index yields
+     * them, so nothing proportional to the number of matching deals is held in memory
+     * and the first deal goes out before the last one is found. Errors are still plain
+     * JSON since nothing has been written at that point; they are streamed as well
+     * because Spring only streams handlers declared to return StreamingResponseBody.
+     * The stream is every matching deal in feed order, so pages and rankings are
+     * rejected rather than silently ignored.
+     */
+    @GetMapping(value = "/available", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getAvailableRestaurantsNdjson(@RequestParam String timeOfDay,
+            @RequestParam(required = false) String day,
+            DealFilter filter,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            LocalTime parsedTime = LocalTime.parse(timeOfDay, Constants.HH_MM_TIME_FORMATTER);
+            if (limit != null || cursor != null) {
+                return streamedError(new ErrorDTO("limit and cursor can't be used when streaming NDJSON, which returns every deal",
+                        "INVALID_PAGINATION_PARAMETERS"));
+            }
+            if (sort != null) {
+                return streamedError(new ErrorDTO("sort can't be used when streaming NDJSON, which returns deals in feed order",
+                        "INVALID_SORT_PARAMETER"));
+            }
+            DayOfWeek dayOfWeek;
+            try {
+                dayOfWeek = day == null ? null : OpeningHours.parseDay(day);
+            } catch (IllegalArgumentException e) {
+                return streamedError(new ErrorDTO(e.getMessage(), "INVALID_DAY_PARAMETER"));
+            }
+            try {
+                filter.validate();
+            } catch (IllegalArgumentException e) {
+                return streamedError(new ErrorDTO(e.getMessage(), "INVALID_FILTER_PARAMETERS"));
+            }
+            String eTag = responseETags.eTagFor("available-" + dayKey(dayOfWeek)
+                    + parsedTime.format(Constants.HH_MM_TIME_FORMATTER) + filter.toQueryKey() + "-ndjson");
+            if (responseETags.isNotModified(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+            StreamingResponseBody body = outputStream -> {
+                JsonGenerator generator = jsonMapper.createGenerator(outputStream);
+                boolean[] first = { true };
+                Consumer<DealAtRestaurant> writeDeal = dealAtRestaurant -> {
+                    jsonMapper.writeValue(generator, restaurantMapper.toDealDTO(dealAtRestaurant));
+                    generator.writeRaw('\n');
+                    if (first[0]) {
+                        // Get the first deal on the wire; the rest go out as the buffer fills
+                        generator.flush();
+                        first[0] = false;
+                    }
+                };
+                if (dayOfWeek != null) {
+                    restaurantService.getAvailableRestaurantDealsByDayAndTime(dayOfWeek, parsedTime, filter).forEach(writeDeal);
+                } else {
+                    restaurantService.forEachAvailableRestaurantDeal(parsedTime, filter, writeDeal);
+                }
+                generator.flush();
+            };
+            return ok(eTag).contentType(MediaType.APPLICATION_NDJSON).body(body);
+        } catch (DateTimeParseException e) {
+            return streamedError(invalidTimeFormat(timeOfDay).getBody());
         } catch (Exception e) {
             ErrorDTO error = new ErrorDTO("An unexpected error occurred: " + e.getMessage(), "INTERNAL_ERROR");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+            return streamedError(HttpStatus.INTERNAL_SERVER_ERROR, error);
         }
     }
 
+    /*
+     * Deals live at the time on one day of the week, going by the restaurants' opening
+     * hours for that day. These are answered from the weekly index on every request: they
+     * aren't cached, paged or ranked.
+     */
+    private ResponseEntity<?> getAvailableRestaurantsOnDay(String day, LocalTime time, DealFilter filter, Integer limit,
+            String cursor, String sort, String ifNoneMatch, boolean compact) {
+        DayOfWeek dayOfWeek;
+        try {
+            dayOfWeek = OpeningHours.parseDay(day);
+        } catch (IllegalArgumentException e) {
+            ErrorDTO error = new ErrorDTO(e.getMessage(), "INVALID_DAY_PARAMETER");
+            return errorResponse(HttpStatus.BAD_REQUEST, error);
+        }
+        if (limit != null || cursor != null || sort != null) {
+            ErrorDTO error = new ErrorDTO("day can't be combined with limit, cursor or sort", "INVALID_DAY_PARAMETER");
+            return errorResponse(HttpStatus.BAD_REQUEST, error);
+        }
+
+        String eTag = responseETags.eTagFor("available-" + dayKey(dayOfWeek) + time.format(Constants.HH_MM_TIME_FORMATTER)
+                + filter.toQueryKey() + formatKey(compact));
+        if (responseETags.isNotModified(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        var dayDeals = restaurantService.getAvailableRestaurantDealsByDayAndTime(dayOfWeek, time, filter);
+        if (compact) {
+            return compactResponse(eTag, dayDeals, null);
+        }
+        return ok(eTag).contentType(MediaType.APPLICATION_JSON).body(restaurantMapper.toAvailableRestaurantsJson(dayDeals));
+    }
+
+    /*
+     * Pages follow the deal ordering of one snapshot. A cursor from an older snapshot
+     * can't be resumed, since deals may have moved, and gets a 410 so the client starts
+     * over from the first page.
+     */
+    private ResponseEntity<?> getAvailableRestaurantsPage(LocalTime time, DealFilter filter, Integer limit, String cursor,
+            String ifNoneMatch, boolean compact) {
+        int pageLimit = Objects.requireNonNullElse(limit, Constants.AVAILABLE_DEFAULT_PAGE_LIMIT);
+        if (pageLimit < 1 || pageLimit > Constants.AVAILABLE_MAX_PAGE_LIMIT) {
+            return invalidPageLimit();
+        }
+        int minuteOfDay = MinuteRanges.minuteOfDay(time);
+        DealCursor pageCursor;
+        try {
+            pageCursor = cursor == null ? null : DealCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            ErrorDTO error = new ErrorDTO(e.getMessage(), "INVALID_PAGINATION_PARAMETERS");
+            return errorResponse(HttpStatus.BAD_REQUEST, error);
+        }
+        if (pageCursor != null && pageCursor.minuteOfDay() != minuteOfDay) {
+            ErrorDTO error = new ErrorDTO("cursor was issued for a different timeOfDay", "INVALID_PAGINATION_PARAMETERS");
+            return errorResponse(HttpStatus.BAD_REQUEST, error);
+        }
+        int fromOrdinal = pageCursor == null ? 0 : pageCursor.nextOrdinal();
+
+        String eTag = responseETags.eTagFor("available-" + time.format(Constants.HH_MM_TIME_FORMATTER)
+                + filter.toQueryKey() + "-" + fromOrdinal + "-" + pageLimit + formatKey(compact));
+        if (responseETags.isNotModified(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        DealPage page = restaurantService.getAvailableRestaurantDealsPage(time, filter, fromOrdinal, pageLimit);
+        if (pageCursor != null && pageCursor.snapshotVersion() != page.getSnapshotVersion()) {
+            ErrorDTO error = new ErrorDTO("The data changed since this cursor was issued. Start again from the first page.",
+                    "CURSOR_EXPIRED");
+            return errorResponse(HttpStatus.GONE, error);
+        }
+        String nextCursor = page.hasNext()
+                ? new DealCursor(page.getSnapshotVersion(), minuteOfDay, page.getNextOrdinal()).encode()
+                : null;
+        if (compact) {
+            return compactResponse(eTag, page.getDeals(), nextCursor);
+        }
+        return ok(eTag).contentType(MediaType.APPLICATION_JSON)
+                .body(restaurantMapper.toAvailableRestaurantsPageJson(page, nextCursor));
+    }
+
+    /*
+     * The best limit deals by the sort key instead of every deal in feed order. Top-K
+     * results are a single ranked page, so they can't be combined with a cursor.
+     */
+    private ResponseEntity<?> getTopAvailableRestaurants(LocalTime time, DealFilter filter, String sort, Integer limit,
+            String cursor, String ifNoneMatch, boolean compact) {
+        DealSort dealSort;
+        try {
+            dealSort = DealSort.fromParameter(sort);
+        } catch (IllegalArgumentException e) {
+            ErrorDTO error = new ErrorDTO(e.getMessage(), "INVALID_SORT_PARAMETER");
+            return errorResponse(HttpStatus.BAD_REQUEST, error);
+        }
+        if (cursor != null) {
+            ErrorDTO error = new ErrorDTO("cursor can't be combined with sort", "INVALID_SORT_PARAMETER");
+            return errorResponse(HttpStatus.BAD_REQUEST, error);
+        }
+        int topLimit = Objects.requireNonNullElse(limit, Constants.AVAILABLE_DEFAULT_PAGE_LIMIT);
+        if (topLimit < 1 || topLimit > Constants.AVAILABLE_MAX_PAGE_LIMIT) {
+            return invalidPageLimit();
+        }
+
+        String eTag = responseETags.eTagFor("available-" + time.format(Constants.HH_MM_TIME_FORMATTER)
+                + filter.toQueryKey() + "-top-" + dealSort.getParameter() + "-" + topLimit + formatKey(compact));
+        if (responseETags.isNotModified(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        var topDeals = restaurantService.getTopAvailableRestaurantDeals(time, filter, dealSort, topLimit);
+        if (compact) {
+            return compactResponse(eTag, topDeals, null);
+        }
+        return ok(eTag).contentType(MediaType.APPLICATION_JSON)
+                .body(restaurantMapper.toAvailableRestaurantsJson(topDeals));
+    }
+
     @GetMapping("/peak-time")
-    public ResponseEntity<PeakTimeDTO> getPeakTimeWindow() {
-        var peakTimeWindow = restaurantService.getPeakTimeWindow();
-        PeakTimeDTO peakTime = restaurantMapper.toPeakTimeDTO(peakTimeWindow);
-        return ResponseEntity.ok(peakTime);
+    public ResponseEntity<?> getPeakTimeWindow(
+            @RequestParam(required = false) Integer windowMinutes,
+            @RequestParam(required = false) Integer stepMinutes,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            int window = Objects.requireNonNullElse(windowMinutes, Constants.PEAK_TIME_DEFAULT_WINDOW_MINUTES);
+            int step = Objects.requireNonNullElse(stepMinutes, Constants.PEAK_TIME_DEFAULT_STEP_MINUTES);
+            String query = "peak-time-" + window + "-" + step;
+            String eTag = responseETags.eTagFor(query);
+            if (responseETags.isNotModified(ifNoneMatch, eTag)) {
+                return notModified(notModifiedETag(query, eTag, ifNoneMatch, acceptEncoding));
+            }
+            PrecompressedResponse peakTime = snapshotResponses.get(query, () -> jsonMapper.writeValueAsBytes(
+                    restaurantMapper.toPeakTimeDTO(restaurantService.getPeakTimeWindow(window, step))));
+            return precompressed(eTag, peakTime, acceptEncoding);
+        } catch (IllegalArgumentException e) {
+            ErrorDTO error = new ErrorDTO(e.getMessage(), "INVALID_PEAK_TIME_PARAMETERS");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    @GetMapping("/peak-times")
+    public ResponseEntity<?> getPeakTimeWindows(
+            @RequestParam(required = false) Integer windowMinutes,
+            @RequestParam(required = false) Integer stepMinutes,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            int window = Objects.requireNonNullElse(windowMinutes, Constants.PEAK_TIME_DEFAULT_WINDOW_MINUTES);
+            int step = Objects.requireNonNullElse(stepMinutes, Constants.PEAK_TIME_DEFAULT_STEP_MINUTES);
+            int count = Objects.requireNonNullElse(limit, Constants.PEAK_TIME_DEFAULT_LIMIT);
+            String query = "peak-times-" + window + "-" + step + "-" + count;
+            String eTag = responseETags.eTagFor(query);
+            if (responseETags.isNotModified(ifNoneMatch, eTag)) {
+                return notModified(notModifiedETag(query, eTag, ifNoneMatch, acceptEncoding));
+            }
+            PrecompressedResponse peakTimes = snapshotResponses.get(query, () -> jsonMapper.writeValueAsBytes(
+                    restaurantMapper.toPeakTimesDTO(restaurantService.getPeakTimeWindows(window, step, count))));
+            return precompressed(eTag, peakTimes, acceptEncoding);
+        } catch (IllegalArgumentException e) {
+            ErrorDTO error = new ErrorDTO(e.getMessage(), "INVALID_PEAK_TIME_PARAMETERS");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    private ResponseEntity<CompactAvailableRestaurantsDTO> compactResponse(String eTag, List<DealAtRestaurant> dealAtRestaurants,
+            String nextCursor) {
+        return ok(eTag).contentType(MediaType.APPLICATION_CBOR)
+                .body(restaurantMapper.toCompactAvailableRestaurantsDTO(dealAtRestaurants, nextCursor));
+    }
+
+    /*
+     * Both encodings of a query share the snapshot but not the bytes, so they get
+     * different ETags.
+     */
+    private static String formatKey(boolean compact) {
+        return compact ? "-cbor" : "";
+    }
+
+    private static String dayKey(DayOfWeek day) {
+        return day == null ? "" : day.name().toLowerCase(Locale.ROOT) + "-";
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamedError(ErrorDTO error) {
+        return streamedError(HttpStatus.BAD_REQUEST, error);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamedError(HttpStatus status, ErrorDTO error) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> jsonMapper.writeValue(outputStream, error));
+    }
+
+    /*
+     * Errors are always JSON, including on the CBOR endpoint, whose produces would
+     * otherwise have the ErrorDTO encoded as CBOR.
+     */
+    private static ResponseEntity<ErrorDTO> errorResponse(HttpStatus status, ErrorDTO error) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(error);
+    }
+
+    private static ResponseEntity<ErrorDTO> invalidPageLimit() {
+        ErrorDTO error = new ErrorDTO("limit must be between 1 and " + Constants.AVAILABLE_MAX_PAGE_LIMIT,
+                "INVALID_PAGINATION_PARAMETERS");
+        return errorResponse(HttpStatus.BAD_REQUEST, error);
+    }
+
+    private static ResponseEntity<ErrorDTO> invalidTimeFormat(String timeOfDay) {
+        String errorMessage = String.format(
+                "Invalid time format: '%s'. Expected format is HH:mm (e.g., '14:30' or '09:00'). Please provide a valid time in 24-hour format.",
+                timeOfDay);
+        ErrorDTO error = new ErrorDTO(errorMessage, "INVALID_TIME_FORMAT");
+        return errorResponse(HttpStatus.BAD_REQUEST, error);
+    }
+
+    /*
+     * The variant of a cached JSON response the client accepts, compressed or not, with
+     * the tag of that variant.
+     */
+    private static ResponseEntity<byte[]> precompressed(String eTag, PrecompressedResponse response, String acceptEncoding) {
+        PrecompressedResponse.Variant variant = response.variantFor(acceptEncoding);
+        ResponseEntity.BodyBuilder builder = ok(variantETag(eTag, variant))
+                .contentType(MediaType.APPLICATION_JSON);
+        if (variant.contentEncoding() != null) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, variant.contentEncoding());
+        }
+        return builder.body(variant.body());
+    }
+
+    /*
+     * The tag precompressed sends for this Accept-Encoding. A 304 carries it too, since
+     * it has to name the representation a 200 would have sent.
+     */
+    private static String variantETag(String eTag, PrecompressedResponse response, String acceptEncoding) {
+        return variantETag(eTag, response.variantFor(acceptEncoding));
+    }
+
+    /*
+     * For a 304 on a snapshot-cached query: the variant tag when the response is already
+     * kept, otherwise the tag the client matched with, so a 304 never builds the body.
+     */
+    private String notModifiedETag(String query, String eTag, String ifNoneMatch, String acceptEncoding) {
+        PrecompressedResponse cached = snapshotResponses.peek(query);
+        return cached != null ? variantETag(eTag, cached, acceptEncoding) : responseETags.matchedTag(ifNoneMatch, eTag);
+    }
+
+    private static String variantETag(String eTag, PrecompressedResponse.Variant variant) {
+        return ResponseETags.forContentEncoding(eTag, variant.contentEncoding());
+    }
+
+    /*
+     * no-cache lets clients keep the body but makes them revalidate on every poll,
+     * which is what turns repeat polls into 304s. Responses are negotiated on Accept
+     * (JSON, NDJSON or CBOR) and Accept-Encoding, so shared caches must key on both.
+     */
+    private static ResponseEntity.BodyBuilder ok(String eTag) {
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING).build();
     }
 }
@@ -0,0 +1,48 @@
+package com.eatclub.health;
+
+import com.eatclub.repository.ILocalRepository;
+import com.eatclub.repository.SnapshotSource;
+import com.eatclub.repository.SnapshotSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/*
+ * Reports whether there is restaurant data to serve, and where it came from, so the
+ * readiness probe can route traffic as soon as a disk snapshot is loaded instead of
+ * waiting for the upstream. It reads whichever repository serves queries, so a mapped
+ * reader is ready once it has mapped a file.
+ */
+@Component
+public class RestaurantSnapshotHealthIndicator implements HealthIndicator {
+
+    private final ILocalRepository restaurantRepository;
+    private final Clock clock;
+
+    @Autowired
+    public RestaurantSnapshotHealthIndicator(ILocalRepository restaurantRepository) {
+        this(restaurantRepository, Clock.systemUTC());
+    }
+
+    RestaurantSnapshotHealthIndicator(ILocalRepository restaurantRepository, Clock clock) {
+        this.restaurantRepository = restaurantRepository;
+        this.clock = clock;
+    }
+
+    @Override
+    public Health health() {
+        SnapshotSummary snapshot = restaurantRepository.getSnapshotSummary();
+        Health.Builder builder = snapshot.source() == SnapshotSource.NONE ? Health.outOfService() : Health.up();
+        return builder
+                .withDetail("source", snapshot.source())
+                .withDetail("version", snapshot.version())
+                .withDetail("loadedAt", snapshot.loadedAt().toString())
+                .withDetail("ageSeconds", Duration.between(snapshot.loadedAt(), clock.instant()).toSeconds())
+                .withDetail("restaurants", snapshot.restaurantCount())
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.eatclub.mapper;
+
+import com.eatclub.model.dtos.AvailableRestaurantsDTO;
+import com.eatclub.model.dtos.AvailableRestaurantsPageDTO;
+import com.eatclub.model.dtos.DealDTO;
+import com.eatclub.repository.DealColumns;
+import com.eatclub.repository.DealSelection;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/*
+ * The JSON of every DealDTO of one snapshot's DealColumns, rendered once and kept as
+ * UTF-8: an object with the restaurant fields of each restaurant and one with the deal
+ * fields of each deal. A response is then, per selected deal, its restaurant's object
+ * without the closing brace and the deal's object without the opening one, copied into
+ * a single array of exactly the right size, instead of a DealDTO per deal per request
+ * that Jackson walks again.
+ *
+ * Values are written by a generator of the application's JsonMapper, so escaping is
+ * Jackson's. Field order and naming are the DTO's declaration order; whether that
+ * still matches what the mapper makes of the DTOs is checked on the first deal when
+ * the fragments are built, and fragments that don't match aren't used.
+ */
+final class DealJsonFragments {
+
+    private static final byte[] DEALS_START = "{\"deals\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DEALS_END = "]}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAGE_CURSOR = "],\"nextCursor\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAGE_END = "}".getBytes(StandardCharsets.UTF_8);
+
+    private final DealColumns columns;
+    private final JsonMapper jsonMapper;
+
+    /*
+     * The object of restaurant r is restaurantJson[restaurantOffsets[r] .. restaurantOffsets[r + 1]],
+     * empty for a restaurant without deals, and likewise for the deal with a given ordinal.
+     */
+    private final byte[] restaurantJson;
+    private final int[] restaurantOffsets;
+    private final byte[] dealJson;
+    private final int[] dealOffsets;
+
+    private final boolean byteCompatible;
+
+    /*
+     * toDealDTO maps an ordinal of the columns, the same way responses are mapped
+     * without fragments.
+     */
+    DealJsonFragments(DealColumns columns, JsonMapper jsonMapper, IntFunction<DealDTO> toDealDTO) {
+        this.columns = columns;
+        this.jsonMapper = jsonMapper;
+        this.restaurantOffsets = new int[columns.restaurantCount() + 1];
+        this.dealOffsets = new int[columns.dealCount() + 1];
+
+        ByteArrayOutputStream restaurants = new ByteArrayOutputStream();
+        ByteArrayOutputStream deals = new ByteArrayOutputStream();
+        // One generator per array, writing the objects back to back
+        ObjectWriter writer = jsonMapper.writer().withRootValueSeparator("");
+        try (JsonGenerator restaurantGenerator = writer.createGenerator(restaurants);
+                JsonGenerator dealGenerator = writer.createGenerator(deals)) {
+            for (int r = 0; r < columns.restaurantCount(); r++) {
+                for (int ordinal = columns.firstDealOf(r); ordinal < columns.endDealOf(r); ordinal++) {
+                    DealDTO dto = toDealDTO.apply(ordinal);
+                    if (ordinal == columns.firstDealOf(r)) {
+                        restaurantGenerator.writeStartObject();
+                        restaurantGenerator.writeStringProperty("restaurantObjectId", dto.getRestaurantObjectId());
+                        restaurantGenerator.writeStringProperty("restaurantName", dto.getRestaurantName());
+                        restaurantGenerator.writeStringProperty("restaurantAddress1", dto.getRestaurantAddress1());
+                        restaurantGenerator.writeStringProperty("restarantSuburb", dto.getRestarantSuburb());
+                        restaurantGenerator.writeStringProperty("restaurantOpen", dto.getRestaurantOpen());
+                        restaurantGenerator.writeStringProperty("restaurantClose", dto.getRestaurantClose());
+                        restaurantGenerator.writeEndObject();
+                        restaurantGenerator.flush();
+                    }
+                    dealGenerator.writeStartObject();
+                    dealGenerator.writeStringProperty("objectId", dto.getObjectId());
+                    dealGenerator.writeStringProperty("discount", dto.getDiscount());
+                    dealGenerator.writeStringProperty("dineIn", dto.getDineIn());
+                    dealGenerator.writeStringProperty("lightning", dto.getLightning());
+                    dealGenerator.writeStringProperty("open", dto.getOpen());
+                    dealGenerator.writeStringProperty("close", dto.getClose());
+                    dealGenerator.writeStringProperty("qtyLeft", dto.getQtyLeft());
+                    dealGenerator.writeEndObject();
+                    dealGenerator.flush();
+                    dealOffsets[ordinal + 1] = deals.size();
+                }
+                restaurantOffsets[r + 1] = restaurants.size();
+            }
+        }
+        this.restaurantJson = restaurants.toByteArray();
+        this.dealJson = deals.toByteArray();
+        this.byteCompatible = columns.dealCount() == 0 || matchesDTOs(toDealDTO.apply(0));
+    }
+
+    DealColumns getColumns() {
+        return columns;
+    }
+
+    boolean isByteCompatible() {
+        return byteCompatible;
+    }
+
+    /*
+     * Same bytes as the AvailableRestaurantsDTO of the selection. The selection must be
+     * over this object's columns.
+     */
+    byte[] availableRestaurants(DealSelection selection) {
+        return write(selection, DEALS_START, DEALS_END);
+    }
+
+    /*
+     * Same bytes as the AvailableRestaurantsPageDTO of the selection and cursor.
+     */
+    byte[] availableRestaurantsPage(DealSelection selection, String nextCursor) {
+        byte[] cursorJson = jsonMapper.writeValueAsBytes(nextCursor);
+        byte[] end = new byte[PAGE_CURSOR.length + cursorJson.length + PAGE_END.length];
+        System.arraycopy(PAGE_CURSOR, 0, end, 0, PAGE_CURSOR.length);
+        System.arraycopy(cursorJson, 0, end, PAGE_CURSOR.length, cursorJson.length);
+        System.arraycopy(PAGE_END, 0, end, PAGE_CURSOR.length + cursorJson.length, PAGE_END.length);
+        return write(selection, DEALS_START, end);
+    }
+
+    private byte[] write(DealSelection selection, byte[] start, byte[] end) {
+        int length = start.length + end.length + Math.max(0, selection.size() - 1);
+        for (int i = 0; i < selection.size(); i++) {
+            int ordinal = selection.ordinalAt(i);
+            int r = columns.restaurantOrdinal(ordinal);
+            // {restaurant fields + , + deal fields}
+            length += restaurantOffsets[r + 1] - restaurantOffsets[r] + dealOffsets[ordinal + 1] - dealOffsets[ordinal] - 1;
+        }
+
+        byte[] json = new byte[length];
+        System.arraycopy(start, 0, json, 0, start.length);
+        int position = start.length;
+        for (int i = 0; i < selection.size(); i++) {
+            int ordinal = selection.ordinalAt(i);
+            int r = columns.restaurantOrdinal(ordinal);
+            if (i > 0) {
+                json[position++] = ',';
+            }
+            int restaurantLength = restaurantOffsets[r + 1] - restaurantOffsets[r] - 1;
+            System.arraycopy(restaurantJson, restaurantOffsets[r], json, position, restaurantLength);
+            position += restaurantLength;
+            json[position++] = ',';
+            int dealLength = dealOffsets[ordinal + 1] - dealOffsets[ordinal] - 1;
+            System.arraycopy(dealJson, dealOffsets[ordinal] + 1, json, position, dealLength);
+            position += dealLength;
+        }
+        System.arraycopy(end, 0, json, position, end.length);
+        return json;
+    }
+
+    private boolean matchesDTOs(DealDTO first) {
+        DealSelection sample = new DealSelection(columns, new int[] { 0 });
+        return Arrays.equals(availableRestaurants(sample),
+                        jsonMapper.writeValueAsBytes(new AvailableRestaurantsDTO(List.of(first))))
+                && Arrays.equals(availableRestaurantsPage(sample, "cursor"),
+                        jsonMapper.writeValueAsBytes(new AvailableRestaurantsPageDTO(List.of(first), "cursor")))
+                && Arrays.equals(availableRestaurantsPage(sample, null),
+                        jsonMapper.writeValueAsBytes(new AvailableRestaurantsPageDTO(List.of(first), null)));
+    }
+}
@@ -2,12 +2,23 @@ package com.eatclub.mapper;
 
 import com.eatclub.model.DealAtRestaurant;
 import com.eatclub.model.PeakTimeWindow;
+import com.eatclub.model.DealPage;
 import com.eatclub.model.dtos.AvailableRestaurantsDTO;
+import com.eatclub.model.dtos.AvailableRestaurantsPageDTO;
+import com.eatclub.model.dtos.CompactAvailableRestaurantsDTO;
+import com.eatclub.model.dtos.DealDTO;
 import com.eatclub.model.dtos.PeakTimeDTO;
+import com.eatclub.model.dtos.PeakTimesDTO;
 
 import java.util.List;
 
 public interface IRestaurantMapper {
     AvailableRestaurantsDTO toAvailableRestaurantsDTO(List<DealAtRestaurant> dealAtRestaurants);
+    AvailableRestaurantsPageDTO toAvailableRestaurantsPageDTO(DealPage dealPage, String nextCursor);
+    byte[] toAvailableRestaurantsJson(List<DealAtRestaurant> dealAtRestaurants);
+    byte[] toAvailableRestaurantsPageJson(DealPage dealPage, String nextCursor);
+    CompactAvailableRestaurantsDTO toCompactAvailableRestaurantsDTO(List<DealAtRestaurant> dealAtRestaurants, String nextCursor);
+    DealDTO toDealDTO(DealAtRestaurant dealAtRestaurant);
     PeakTimeDTO toPeakTimeDTO(PeakTimeWindow peakTimeWindow);
+    PeakTimesDTO toPeakTimesDTO(List<PeakTimeWindow> peakTimeWindows);
 }
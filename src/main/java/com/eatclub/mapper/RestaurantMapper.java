@@ -1,45 +1,250 @@
 package com.eatclub.mapper;
 
 import com.eatclub.common.Constants;
+import com.eatclub.metrics.RestaurantMetrics;
 import com.eatclub.model.Deal;
 import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealPage;
 import com.eatclub.model.PeakTimeWindow;
 import com.eatclub.model.Restaurant;
 import com.eatclub.model.dtos.AvailableRestaurantsDTO;
+import com.eatclub.model.dtos.AvailableRestaurantsPageDTO;
+import com.eatclub.model.dtos.CompactAvailableRestaurantsDTO;
+import com.eatclub.model.dtos.CompactDealDTO;
+import com.eatclub.model.dtos.CompactRestaurantDTO;
 import com.eatclub.model.dtos.DealDTO;
 import com.eatclub.model.dtos.PeakTimeDTO;
+import com.eatclub.model.dtos.PeakTimesDTO;
+import com.eatclub.repository.DealColumns;
+import com.eatclub.repository.DealSelection;
+import com.eatclub.repository.ILocalRepository;
+import com.eatclub.repository.ISnapshotListener;
+import com.eatclub.repository.RestaurantSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
-public class RestaurantMapper implements IRestaurantMapper {
+public class RestaurantMapper implements IRestaurantMapper, ISnapshotListener {
 
+    private static final Logger log = LoggerFactory.getLogger(RestaurantMapper.class);
+
+    private final RestaurantMetrics metrics;
+    private final JsonMapper jsonMapper;
+
+    private volatile PublishedFragments fragments = new PublishedFragments(null, null);
+
+    /*
+     * Registers for the repository's snapshots, so the JSON fragments of each one are
+     * rendered by the thread publishing it, before any request can read from it.
+     */
+    @Autowired
+    public RestaurantMapper(RestaurantMetrics metrics, JsonMapper jsonMapper, ILocalRepository restaurantRepository) {
+        this(metrics, jsonMapper);
+        restaurantRepository.addSnapshotListener(this);
+    }
+
+    /*
+     * Without a repository to listen to, only snapshots passed to beforePublish get
+     * fragments; everything else is mapped through the DTOs.
+     */
+    public RestaurantMapper(RestaurantMetrics metrics, JsonMapper jsonMapper) {
+        this.metrics = metrics;
+        this.jsonMapper = jsonMapper;
+    }
+
+    public RestaurantMapper(RestaurantMetrics metrics) {
+        this(metrics, JsonMapper.builder().build());
+    }
+
+    public RestaurantMapper() {
+        this(RestaurantMetrics.noop());
+    }
+
+    /*
+     * The list mappings are timed; toDealDTO on its own isn't, since it runs once per
+     * deal, where a timer would cost about as much as the mapping.
+     */
     public AvailableRestaurantsDTO toAvailableRestaurantsDTO(List<DealAtRestaurant> dealAtRestaurants) {
-        List<DealDTO> dealDTOs = dealAtRestaurants.stream()
-                .map(dealAtRestaurant -> {
-                    DealDTO dto = new DealDTO();
+        return metrics.mapping("toAvailableRestaurantsDTO").record(() ->
+                new AvailableRestaurantsDTO(toDealDTOs(dealAtRestaurants)));
+    }
+
+    public AvailableRestaurantsPageDTO toAvailableRestaurantsPageDTO(DealPage dealPage, String nextCursor) {
+        return metrics.mapping("toAvailableRestaurantsPageDTO").record(() ->
+                new AvailableRestaurantsPageDTO(toDealDTOs(dealPage.getDeals()), nextCursor));
+    }
+
+    /*
+     * The serialized AvailableRestaurantsDTO. Repository results are written from the
+     * JSON fragments of their snapshot; anything else goes through the DTOs.
+     */
+    public byte[] toAvailableRestaurantsJson(List<DealAtRestaurant> dealAtRestaurants) {
+        return metrics.mapping("toAvailableRestaurantsJson").record(() -> {
+            DealJsonFragments current = fragmentsFor(dealAtRestaurants);
+            return current != null ? current.availableRestaurants((DealSelection) dealAtRestaurants)
+                    : jsonMapper.writeValueAsBytes(new AvailableRestaurantsDTO(toDealDTOs(dealAtRestaurants)));
+        });
+    }
+
+    public byte[] toAvailableRestaurantsPageJson(DealPage dealPage, String nextCursor) {
+        return metrics.mapping("toAvailableRestaurantsPageJson").record(() -> {
+            DealJsonFragments current = fragmentsFor(dealPage.getDeals());
+            return current != null ? current.availableRestaurantsPage((DealSelection) dealPage.getDeals(), nextCursor)
+                    : jsonMapper.writeValueAsBytes(new AvailableRestaurantsPageDTO(toDealDTOs(dealPage.getDeals()),
+                            nextCursor));
+        });
+    }
+
+    /*
+     * Restaurants are listed in the order their first deal appears. For a DealSelection
+     * both are read straight from the columns.
+     */
+    public CompactAvailableRestaurantsDTO toCompactAvailableRestaurantsDTO(List<DealAtRestaurant> dealAtRestaurants,
+            String nextCursor) {
+        return metrics.mapping("toCompactAvailableRestaurantsDTO").record(() -> {
+            Map<Restaurant, Integer> restaurantIndexes = new IdentityHashMap<>();
+            List<CompactRestaurantDTO> restaurants = new ArrayList<>();
+            List<CompactDealDTO> deals = new ArrayList<>(dealAtRestaurants.size());
+            if (dealAtRestaurants instanceof DealSelection selection) {
+                DealColumns columns = selection.getColumns();
+                for (int i = 0; i < selection.size(); i++) {
+                    int ordinal = selection.ordinalAt(i);
+                    Restaurant restaurant = columns.restaurantOf(ordinal);
+                    LocalTime dealOpen = columns.hasOwnWindow(ordinal) ? columns.openTime(ordinal) : restaurant.getOpenTime();
+                    LocalTime dealClose = columns.hasOwnWindow(ordinal) ? columns.closeTime(ordinal) : restaurant.getCloseTime();
+                    deals.add(new CompactDealDTO(compactIndexOf(restaurant, restaurantIndexes, restaurants),
+                            columns.objectId(ordinal), columns.discount(ordinal), columns.isDineIn(ordinal),
+                            columns.isLightning(ordinal), dealOpen.format(Constants.H_MM_A_TIME_FORMATTER),
+                            dealClose.format(Constants.H_MM_A_TIME_FORMATTER), columns.qtyLeft(ordinal)));
+                }
+            } else {
+                for (DealAtRestaurant dealAtRestaurant : dealAtRestaurants) {
                     Restaurant restaurant = dealAtRestaurant.getRestaurant();
                     Deal deal = dealAtRestaurant.getDeal();
-                    dto.setRestaurantObjectId(restaurant.getObjectId());
-                    dto.setRestaurantName(restaurant.getName());
-                    dto.setRestaurantAddress1(restaurant.getAddress1());
-                    dto.setRestarantSuburb(restaurant.getSuburb());
-                    dto.setRestaurantOpen(restaurant.getOpenTime().format(Constants.H_MM_A_TIME_FORMATTER));
-                    dto.setRestaurantClose(restaurant.getCloseTime().format(Constants.H_MM_A_TIME_FORMATTER));
-                    dto.setObjectId(deal.getObjectId());
-                    dto.setDiscount(deal.getDiscount().toString());
-                    dto.setDineIn(deal.getDineIn().toString());
-                    dto.setLightning(deal.getLightning().toString());
-                    dto.setOpen(restaurant.getOpenTime().format(Constants.H_MM_A_TIME_FORMATTER));
-                    dto.setClose(restaurant.getCloseTime().format(Constants.H_MM_A_TIME_FORMATTER));
-                    dto.setQtyLeft(deal.getQtyLeft().toString());
-                    return dto;
-                })
+                    LocalTime dealOpen = deal.hasOwnWindow() ? deal.getOpenTime() : restaurant.getOpenTime();
+                    LocalTime dealClose = deal.hasOwnWindow() ? deal.getCloseTime() : restaurant.getCloseTime();
+                    deals.add(new CompactDealDTO(compactIndexOf(restaurant, restaurantIndexes, restaurants),
+                            deal.getObjectId(), deal.getDiscount(), deal.getDineIn(), deal.getLightning(),
+                            dealOpen.format(Constants.H_MM_A_TIME_FORMATTER),
+                            dealClose.format(Constants.H_MM_A_TIME_FORMATTER), deal.getQtyLeft()));
+                }
+            }
+            return new CompactAvailableRestaurantsDTO(restaurants, deals, nextCursor);
+        });
+    }
+
+    private static int compactIndexOf(Restaurant restaurant, Map<Restaurant, Integer> restaurantIndexes,
+            List<CompactRestaurantDTO> restaurants) {
+        return restaurantIndexes.computeIfAbsent(restaurant, key -> {
+            restaurants.add(new CompactRestaurantDTO(key.getObjectId(), key.getName(), key.getAddress1(),
+                    key.getSuburb(), key.getOpenTime().format(Constants.H_MM_A_TIME_FORMATTER),
+                    key.getCloseTime().format(Constants.H_MM_A_TIME_FORMATTER)));
+            return restaurants.size() - 1;
+        });
+    }
+
+    /*
+     * Renders the fragments of the next snapshot next to those of the one being served,
+     * which requests already under way may still be reading.
+     */
+    @Override
+    public void beforePublish(RestaurantSnapshot next) {
+        DealColumns columns = next.getDealColumns();
+        DealJsonFragments rendered = new DealJsonFragments(columns, jsonMapper, ordinal -> toDealDTO(columns, ordinal));
+        if (!rendered.isByteCompatible()) {
+            log.warn("Pre-encoded deal JSON doesn't match the configured JsonMapper, mapping through DTOs");
+        }
+        fragments = new PublishedFragments(rendered, fragments.latest());
+    }
+
+    /*
+     * A request that still reads the previous snapshot maps through the DTOs from here on.
+     */
+    @Override
+    public void afterPublish() {
+        fragments = new PublishedFragments(fragments.latest(), null);
+    }
+
+    boolean hasFragmentsFor(DealColumns columns) {
+        return fragments.of(columns) != null;
+    }
+
+    private DealJsonFragments fragmentsFor(List<DealAtRestaurant> dealAtRestaurants) {
+        if (!(dealAtRestaurants instanceof DealSelection selection)) {
+            return null;
+        }
+        DealJsonFragments current = fragments.of(selection.getColumns());
+        return current != null && current.isByteCompatible() ? current : null;
+    }
+
+    /*
+     * Repository results are DealSelections over the deal columns; those are mapped
+     * straight from the columns, so no Deal or DealAtRestaurant is ever built for them.
+     */
+    private List<DealDTO> toDealDTOs(List<DealAtRestaurant> dealAtRestaurants) {
+        if (dealAtRestaurants instanceof DealSelection selection) {
+            List<DealDTO> dealDTOs = new ArrayList<>(selection.size());
+            for (int i = 0; i < selection.size(); i++) {
+                dealDTOs.add(toDealDTO(selection.getColumns(), selection.ordinalAt(i)));
+            }
+            return dealDTOs;
+        }
+        return dealAtRestaurants.stream()
+                .map(this::toDealDTO)
                 .collect(Collectors.toList());
+    }
 
-        return new AvailableRestaurantsDTO(dealDTOs);
+    public DealDTO toDealDTO(DealAtRestaurant dealAtRestaurant) {
+        DealDTO dto = new DealDTO();
+        Restaurant restaurant = dealAtRestaurant.getRestaurant();
+        Deal deal = dealAtRestaurant.getDeal();
+        dto.setRestaurantObjectId(restaurant.getObjectId());
+        dto.setRestaurantName(restaurant.getName());
+        dto.setRestaurantAddress1(restaurant.getAddress1());
+        dto.setRestarantSuburb(restaurant.getSuburb());
+        dto.setRestaurantOpen(restaurant.getOpenTime().format(Constants.H_MM_A_TIME_FORMATTER));
+        dto.setRestaurantClose(restaurant.getCloseTime().format(Constants.H_MM_A_TIME_FORMATTER));
+        dto.setObjectId(deal.getObjectId());
+        dto.setDiscount(deal.getDiscount().toString());
+        dto.setDineIn(deal.getDineIn().toString());
+        dto.setLightning(deal.getLightning().toString());
+        LocalTime dealOpen = deal.hasOwnWindow() ? deal.getOpenTime() : restaurant.getOpenTime();
+        LocalTime dealClose = deal.hasOwnWindow() ? deal.getCloseTime() : restaurant.getCloseTime();
+        dto.setOpen(dealOpen.format(Constants.H_MM_A_TIME_FORMATTER));
+        dto.setClose(dealClose.format(Constants.H_MM_A_TIME_FORMATTER));
+        dto.setQtyLeft(deal.getQtyLeft().toString());
+        return dto;
+    }
+
+    private DealDTO toDealDTO(DealColumns deals, int ordinal) {
+        DealDTO dto = new DealDTO();
+        Restaurant restaurant = deals.restaurantOf(ordinal);
+        dto.setRestaurantObjectId(restaurant.getObjectId());
+        dto.setRestaurantName(restaurant.getName());
+        dto.setRestaurantAddress1(restaurant.getAddress1());
+        dto.setRestarantSuburb(restaurant.getSuburb());
+        dto.setRestaurantOpen(restaurant.getOpenTime().format(Constants.H_MM_A_TIME_FORMATTER));
+        dto.setRestaurantClose(restaurant.getCloseTime().format(Constants.H_MM_A_TIME_FORMATTER));
+        dto.setObjectId(deals.objectId(ordinal));
+        dto.setDiscount(Float.toString(deals.discount(ordinal)));
+        dto.setDineIn(Boolean.toString(deals.isDineIn(ordinal)));
+        dto.setLightning(Boolean.toString(deals.isLightning(ordinal)));
+        LocalTime dealOpen = deals.hasOwnWindow(ordinal) ? deals.openTime(ordinal) : restaurant.getOpenTime();
+        LocalTime dealClose = deals.hasOwnWindow(ordinal) ? deals.closeTime(ordinal) : restaurant.getCloseTime();
+        dto.setOpen(dealOpen.format(Constants.H_MM_A_TIME_FORMATTER));
+        dto.setClose(dealClose.format(Constants.H_MM_A_TIME_FORMATTER));
+        dto.setQtyLeft(Integer.toString(deals.qtyLeft(ordinal)));
+        return dto;
     }
 
     public PeakTimeDTO toPeakTimeDTO(PeakTimeWindow peakTimeWindow) {
@@ -48,4 +253,24 @@ public class RestaurantMapper implements IRestaurantMapper {
                 peakTimeWindow.getPeakTimeEnd().format(Constants.H_MM_A_TIME_FORMATTER));
     }
 
+    public PeakTimesDTO toPeakTimesDTO(List<PeakTimeWindow> peakTimeWindows) {
+        return metrics.mapping("toPeakTimesDTO").record(() -> new PeakTimesDTO(peakTimeWindows.stream()
+                .map(this::toPeakTimeDTO)
+                .collect(Collectors.toList())));
+    }
+
+    /*
+     * The fragments of the latest snapshot and, until it is published, of the one
+     * before it. Either may be null.
+     */
+    private record PublishedFragments(DealJsonFragments latest, DealJsonFragments previous) {
+
+        DealJsonFragments of(DealColumns columns) {
+            if (latest != null && latest.getColumns() == columns) {
+                return latest;
+            }
+            return previous != null && previous.getColumns() == columns ? previous : null;
+        }
+    }
+
 }
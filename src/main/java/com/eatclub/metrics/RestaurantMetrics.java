@@ -0,0 +1,133 @@
+package com.eatclub.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Timers and counters for the stages of the request and refresh paths, all named
+ * eatclub.* so one distribution setting covers them (see application.properties).
+ * Meters are looked up once per tag value and then reused, so timing a call on the
+ * request path costs a map hit rather than building and registering a meter id.
+ */
+@Component
+public class RestaurantMetrics {
+
+    public static final String REPOSITORY_LOOKUP = "eatclub.repository.lookup";
+    public static final String SERVICE_CALL = "eatclub.service.call";
+    public static final String MAPPING = "eatclub.mapper.mapping";
+    public static final String SERIALIZATION = "eatclub.response.serialization";
+    public static final String FEED_FETCH = "eatclub.feed.fetch";
+    public static final String FEED_PARSE = "eatclub.feed.parse";
+    public static final String SNAPSHOT_BUILD = "eatclub.snapshot.build";
+    public static final String FEED_REFRESHES = "eatclub.feed.refreshes";
+    public static final String FEED_RETRIES = "eatclub.feed.retries";
+    public static final String FEED_REJECTIONS = "eatclub.feed.rejections";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> repositoryLookups = new ConcurrentHashMap<>();
+    private final Map<String, Timer> serviceCalls = new ConcurrentHashMap<>();
+    private final Map<String, Timer> mappings = new ConcurrentHashMap<>();
+    private final Map<String, Timer> serializations = new ConcurrentHashMap<>();
+    private final Map<String, Counter> feedRefreshes = new ConcurrentHashMap<>();
+    private final Map<String, Counter> feedRetries = new ConcurrentHashMap<>();
+    private final Counter feedRejections;
+    private final Timer feedFetch;
+    private final Timer feedParse;
+    private final Timer snapshotBuild;
+
+    public RestaurantMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.feedFetch = Timer.builder(FEED_FETCH)
+                .description("Upstream feed request, from sending it to having the parsed feed or a 304")
+                .register(meterRegistry);
+        this.feedParse = Timer.builder(FEED_PARSE)
+                .description("Parsing the feed body; it is streamed, so this includes reading it off the network")
+                .register(meterRegistry);
+        this.snapshotBuild = Timer.builder(SNAPSHOT_BUILD)
+                .description("Building a snapshot and its indexes from a parsed feed")
+                .register(meterRegistry);
+        this.feedRejections = Counter.builder(FEED_REJECTIONS)
+                .description("Upstream requests failed fast because the circuit breaker was open")
+                .register(meterRegistry);
+    }
+
+    /*
+     * For code constructed outside Spring, e.g. in tests and benchmarks: meters on a
+     * registry with nothing behind it record nothing.
+     */
+    public static RestaurantMetrics noop() {
+        return new RestaurantMetrics(new CompositeMeterRegistry());
+    }
+
+    public Timer repositoryLookup(String operation) {
+        return repositoryLookups.computeIfAbsent(operation, key -> Timer.builder(REPOSITORY_LOOKUP)
+                .description("Reads against the current restaurant snapshot")
+                .tag("operation", key)
+                .register(meterRegistry));
+    }
+
+    public Timer serviceCall(String operation) {
+        return serviceCalls.computeIfAbsent(operation, key -> Timer.builder(SERVICE_CALL)
+                .description("Service computations, including the repository reads they make")
+                .tag("operation", key)
+                .register(meterRegistry));
+    }
+
+    public Timer mapping(String operation) {
+        return mappings.computeIfAbsent(operation, key -> Timer.builder(MAPPING)
+                .description("Mapping domain objects to response DTOs")
+                .tag("operation", key)
+                .register(meterRegistry));
+    }
+
+    public Timer serialization(String endpoint) {
+        return serializations.computeIfAbsent(endpoint, key -> Timer.builder(SERIALIZATION)
+                .description("Writing response bodies as JSON")
+                .tag("endpoint", key)
+                .register(meterRegistry));
+    }
+
+    public Timer feedFetch() {
+        return feedFetch;
+    }
+
+    public Timer feedParse() {
+        return feedParse;
+    }
+
+    public Timer snapshotBuild() {
+        return snapshotBuild;
+    }
+
+    /*
+     * outcome is one of updated, unchanged (same content), not_modified (304) or failed.
+     */
+    public void countFeedRefresh(String outcome) {
+        feedRefreshes.computeIfAbsent(outcome, key -> Counter.builder(FEED_REFRESHES)
+                .description("Upstream feed refreshes by outcome")
+                .tag("outcome", key)
+                .register(meterRegistry))
+                .increment();
+    }
+
+    /*
+     * cause is the status code that was retried, or io_error for a failed exchange.
+     */
+    public void countFeedRetry(String cause) {
+        feedRetries.computeIfAbsent(cause, key -> Counter.builder(FEED_RETRIES)
+                .description("Upstream requests retried, by what went wrong with the previous attempt")
+                .tag("cause", key)
+                .register(meterRegistry))
+                .increment();
+    }
+
+    public void countFeedRejection() {
+        feedRejections.increment();
+    }
+}
@@ -0,0 +1,65 @@
+package com.eatclub.metrics;
+
+import com.eatclub.repository.ILocalRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Gauges over the snapshot currently being served. They read the serving repository's
+ * summary of it on every scrape, so they follow each refresh, or each newly mapped
+ * file, without being updated.
+ */
+@Component
+public class SnapshotMetrics implements MeterBinder {
+
+    private final ILocalRepository restaurantRepository;
+    private final Clock clock;
+
+    @Autowired
+    public SnapshotMetrics(ILocalRepository restaurantRepository) {
+        this(restaurantRepository, Clock.systemUTC());
+    }
+
+    SnapshotMetrics(ILocalRepository restaurantRepository, Clock clock) {
+        this.restaurantRepository = restaurantRepository;
+        this.clock = clock;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("eatclub.snapshot.restaurants", restaurantRepository,
+                        repository -> repository.getSnapshotSummary().restaurantCount())
+                .description("Restaurants in the current snapshot")
+                .register(registry);
+        Gauge.builder("eatclub.snapshot.deals", restaurantRepository,
+                        repository -> repository.getSnapshotSummary().dealCount())
+                .description("Deals in the current snapshot")
+                .register(registry);
+        Gauge.builder("eatclub.snapshot.version", restaurantRepository,
+                        repository -> repository.getSnapshotSummary().version())
+                .description("Version of the current snapshot; it goes up with every load")
+                .register(registry);
+        TimeGauge.builder("eatclub.snapshot.age", restaurantRepository, TimeUnit.MILLISECONDS,
+                        repository -> Duration.between(repository.getSnapshotSummary().loadedAt(), clock.instant()).toMillis())
+                .description("Time since the data in the current snapshot was fetched")
+                .register(registry);
+        Gauge.builder("eatclub.snapshot.heap", restaurantRepository,
+                        repository -> repository.getSnapshotSummary().estimatedHeapBytes())
+                .description("Estimated heap retained by the current snapshot and its indexes")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("eatclub.snapshot.dictionary.saved", restaurantRepository,
+                        repository -> repository.getSnapshotSummary().dictionarySavedBytes())
+                .description("Estimated heap saved by sharing suburb and cuisine values between restaurants")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
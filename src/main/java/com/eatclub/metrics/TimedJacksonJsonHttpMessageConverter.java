@@ -0,0 +1,55 @@
+package com.eatclub.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The JSON converter Spring MVC writes response bodies with, timing each write under
+ * the route that produced it (e.g. /api/v1/restaurants/available), so serialization
+ * cost can be told apart per endpoint from the rest of the request.
+ */
+public class TimedJacksonJsonHttpMessageConverter extends JacksonJsonHttpMessageConverter {
+
+    private static final String UNKNOWN_ENDPOINT = "UNKNOWN";
+
+    private final RestaurantMetrics metrics;
+
+    public TimedJacksonJsonHttpMessageConverter(JsonMapper jsonMapper, RestaurantMetrics metrics) {
+        super(jsonMapper);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, ResolvableType resolvableType, HttpOutputMessage outputMessage,
+            Map<String, Object> hints) throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, resolvableType, outputMessage, hints);
+        } finally {
+            metrics.serialization(currentEndpoint()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern) {
+                return pattern;
+            }
+        }
+        return UNKNOWN_ENDPOINT;
+    }
+}
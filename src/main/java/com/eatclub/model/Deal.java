@@ -1,5 +1,7 @@
 package com.eatclub.model;
 
+import java.time.LocalTime;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,4 +16,20 @@ public class Deal {
     private Boolean dineIn;
     private Boolean lightning;
     private Integer qtyLeft;
+
+    /*
+     * The deal's own redemption window, when the feed has one. Null for deals that
+     * run for as long as the restaurant is open.
+     */
+    private LocalTime openTime;
+    private LocalTime closeTime;
+
+    public Deal(String objectId, String restaurantId, Float discount, Boolean dineIn, Boolean lightning,
+            Integer qtyLeft) {
+        this(objectId, restaurantId, discount, dineIn, lightning, qtyLeft, null, null);
+    }
+
+    public boolean hasOwnWindow() {
+        return openTime != null && closeTime != null;
+    }
 }
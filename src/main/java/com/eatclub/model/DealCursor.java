@@ -0,0 +1,33 @@
+package com.eatclub.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+ * Where the next page of /available starts: a position in the deal ordering of one
+ * snapshot, for one time of day. Handed to clients as an opaque URL-safe string.
+ */
+public record DealCursor(long snapshotVersion, int minuteOfDay, int nextOrdinal) {
+
+    public String encode() {
+        String value = snapshotVersion + "." + minuteOfDay + "." + nextOrdinal;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static DealCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split("\\.");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor: '" + cursor + "'");
+            }
+            DealCursor decoded = new DealCursor(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            if (decoded.nextOrdinal() < 0) {
+                throw new IllegalArgumentException("Invalid cursor: '" + cursor + "'");
+            }
+            return decoded;
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and Base64 errors are IllegalArgumentExceptions too
+            throw new IllegalArgumentException("Invalid cursor: '" + cursor + "'", e);
+        }
+    }
+}
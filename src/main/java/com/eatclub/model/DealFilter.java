@@ -0,0 +1,95 @@
+package com.eatclub.model;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Optional attribute filters on available deals; null fields don't filter. Suburb and
+ * cuisine match case-insensitively.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DealFilter {
+    private String suburb;
+    private String cuisine;
+    private Boolean dineIn;
+    private Boolean lightning;
+    private Float minDiscount;
+    private Integer minQtyLeft;
+
+    public boolean isEmpty() {
+        return suburb == null && cuisine == null && dineIn == null && lightning == null
+                && minDiscount == null && minQtyLeft == null;
+    }
+
+    public void validate() {
+        if (suburb != null && suburb.isBlank()) {
+            throw new IllegalArgumentException("suburb must not be blank");
+        }
+        if (cuisine != null && cuisine.isBlank()) {
+            throw new IllegalArgumentException("cuisine must not be blank");
+        }
+        if (minDiscount != null && minDiscount.isNaN()) {
+            throw new IllegalArgumentException("minDiscount must be a number");
+        }
+    }
+
+    public boolean matches(DealAtRestaurant dealAtRestaurant) {
+        Restaurant restaurant = dealAtRestaurant.getRestaurant();
+        Deal deal = dealAtRestaurant.getDeal();
+        if (suburb != null && (restaurant.getSuburb() == null || !normalize(restaurant.getSuburb()).equals(normalize(suburb)))) {
+            return false;
+        }
+        if (cuisine != null && (restaurant.getCuisines() == null
+                || restaurant.getCuisines().stream().map(DealFilter::normalize).noneMatch(normalize(cuisine)::equals))) {
+            return false;
+        }
+        if (dineIn != null && !dineIn.equals(deal.getDineIn())) {
+            return false;
+        }
+        if (lightning != null && !lightning.equals(deal.getLightning())) {
+            return false;
+        }
+        if (minDiscount != null && deal.getDiscount() < minDiscount) {
+            return false;
+        }
+        return minQtyLeft == null || deal.getQtyLeft() >= minQtyLeft;
+    }
+
+    /*
+     * Canonical form of the set filters, for cache keys and ETags. Empty when nothing
+     * is filtered, so unfiltered queries keep their keys.
+     */
+    public String toQueryKey() {
+        StringBuilder key = new StringBuilder();
+        if (suburb != null) {
+            key.append("-suburb=").append(URLEncoder.encode(normalize(suburb), StandardCharsets.UTF_8));
+        }
+        if (cuisine != null) {
+            key.append("-cuisine=").append(URLEncoder.encode(normalize(cuisine), StandardCharsets.UTF_8));
+        }
+        if (dineIn != null) {
+            key.append("-dineIn=").append(dineIn);
+        }
+        if (lightning != null) {
+            key.append("-lightning=").append(lightning);
+        }
+        if (minDiscount != null) {
+            key.append("-minDiscount=").append(minDiscount);
+        }
+        if (minQtyLeft != null) {
+            key.append("-minQtyLeft=").append(minQtyLeft);
+        }
+        return key.toString();
+    }
+
+    public static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
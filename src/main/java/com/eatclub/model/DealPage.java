@@ -0,0 +1,24 @@
+package com.eatclub.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DealPage {
+    private long snapshotVersion;
+    private List<DealAtRestaurant> deals;
+
+    /*
+     * Position in the snapshot's deal ordering to resume from, or -1 on the last page.
+     */
+    private int nextOrdinal;
+
+    public boolean hasNext() {
+        return nextOrdinal >= 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.eatclub.model;
+
+/*
+ * Orders for top-K queries on /available; the best deal (highest value) comes first.
+ */
+public enum DealSort {
+    DISCOUNT("discount"),
+    QTY_LEFT("qtyLeft");
+
+    private final String parameter;
+
+    DealSort(String parameter) {
+        this.parameter = parameter;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    public static DealSort fromParameter(String parameter) {
+        for (DealSort sort : values()) {
+            if (sort.parameter.equalsIgnoreCase(parameter)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("sort must be one of: discount, qtyLeft");
+    }
+}
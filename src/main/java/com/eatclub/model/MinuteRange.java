@@ -0,0 +1,11 @@
+package com.eatclub.model;
+
+/*
+ * Inclusive range of minutes of the day. MINUTES_PER_DAY itself stands for the end
+ * of the day (24:00), so hours that run past midnight are represented as the two
+ * ranges [open, MINUTES_PER_DAY] and [0, close].
+ *
+ * MinuteRanges.weeklyRanges uses the same record for minutes of the week.
+ */
+public record MinuteRange(int fromMinute, int toMinute) {
+}
@@ -0,0 +1,39 @@
+package com.eatclub.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+/*
+ * One interval a restaurant is open, starting on the given day. Like the restaurant's
+ * own hours, open and close are both inclusive and a close at or before the open runs
+ * past midnight into the next day (open == close being open for 24 hours).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OpeningHours {
+    private DayOfWeek day;
+    private LocalTime openTime;
+    private LocalTime closeTime;
+
+    /*
+     * Full English day names or their three-letter abbreviations, in any case.
+     */
+    public static DayOfWeek parseDay(String day) {
+        if (day != null) {
+            for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+                if (dayOfWeek.name().equalsIgnoreCase(day.trim())
+                        || dayOfWeek.getDisplayName(TextStyle.SHORT, Locale.ENGLISH).equalsIgnoreCase(day.trim())) {
+                    return dayOfWeek;
+                }
+            }
+        }
+        throw new IllegalArgumentException("day must be a day of the week, e.g. 'monday' or 'mon', got '" + day + "'");
+    }
+}
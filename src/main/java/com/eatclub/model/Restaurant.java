@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -16,4 +17,22 @@ public class Restaurant {
     private String suburb;
     private LocalTime openTime;
     private LocalTime closeTime;
+    private List<String> cuisines;
+
+    /*
+     * The hours kept on each day of the week, any number of intervals per day, when the
+     * feed has them. Empty means open from openTime to closeTime every day. openTime and
+     * closeTime remain the hours used by queries that don't name a day.
+     */
+    private List<OpeningHours> openingHours;
+
+    public Restaurant(String objectId, String name, String address1, String suburb, LocalTime openTime,
+            LocalTime closeTime) {
+        this(objectId, name, address1, suburb, openTime, closeTime, List.of());
+    }
+
+    public Restaurant(String objectId, String name, String address1, String suburb, LocalTime openTime,
+            LocalTime closeTime, List<String> cuisines) {
+        this(objectId, name, address1, suburb, openTime, closeTime, cuisines, List.of());
+    }
 }
@@ -0,0 +1,15 @@
+package com.eatclub.model.dtos;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailableRestaurantsPageDTO {
+    private List<DealDTO> deals;
+    private String nextCursor;
+}
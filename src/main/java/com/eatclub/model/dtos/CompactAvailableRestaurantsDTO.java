@@ -0,0 +1,21 @@
+package com.eatclub.model.dtos;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * The available deals in the compact form served to binary clients: every restaurant
+ * is listed once and deals refer to it by its index in restaurants, in the same order
+ * as the deals of the JSON response. nextCursor is only set on paged responses.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactAvailableRestaurantsDTO {
+    private List<CompactRestaurantDTO> restaurants;
+    private List<CompactDealDTO> deals;
+    private String nextCursor;
+}
@@ -0,0 +1,23 @@
+package com.eatclub.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Unlike DealDTO, values keep their types. open and close are the deal's effective
+ * window: its own one, or its restaurant's hours.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactDealDTO {
+    private int restaurant;
+    private String objectId;
+    private float discount;
+    private boolean dineIn;
+    private boolean lightning;
+    private String open;
+    private String close;
+    private int qtyLeft;
+}
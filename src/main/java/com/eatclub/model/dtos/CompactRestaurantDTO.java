@@ -1,6 +1,4 @@
-package com.eatclub.model.ec;
-
-import java.util.List;
+package com.eatclub.model.dtos;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,14 +7,11 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class RestaurantDTO {
+public class CompactRestaurantDTO {
     private String objectId;
     private String name;
     private String address1;
     private String suburb;
-    private List<String> cuisines;
-    private String imageLink;
     private String open;
     private String close;
-    private List<DealDTO> deals;
 }
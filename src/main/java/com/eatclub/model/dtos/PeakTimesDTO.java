@@ -1,4 +1,4 @@
-package com.eatclub.model.ec;
+package com.eatclub.model.dtos;
 
 import java.util.List;
 
@@ -9,6 +9,6 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class RestaurantsDTO {
-    private List<RestaurantDTO> restaurants;
+public class PeakTimesDTO {
+    private List<PeakTimeDTO> peakTimes;
 }
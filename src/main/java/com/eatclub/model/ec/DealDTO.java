@@ -1,18 +0,0 @@
-package com.eatclub.model.ec;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class DealDTO {
-    private String objectId;
-    private String discount;
-    private String dineIn;
-    private String lightning;
-    private String open;
-    private String close;
-    private String qtyLeft;
-}
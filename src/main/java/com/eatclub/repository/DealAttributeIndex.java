@@ -0,0 +1,125 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealSort;
+import com.eatclub.model.Restaurant;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/*
+ * Secondary indexes over the deal ordinals of a DealAvailabilityIndex, for the filters
+ * of /available. Suburbs and cuisines have many values with few deals each, so each
+ * value maps to a sorted ordinal list (a few bytes per matching deal, rather than a
+ * bit per deal in the catalog for every value). The two flags are dense and use the
+ * BitSet columns of DealColumns as they are. Discount and quantity thresholds aren't
+ * indexed; they are checked on the candidates the indexed filters leave.
+ *
+ * The sort keys of top-K queries are the primitive columns too, so ranking the live
+ * deals reads one array slot per candidate instead of unboxing through the model.
+ */
+class DealAttributeIndex {
+
+    private static final int[] NO_ORDINALS = new int[0];
+
+    private final DealColumns columns;
+    private final Map<String, int[]> dealsBySuburb;
+    private final Map<String, int[]> dealsByCuisine;
+    private final int dineInCount;
+    private final int lightningCount;
+
+    DealAttributeIndex(DealColumns columns) {
+        this.columns = columns;
+        Map<String, IntStream.Builder> suburbOrdinals = new HashMap<>();
+        Map<String, IntStream.Builder> cuisineOrdinals = new HashMap<>();
+        for (int r = 0; r < columns.restaurantCount(); r++) {
+            Restaurant restaurant = columns.restaurant(r);
+            int first = columns.firstDealOf(r);
+            int end = columns.endDealOf(r);
+            if (first == end) {
+                continue;
+            }
+            if (restaurant.getSuburb() != null) {
+                addRange(suburbOrdinals.computeIfAbsent(DealFilter.normalize(restaurant.getSuburb()), key -> IntStream.builder()),
+                        first, end);
+            }
+            if (restaurant.getCuisines() != null) {
+                // A cuisine listed twice must not put the deal into its list twice
+                Set<String> cuisines = new LinkedHashSet<>();
+                for (String cuisine : restaurant.getCuisines()) {
+                    cuisines.add(DealFilter.normalize(cuisine));
+                }
+                for (String cuisine : cuisines) {
+                    addRange(cuisineOrdinals.computeIfAbsent(cuisine, key -> IntStream.builder()), first, end);
+                }
+            }
+        }
+        this.dealsBySuburb = toArrays(suburbOrdinals);
+        this.dealsByCuisine = toArrays(cuisineOrdinals);
+        this.dineInCount = columns.dineInBits().cardinality();
+        this.lightningCount = columns.lightningBits().cardinality();
+    }
+
+    /*
+     * One ordinal set per indexed filter that is set.
+     */
+    List<OrdinalSet> setsFor(DealFilter filter) {
+        List<OrdinalSet> sets = new ArrayList<>();
+        if (filter.getSuburb() != null) {
+            sets.add(OrdinalSet.ofSorted(dealsBySuburb.getOrDefault(DealFilter.normalize(filter.getSuburb()), NO_ORDINALS)));
+        }
+        if (filter.getCuisine() != null) {
+            sets.add(OrdinalSet.ofSorted(dealsByCuisine.getOrDefault(DealFilter.normalize(filter.getCuisine()), NO_ORDINALS)));
+        }
+        if (filter.getDineIn() != null) {
+            sets.add(OrdinalSet.ofBits(columns.dineInBits(), dineInCount, filter.getDineIn(), columns.dealCount()));
+        }
+        if (filter.getLightning() != null) {
+            sets.add(OrdinalSet.ofBits(columns.lightningBits(), lightningCount, filter.getLightning(), columns.dealCount()));
+        }
+        return sets;
+    }
+
+    /*
+     * Deals without a value (NaN discount, Integer.MIN_VALUE quantity) rank below every
+     * deal that has one.
+     */
+    double sortKey(DealSort sort, int ordinal) {
+        return sortKey(columns, sort, ordinal);
+    }
+
+    static double sortKey(DealColumns columns, DealSort sort, int ordinal) {
+        return switch (sort) {
+            case DISCOUNT -> Float.isNaN(columns.discount(ordinal)) ? Float.NEGATIVE_INFINITY : columns.discount(ordinal);
+            case QTY_LEFT -> columns.qtyLeft(ordinal);
+        };
+    }
+
+    long estimatedHeapBytes() {
+        long bytes = 0;
+        for (Map<String, int[]> dealsByValue : List.of(dealsBySuburb, dealsByCuisine)) {
+            bytes += SnapshotFootprint.hashMap(dealsByValue.size());
+            for (Map.Entry<String, int[]> entry : dealsByValue.entrySet()) {
+                bytes += SnapshotFootprint.string(entry.getKey()) + SnapshotFootprint.array(entry.getValue().length, 4);
+            }
+        }
+        return bytes;
+    }
+
+    private static void addRange(IntStream.Builder ordinals, int first, int end) {
+        for (int ordinal = first; ordinal < end; ordinal++) {
+            ordinals.add(ordinal);
+        }
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, IntStream.Builder> ordinalsByValue) {
+        Map<String, int[]> arrays = new HashMap<>(ordinalsByValue.size() * 2);
+        ordinalsByValue.forEach((value, ordinals) -> arrays.put(value, ordinals.build().toArray()));
+        return arrays;
+    }
+}
@@ -0,0 +1,335 @@
+package com.eatclub.repository;
+
+import com.eatclub.common.Constants;
+import com.eatclub.common.MinuteRanges;
+import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealSort;
+import com.eatclub.model.MinuteRange;
+import com.eatclub.model.Restaurant;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+public class DealAvailabilityIndex {
+
+    private static final int LAST_MINUTE = Constants.MINUTES_PER_DAY;
+
+    /*
+     * Every deal of every restaurant, in restaurant order and then feed order. Deal
+     * ordinals index into these columns, so returning ordinals in ascending order keeps
+     * the response order of the feed.
+     */
+    private final DealColumns columns;
+
+    /*
+     * Segment tree over the minutes 0..MINUTES_PER_DAY (the last one being the
+     * end-of-day slot, as in RestaurantAvailabilityIndex). Each live range of a deal
+     * is stored on the O(log minutes) nodes that exactly cover it, so a lookup only
+     * visits one root-to-leaf path and touches just the deals live at that minute,
+     * however many deals there are in total. Node contents are packed into one array:
+     * the deals of node n are nodeDeals[nodeOffsets[n] .. nodeOffsets[n + 1]).
+     */
+    private final int[] nodeOffsets;
+    private final int[] nodeDeals;
+
+    private final DealAttributeIndex attributeIndex;
+
+    public DealAvailabilityIndex(List<Restaurant> restaurants, Map<String, List<Deal>> dealsByRestaurantId) {
+        this(new DealColumns(restaurants, dealsByRestaurantId));
+    }
+
+    public DealAvailabilityIndex(DealColumns columns) {
+        this.columns = columns;
+        List<List<MinuteRange>> liveRanges = new ArrayList<>(columns.dealCount());
+        for (int r = 0; r < columns.restaurantCount(); r++) {
+            Restaurant restaurant = columns.restaurant(r);
+            // Deals without their own window share the restaurant's ranges
+            List<MinuteRange> openRanges = MinuteRanges.of(restaurant.getOpenTime(), restaurant.getCloseTime());
+            for (int ordinal = columns.firstDealOf(r); ordinal < columns.endDealOf(r); ordinal++) {
+                liveRanges.add(columns.hasOwnWindow(ordinal)
+                        ? MinuteRanges.liveRanges(restaurant, columns.openTime(ordinal), columns.closeTime(ordinal))
+                        : openRanges);
+            }
+        }
+
+        int nodeCount = 4 * (LAST_MINUTE + 1);
+        int[] dealCountByNode = new int[nodeCount];
+        for (List<MinuteRange> ranges : liveRanges) {
+            for (MinuteRange range : ranges) {
+                insert(1, 0, LAST_MINUTE, range, -1, dealCountByNode, null);
+            }
+        }
+
+        this.nodeOffsets = new int[nodeCount + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            nodeOffsets[node + 1] = nodeOffsets[node] + dealCountByNode[node];
+        }
+        this.nodeDeals = new int[nodeOffsets[nodeCount]];
+
+        int[] nextSlotByNode = Arrays.copyOf(nodeOffsets, nodeCount);
+        for (int ordinal = 0; ordinal < liveRanges.size(); ordinal++) {
+            for (MinuteRange range : liveRanges.get(ordinal)) {
+                insert(1, 0, LAST_MINUTE, range, ordinal, nextSlotByNode, nodeDeals);
+            }
+        }
+
+        this.attributeIndex = new DealAttributeIndex(columns);
+    }
+
+    public int dealCount() {
+        return columns.dealCount();
+    }
+
+    public DealColumns getColumns() {
+        return columns;
+    }
+
+    /*
+     * Shared with the WeeklyAvailabilityIndex of the same snapshot.
+     */
+    DealAttributeIndex attributeIndex() {
+        return attributeIndex;
+    }
+
+    /*
+     * The packed segment tree, for writing it out as is (see MappedSnapshotFile).
+     */
+    int[] nodeOffsets() {
+        return nodeOffsets;
+    }
+
+    int[] nodeDeals() {
+        return nodeDeals;
+    }
+
+    /*
+     * The columns are counted with the snapshot, not here.
+     */
+    long estimatedHeapBytes() {
+        return SnapshotFootprint.array(nodeOffsets.length, 4)
+                + SnapshotFootprint.array(nodeDeals.length, 4)
+                + attributeIndex.estimatedHeapBytes();
+    }
+
+    public DealSelection findLiveAt(LocalTime time) {
+        IntStream.Builder liveOrdinals = IntStream.builder();
+        forEachLiveOrdinalAt(time, 0, Integer.MAX_VALUE, liveOrdinals::add);
+        return new DealSelection(columns, liveOrdinals.build().toArray());
+    }
+
+    /*
+     * Like findLiveAt, for the live deals that also pass the filter.
+     */
+    public DealSelection findLiveAt(LocalTime time, DealFilter filter) {
+        IntStream.Builder liveOrdinals = IntStream.builder();
+        forEachLiveOrdinalAt(time, filter, 0, Integer.MAX_VALUE, liveOrdinals::add);
+        return new DealSelection(columns, liveOrdinals.build().toArray());
+    }
+
+    /*
+     * Hands the deals live at the given time to the action in ordinal order, starting at
+     * fromOrdinal and stopping after limit deals. Returns the ordinal to resume from, or
+     * -1 when there are no more live deals.
+     *
+     * The deals of every node are stored in ordinal order, so the live deals are a merge
+     * of the sorted node slices along one root-to-leaf path. Nothing proportional to the
+     * number of live deals is allocated, which keeps streaming and paging flat on heap.
+     */
+    public int forEachLiveAt(LocalTime time, int fromOrdinal, int limit, Consumer<DealAtRestaurant> action) {
+        return forEachLiveOrdinalAt(time, fromOrdinal, limit, ordinal -> action.accept(columns.toDealAtRestaurant(ordinal)));
+    }
+
+    private int forEachLiveOrdinalAt(LocalTime time, int fromOrdinal, int limit, IntConsumer action) {
+        int minute = MinuteRanges.minuteOfDay(time);
+        int[] path = pathTo(minute);
+        int[] positions = new int[path.length];
+        for (int i = 0; i < path.length; i++) {
+            positions[i] = lowerBound(path[i], fromOrdinal);
+        }
+
+        /*
+         * Windows are minute aligned, so a deal is live strictly between two minutes
+         * only when it is live at both of them.
+         */
+        int[] nextMinutePath = time.getSecond() != 0 || time.getNano() != 0 ? pathTo(minute + 1) : null;
+
+        int emitted = 0;
+        while (true) {
+            int nextOrdinal = Integer.MAX_VALUE;
+            int nextNode = -1;
+            for (int i = 0; i < path.length; i++) {
+                if (positions[i] < nodeOffsets[path[i] + 1] && nodeDeals[positions[i]] < nextOrdinal) {
+                    nextOrdinal = nodeDeals[positions[i]];
+                    nextNode = i;
+                }
+            }
+            if (nextNode < 0) {
+                return -1;
+            }
+            // The ranges of one deal are disjoint, so a deal is stored at most once along a path
+            positions[nextNode]++;
+            if (nextMinutePath != null && !isOnPath(nextMinutePath, nextOrdinal)) {
+                continue;
+            }
+            if (emitted == limit) {
+                return nextOrdinal;
+            }
+            action.accept(nextOrdinal);
+            emitted++;
+        }
+    }
+
+    /*
+     * Like forEachLiveAt, for the live deals that also pass the filter. The deals live
+     * at the time and the deals of each indexed filter are intersected, driven by the
+     * smallest of them, so a selective filter doesn't pay for every live deal.
+     */
+    public int forEachLiveAt(LocalTime time, DealFilter filter, int fromOrdinal, int limit,
+            Consumer<DealAtRestaurant> action) {
+        return forEachLiveOrdinalAt(time, filter, fromOrdinal, limit,
+                ordinal -> action.accept(columns.toDealAtRestaurant(ordinal)));
+    }
+
+    /*
+     * The best limit deals live at the time that pass the filter, best first by the sort
+     * key (descending), ties in ordinal order. The matching deals are streamed through a
+     * heap that never holds more than limit ordinals, so this is O(matches * log limit)
+     * time and O(limit) memory.
+     */
+    public DealSelection findTopLiveAt(LocalTime time, DealFilter filter, DealSort sort, int limit) {
+        TopOrdinals top = new TopOrdinals(limit, ordinal -> attributeIndex.sortKey(sort, ordinal));
+        forEachLiveOrdinalAt(time, filter, 0, Integer.MAX_VALUE, top::offer);
+        return new DealSelection(columns, top.toSortedArray());
+    }
+
+    /*
+     * Hands the ordinals of the live deals that pass the filter to the action, as
+     * forEachLiveAt does with the deals. Returns the ordinal to resume from, or -1.
+     */
+    int forEachLiveOrdinalAt(LocalTime time, DealFilter filter, int fromOrdinal, int limit, IntConsumer action) {
+        if (filter.isEmpty()) {
+            return forEachLiveOrdinalAt(time, fromOrdinal, limit, action);
+        }
+
+        int minute = MinuteRanges.minuteOfDay(time);
+        List<OrdinalSet> sets = new ArrayList<>(attributeIndex.setsFor(filter));
+        sets.add(liveSet(pathTo(minute)));
+        if (time.getSecond() != 0 || time.getNano() != 0) {
+            sets.add(liveSet(pathTo(minute + 1)));
+        }
+        return OrdinalSet.intersect(sets.toArray(new OrdinalSet[0]), fromOrdinal, limit,
+                ordinal -> columns.matches(ordinal, filter), action);
+    }
+
+    /*
+     * The deals live at the minute whose root-to-leaf path is given. A deal is stored at
+     * most once along a path, so the size is exact.
+     */
+    private OrdinalSet liveSet(int[] path) {
+        int size = 0;
+        for (int node : path) {
+            size += nodeOffsets[node + 1] - nodeOffsets[node];
+        }
+        int liveCount = size;
+        return new OrdinalSet() {
+            @Override
+            public int size() {
+                return liveCount;
+            }
+
+            @Override
+            public int nextFrom(int ordinal) {
+                int next = NONE;
+                for (int node : path) {
+                    int position = lowerBound(node, ordinal);
+                    if (position < nodeOffsets[node + 1] && (next == NONE || nodeDeals[position] < next)) {
+                        next = nodeDeals[position];
+                    }
+                }
+                return next;
+            }
+        };
+    }
+
+    /*
+     * Nodes of the segment tree from the root down to the minute's leaf.
+     */
+    static int[] pathTo(int minute) {
+        int[] path = new int[32];
+        int depth = 0;
+        int node = 1;
+        int low = 0;
+        int high = LAST_MINUTE;
+        while (true) {
+            path[depth++] = node;
+            if (low == high) {
+                return Arrays.copyOf(path, depth);
+            }
+            int middle = (low + high) >>> 1;
+            if (minute <= middle) {
+                node = 2 * node;
+                high = middle;
+            } else {
+                node = 2 * node + 1;
+                low = middle + 1;
+            }
+        }
+    }
+
+    /*
+     * Position of the first deal of the node with an ordinal of at least the given one.
+     */
+    private int lowerBound(int node, int ordinal) {
+        int low = nodeOffsets[node];
+        int high = nodeOffsets[node + 1];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (nodeDeals[middle] < ordinal) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean isOnPath(int[] path, int ordinal) {
+        for (int node : path) {
+            int position = lowerBound(node, ordinal);
+            if (position < nodeOffsets[node + 1] && nodeDeals[position] == ordinal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * With target == null, counts the deal into every node covering the range; otherwise
+     * writes the ordinal into the next free slot of each of those nodes.
+     */
+    private static void insert(int node, int low, int high, MinuteRange range, int ordinal, int[] slotByNode,
+            int[] target) {
+        if (range.toMinute() < low || range.fromMinute() > high) {
+            return;
+        }
+        if (range.fromMinute() <= low && high <= range.toMinute()) {
+            if (target == null) {
+                slotByNode[node]++;
+            } else {
+                target[slotByNode[node]++] = ordinal;
+            }
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        insert(2 * node, low, middle, range, ordinal, slotByNode, target);
+        insert(2 * node + 1, middle + 1, high, range, ordinal, slotByNode, target);
+    }
+}
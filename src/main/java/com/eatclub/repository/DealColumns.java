@@ -0,0 +1,346 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.Restaurant;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/*
+ * The deals of a snapshot stored column by column in primitive arrays, instead of one
+ * Deal object (boxed fields and a copy of the restaurant id) per deal. Deals are
+ * grouped by restaurant, in restaurant order and then feed order; a deal's position in
+ * that order is its ordinal, the same ordinal the deal indexes use. The deals of the
+ * restaurant at index r are the ordinals restaurantDealStart[r] .. restaurantDealStart[r + 1].
+ *
+ * Queries read the columns directly. Deal and DealAtRestaurant objects are only
+ * materialised on request, for callers that need the domain model.
+ *
+ * The feed parser never produces a deal with a missing value. Missing values from other
+ * sources are stored as NaN discount, Integer.MIN_VALUE quantity and false flags, so
+ * they rank below every real value and don't match a filter on the value.
+ */
+public final class DealColumns {
+
+    private static final int NO_TIME = -1;
+
+    private final List<Restaurant> restaurants;
+    private final int[] restaurantDealStart;
+    private final int[] restaurantOrdinal;
+    private final String[] objectIds;
+    private final float[] discount;
+    private final int[] qtyLeft;
+    private final BitSet dineIn = new BitSet();
+    private final BitSet lightning = new BitSet();
+
+    /*
+     * The deal's own window as second of day, or NO_TIME.
+     */
+    private final int[] openSecond;
+    private final int[] closeSecond;
+
+    private final Map<String, Integer> restaurantIndexById;
+
+    /*
+     * Deals listed under an id that isn't in the restaurant list aren't reachable from
+     * any query and are left out.
+     */
+    public DealColumns(List<Restaurant> restaurants, Map<String, List<Deal>> dealsByRestaurantId) {
+        this.restaurants = List.copyOf(restaurants);
+        this.restaurantDealStart = new int[this.restaurants.size() + 1];
+        // HashMap so lookups with a null id still return nothing; the first restaurant with an id wins
+        this.restaurantIndexById = new HashMap<>(this.restaurants.size() * 2);
+        int dealCount = 0;
+        for (int r = 0; r < this.restaurants.size(); r++) {
+            String restaurantId = this.restaurants.get(r).getObjectId();
+            restaurantIndexById.putIfAbsent(restaurantId, r);
+            restaurantDealStart[r] = dealCount;
+            dealCount += dealsByRestaurantId.getOrDefault(restaurantId, List.of()).size();
+        }
+        restaurantDealStart[this.restaurants.size()] = dealCount;
+
+        this.restaurantOrdinal = new int[dealCount];
+        this.objectIds = new String[dealCount];
+        this.discount = new float[dealCount];
+        this.qtyLeft = new int[dealCount];
+        this.openSecond = new int[dealCount];
+        this.closeSecond = new int[dealCount];
+        for (int r = 0; r < this.restaurants.size(); r++) {
+            int ordinal = restaurantDealStart[r];
+            for (Deal deal : dealsByRestaurantId.getOrDefault(this.restaurants.get(r).getObjectId(), List.of())) {
+                restaurantOrdinal[ordinal] = r;
+                objectIds[ordinal] = deal.getObjectId();
+                discount[ordinal] = deal.getDiscount() != null ? deal.getDiscount() : Float.NaN;
+                qtyLeft[ordinal] = deal.getQtyLeft() != null ? deal.getQtyLeft() : Integer.MIN_VALUE;
+                dineIn.set(ordinal, Boolean.TRUE.equals(deal.getDineIn()));
+                lightning.set(ordinal, Boolean.TRUE.equals(deal.getLightning()));
+                openSecond[ordinal] = deal.getOpenTime() != null ? deal.getOpenTime().toSecondOfDay() : NO_TIME;
+                closeSecond[ordinal] = deal.getCloseTime() != null ? deal.getCloseTime().toSecondOfDay() : NO_TIME;
+                ordinal++;
+            }
+        }
+    }
+
+    /*
+     * Copy of the columns of the restaurants at the given indexes and their deals, in the
+     * order given. Ordinals of the copy are its own: the deals of the i-th given
+     * restaurant start at firstDealOf(i).
+     */
+    private DealColumns(DealColumns source, int[] restaurantIndexes) {
+        List<Restaurant> selected = new ArrayList<>(restaurantIndexes.length);
+        this.restaurantDealStart = new int[restaurantIndexes.length + 1];
+        this.restaurantIndexById = new HashMap<>(restaurantIndexes.length * 2);
+        int dealCount = 0;
+        for (int r = 0; r < restaurantIndexes.length; r++) {
+            Restaurant restaurant = source.restaurant(restaurantIndexes[r]);
+            selected.add(restaurant);
+            restaurantIndexById.putIfAbsent(restaurant.getObjectId(), r);
+            restaurantDealStart[r] = dealCount;
+            dealCount += source.endDealOf(restaurantIndexes[r]) - source.firstDealOf(restaurantIndexes[r]);
+        }
+        restaurantDealStart[restaurantIndexes.length] = dealCount;
+        this.restaurants = List.copyOf(selected);
+
+        this.restaurantOrdinal = new int[dealCount];
+        this.objectIds = new String[dealCount];
+        this.discount = new float[dealCount];
+        this.qtyLeft = new int[dealCount];
+        this.openSecond = new int[dealCount];
+        this.closeSecond = new int[dealCount];
+        for (int r = 0; r < restaurantIndexes.length; r++) {
+            int from = source.firstDealOf(restaurantIndexes[r]);
+            int to = restaurantDealStart[r];
+            int length = restaurantDealStart[r + 1] - to;
+            Arrays.fill(restaurantOrdinal, to, to + length, r);
+            System.arraycopy(source.objectIds, from, objectIds, to, length);
+            System.arraycopy(source.discount, from, discount, to, length);
+            System.arraycopy(source.qtyLeft, from, qtyLeft, to, length);
+            System.arraycopy(source.openSecond, from, openSecond, to, length);
+            System.arraycopy(source.closeSecond, from, closeSecond, to, length);
+            for (int i = 0; i < length; i++) {
+                dineIn.set(to + i, source.dineIn.get(from + i));
+                lightning.set(to + i, source.lightning.get(from + i));
+            }
+        }
+    }
+
+    /*
+     * The restaurants at the given indexes, in that order, with their deals: the columns
+     * of one shard of a snapshot. Values are copied, so the result doesn't keep these
+     * columns alive.
+     */
+    public DealColumns select(int[] restaurantIndexes) {
+        return new DealColumns(this, restaurantIndexes);
+    }
+
+    public int dealCount() {
+        return objectIds.length;
+    }
+
+    public List<Restaurant> getRestaurants() {
+        return restaurants;
+    }
+
+    public int restaurantCount() {
+        return restaurants.size();
+    }
+
+    public Restaurant restaurant(int restaurantIndex) {
+        return restaurants.get(restaurantIndex);
+    }
+
+    /*
+     * Index of the first restaurant with the given id, or -1.
+     */
+    public int restaurantIndexOf(String restaurantId) {
+        Integer restaurantIndex = restaurantIndexById.get(restaurantId);
+        return restaurantIndex != null ? restaurantIndex : -1;
+    }
+
+    public int firstDealOf(int restaurantIndex) {
+        return restaurantDealStart[restaurantIndex];
+    }
+
+    /*
+     * Exclusive.
+     */
+    public int endDealOf(int restaurantIndex) {
+        return restaurantDealStart[restaurantIndex + 1];
+    }
+
+    public int restaurantOrdinal(int ordinal) {
+        return restaurantOrdinal[ordinal];
+    }
+
+    public Restaurant restaurantOf(int ordinal) {
+        return restaurants.get(restaurantOrdinal[ordinal]);
+    }
+
+    public String objectId(int ordinal) {
+        return objectIds[ordinal];
+    }
+
+    public float discount(int ordinal) {
+        return discount[ordinal];
+    }
+
+    public int qtyLeft(int ordinal) {
+        return qtyLeft[ordinal];
+    }
+
+    public boolean isDineIn(int ordinal) {
+        return dineIn.get(ordinal);
+    }
+
+    public boolean isLightning(int ordinal) {
+        return lightning.get(ordinal);
+    }
+
+    public boolean hasOwnWindow(int ordinal) {
+        return openSecond[ordinal] != NO_TIME && closeSecond[ordinal] != NO_TIME;
+    }
+
+    public LocalTime openTime(int ordinal) {
+        return openSecond[ordinal] != NO_TIME ? LocalTime.ofSecondOfDay(openSecond[ordinal]) : null;
+    }
+
+    public LocalTime closeTime(int ordinal) {
+        return closeSecond[ordinal] != NO_TIME ? LocalTime.ofSecondOfDay(closeSecond[ordinal]) : null;
+    }
+
+    /*
+     * Same rules as DealFilter.matches, read from the columns.
+     */
+    public boolean matches(int ordinal, DealFilter filter) {
+        return matches(restaurantOf(ordinal), dineIn.get(ordinal), lightning.get(ordinal), discount[ordinal],
+                qtyLeft[ordinal], filter);
+    }
+
+    /*
+     * The rules of matches for a deal's values read from any column store, missing values
+     * stored as described above.
+     */
+    static boolean matches(Restaurant restaurant, boolean dineIn, boolean lightning, float discount, int qtyLeft,
+            DealFilter filter) {
+        if (filter.getSuburb() != null && (restaurant.getSuburb() == null
+                || !DealFilter.normalize(restaurant.getSuburb()).equals(DealFilter.normalize(filter.getSuburb())))) {
+            return false;
+        }
+        if (filter.getCuisine() != null && (restaurant.getCuisines() == null || restaurant.getCuisines().stream()
+                .map(DealFilter::normalize).noneMatch(DealFilter.normalize(filter.getCuisine())::equals))) {
+            return false;
+        }
+        if (filter.getDineIn() != null && filter.getDineIn() != dineIn) {
+            return false;
+        }
+        if (filter.getLightning() != null && filter.getLightning() != lightning) {
+            return false;
+        }
+        // Written so that a NaN discount never passes
+        if (filter.getMinDiscount() != null && !(discount >= filter.getMinDiscount())) {
+            return false;
+        }
+        return filter.getMinQtyLeft() == null || qtyLeft >= filter.getMinQtyLeft();
+    }
+
+    public Deal toDeal(int ordinal) {
+        return new Deal(objectIds[ordinal], restaurantOf(ordinal).getObjectId(), discount[ordinal],
+                dineIn.get(ordinal), lightning.get(ordinal), qtyLeft[ordinal], openTime(ordinal), closeTime(ordinal));
+    }
+
+    public DealAtRestaurant toDealAtRestaurant(int ordinal) {
+        return new DealAtRestaurant(restaurantOf(ordinal), toDeal(ordinal));
+    }
+
+    /*
+     * The deals of the first restaurant with the given id, materialised.
+     */
+    public List<Deal> dealsOf(String restaurantId) {
+        int restaurantIndex = restaurantIndexOf(restaurantId);
+        if (restaurantIndex < 0) {
+            return new ArrayList<>();
+        }
+        List<Deal> deals = new ArrayList<>(endDealOf(restaurantIndex) - firstDealOf(restaurantIndex));
+        for (int ordinal = firstDealOf(restaurantIndex); ordinal < endDealOf(restaurantIndex); ordinal++) {
+            deals.add(toDeal(ordinal));
+        }
+        return deals;
+    }
+
+    /*
+     * All deals materialised back into the feed's shape, e.g. for writing to disk.
+     */
+    public Map<String, List<Deal>> toDealsByRestaurantId() {
+        Map<String, List<Deal>> dealsByRestaurantId = new LinkedHashMap<>();
+        for (Restaurant restaurant : restaurants) {
+            dealsByRestaurantId.computeIfAbsent(restaurant.getObjectId(), this::dealsOf);
+        }
+        return Collections.unmodifiableMap(dealsByRestaurantId);
+    }
+
+    /*
+     * Whether the restaurant at the given index has exactly these deals, compared column
+     * by column so that nothing is materialised.
+     */
+    public boolean hasDeals(int restaurantIndex, List<Deal> deals) {
+        int first = firstDealOf(restaurantIndex);
+        if (endDealOf(restaurantIndex) - first != deals.size()) {
+            return false;
+        }
+        String restaurantId = restaurant(restaurantIndex).getObjectId();
+        for (int i = 0; i < deals.size(); i++) {
+            Deal deal = deals.get(i);
+            int ordinal = first + i;
+            if (!Objects.equals(deal.getObjectId(), objectIds[ordinal])
+                    || !Objects.equals(deal.getRestaurantId(), restaurantId)
+                    || deal.getDiscount() == null || Float.compare(deal.getDiscount(), discount[ordinal]) != 0
+                    || deal.getQtyLeft() == null || deal.getQtyLeft() != qtyLeft[ordinal]
+                    || deal.getDineIn() == null || deal.getDineIn() != dineIn.get(ordinal)
+                    || deal.getLightning() == null || deal.getLightning() != lightning.get(ordinal)
+                    || !Objects.equals(deal.getOpenTime(), openTime(ordinal))
+                    || !Objects.equals(deal.getCloseTime(), closeTime(ordinal))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    BitSet dineInBits() {
+        return dineIn;
+    }
+
+    BitSet lightningBits() {
+        return lightning;
+    }
+
+    /*
+     * The restaurants themselves are counted with the snapshot.
+     */
+    long estimatedHeapBytes() {
+        long bytes = SnapshotFootprint.object(11, 0)
+                + SnapshotFootprint.array(restaurantDealStart.length, 4)
+                + SnapshotFootprint.array(restaurantOrdinal.length, 4)
+                + SnapshotFootprint.array(objectIds.length, 4)
+                + SnapshotFootprint.array(discount.length, 4)
+                + SnapshotFootprint.array(qtyLeft.length, 4)
+                + SnapshotFootprint.bitSet(dineIn) + SnapshotFootprint.bitSet(lightning)
+                + SnapshotFootprint.array(openSecond.length, 4)
+                + SnapshotFootprint.array(closeSecond.length, 4)
+                + SnapshotFootprint.hashMap(restaurantIndexById.size())
+                + restaurantIndexById.size() * SnapshotFootprint.object(0, 4);
+        for (String objectId : objectIds) {
+            bytes += SnapshotFootprint.string(objectId);
+        }
+        return bytes;
+    }
+}
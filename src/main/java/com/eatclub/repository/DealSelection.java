@@ -0,0 +1,41 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.DealAtRestaurant;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/*
+ * The result of a deal query: ordinals into the snapshot's DealColumns. It is a list
+ * of DealAtRestaurant so it goes wherever one is expected, but each element is only
+ * materialised when it is read. Callers that can read the columns themselves (the
+ * mapper) use getColumns and ordinalAt and never materialise the domain objects.
+ */
+public final class DealSelection extends AbstractList<DealAtRestaurant> implements RandomAccess {
+
+    private final DealColumns columns;
+    private final int[] ordinals;
+
+    public DealSelection(DealColumns columns, int[] ordinals) {
+        this.columns = columns;
+        this.ordinals = ordinals;
+    }
+
+    public DealColumns getColumns() {
+        return columns;
+    }
+
+    public int ordinalAt(int index) {
+        return ordinals[index];
+    }
+
+    @Override
+    public DealAtRestaurant get(int index) {
+        return columns.toDealAtRestaurant(ordinals[index]);
+    }
+
+    @Override
+    public int size() {
+        return ordinals.length;
+    }
+}
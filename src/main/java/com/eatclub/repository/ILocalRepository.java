@@ -1,12 +1,40 @@
 package com.eatclub.repository;
 
 import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealPage;
+import com.eatclub.model.DealSort;
 import com.eatclub.model.Restaurant;
+import java.time.DayOfWeek;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public interface ILocalRepository {
     List<Restaurant> findAllRestaurants();
     List<Restaurant> findAvailableRestaurantsAt(LocalTime time);
+    List<Restaurant> findAvailableRestaurantsAt(DayOfWeek day, LocalTime time);
     List<Deal> findDealsByRestaurantId(String restaurantId);
+    DealColumns getDealColumns();
+    <T> T reduceDealColumns(Function<DealColumns, T> partial, BinaryOperator<T> combine);
+    List<DealAtRestaurant> findAvailableDealsAt(LocalTime time);
+    List<DealAtRestaurant> findAvailableDealsAt(LocalTime time, DealFilter filter);
+    List<DealAtRestaurant> findAvailableDealsAt(DayOfWeek day, LocalTime time, DealFilter filter);
+    DealPage findAvailableDealsPageAt(LocalTime time, DealFilter filter, int fromOrdinal, int limit);
+    void forEachAvailableDealAt(LocalTime time, DealFilter filter, Consumer<DealAtRestaurant> action);
+    List<DealAtRestaurant> findTopAvailableDealsAt(LocalTime time, DealFilter filter, DealSort sort, int limit);
+    long getSnapshotVersion();
+    SnapshotSummary getSnapshotSummary();
+    Optional<Set<String>> findRestaurantIdsChangedSince(long snapshotVersion);
+
+    /*
+     * The listener is also told about the data being served when it registers, so it
+     * doesn't miss a snapshot loaded before it existed.
+     */
+    void addSnapshotListener(ISnapshotListener listener);
 }
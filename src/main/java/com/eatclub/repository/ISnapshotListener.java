@@ -0,0 +1,23 @@
+package com.eatclub.repository;
+
+/*
+ * Work that depends on the data a repository serves, done when the data changes rather
+ * than by the first request that finds it changed. Listeners are called on the thread
+ * publishing the new data, one call at a time.
+ */
+public interface ISnapshotListener {
+
+    /*
+     * Called with the next snapshot before readers can see it, so whatever is kept per
+     * snapshot is ready by the first request. Only repositories whose results are read
+     * from a RestaurantSnapshot's DealColumns call this.
+     */
+    default void beforePublish(RestaurantSnapshot next) {
+    }
+
+    /*
+     * Called once the new data is what queries see.
+     */
+    default void afterPublish() {
+    }
+}
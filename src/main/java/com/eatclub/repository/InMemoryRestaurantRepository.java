@@ -1,127 +1,366 @@
 package com.eatclub.repository;
 
 import com.eatclub.common.Constants;
+import com.eatclub.metrics.RestaurantMetrics;
 import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealPage;
+import com.eatclub.model.DealSort;
 import com.eatclub.model.Restaurant;
-import com.eatclub.model.ec.DealDTO;
-import com.eatclub.model.ec.RestaurantsDTO;
 
-import org.springframework.http.ResponseEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.client.RestTemplate;
 
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DayOfWeek;
 import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 @Repository
 public class InMemoryRestaurantRepository implements ILocalRepository {
 
+    private static final Logger log = LoggerFactory.getLogger(InMemoryRestaurantRepository.class);
+
     private final RestTemplate restTemplate;
-    private List<Restaurant> restaurants;
-    private Map<String, List<Deal>> dealsByRestaurantId;
+    private final String feedUrl;
+    private final RestaurantMetrics metrics;
+    private final RestaurantFeedParser feedParser = new RestaurantFeedParser();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final List<ISnapshotListener> snapshotListeners = new CopyOnWriteArrayList<>();
+    private volatile RestaurantSnapshot snapshot = RestaurantSnapshot.empty(0);
+    private volatile FeedValidators feedValidators = FeedValidators.NONE;
+    private volatile boolean indexDeals = true;
 
-    public InMemoryRestaurantRepository(RestTemplate restTemplate) throws Exception {
+    /*
+     * Nothing is fetched here, so the application can start (and serve a warm-start
+     * snapshot from disk) while the upstream is slow or down. Loading is driven by
+     * RestaurantSnapshotRefresher.
+     */
+    @Autowired
+    public InMemoryRestaurantRepository(RestTemplate restTemplate,
+            @Value("${restaurants.feed.url:" + Constants.EC_API_CHALLENGE_ENDPOINT + "}") String feedUrl,
+            RestaurantMetrics metrics) {
         this.restTemplate = restTemplate;
-        /*
-         * TODO: Currently the data is being fetched eagerly. This could be changed to a
-         * lazy fetch. Also, to avoid fetching the data multiple times, we do this just
-         * once, so we might have stale data. It would be important to have a periodic
-         * refresh.
-         */
-        this.fetchDataFromAPI();
+        this.feedUrl = feedUrl;
+        this.metrics = metrics;
+    }
+
+    public InMemoryRestaurantRepository(RestTemplate restTemplate, String feedUrl) {
+        this(restTemplate, feedUrl, RestaurantMetrics.noop());
+    }
+
+    public InMemoryRestaurantRepository(RestTemplate restTemplate) {
+        this(restTemplate, Constants.EC_API_CHALLENGE_ENDPOINT);
+    }
+
+    /*
+     * Fetches the feed and builds the next snapshot off to the side; readers keep using
+     * the current snapshot until the new one is published by a single volatile write.
+     * If the fetch fails the current snapshot is left untouched.
+     *
+     * The request is conditional on the ETag/Last-Modified of the feed behind the
+     * current snapshot, so an unchanged feed costs a 304 and nothing else. Upstreams
+     * that don't send validators are caught by the content hash instead, which still
+     * skips the snapshot and index rebuild. Returns whether a new snapshot was published.
+     */
+    public boolean refresh() throws Exception {
+        FeedValidators currentValidators = feedValidators;
+        FetchResult result;
+        try {
+            result = metrics.feedFetch().recordCallable(() -> fetchDataFromAPI(currentValidators));
+        } catch (Exception e) {
+            metrics.countFeedRefresh("failed");
+            throw e;
+        }
+        if (result.feed() == null) {
+            metrics.countFeedRefresh("not_modified");
+            return false;
+        }
+
+        refreshLock.lock();
+        try {
+            if (feedValidators == currentValidators && result.validators().contentHash().equals(currentValidators.contentHash())) {
+                this.feedValidators = result.validators();
+                metrics.countFeedRefresh("unchanged");
+                return false;
+            }
+            RestaurantSnapshot previous = snapshot;
+            publish(metrics.snapshotBuild().record(() ->
+                    RestaurantSnapshot.of(previous.getVersion() + 1, SnapshotSource.UPSTREAM, result.feed(), previous,
+                            indexDeals)));
+            this.feedValidators = result.validators();
+            metrics.countFeedRefresh("updated");
+            return true;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public void load(RestaurantFeed feed, SnapshotSource source) {
+        refreshLock.lock();
+        try {
+            RestaurantSnapshot previous = snapshot;
+            publish(metrics.snapshotBuild().record(() ->
+                    RestaurantSnapshot.of(previous.getVersion() + 1, source, feed, previous, indexDeals)));
+            this.feedValidators = FeedValidators.NONE;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /*
+     * Drops the current data, for when serving stale data is worse than serving none.
+     */
+    public void clear() {
+        refreshLock.lock();
+        try {
+            publish(RestaurantSnapshot.empty(snapshot.getVersion() + 1));
+            this.feedValidators = FeedValidators.NONE;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /*
+     * Whether the snapshots loaded from now on index their deals. A
+     * ShardedRestaurantRepository turns this off, since its shards index the deals and
+     * answer every deal query; this repository's deal queries then throw.
+     */
+    void setIndexDeals(boolean indexDeals) {
+        this.indexDeals = indexDeals;
     }
 
-    private void fetchDataFromAPI() throws Exception {
-        ResponseEntity<RestaurantsDTO> response = null;
+    public RestaurantSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /*
+     * Listeners are called under the refresh lock, so one that registers while a
+     * snapshot is being published sees either the old one and then the new one, or
+     * only the new one.
+     */
+    @Override
+    public void addSnapshotListener(ISnapshotListener listener) {
+        refreshLock.lock();
         try {
-            response = restTemplate
-                    .getForEntity(Constants.EC_API_CHALLENGE_ENDPOINT, RestaurantsDTO.class);
+            listener.beforePublish(snapshot);
+            listener.afterPublish();
+            snapshotListeners.add(listener);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /*
+     * Called with the refresh lock held. A listener that fails is logged and skipped:
+     * it costs what it would have prepared, not the new data.
+     */
+    private void publish(RestaurantSnapshot next) {
+        for (ISnapshotListener listener : snapshotListeners) {
+            try {
+                listener.beforePublish(next);
+            } catch (RuntimeException e) {
+                log.warn("Snapshot listener failed to prepare version {}", next.getVersion(), e);
+            }
+        }
+        this.snapshot = next;
+        for (ISnapshotListener listener : snapshotListeners) {
+            try {
+                listener.afterPublish();
+            } catch (RuntimeException e) {
+                log.warn("Snapshot listener failed after version {} was published", next.getVersion(), e);
+            }
+        }
+    }
+
+    /*
+     * Streams the response body through RestaurantFeedParser rather than binding it
+     * to DTOs, so the feed is never held on the heap in two shapes at once. The body
+     * is hashed on its way into the parser.
+     */
+    private FetchResult fetchDataFromAPI(FeedValidators validators) throws Exception {
+        FetchResult result = null;
+        try {
+            result = restTemplate.execute(feedUrl, HttpMethod.GET,
+                    request -> {
+                        request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                        if (validators.eTag() != null) {
+                            request.getHeaders().setIfNoneMatch(validators.eTag());
+                        }
+                        if (validators.lastModified() != null) {
+                            request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, validators.lastModified());
+                        }
+                    },
+                    response -> {
+                        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                            return new FetchResult(null, validators);
+                        }
+                        MessageDigest digest = newContentDigest();
+                        long parseStart = System.nanoTime();
+                        RestaurantFeed feed = feedParser.parse(new DigestInputStream(response.getBody(), digest));
+                        metrics.feedParse().record(System.nanoTime() - parseStart, TimeUnit.NANOSECONDS);
+                        return new FetchResult(feed, new FeedValidators(
+                                response.getHeaders().getETag(),
+                                response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED),
+                                HexFormat.of().formatHex(digest.digest())));
+                    });
         } catch (Exception e) {
             throw new Exception("Failed to fetch data from API", e);
         }
 
-        if (response == null || response.getBody() == null) {
+        if (result == null) {
             throw new Exception("Failed to fetch data from API: Response is null");
         }
 
-        Map<String, List<Deal>> dealsMap = new HashMap<>();
-
-        // Parse restaurants from response body
-        List<Restaurant> restaurants = response.getBody().getRestaurants().stream()
-                .map(restaurantDTO -> {
-
-                    List<Deal> deals = new ArrayList<>();
-                    for (DealDTO dealDTO : restaurantDTO.getDeals()) {
-                        Deal deal = new Deal(
-                                dealDTO.getObjectId(),
-                                restaurantDTO.getObjectId(),
-                                Float.parseFloat(dealDTO.getDiscount()),
-                                Boolean.parseBoolean(dealDTO.getDineIn()),
-                                Boolean.parseBoolean(dealDTO.getLightning()),
-                                Integer.parseInt(dealDTO.getQtyLeft()));
-                        deals.add(deal);
-                    }
-                    dealsMap.put(restaurantDTO.getObjectId(), deals);
-
-                    LocalTime openTime;
-                    LocalTime closeTime;
-                    try {
-                        String openStr = restaurantDTO.getOpen().trim().toLowerCase();
-                        String closeStr = restaurantDTO.getClose().trim().toLowerCase();
-                        openTime = LocalTime.parse(openStr, Constants.H_MM_A_TIME_FORMATTER);
-                        closeTime = LocalTime.parse(closeStr, Constants.H_MM_A_TIME_FORMATTER);
-                    } catch (Exception e) {
-                        throw new RuntimeException(
-                                "Failed to parse time for restaurant " + restaurantDTO.getObjectId() +
-                                        ": open='" + restaurantDTO.getOpen() + "', close='" + restaurantDTO.getClose()
-                                        + "'",
-                                e);
-                    }
-
-                    return new Restaurant(
-                            restaurantDTO.getObjectId(),
-                            restaurantDTO.getName(),
-                            restaurantDTO.getAddress1(),
-                            restaurantDTO.getSuburb(),
-                            openTime,
-                            closeTime);
-                })
-                .collect(Collectors.toList());
-
-        this.dealsByRestaurantId = dealsMap;
-        this.restaurants = restaurants;
+        return result;
+    }
+
+    private static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     @Override
     public List<Restaurant> findAllRestaurants() {
-        return new ArrayList<>(restaurants);
+        return metrics.repositoryLookup("findAllRestaurants").record(() -> new ArrayList<>(snapshot.getRestaurants()));
     }
 
     @Override
     public List<Restaurant> findAvailableRestaurantsAt(LocalTime time) {
-        return restaurants.stream()
-                .filter(restaurant -> isAvailableAt(restaurant, time))
-                .toList();
+        return metrics.repositoryLookup("findAvailableRestaurantsAt").record(() ->
+                snapshot.getAvailabilityIndex().findAvailableAt(time));
     }
 
+    @Override
+    public List<Restaurant> findAvailableRestaurantsAt(DayOfWeek day, LocalTime time) {
+        return metrics.repositoryLookup("findAvailableRestaurantsAtOnDay").record(() ->
+                snapshot.getWeeklyAvailabilityIndex().findAvailableAt(day, time));
+    }
+
+    /*
+     * Not timed: the deals are materialised from the columns on every call, which is
+     * what callers that can should avoid by reading getDealColumns instead.
+     */
     @Override
     public List<Deal> findDealsByRestaurantId(String restaurantId) {
-        return dealsByRestaurantId.getOrDefault(restaurantId, new ArrayList<>());
+        return snapshot.getDealColumns().dealsOf(restaurantId);
+    }
+
+    @Override
+    public DealColumns getDealColumns() {
+        return snapshot.getDealColumns();
+    }
+
+    /*
+     * The snapshot's deals are one partition, so this is partial applied to all of them.
+     */
+    @Override
+    public <T> T reduceDealColumns(Function<DealColumns, T> partial, BinaryOperator<T> combine) {
+        return partial.apply(snapshot.getDealColumns());
+    }
+
+    @Override
+    public List<DealAtRestaurant> findAvailableDealsAt(LocalTime time) {
+        return metrics.repositoryLookup("findAvailableDealsAt").record(() ->
+                snapshot.getDealAvailabilityIndex().findLiveAt(time));
+    }
+
+    @Override
+    public List<DealAtRestaurant> findAvailableDealsAt(LocalTime time, DealFilter filter) {
+        return metrics.repositoryLookup("findAvailableDealsAtFiltered").record(() ->
+                snapshot.getDealAvailabilityIndex().findLiveAt(time, filter));
+    }
+
+    @Override
+    public List<DealAtRestaurant> findAvailableDealsAt(DayOfWeek day, LocalTime time, DealFilter filter) {
+        return metrics.repositoryLookup("findAvailableDealsAtOnDay").record(() ->
+                snapshot.getWeeklyAvailabilityIndex().findLiveAt(day, time, filter));
     }
 
-    private boolean isAvailableAt(Restaurant restaurant, LocalTime time) {
-        LocalTime openTime = restaurant.getOpenTime();
-        LocalTime closeTime = restaurant.getCloseTime();
+    /*
+     * The page and its version come from the same snapshot, so a caller can tell whether
+     * fromOrdinal (taken from an earlier page) still refers to the same deal ordering.
+     */
+    @Override
+    public DealPage findAvailableDealsPageAt(LocalTime time, DealFilter filter, int fromOrdinal, int limit) {
+        return metrics.repositoryLookup("findAvailableDealsPageAt").record(() -> {
+            RestaurantSnapshot current = snapshot;
+            IntStream.Builder ordinals = IntStream.builder();
+            int nextOrdinal = current.getDealAvailabilityIndex().forEachLiveOrdinalAt(time, filter, fromOrdinal, limit,
+                    ordinals::add);
+            return new DealPage(current.getVersion(),
+                    new DealSelection(current.getDealColumns(), ordinals.build().toArray()), nextOrdinal);
+        });
+    }
+
+    /*
+     * Not timed: the action writes each deal to the response as it is found, so the time
+     * spent here is mostly the client's and the network's.
+     */
+    @Override
+    public void forEachAvailableDealAt(LocalTime time, DealFilter filter, Consumer<DealAtRestaurant> action) {
+        snapshot.getDealAvailabilityIndex().forEachLiveAt(time, filter, 0, Integer.MAX_VALUE, action);
+    }
 
-        if (openTime.isBefore(closeTime)) {
-            return !time.isBefore(openTime) && !time.isAfter(closeTime);
-        } else {
-            return !time.isBefore(openTime) || !time.isAfter(closeTime);
+    @Override
+    public List<DealAtRestaurant> findTopAvailableDealsAt(LocalTime time, DealFilter filter, DealSort sort, int limit) {
+        return metrics.repositoryLookup("findTopAvailableDealsAt").record(() ->
+                snapshot.getDealAvailabilityIndex().findTopLiveAt(time, filter, sort, limit));
+    }
+
+    @Override
+    public long getSnapshotVersion() {
+        return snapshot.getVersion();
+    }
+
+    @Override
+    public SnapshotSummary getSnapshotSummary() {
+        return SnapshotSummary.of(snapshot);
+    }
+
+    @Override
+    public Optional<Set<String>> findRestaurantIdsChangedSince(long snapshotVersion) {
+        RestaurantFeedDiff changes = snapshot.getChanges();
+        if (changes == null || !changes.isIncremental() || changes.getBaseVersion() != snapshotVersion) {
+            return Optional.empty();
         }
+        return Optional.of(changes.getChangedRestaurantIds());
+    }
+
+    /*
+     * Validators of the upstream response behind the current snapshot; NONE when the
+     * snapshot didn't come from the upstream, so the next fetch is unconditional.
+     */
+    private record FeedValidators(String eTag, String lastModified, String contentHash) {
+        static final FeedValidators NONE = new FeedValidators(null, null, "");
+    }
+
+    private record FetchResult(RestaurantFeed feed, FeedValidators validators) {
     }
 
 }
@@ -0,0 +1,284 @@
+package com.eatclub.repository;
+
+import com.eatclub.metrics.RestaurantMetrics;
+import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealPage;
+import com.eatclub.model.DealSort;
+import com.eatclub.model.Restaurant;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/*
+ * Serves queries straight from the MappedSnapshotFile at the store's path, so nothing
+ * is parsed before the first request: the time indexes were built by whichever process
+ * wrote the file. Several processes on a host can serve from the same file and share
+ * its pages.
+ *
+ * The file is mapped on startup and then checked for a replacement once per check
+ * interval, on a thread of its own; requests only read the current mapping. A new file
+ * is mapped, its heap copies built, and only then does it take over with a single
+ * reference swap, as a new snapshot does. A file that can't be read is logged and the
+ * current one kept. Until a file appears, the repository is empty. Snapshot listeners
+ * are told about a new file on the same thread, after the swap.
+ *
+ * Results are lists of deals materialised from the file as they are read, rather than
+ * DealSelections, so responses are mapped through the DTOs. Callers that need
+ * DealColumns (the peak-time sweep) get a copy decoded onto the heap when the file is
+ * mapped, and queries that name a day are answered from a WeeklyAvailabilityIndex
+ * built over that copy at the same time.
+ *
+ * Replaces InMemoryRestaurantRepository as the ILocalRepository when
+ * restaurants.mapped-snapshot.serve is true. Versions count the files this process has
+ * mapped, since the writer's versions start again when it restarts.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = "restaurants.mapped-snapshot.serve", havingValue = "true")
+public class MappedRestaurantRepository implements ILocalRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedRestaurantRepository.class);
+
+    private final MappedSnapshotFileStore store;
+    private final Duration checkInterval;
+    private final RestaurantMetrics metrics;
+    private final ReentrantLock checkLock = new ReentrantLock();
+    private final List<ISnapshotListener> snapshotListeners = new CopyOnWriteArrayList<>();
+
+    /*
+     * Checks for and maps new files, and notifies the snapshot listeners, so neither
+     * happens on a request.
+     */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("mapped-snapshot").daemon().factory());
+    private volatile Mapping mapping = Mapping.of(0, null, MappedSnapshotFile.of(RestaurantSnapshot.empty(0)));
+
+    @Autowired
+    public MappedRestaurantRepository(MappedSnapshotFileStore store,
+            @Value("${restaurants.mapped-snapshot.check-interval:1s}") Duration checkInterval, RestaurantMetrics metrics) {
+        if (checkInterval.isNegative() || checkInterval.isZero()) {
+            throw new IllegalArgumentException("restaurants.mapped-snapshot.check-interval must be positive, got "
+                    + checkInterval);
+        }
+        this.store = store;
+        this.checkInterval = checkInterval;
+        this.metrics = metrics;
+    }
+
+    public MappedRestaurantRepository(MappedSnapshotFileStore store, Duration checkInterval) {
+        this(store, checkInterval, RestaurantMetrics.noop());
+    }
+
+    /*
+     * Maps the file already there, if any, before traffic is taken, then checks for a
+     * new one in the background.
+     */
+    @PostConstruct
+    public void start() {
+        checkForNewFile();
+        scheduler.scheduleWithFixedDelay(this::checkForNewFile, checkInterval.toMillis(), checkInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public List<Restaurant> findAllRestaurants() {
+        return metrics.repositoryLookup("findAllRestaurants").record(() -> current().file().restaurants());
+    }
+
+    @Override
+    public List<Restaurant> findAvailableRestaurantsAt(LocalTime time) {
+        return metrics.repositoryLookup("findAvailableRestaurantsAt").record(() ->
+                current().file().findAvailableRestaurantsAt(time));
+    }
+
+    @Override
+    public List<Restaurant> findAvailableRestaurantsAt(DayOfWeek day, LocalTime time) {
+        return metrics.repositoryLookup("findAvailableRestaurantsAtOnDay").record(() ->
+                current().weeklyIndex().findAvailableAt(day, time));
+    }
+
+    @Override
+    public List<Deal> findDealsByRestaurantId(String restaurantId) {
+        return current().file().dealsOf(restaurantId);
+    }
+
+    @Override
+    public DealColumns getDealColumns() {
+        return current().dealColumns();
+    }
+
+    /*
+     * One partition: the heap copy, which was decoded when the file was mapped, so the
+     * sweep doesn't read the mapping itself and combine is never needed.
+     */
+    @Override
+    public <T> T reduceDealColumns(Function<DealColumns, T> partial, BinaryOperator<T> combine) {
+        return partial.apply(current().dealColumns());
+    }
+
+    @Override
+    public List<DealAtRestaurant> findAvailableDealsAt(LocalTime time) {
+        return metrics.repositoryLookup("findAvailableDealsAt").record(() -> liveAt(current().file(), time, new DealFilter()));
+    }
+
+    @Override
+    public List<DealAtRestaurant> findAvailableDealsAt(LocalTime time, DealFilter filter) {
+        return metrics.repositoryLookup("findAvailableDealsAtFiltered").record(() -> liveAt(current().file(), time, filter));
+    }
+
+    @Override
+    public List<DealAtRestaurant> findAvailableDealsAt(DayOfWeek day, LocalTime time, DealFilter filter) {
+        return metrics.repositoryLookup("findAvailableDealsAtOnDay").record(() ->
+                current().weeklyIndex().findLiveAt(day, time, filter));
+    }
+
+    @Override
+    public DealPage findAvailableDealsPageAt(LocalTime time, DealFilter filter, int fromOrdinal, int limit) {
+        return metrics.repositoryLookup("findAvailableDealsPageAt").record(() -> {
+            Mapping current = current();
+            IntStream.Builder ordinals = IntStream.builder();
+            int nextOrdinal = current.file().forEachLiveOrdinalAt(time, filter, fromOrdinal, limit, ordinals::add);
+            return new DealPage(current.version(), current.file().select(ordinals.build().toArray()), nextOrdinal);
+        });
+    }
+
+    @Override
+    public void forEachAvailableDealAt(LocalTime time, DealFilter filter, Consumer<DealAtRestaurant> action) {
+        MappedSnapshotFile file = current().file();
+        file.forEachLiveOrdinalAt(time, filter, 0, Integer.MAX_VALUE, ordinal -> action.accept(file.toDealAtRestaurant(ordinal)));
+    }
+
+    @Override
+    public List<DealAtRestaurant> findTopAvailableDealsAt(LocalTime time, DealFilter filter, DealSort sort, int limit) {
+        return metrics.repositoryLookup("findTopAvailableDealsAt").record(() -> {
+            MappedSnapshotFile file = current().file();
+            return file.select(file.findTopLiveAt(time, filter, sort, limit));
+        });
+    }
+
+    @Override
+    public long getSnapshotVersion() {
+        return current().version();
+    }
+
+    /*
+     * estimatedHeapBytes counts the DealColumns copy and the weekly index built over it;
+     * the file itself is in the page cache, and the restaurants and strings decoded from it
+     * aren't estimated. A file has no RestaurantDictionary, so nothing is saved by one.
+     */
+    @Override
+    public SnapshotSummary getSnapshotSummary() {
+        Mapping current = current();
+        MappedSnapshotFile file = current.file();
+        return new SnapshotSummary(current.fileKey() == null ? SnapshotSource.NONE : SnapshotSource.MAPPED,
+                current.version(), file.getLoadedAt(), file.restaurantCount(), file.dealCount(),
+                current.heapBytes(), 0);
+    }
+
+    /*
+     * A file doesn't say what changed since the one before it.
+     */
+    @Override
+    public Optional<Set<String>> findRestaurantIdsChangedSince(long snapshotVersion) {
+        return Optional.empty();
+    }
+
+    /*
+     * Results aren't read from DealColumns, so listeners only hear afterPublish.
+     */
+    @Override
+    public void addSnapshotListener(ISnapshotListener listener) {
+        snapshotListeners.add(listener);
+        scheduler.execute(() -> notifySnapshotListener(listener));
+    }
+
+    private static List<DealAtRestaurant> liveAt(MappedSnapshotFile file, LocalTime time, DealFilter filter) {
+        IntStream.Builder ordinals = IntStream.builder();
+        file.forEachLiveOrdinalAt(time, filter, 0, Integer.MAX_VALUE, ordinals::add);
+        return file.select(ordinals.build().toArray());
+    }
+
+    /*
+     * Maps the file if it was replaced since the last check. Runs on the scheduler, and
+     * on the thread starting the repository.
+     */
+    void checkForNewFile() {
+        checkLock.lock();
+        try {
+            Optional<Object> fileKey = store.currentFileKey();
+            if (fileKey.isPresent() && !fileKey.get().equals(mapping.fileKey())) {
+                MappedSnapshotFile file = store.open();
+                mapping = Mapping.of(mapping.version() + 1, fileKey.get(), file);
+                log.info("Mapped restaurant snapshot {} written at {} as version {}", store.getPath(), file.getLoadedAt(),
+                        mapping.version());
+                scheduler.execute(this::notifySnapshotListeners);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to map restaurant snapshot {}, serving version {}", store.getPath(), mapping.version(), e);
+        } finally {
+            checkLock.unlock();
+        }
+    }
+
+    private Mapping current() {
+        return mapping;
+    }
+
+    private void notifySnapshotListeners() {
+        snapshotListeners.forEach(this::notifySnapshotListener);
+    }
+
+    private void notifySnapshotListener(ISnapshotListener listener) {
+        try {
+            listener.afterPublish();
+        } catch (RuntimeException e) {
+            log.warn("Snapshot listener failed after version {} was mapped", mapping.version(), e);
+        }
+    }
+
+    /*
+     * The file mapped as one version, with its deals decoded to DealColumns and indexed
+     * by day of the week before it is published.
+     */
+    private record Mapping(long version, Object fileKey, MappedSnapshotFile file, DealColumns dealColumns,
+            WeeklyAvailabilityIndex weeklyIndex) {
+
+        static Mapping of(long version, Object fileKey, MappedSnapshotFile file) {
+            DealColumns dealColumns = file.toDealColumns();
+            return new Mapping(version, fileKey, file, dealColumns, new WeeklyAvailabilityIndex(dealColumns));
+        }
+
+        long heapBytes() {
+            return dealColumns.estimatedHeapBytes() + weeklyIndex.estimatedHeapBytes();
+        }
+    }
+}
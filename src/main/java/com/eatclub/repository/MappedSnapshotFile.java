@@ -0,0 +1,744 @@
+package com.eatclub.repository;
+
+import com.eatclub.common.Constants;
+import com.eatclub.common.MinuteRanges;
+import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealSort;
+import com.eatclub.model.OpeningHours;
+import com.eatclub.model.Restaurant;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/*
+ * A snapshot in a binary layout that is queried where it lies, through a read-only
+ * memory mapping of the file: opening it reads a header and nothing else, and the page
+ * cache holds the only copy of the data, shared by every process that maps the file.
+ *
+ * The file is little-endian and made of fixed-width columns, a string table and the
+ * snapshot's prebuilt time indexes, each section starting where the previous one ends:
+ *
+ *   header (64 bytes): int magic, int formatVersion, long snapshotVersion,
+ *     long loadedAtEpochMillis, int restaurantCount, int dealCount, int stringCount,
+ *     int stringByteCount, int cuisineRefCount, int nodeCount, int nodeDealCount,
+ *     int minuteWords, int openingHoursCount, 4 bytes reserved
+ *   long[(MINUTES_PER_DAY + 1) * minuteWords]  restaurants open at each minute, one bitset
+ *     per minute as in RestaurantAvailabilityIndex
+ *   int[restaurantCount] each: objectId, name, address1, suburb (string refs), open
+ *     second of day, close second of day
+ *   int[restaurantCount + 1] each: first cuisine ref, first deal ordinal, first opening
+ *     hours of each restaurant
+ *   int[restaurantCount]  restaurant indexes ordered by the UTF-8 bytes of their ids
+ *   int[cuisineRefCount]  string refs of every restaurant's cuisines
+ *   int[openingHoursCount] each: day of week (1 Monday to 7 Sunday), open second, close
+ *     second of every restaurant's opening hours
+ *   int[dealCount] each: objectId ref, restaurant index, discount (float bits), qtyLeft,
+ *     open second, close second (-1 without a window), flags (1 dineIn, 2 lightning)
+ *   int[nodeCount + 1], int[nodeDealCount]  the segment tree of DealAvailabilityIndex
+ *   int[stringCount + 1]  start of each string in the string bytes
+ *   byte[stringByteCount] UTF-8 strings
+ *
+ * A string ref of -1 is null. Deal ordinals are those of the snapshot's DealColumns,
+ * so results come out in the same order as from the snapshot.
+ *
+ * Only the values a query reads are decoded, when it reads them. Restaurants and
+ * strings are decoded once and kept while the file is open; deals are materialised
+ * per result. A file can't be larger than 2 GB.
+ */
+public final class MappedSnapshotFile {
+
+    static final int MAGIC = 0x45434d53;
+    static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int NO_TIME = -1;
+    private static final int NO_STRING = -1;
+    private static final int DINE_IN = 1;
+    private static final int LIGHTNING = 2;
+
+    private final ByteBuffer buffer;
+    private final Layout layout;
+    private final long snapshotVersion;
+    private final Instant loadedAt;
+    private final AtomicReferenceArray<String> strings;
+    private final AtomicReferenceArray<Restaurant> restaurants;
+
+    private MappedSnapshotFile(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a mapped restaurant snapshot");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported mapped restaurant snapshot format " + buffer.getInt(4));
+        }
+        this.snapshotVersion = buffer.getLong(8);
+        this.loadedAt = Instant.ofEpochMilli(buffer.getLong(16));
+        this.layout = new Layout(buffer.getInt(24), buffer.getInt(28), buffer.getInt(32), buffer.getInt(36),
+                buffer.getInt(40), buffer.getInt(44), buffer.getInt(48), buffer.getInt(52), buffer.getInt(56));
+        if (layout.size != buffer.capacity()) {
+            throw new IOException("Mapped restaurant snapshot is " + buffer.capacity() + " bytes, expected " + layout.size);
+        }
+        this.strings = new AtomicReferenceArray<>(layout.stringCount);
+        this.restaurants = new AtomicReferenceArray<>(layout.restaurantCount);
+    }
+
+    /*
+     * Maps the file read-only. The mapping stays valid after the file is replaced or
+     * deleted; it is released when this object is garbage collected.
+     */
+    public static MappedSnapshotFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Mapped restaurant snapshot is too large: " + path);
+            }
+            return new MappedSnapshotFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /*
+     * Writes to a temporary file first and moves it into place, so readers only ever
+     * map a complete file. Readers of the file being replaced keep their mapping.
+     */
+    public static void write(RestaurantSnapshot snapshot, Path path) throws IOException {
+        ByteBuffer encoded = encode(snapshot);
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporaryFile = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                while (encoded.hasRemaining()) {
+                    channel.write(encoded);
+                }
+                channel.force(false);
+            }
+            Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /*
+     * The snapshot's layout in a heap buffer instead of a file.
+     */
+    static MappedSnapshotFile of(RestaurantSnapshot snapshot) {
+        try {
+            return new MappedSnapshotFile(encode(snapshot));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long getSnapshotVersion() {
+        return snapshotVersion;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int restaurantCount() {
+        return layout.restaurantCount;
+    }
+
+    public int dealCount() {
+        return layout.dealCount;
+    }
+
+    public List<Restaurant> restaurants() {
+        List<Restaurant> all = new ArrayList<>(layout.restaurantCount);
+        for (int r = 0; r < layout.restaurantCount; r++) {
+            all.add(restaurant(r));
+        }
+        return all;
+    }
+
+    public Restaurant restaurant(int restaurantIndex) {
+        Restaurant restaurant = restaurants.get(restaurantIndex);
+        if (restaurant == null) {
+            // Racing decodes produce equal restaurants; the first one stored is kept
+            restaurants.compareAndSet(restaurantIndex, null, decodeRestaurant(restaurantIndex));
+            restaurant = restaurants.get(restaurantIndex);
+        }
+        return restaurant;
+    }
+
+    /*
+     * Index of the first restaurant with the given id, or -1.
+     */
+    public int restaurantIndexOf(String restaurantId) {
+        if (restaurantId == null) {
+            for (int r = 0; r < layout.restaurantCount; r++) {
+                if (intAt(layout.restaurantIds, r) == NO_STRING) {
+                    return r;
+                }
+            }
+            return -1;
+        }
+        byte[] id = restaurantId.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = layout.restaurantCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareString(intAt(layout.restaurantIds, intAt(layout.restaurantIdOrder, middle)), id) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low < layout.restaurantCount) {
+            int restaurantIndex = intAt(layout.restaurantIdOrder, low);
+            if (compareString(intAt(layout.restaurantIds, restaurantIndex), id) == 0) {
+                return restaurantIndex;
+            }
+        }
+        return -1;
+    }
+
+    public int firstDealOf(int restaurantIndex) {
+        return intAt(layout.restaurantDealStarts, restaurantIndex);
+    }
+
+    public int endDealOf(int restaurantIndex) {
+        return intAt(layout.restaurantDealStarts, restaurantIndex + 1);
+    }
+
+    public List<Deal> dealsOf(String restaurantId) {
+        int restaurantIndex = restaurantIndexOf(restaurantId);
+        if (restaurantIndex < 0) {
+            return new ArrayList<>();
+        }
+        List<Deal> deals = new ArrayList<>(endDealOf(restaurantIndex) - firstDealOf(restaurantIndex));
+        for (int ordinal = firstDealOf(restaurantIndex); ordinal < endDealOf(restaurantIndex); ordinal++) {
+            deals.add(toDeal(ordinal));
+        }
+        return deals;
+    }
+
+    public Deal toDeal(int ordinal) {
+        int open = intAt(layout.dealOpens, ordinal);
+        int close = intAt(layout.dealCloses, ordinal);
+        int flags = intAt(layout.dealFlags, ordinal);
+        return new Deal(string(intAt(layout.dealIds, ordinal)), restaurantOf(ordinal).getObjectId(), discount(ordinal),
+                (flags & DINE_IN) != 0, (flags & LIGHTNING) != 0, intAt(layout.dealQtyLefts, ordinal),
+                open != NO_TIME ? LocalTime.ofSecondOfDay(open) : null,
+                close != NO_TIME ? LocalTime.ofSecondOfDay(close) : null);
+    }
+
+    public DealAtRestaurant toDealAtRestaurant(int ordinal) {
+        return new DealAtRestaurant(restaurantOf(ordinal), toDeal(ordinal));
+    }
+
+    /*
+     * The deals at the given ordinals, each materialised when it is read.
+     */
+    public List<DealAtRestaurant> select(int[] ordinals) {
+        return new Selection(this, ordinals);
+    }
+
+    /*
+     * The snapshot's DealColumns, decoded onto the heap, for callers that need all of
+     * the deals in that form rather than query them.
+     */
+    public DealColumns toDealColumns() {
+        List<Restaurant> all = restaurants();
+        Map<String, List<Deal>> dealsByRestaurantId = new LinkedHashMap<>();
+        for (Restaurant restaurant : all) {
+            dealsByRestaurantId.computeIfAbsent(restaurant.getObjectId(), this::dealsOf);
+        }
+        return new DealColumns(all, dealsByRestaurantId);
+    }
+
+    public List<Restaurant> findAvailableRestaurantsAt(LocalTime time) {
+        int minute = MinuteRanges.minuteOfDay(time);
+        // Hours are minute aligned, so between two minutes a restaurant must be open at both
+        boolean betweenMinutes = time.getSecond() != 0 || time.getNano() != 0;
+        List<Restaurant> available = new ArrayList<>();
+        for (int word = 0; word < layout.minuteWords; word++) {
+            long open = longAt(layout.openByMinute, minute * layout.minuteWords + word);
+            if (betweenMinutes) {
+                open &= longAt(layout.openByMinute, (minute + 1) * layout.minuteWords + word);
+            }
+            while (open != 0) {
+                available.add(restaurant(word * Long.SIZE + Long.numberOfTrailingZeros(open)));
+                open &= open - 1;
+            }
+        }
+        return Collections.unmodifiableList(available);
+    }
+
+    /*
+     * Hands the ordinals of the deals live at the time that pass the filter to the
+     * action in ordinal order, from fromOrdinal on and at most limit of them. Returns the
+     * ordinal to resume from, or -1. This is the walk of DealAvailabilityIndex over the
+     * mapped segment tree; there are no attribute indexes, so filters are checked deal
+     * by deal.
+     */
+    public int forEachLiveOrdinalAt(LocalTime time, DealFilter filter, int fromOrdinal, int limit, IntConsumer action) {
+        int minute = MinuteRanges.minuteOfDay(time);
+        int[] path = DealAvailabilityIndex.pathTo(minute);
+        int[] positions = new int[path.length];
+        for (int i = 0; i < path.length; i++) {
+            positions[i] = lowerBound(path[i], fromOrdinal);
+        }
+        int[] nextMinutePath = time.getSecond() != 0 || time.getNano() != 0
+                ? DealAvailabilityIndex.pathTo(minute + 1) : null;
+
+        int emitted = 0;
+        while (true) {
+            int nextOrdinal = Integer.MAX_VALUE;
+            int nextNode = -1;
+            for (int i = 0; i < path.length; i++) {
+                if (positions[i] < nodeEnd(path[i]) && intAt(layout.nodeDeals, positions[i]) < nextOrdinal) {
+                    nextOrdinal = intAt(layout.nodeDeals, positions[i]);
+                    nextNode = i;
+                }
+            }
+            if (nextNode < 0) {
+                return -1;
+            }
+            positions[nextNode]++;
+            if (nextMinutePath != null && !isOnPath(nextMinutePath, nextOrdinal)) {
+                continue;
+            }
+            if (!filter.isEmpty() && !matches(nextOrdinal, filter)) {
+                continue;
+            }
+            if (emitted == limit) {
+                return nextOrdinal;
+            }
+            action.accept(nextOrdinal);
+            emitted++;
+        }
+    }
+
+    /*
+     * The best limit live deals that pass the filter, ranked as DealAvailabilityIndex
+     * ranks them.
+     */
+    public int[] findTopLiveAt(LocalTime time, DealFilter filter, DealSort sort, int limit) {
+        TopOrdinals top = new TopOrdinals(limit, ordinal -> switch (sort) {
+            case DISCOUNT -> Float.isNaN(discount(ordinal)) ? Float.NEGATIVE_INFINITY : discount(ordinal);
+            case QTY_LEFT -> intAt(layout.dealQtyLefts, ordinal);
+        });
+        forEachLiveOrdinalAt(time, filter, 0, Integer.MAX_VALUE, top::offer);
+        return top.toSortedArray();
+    }
+
+    boolean matches(int ordinal, DealFilter filter) {
+        int flags = intAt(layout.dealFlags, ordinal);
+        return DealColumns.matches(restaurantOf(ordinal), (flags & DINE_IN) != 0, (flags & LIGHTNING) != 0,
+                discount(ordinal), intAt(layout.dealQtyLefts, ordinal), filter);
+    }
+
+    private Restaurant restaurantOf(int ordinal) {
+        return restaurant(intAt(layout.dealRestaurants, ordinal));
+    }
+
+    private float discount(int ordinal) {
+        return Float.intBitsToFloat(intAt(layout.dealDiscounts, ordinal));
+    }
+
+    private Restaurant decodeRestaurant(int r) {
+        List<String> cuisines = new ArrayList<>();
+        for (int c = intAt(layout.restaurantCuisineStarts, r); c < intAt(layout.restaurantCuisineStarts, r + 1); c++) {
+            cuisines.add(string(intAt(layout.cuisineRefs, c)));
+        }
+        List<OpeningHours> openingHours = new ArrayList<>();
+        for (int h = intAt(layout.restaurantHoursStarts, r); h < intAt(layout.restaurantHoursStarts, r + 1); h++) {
+            openingHours.add(new OpeningHours(DayOfWeek.of(intAt(layout.hoursDays, h)),
+                    LocalTime.ofSecondOfDay(intAt(layout.hoursOpens, h)), LocalTime.ofSecondOfDay(intAt(layout.hoursCloses, h))));
+        }
+        return new Restaurant(string(intAt(layout.restaurantIds, r)), string(intAt(layout.restaurantNames, r)),
+                string(intAt(layout.restaurantAddresses, r)), string(intAt(layout.restaurantSuburbs, r)),
+                LocalTime.ofSecondOfDay(intAt(layout.restaurantOpens, r)),
+                LocalTime.ofSecondOfDay(intAt(layout.restaurantCloses, r)), List.copyOf(cuisines), List.copyOf(openingHours));
+    }
+
+    private String string(int ref) {
+        if (ref == NO_STRING) {
+            return null;
+        }
+        String value = strings.get(ref);
+        if (value == null) {
+            int start = intAt(layout.stringOffsets, ref);
+            byte[] bytes = new byte[intAt(layout.stringOffsets, ref + 1) - start];
+            buffer.get(layout.strings + start, bytes);
+            strings.compareAndSet(ref, null, new String(bytes, StandardCharsets.UTF_8));
+            value = strings.get(ref);
+        }
+        return value;
+    }
+
+    /*
+     * Unsigned byte order, null first, as the writer sorts ids.
+     */
+    private int compareString(int ref, byte[] value) {
+        if (ref == NO_STRING) {
+            return -1;
+        }
+        int start = layout.strings + intAt(layout.stringOffsets, ref);
+        int length = intAt(layout.stringOffsets, ref + 1) - intAt(layout.stringOffsets, ref);
+        for (int i = 0; i < Math.min(length, value.length); i++) {
+            int difference = Byte.toUnsignedInt(buffer.get(start + i)) - Byte.toUnsignedInt(value[i]);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - value.length;
+    }
+
+    private int nodeEnd(int node) {
+        return intAt(layout.nodeOffsets, node + 1);
+    }
+
+    private int lowerBound(int node, int ordinal) {
+        int low = intAt(layout.nodeOffsets, node);
+        int high = nodeEnd(node);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (intAt(layout.nodeDeals, middle) < ordinal) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean isOnPath(int[] path, int ordinal) {
+        for (int node : path) {
+            int position = lowerBound(node, ordinal);
+            if (position < nodeEnd(node) && intAt(layout.nodeDeals, position) == ordinal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int intAt(int section, int index) {
+        return buffer.getInt(section + index * Integer.BYTES);
+    }
+
+    private long longAt(int section, int index) {
+        return buffer.getLong(section + index * Long.BYTES);
+    }
+
+    private static ByteBuffer encode(RestaurantSnapshot snapshot) throws IOException {
+        List<Restaurant> restaurantList = snapshot.getRestaurants();
+        DealColumns columns = snapshot.getDealColumns();
+        // A sharded snapshot has no index of its own, so the file's is built for it here
+        DealAvailabilityIndex dealIndex = snapshot.hasDealIndexes() ? snapshot.getDealAvailabilityIndex()
+                : new DealAvailabilityIndex(columns);
+        RestaurantAvailabilityIndex availabilityIndex = snapshot.getAvailabilityIndex();
+
+        StringTable table = new StringTable();
+        int[] cuisineCounts = new int[restaurantList.size()];
+        List<Integer> cuisineRefs = new ArrayList<>();
+        List<OpeningHours> openingHours = new ArrayList<>();
+        int[] hoursCounts = new int[restaurantList.size()];
+        for (int r = 0; r < restaurantList.size(); r++) {
+            Restaurant restaurant = restaurantList.get(r);
+            table.ref(restaurant.getObjectId());
+            table.ref(restaurant.getName());
+            table.ref(restaurant.getAddress1());
+            table.ref(restaurant.getSuburb());
+            List<String> cuisines = restaurant.getCuisines() == null ? List.of() : restaurant.getCuisines();
+            cuisineCounts[r] = cuisines.size();
+            for (String cuisine : cuisines) {
+                cuisineRefs.add(table.ref(cuisine));
+            }
+            List<OpeningHours> hours = restaurant.getOpeningHours() == null ? List.of() : restaurant.getOpeningHours();
+            hoursCounts[r] = hours.size();
+            openingHours.addAll(hours);
+        }
+        for (int ordinal = 0; ordinal < columns.dealCount(); ordinal++) {
+            table.ref(columns.objectId(ordinal));
+        }
+
+        int minuteWords = (restaurantList.size() + Long.SIZE - 1) / Long.SIZE;
+        int[] nodeOffsets = dealIndex.nodeOffsets();
+        int[] nodeDeals = dealIndex.nodeDeals();
+        Layout layout = new Layout(restaurantList.size(), columns.dealCount(), table.size(), table.byteCount(),
+                cuisineRefs.size(), nodeOffsets.length - 1, nodeDeals.length, minuteWords, openingHours.size());
+        if (layout.size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot is too large to map: " + layout.size + " bytes");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) layout.size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(0, MAGIC)
+                .putInt(4, FORMAT_VERSION)
+                .putLong(8, snapshot.getVersion())
+                .putLong(16, snapshot.getLoadedAt().toEpochMilli())
+                .putInt(24, layout.restaurantCount)
+                .putInt(28, layout.dealCount)
+                .putInt(32, layout.stringCount)
+                .putInt(36, layout.stringByteCount)
+                .putInt(40, layout.cuisineRefCount)
+                .putInt(44, layout.nodeCount)
+                .putInt(48, layout.nodeDealCount)
+                .putInt(52, layout.minuteWords)
+                .putInt(56, layout.openingHoursCount);
+
+        for (int minute = 0; minute <= Constants.MINUTES_PER_DAY; minute++) {
+            long[] words = availabilityIndex.openAt(minute).toLongArray();
+            for (int word = 0; word < words.length; word++) {
+                out.putLong(layout.openByMinute + (minute * minuteWords + word) * Long.BYTES, words[word]);
+            }
+        }
+
+        int cuisineStart = 0;
+        int hoursStart = 0;
+        for (int r = 0; r < restaurantList.size(); r++) {
+            Restaurant restaurant = restaurantList.get(r);
+            putInt(out, layout.restaurantIds, r, table.ref(restaurant.getObjectId()));
+            putInt(out, layout.restaurantNames, r, table.ref(restaurant.getName()));
+            putInt(out, layout.restaurantAddresses, r, table.ref(restaurant.getAddress1()));
+            putInt(out, layout.restaurantSuburbs, r, table.ref(restaurant.getSuburb()));
+            putInt(out, layout.restaurantOpens, r, restaurant.getOpenTime().toSecondOfDay());
+            putInt(out, layout.restaurantCloses, r, restaurant.getCloseTime().toSecondOfDay());
+            putInt(out, layout.restaurantCuisineStarts, r, cuisineStart);
+            putInt(out, layout.restaurantDealStarts, r, columns.firstDealOf(r));
+            putInt(out, layout.restaurantHoursStarts, r, hoursStart);
+            cuisineStart += cuisineCounts[r];
+            hoursStart += hoursCounts[r];
+        }
+        putInt(out, layout.restaurantCuisineStarts, restaurantList.size(), cuisineStart);
+        putInt(out, layout.restaurantDealStarts, restaurantList.size(), columns.dealCount());
+        putInt(out, layout.restaurantHoursStarts, restaurantList.size(), hoursStart);
+
+        Comparator<byte[]> idOrder = (left, right) -> left == null ? (right == null ? 0 : -1)
+                : right == null ? 1 : Arrays.compareUnsigned(left, right);
+        byte[][] ids = new byte[restaurantList.size()][];
+        for (int r = 0; r < ids.length; r++) {
+            String id = restaurantList.get(r).getObjectId();
+            ids[r] = id == null ? null : id.getBytes(StandardCharsets.UTF_8);
+        }
+        int[] sortedIndexes = IntStream.range(0, ids.length).boxed()
+                .sorted(Comparator.<Integer, byte[]>comparing(r -> ids[r], idOrder).thenComparing(r -> r))
+                .mapToInt(Integer::intValue).toArray();
+        for (int i = 0; i < sortedIndexes.length; i++) {
+            putInt(out, layout.restaurantIdOrder, i, sortedIndexes[i]);
+        }
+        for (int c = 0; c < cuisineRefs.size(); c++) {
+            putInt(out, layout.cuisineRefs, c, cuisineRefs.get(c));
+        }
+        for (int h = 0; h < openingHours.size(); h++) {
+            OpeningHours hours = openingHours.get(h);
+            putInt(out, layout.hoursDays, h, hours.getDay().getValue());
+            putInt(out, layout.hoursOpens, h, hours.getOpenTime().toSecondOfDay());
+            putInt(out, layout.hoursCloses, h, hours.getCloseTime().toSecondOfDay());
+        }
+
+        for (int ordinal = 0; ordinal < columns.dealCount(); ordinal++) {
+            putInt(out, layout.dealIds, ordinal, table.ref(columns.objectId(ordinal)));
+            putInt(out, layout.dealRestaurants, ordinal, columns.restaurantOrdinal(ordinal));
+            putInt(out, layout.dealDiscounts, ordinal, Float.floatToRawIntBits(columns.discount(ordinal)));
+            putInt(out, layout.dealQtyLefts, ordinal, columns.qtyLeft(ordinal));
+            LocalTime open = columns.openTime(ordinal);
+            LocalTime close = columns.closeTime(ordinal);
+            putInt(out, layout.dealOpens, ordinal, open != null ? open.toSecondOfDay() : NO_TIME);
+            putInt(out, layout.dealCloses, ordinal, close != null ? close.toSecondOfDay() : NO_TIME);
+            putInt(out, layout.dealFlags, ordinal,
+                    (columns.isDineIn(ordinal) ? DINE_IN : 0) | (columns.isLightning(ordinal) ? LIGHTNING : 0));
+        }
+
+        for (int i = 0; i < nodeOffsets.length; i++) {
+            putInt(out, layout.nodeOffsets, i, nodeOffsets[i]);
+        }
+        for (int i = 0; i < nodeDeals.length; i++) {
+            putInt(out, layout.nodeDeals, i, nodeDeals[i]);
+        }
+
+        int stringStart = 0;
+        for (int ref = 0; ref < table.size(); ref++) {
+            byte[] bytes = table.bytes(ref);
+            putInt(out, layout.stringOffsets, ref, stringStart);
+            out.put(layout.strings + stringStart, bytes);
+            stringStart += bytes.length;
+        }
+        putInt(out, layout.stringOffsets, table.size(), stringStart);
+        return out;
+    }
+
+    private static void putInt(ByteBuffer out, int section, int index, int value) {
+        out.putInt(section + index * Integer.BYTES, value);
+    }
+
+    /*
+     * Where each section starts, which only depends on the counts in the header. The
+     * long section comes first so it is 8-byte aligned.
+     */
+    private static final class Layout {
+
+        final int restaurantCount;
+        final int dealCount;
+        final int stringCount;
+        final int stringByteCount;
+        final int cuisineRefCount;
+        final int nodeCount;
+        final int nodeDealCount;
+        final int minuteWords;
+        final int openingHoursCount;
+
+        final int openByMinute;
+        final int restaurantIds;
+        final int restaurantNames;
+        final int restaurantAddresses;
+        final int restaurantSuburbs;
+        final int restaurantOpens;
+        final int restaurantCloses;
+        final int restaurantCuisineStarts;
+        final int restaurantDealStarts;
+        final int restaurantHoursStarts;
+        final int restaurantIdOrder;
+        final int cuisineRefs;
+        final int hoursDays;
+        final int hoursOpens;
+        final int hoursCloses;
+        final int dealIds;
+        final int dealRestaurants;
+        final int dealDiscounts;
+        final int dealQtyLefts;
+        final int dealOpens;
+        final int dealCloses;
+        final int dealFlags;
+        final int nodeOffsets;
+        final int nodeDeals;
+        final int stringOffsets;
+        final int strings;
+        final long size;
+
+        private long position = HEADER_BYTES;
+
+        Layout(int restaurantCount, int dealCount, int stringCount, int stringByteCount, int cuisineRefCount,
+                int nodeCount, int nodeDealCount, int minuteWords, int openingHoursCount) {
+            this.restaurantCount = restaurantCount;
+            this.dealCount = dealCount;
+            this.stringCount = stringCount;
+            this.stringByteCount = stringByteCount;
+            this.cuisineRefCount = cuisineRefCount;
+            this.nodeCount = nodeCount;
+            this.nodeDealCount = nodeDealCount;
+            this.minuteWords = minuteWords;
+            this.openingHoursCount = openingHoursCount;
+
+            this.openByMinute = section((long) (Constants.MINUTES_PER_DAY + 1) * minuteWords, Long.BYTES);
+            this.restaurantIds = section(restaurantCount, Integer.BYTES);
+            this.restaurantNames = section(restaurantCount, Integer.BYTES);
+            this.restaurantAddresses = section(restaurantCount, Integer.BYTES);
+            this.restaurantSuburbs = section(restaurantCount, Integer.BYTES);
+            this.restaurantOpens = section(restaurantCount, Integer.BYTES);
+            this.restaurantCloses = section(restaurantCount, Integer.BYTES);
+            this.restaurantCuisineStarts = section(restaurantCount + 1L, Integer.BYTES);
+            this.restaurantDealStarts = section(restaurantCount + 1L, Integer.BYTES);
+            this.restaurantHoursStarts = section(restaurantCount + 1L, Integer.BYTES);
+            this.restaurantIdOrder = section(restaurantCount, Integer.BYTES);
+            this.cuisineRefs = section(cuisineRefCount, Integer.BYTES);
+            this.hoursDays = section(openingHoursCount, Integer.BYTES);
+            this.hoursOpens = section(openingHoursCount, Integer.BYTES);
+            this.hoursCloses = section(openingHoursCount, Integer.BYTES);
+            this.dealIds = section(dealCount, Integer.BYTES);
+            this.dealRestaurants = section(dealCount, Integer.BYTES);
+            this.dealDiscounts = section(dealCount, Integer.BYTES);
+            this.dealQtyLefts = section(dealCount, Integer.BYTES);
+            this.dealOpens = section(dealCount, Integer.BYTES);
+            this.dealCloses = section(dealCount, Integer.BYTES);
+            this.dealFlags = section(dealCount, Integer.BYTES);
+            this.nodeOffsets = section(nodeCount + 1L, Integer.BYTES);
+            this.nodeDeals = section(nodeDealCount, Integer.BYTES);
+            this.stringOffsets = section(stringCount + 1L, Integer.BYTES);
+            this.strings = section(stringByteCount, 1);
+            this.size = position;
+        }
+
+        /*
+         * Offsets past 2 GB are clamped; such a layout fails the size check before use.
+         */
+        private int section(long count, int width) {
+            long start = position;
+            position += Math.max(0, count) * width;
+            return (int) Math.min(start, Integer.MAX_VALUE);
+        }
+    }
+
+    /*
+     * Each distinct string stored once, refs in order of first use.
+     */
+    private static final class StringTable {
+
+        private final Map<String, Integer> refs = new LinkedHashMap<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+        private int byteCount;
+
+        int ref(String value) {
+            if (value == null) {
+                return NO_STRING;
+            }
+            return refs.computeIfAbsent(value, key -> {
+                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                byteCount += bytes.length;
+                return encoded.size() - 1;
+            });
+        }
+
+        int size() {
+            return encoded.size();
+        }
+
+        int byteCount() {
+            return byteCount;
+        }
+
+        byte[] bytes(int ref) {
+            return encoded.get(ref);
+        }
+    }
+
+    /*
+     * Query results: ordinals into the file, materialised one deal at a time as read.
+     */
+    private static final class Selection extends AbstractList<DealAtRestaurant> implements RandomAccess {
+
+        private final MappedSnapshotFile file;
+        private final int[] ordinals;
+
+        Selection(MappedSnapshotFile file, int[] ordinals) {
+            this.file = file;
+            this.ordinals = ordinals;
+        }
+
+        @Override
+        public DealAtRestaurant get(int index) {
+            return file.toDealAtRestaurant(ordinals[index]);
+        }
+
+        @Override
+        public int size() {
+            return ordinals.length;
+        }
+    }
+}
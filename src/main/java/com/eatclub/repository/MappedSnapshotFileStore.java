@@ -0,0 +1,68 @@
+package com.eatclub.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+/*
+ * Where the snapshot is kept as a MappedSnapshotFile. The refresher writes every new
+ * snapshot here when enabled; a MappedRestaurantRepository, in this process or in any
+ * other on the host, serves from it.
+ */
+@Component
+public class MappedSnapshotFileStore {
+
+    private final boolean enabled;
+    private final Path path;
+
+    public MappedSnapshotFileStore(
+            @Value("${restaurants.mapped-snapshot.enabled:false}") boolean enabled,
+            @Value("${restaurants.mapped-snapshot.path:data/restaurants.mapped}") Path path) {
+        this.enabled = enabled;
+        this.path = path;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public void write(RestaurantSnapshot snapshot) throws IOException {
+        if (enabled) {
+            MappedSnapshotFile.write(snapshot, path);
+        }
+    }
+
+    /*
+     * Identifies the file now at the path, so a reader can tell when it was replaced;
+     * empty when there is none.
+     */
+    public Optional<Object> currentFileKey() throws IOException {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Object fileKey = attributes.fileKey();
+        return Optional.of(new FileKey(fileKey != null ? fileKey : path, attributes.lastModifiedTime().toMillis(),
+                attributes.size()));
+    }
+
+    public MappedSnapshotFile open() throws IOException {
+        return MappedSnapshotFile.open(path);
+    }
+
+    /*
+     * A replaced file is a new inode, where the platform has them; the modification time
+     * and size cover the others.
+     */
+    private record FileKey(Object fileKey, long lastModifiedMillis, long size) {
+    }
+}
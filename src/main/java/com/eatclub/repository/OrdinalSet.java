@@ -0,0 +1,109 @@
+package com.eatclub.repository;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/*
+ * A sorted set of deal ordinals that can be searched forward from any ordinal, which
+ * is all an intersection needs: the smallest set drives, and every candidate is looked
+ * up in the others, so the work follows the size of the smallest set rather than the
+ * number of deals.
+ */
+interface OrdinalSet {
+
+    int NONE = -1;
+
+    /*
+     * Number of ordinals in the set; used to pick the set that drives an intersection.
+     */
+    int size();
+
+    /*
+     * Smallest ordinal in the set that is at least the given one, or NONE.
+     */
+    int nextFrom(int ordinal);
+
+    static OrdinalSet ofSorted(int[] ordinals) {
+        return new OrdinalSet() {
+            @Override
+            public int size() {
+                return ordinals.length;
+            }
+
+            @Override
+            public int nextFrom(int ordinal) {
+                int low = 0;
+                int high = ordinals.length;
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (ordinals[middle] < ordinal) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                return low < ordinals.length ? ordinals[low] : NONE;
+            }
+        };
+    }
+
+    /*
+     * The ordinals below universeSize whose bit equals the given value.
+     */
+    static OrdinalSet ofBits(BitSet bits, int cardinality, boolean value, int universeSize) {
+        return new OrdinalSet() {
+            @Override
+            public int size() {
+                return value ? cardinality : universeSize - cardinality;
+            }
+
+            @Override
+            public int nextFrom(int ordinal) {
+                int next = value ? bits.nextSetBit(ordinal) : bits.nextClearBit(ordinal);
+                return next >= 0 && next < universeSize ? next : NONE;
+            }
+        };
+    }
+
+    /*
+     * Ordinals found by the intersection of the given sets, from fromOrdinal on, handed
+     * to the action in ascending order until limit have been accepted. Candidates that
+     * are in every set must also pass the check. Returns the ordinal to resume from, or
+     * NONE when the intersection is exhausted.
+     */
+    static int intersect(OrdinalSet[] sets, int fromOrdinal, int limit, IntPredicate check,
+            IntConsumer action) {
+        Arrays.sort(sets, Comparator.comparingInt(OrdinalSet::size));
+        int emitted = 0;
+        int candidate = fromOrdinal;
+        while (true) {
+            boolean inAll = true;
+            for (OrdinalSet set : sets) {
+                int next = set.nextFrom(candidate);
+                if (next == NONE) {
+                    return NONE;
+                }
+                if (next != candidate) {
+                    // Skip straight to the next ordinal this set has, and restart from the driver
+                    candidate = next;
+                    inAll = false;
+                    break;
+                }
+            }
+            if (!inAll) {
+                continue;
+            }
+            if (check.test(candidate)) {
+                if (emitted == limit) {
+                    return candidate;
+                }
+                action.accept(candidate);
+                emitted++;
+            }
+            candidate++;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.eatclub.repository;
+
+import com.eatclub.common.Constants;
+import com.eatclub.model.Restaurant;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class RestaurantAvailabilityIndex {
+
+    private final List<Restaurant> restaurants;
+
+    /*
+     * One bitset of restaurant ordinals per minute of the day. The extra slot at
+     * MINUTES_PER_DAY stands for "end of day" (24:00) and holds every restaurant
+     * whose hours wrap past midnight, so times between 23:59 and 24:00 can be
+     * resolved the same way as any other sub-minute time.
+     */
+    private final BitSet[] openByMinute;
+
+    public RestaurantAvailabilityIndex(List<Restaurant> restaurants) {
+        this.restaurants = List.copyOf(restaurants);
+        this.openByMinute = new BitSet[Constants.MINUTES_PER_DAY + 1];
+        for (int minute = 0; minute <= Constants.MINUTES_PER_DAY; minute++) {
+            openByMinute[minute] = new BitSet(this.restaurants.size());
+        }
+
+        for (int ordinal = 0; ordinal < this.restaurants.size(); ordinal++) {
+            markOpen(openByMinute, ordinal, this.restaurants.get(ordinal));
+        }
+    }
+
+    private RestaurantAvailabilityIndex(List<Restaurant> restaurants, BitSet[] openByMinute) {
+        this.restaurants = restaurants;
+        this.openByMinute = openByMinute;
+    }
+
+    /*
+     * Builds the index for restaurants that keep the positions they had in this index
+     * (edited in place or appended, see RestaurantFeedDiff), re-marking only the
+     * changed restaurants whose hours moved. This index is left untouched, and its
+     * bitsets are shared outright when no opening hours changed.
+     */
+    public RestaurantAvailabilityIndex update(List<Restaurant> restaurants, Set<String> changedRestaurantIds) {
+        List<Restaurant> updatedRestaurants = List.copyOf(restaurants);
+        List<Integer> movedOrdinals = new ArrayList<>();
+        for (int ordinal = 0; ordinal < updatedRestaurants.size(); ordinal++) {
+            Restaurant restaurant = updatedRestaurants.get(ordinal);
+            if (ordinal >= this.restaurants.size()
+                    || (changedRestaurantIds.contains(restaurant.getObjectId()) && !sameHours(this.restaurants.get(ordinal), restaurant))) {
+                movedOrdinals.add(ordinal);
+            }
+        }
+
+        if (movedOrdinals.isEmpty()) {
+            return new RestaurantAvailabilityIndex(updatedRestaurants, openByMinute);
+        }
+
+        BitSet[] updatedOpenByMinute = new BitSet[openByMinute.length];
+        for (int minute = 0; minute < openByMinute.length; minute++) {
+            updatedOpenByMinute[minute] = (BitSet) openByMinute[minute].clone();
+        }
+        for (int ordinal : movedOrdinals) {
+            if (ordinal < this.restaurants.size()) {
+                for (BitSet open : updatedOpenByMinute) {
+                    open.clear(ordinal);
+                }
+            }
+            markOpen(updatedOpenByMinute, ordinal, updatedRestaurants.get(ordinal));
+        }
+        return new RestaurantAvailabilityIndex(updatedRestaurants, updatedOpenByMinute);
+    }
+
+    /*
+     * Bitsets shared with the index this one was updated from are counted here too.
+     */
+    long estimatedHeapBytes() {
+        long bytes = SnapshotFootprint.array(openByMinute.length, 4);
+        for (BitSet open : openByMinute) {
+            bytes += SnapshotFootprint.bitSet(open);
+        }
+        return bytes;
+    }
+
+    /*
+     * The restaurants open at the minute (MINUTES_PER_DAY being the end-of-day slot).
+     * Shared with the index and must not be modified.
+     */
+    BitSet openAt(int minute) {
+        return openByMinute[minute];
+    }
+
+    public List<Restaurant> findAvailableAt(LocalTime time) {
+        int minute = minuteOfDay(time);
+        BitSet open = openByMinute[minute];
+
+        if (time.getSecond() != 0 || time.getNano() != 0) {
+            /*
+             * Opening hours are minute aligned, so a time strictly between two minutes
+             * is inside a range only when both surrounding minutes are.
+             */
+            open = (BitSet) open.clone();
+            open.and(openByMinute[minute + 1]);
+        }
+
+        List<Restaurant> availableRestaurants = new ArrayList<>(open.cardinality());
+        for (int ordinal = open.nextSetBit(0); ordinal >= 0; ordinal = open.nextSetBit(ordinal + 1)) {
+            availableRestaurants.add(restaurants.get(ordinal));
+        }
+        return Collections.unmodifiableList(availableRestaurants);
+    }
+
+    public static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static boolean sameHours(Restaurant previous, Restaurant restaurant) {
+        return previous.getOpenTime().equals(restaurant.getOpenTime())
+                && previous.getCloseTime().equals(restaurant.getCloseTime());
+    }
+
+    private static void markOpen(BitSet[] openByMinute, int ordinal, Restaurant restaurant) {
+        int openMinute = minuteOfDay(restaurant.getOpenTime());
+        int closeMinute = minuteOfDay(restaurant.getCloseTime());
+
+        if (restaurant.getOpenTime().isBefore(restaurant.getCloseTime())) {
+            markOpen(openByMinute, ordinal, openMinute, closeMinute);
+        } else {
+            // Overnight (or open == close, which means open all day)
+            markOpen(openByMinute, ordinal, openMinute, Constants.MINUTES_PER_DAY);
+            markOpen(openByMinute, ordinal, 0, closeMinute);
+        }
+    }
+
+    private static void markOpen(BitSet[] openByMinute, int ordinal, int fromMinute, int toMinute) {
+        for (int minute = fromMinute; minute <= toMinute; minute++) {
+            openByMinute[minute].set(ordinal);
+        }
+    }
+}
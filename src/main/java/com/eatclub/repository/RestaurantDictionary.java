@@ -0,0 +1,95 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Restaurant;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Dictionary encoding of the restaurant fields that repeat across the catalog: suburbs,
+ * cuisines, and whole cuisine lists (many restaurants list exactly the same cuisines).
+ * Encoding replaces each value with its canonical instance in place, so restaurants
+ * keep their model but share the strings and lists behind it. Like StringDictionary,
+ * every load is a new generation seeded from the previous one.
+ */
+final class RestaurantDictionary {
+
+    private final StringDictionary suburbs;
+    private final StringDictionary cuisines;
+    private final Map<List<String>, List<String>> previousCuisineLists;
+    private final Map<List<String>, List<String>> cuisineLists = new HashMap<>();
+    private long savedListBytes;
+
+    RestaurantDictionary() {
+        this(new StringDictionary(), new StringDictionary(), Map.of());
+    }
+
+    private RestaurantDictionary(StringDictionary suburbs, StringDictionary cuisines,
+            Map<List<String>, List<String>> previousCuisineLists) {
+        this.suburbs = suburbs;
+        this.cuisines = cuisines;
+        this.previousCuisineLists = previousCuisineLists;
+    }
+
+    RestaurantDictionary nextGeneration() {
+        return new RestaurantDictionary(suburbs.nextGeneration(), cuisines.nextGeneration(), cuisineLists);
+    }
+
+    void encode(List<Restaurant> restaurants) {
+        for (Restaurant restaurant : restaurants) {
+            restaurant.setSuburb(suburbs.encode(restaurant.getSuburb()));
+            if (restaurant.getCuisines() != null) {
+                restaurant.setCuisines(encodeCuisines(restaurant.getCuisines()));
+            }
+        }
+    }
+
+    private List<String> encodeCuisines(List<String> restaurantCuisines) {
+        List<String> encoded = new ArrayList<>(restaurantCuisines.size());
+        for (String cuisine : restaurantCuisines) {
+            encoded.add(cuisines.encode(cuisine));
+        }
+        List<String> canonical = cuisineLists.get(encoded);
+        if (canonical != null) {
+            savedListBytes += SnapshotFootprint.list(canonical.size());
+            return canonical;
+        }
+        canonical = previousCuisineLists.get(encoded);
+        if (canonical == null) {
+            // List.copyOf rejects nulls, and a null cuisine is the feed's to keep
+            canonical = encoded.contains(null) ? encoded : List.copyOf(encoded);
+        }
+        cuisineLists.put(canonical, canonical);
+        return canonical;
+    }
+
+    int suburbCount() {
+        return suburbs.size();
+    }
+
+    int cuisineCount() {
+        return cuisines.size();
+    }
+
+    /*
+     * Estimated heap saved by the encoding, relative to every restaurant holding its own
+     * copies.
+     */
+    long savedBytes() {
+        return suburbs.savedBytes() + cuisines.savedBytes() + savedListBytes;
+    }
+
+    /*
+     * The distinct values and lists plus the maps kept to seed the next generation.
+     */
+    long estimatedHeapBytes() {
+        long bytes = suburbs.estimatedHeapBytes() + cuisines.estimatedHeapBytes()
+                + SnapshotFootprint.hashMap(cuisineLists.size());
+        for (List<String> cuisineList : cuisineLists.keySet()) {
+            bytes += SnapshotFootprint.list(cuisineList.size());
+        }
+        return bytes;
+    }
+}
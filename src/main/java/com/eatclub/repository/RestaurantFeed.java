@@ -0,0 +1,14 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.Restaurant;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The restaurants and deals from one load of the feed, before any index is built.
+ */
+public record RestaurantFeed(List<Restaurant> restaurants, Map<String, List<Deal>> dealsByRestaurantId, Instant fetchedAt) {
+}
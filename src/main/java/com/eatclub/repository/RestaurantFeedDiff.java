@@ -0,0 +1,62 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.Restaurant;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+ * Restaurant-level difference between a snapshot and the data replacing it. A
+ * restaurant counts as changed when it was added or when any of its fields or deals
+ * differ. The diff is only incremental while every restaurant of the previous
+ * snapshot keeps its position (edits in place and appends); removals or reorders
+ * shift positions, so consumers have to rebuild from scratch.
+ */
+@Getter
+public final class RestaurantFeedDiff {
+
+    private final long baseVersion;
+    private final boolean incremental;
+    private final Set<String> changedRestaurantIds;
+
+    private RestaurantFeedDiff(long baseVersion, boolean incremental, Set<String> changedRestaurantIds) {
+        this.baseVersion = baseVersion;
+        this.incremental = incremental;
+        this.changedRestaurantIds = changedRestaurantIds;
+    }
+
+    public static RestaurantFeedDiff between(RestaurantSnapshot previous, List<Restaurant> restaurants,
+            Map<String, List<Deal>> dealsByRestaurantId) {
+        List<Restaurant> previousRestaurants = previous.getRestaurants();
+        if (restaurants.size() < previousRestaurants.size()) {
+            return new RestaurantFeedDiff(previous.getVersion(), false, Set.of());
+        }
+
+        Set<String> changedRestaurantIds = new HashSet<>();
+        for (int ordinal = 0; ordinal < restaurants.size(); ordinal++) {
+            Restaurant restaurant = restaurants.get(ordinal);
+            if (ordinal >= previousRestaurants.size()) {
+                changedRestaurantIds.add(restaurant.getObjectId());
+                continue;
+            }
+
+            Restaurant previousRestaurant = previousRestaurants.get(ordinal);
+            if (!Objects.equals(previousRestaurant.getObjectId(), restaurant.getObjectId())) {
+                return new RestaurantFeedDiff(previous.getVersion(), false, Set.of());
+            }
+            // Compared against the previous columns, so the previous deals aren't materialised
+            List<Deal> deals = dealsByRestaurantId.getOrDefault(restaurant.getObjectId(), List.of());
+            if (!previousRestaurant.equals(restaurant) || !previous.getDealColumns().hasDeals(ordinal, deals)) {
+                changedRestaurantIds.add(restaurant.getObjectId());
+            }
+        }
+
+        return new RestaurantFeedDiff(previous.getVersion(), true, Collections.unmodifiableSet(changedRestaurantIds));
+    }
+}
@@ -0,0 +1,208 @@
+package com.eatclub.repository;
+
+import com.eatclub.common.Constants;
+import com.eatclub.model.Deal;
+import com.eatclub.model.OpeningHours;
+import com.eatclub.model.Restaurant;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Turns the upstream feed into domain records straight off the token stream, one
+ * restaurant at a time, instead of binding the whole response into DTOs first. Only
+ * the restaurant being read is held in intermediate form, so peak memory during a
+ * load is the finished feed plus a single record.
+ *
+ * Unknown fields (imageLink, ...) are skipped without being materialised.
+ */
+public class RestaurantFeedParser {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public RestaurantFeed parse(InputStream inputStream) throws IOException {
+        List<Restaurant> restaurants = new ArrayList<>();
+        Map<String, List<Deal>> dealsByRestaurantId = new HashMap<>();
+
+        try (JsonParser parser = jsonFactory.createParser(ObjectReadContext.empty(), inputStream)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT, "feed");
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("restaurants".equals(fieldName) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readRestaurant(parser, restaurants, dealsByRestaurantId);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return new RestaurantFeed(restaurants, dealsByRestaurantId, Instant.now());
+    }
+
+    private static void readRestaurant(JsonParser parser, List<Restaurant> restaurants,
+            Map<String, List<Deal>> dealsByRestaurantId) {
+        String objectId = null;
+        String name = null;
+        String address1 = null;
+        String suburb = null;
+        String open = null;
+        String close = null;
+        List<String> cuisines = new ArrayList<>();
+        List<OpeningHours> openingHours = new ArrayList<>();
+        List<Deal> deals = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (fieldName) {
+                case "objectId" -> objectId = parser.getValueAsString();
+                case "name" -> name = parser.getValueAsString();
+                case "address1" -> address1 = parser.getValueAsString();
+                case "suburb" -> suburb = parser.getValueAsString();
+                case "open" -> open = parser.getValueAsString();
+                case "close" -> close = parser.getValueAsString();
+                case "cuisines" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            if (parser.currentToken().isScalarValue()) {
+                                cuisines.add(parser.getValueAsString());
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                case "openingHours" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            openingHours.add(readOpeningHours(parser, objectId));
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                case "deals" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            deals.add(readDeal(parser));
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        // objectId may come after the deals, so the deals are linked once the object is complete
+        for (Deal deal : deals) {
+            deal.setRestaurantId(objectId);
+        }
+        restaurants.add(new Restaurant(objectId, name, address1, suburb,
+                parseTime("restaurant " + objectId, open, close, open),
+                parseTime("restaurant " + objectId, open, close, close),
+                List.copyOf(cuisines),
+                List.copyOf(openingHours)));
+        dealsByRestaurantId.put(objectId, deals);
+    }
+
+    /*
+     * The restaurant's id is only known here when it came before the hours, so errors
+     * may name it as null.
+     */
+    private static OpeningHours readOpeningHours(JsonParser parser, String restaurantId) {
+        String day = null;
+        String open = null;
+        String close = null;
+
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "day" -> day = parser.getValueAsString();
+                case "open" -> open = parser.getValueAsString();
+                case "close" -> close = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+
+        String owner = "opening hours of restaurant " + restaurantId;
+        DayOfWeek dayOfWeek;
+        try {
+            dayOfWeek = OpeningHours.parseDay(day);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Failed to parse day for " + owner + ": day='" + day + "'", e);
+        }
+        return new OpeningHours(dayOfWeek, parseTime(owner, open, close, open), parseTime(owner, open, close, close));
+    }
+
+    private static Deal readDeal(JsonParser parser) {
+        String objectId = null;
+        String discount = null;
+        String dineIn = null;
+        String lightning = null;
+        String qtyLeft = null;
+        String open = null;
+        String close = null;
+
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "objectId" -> objectId = parser.getValueAsString();
+                case "discount" -> discount = parser.getValueAsString();
+                case "dineIn" -> dineIn = parser.getValueAsString();
+                case "lightning" -> lightning = parser.getValueAsString();
+                case "qtyLeft" -> qtyLeft = parser.getValueAsString();
+                // Some feeds name the deal window start/end rather than open/close
+                case "open", "start" -> open = parser.getValueAsString();
+                case "close", "end" -> close = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+
+        boolean hasWindow = open != null && close != null;
+        return new Deal(
+                objectId,
+                null,
+                Float.parseFloat(discount),
+                Boolean.parseBoolean(dineIn),
+                Boolean.parseBoolean(lightning),
+                Integer.parseInt(qtyLeft),
+                hasWindow ? parseTime("deal " + objectId, open, close, open) : null,
+                hasWindow ? parseTime("deal " + objectId, open, close, close) : null);
+    }
+
+    private static LocalTime parseTime(String owner, String open, String close, String value) {
+        try {
+            return LocalTime.parse(value.trim().toLowerCase(), Constants.H_MM_A_TIME_FORMATTER);
+        } catch (Exception e) {
+            throw new RuntimeException(
+                    "Failed to parse time for " + owner +
+                            ": open='" + open + "', close='" + close + "'",
+                    e);
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected, String what) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected " + actual + " at start of " + what + ", expected " + expected);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealSort;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+/*
+ * One shard of a ShardedRestaurantRepository: some of a snapshot's restaurants with
+ * their own copy of the deal columns and their own deal indexes, by time of day and by
+ * day of the week. Queries answer with ordinals (and restaurant indexes) of the whole
+ * snapshot's DealColumns, so the results of every shard can be merged back into feed
+ * order.
+ *
+ * The columns and indexes only depend on the shard's own restaurants and deals. When
+ * none of those changed, they are carried over to the next snapshot and only the
+ * mapping to its ordinals is redone.
+ */
+final class RestaurantShard {
+
+    private final DealColumns columns;
+    private final DealAvailabilityIndex dealIndex;
+    private final WeeklyAvailabilityIndex weeklyIndex;
+
+    /*
+     * The snapshot index of each of the shard's restaurants, ascending.
+     */
+    private final int[] restaurantIndexes;
+
+    /*
+     * The snapshot ordinal of each of the shard's deals. The shard keeps the feed order
+     * of its restaurants, so this is ascending.
+     */
+    private final int[] snapshotOrdinals;
+
+    private RestaurantShard(DealColumns columns, DealAvailabilityIndex dealIndex, WeeklyAvailabilityIndex weeklyIndex,
+            int[] restaurantIndexes, int[] snapshotOrdinals) {
+        this.columns = columns;
+        this.dealIndex = dealIndex;
+        this.weeklyIndex = weeklyIndex;
+        this.restaurantIndexes = restaurantIndexes;
+        this.snapshotOrdinals = snapshotOrdinals;
+    }
+
+    /*
+     * The shard of the snapshot restaurants at the given indexes, which must be ascending.
+     */
+    static RestaurantShard of(DealColumns snapshotColumns, int[] restaurantIndexes) {
+        DealColumns columns = snapshotColumns.select(restaurantIndexes);
+        DealAvailabilityIndex dealIndex = new DealAvailabilityIndex(columns);
+        return new RestaurantShard(columns, dealIndex, new WeeklyAvailabilityIndex(columns, dealIndex.attributeIndex()),
+                restaurantIndexes, snapshotOrdinals(snapshotColumns, restaurantIndexes));
+    }
+
+    /*
+     * This shard over a later snapshot in which its restaurants and their deals are the
+     * same, though possibly at other ordinals. Falls back to a new shard if the deal
+     * counts say otherwise.
+     */
+    RestaurantShard rebase(DealColumns snapshotColumns, int[] restaurantIndexes) {
+        int[] ordinals = snapshotOrdinals(snapshotColumns, restaurantIndexes);
+        if (restaurantIndexes.length != columns.restaurantCount() || ordinals.length != columns.dealCount()) {
+            return of(snapshotColumns, restaurantIndexes);
+        }
+        return new RestaurantShard(columns, dealIndex, weeklyIndex, restaurantIndexes, ordinals);
+    }
+
+    DealColumns getColumns() {
+        return columns;
+    }
+
+    int restaurantCount() {
+        return columns.restaurantCount();
+    }
+
+    boolean contains(String restaurantId) {
+        return columns.restaurantIndexOf(restaurantId) >= 0;
+    }
+
+    /*
+     * The shard's own columns and indexes; the snapshot ordinal mapping is left out as
+     * small next to them.
+     */
+    long estimatedHeapBytes() {
+        return columns.estimatedHeapBytes() + dealIndex.estimatedHeapBytes() + weeklyIndex.estimatedHeapBytes();
+    }
+
+    /*
+     * Snapshot indexes of the shard's restaurants open at the time on the day, ascending.
+     */
+    int[] availableRestaurantsAt(DayOfWeek day, LocalTime time) {
+        BitSet open = weeklyIndex.openAt(day, time);
+        int[] indexes = new int[open.cardinality()];
+        int i = 0;
+        for (int r = open.nextSetBit(0); r >= 0; r = open.nextSetBit(r + 1)) {
+            indexes[i++] = restaurantIndexes[r];
+        }
+        return indexes;
+    }
+
+    /*
+     * Snapshot ordinals of the shard's deals live at the time on the day that pass the
+     * filter, ascending.
+     */
+    int[] liveAt(DayOfWeek day, LocalTime time, DealFilter filter) {
+        DealSelection live = weeklyIndex.findLiveAt(day, time, filter);
+        int[] ordinals = new int[live.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = snapshotOrdinals[live.ordinalAt(i)];
+        }
+        return ordinals;
+    }
+
+    /*
+     * Snapshot ordinals of the shard's deals live at the time that pass the filter, ascending.
+     */
+    int[] liveAt(LocalTime time, DealFilter filter) {
+        IntStream.Builder ordinals = IntStream.builder();
+        dealIndex.forEachLiveOrdinalAt(time, filter, 0, Integer.MAX_VALUE, ordinal -> ordinals.add(snapshotOrdinals[ordinal]));
+        return ordinals.build().toArray();
+    }
+
+    /*
+     * Like liveAt, for at most limit deals from the snapshot ordinal fromOrdinal on.
+     */
+    Page pageAt(LocalTime time, DealFilter filter, int fromOrdinal, int limit) {
+        IntStream.Builder ordinals = IntStream.builder();
+        int next = dealIndex.forEachLiveOrdinalAt(time, filter, localOrdinalFrom(fromOrdinal), limit,
+                ordinal -> ordinals.add(snapshotOrdinals[ordinal]));
+        return new Page(ordinals.build().toArray(), next >= 0 ? snapshotOrdinals[next] : -1);
+    }
+
+    /*
+     * Snapshot ordinals of the shard's best limit deals by the sort key, in no particular
+     * order. The best limit of the whole snapshot are among the union of every shard's.
+     */
+    int[] topAt(LocalTime time, DealFilter filter, DealSort sort, int limit) {
+        DealSelection top = dealIndex.findTopLiveAt(time, filter, sort, limit);
+        int[] ordinals = new int[top.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = snapshotOrdinals[top.ordinalAt(i)];
+        }
+        return ordinals;
+    }
+
+    /*
+     * The first of the shard's deals at or after the snapshot ordinal.
+     */
+    private int localOrdinalFrom(int snapshotOrdinal) {
+        int position = Arrays.binarySearch(snapshotOrdinals, snapshotOrdinal);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    private static int[] snapshotOrdinals(DealColumns snapshotColumns, int[] restaurantIndexes) {
+        IntStream.Builder ordinals = IntStream.builder();
+        for (int restaurantIndex : restaurantIndexes) {
+            for (int ordinal = snapshotColumns.firstDealOf(restaurantIndex); ordinal < snapshotColumns.endDealOf(restaurantIndex);
+                    ordinal++) {
+                ordinals.add(ordinal);
+            }
+        }
+        return ordinals.build().toArray();
+    }
+
+    /*
+     * nextOrdinal is the snapshot ordinal of the shard's next live deal, or -1.
+     */
+    record Page(int[] ordinals, int nextOrdinal) {
+    }
+}
@@ -0,0 +1,149 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.Restaurant;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Immutable view of one load of the upstream feed together with the indexes built
+ * from it. Repositories publish a new snapshot with a single reference swap, so
+ * readers always see either the previous or the next snapshot, never a mix.
+ */
+@Getter
+public final class RestaurantSnapshot {
+
+    private final long version;
+    private final SnapshotSource source;
+    private final Instant loadedAt;
+    private final List<Restaurant> restaurants;
+    private final DealColumns dealColumns;
+    private final RestaurantAvailabilityIndex availabilityIndex;
+
+    /*
+     * Null when the deals are indexed elsewhere, by the shards of a
+     * ShardedRestaurantRepository; see hasDealIndexes.
+     */
+    @Getter(AccessLevel.NONE)
+    private final DealAvailabilityIndex dealAvailabilityIndex;
+
+    /*
+     * Built with the rest of the snapshot, by the thread loading it, so the first query
+     * that names a day doesn't build it or wait on one that does. Null along with
+     * dealAvailabilityIndex.
+     */
+    @Getter(AccessLevel.NONE)
+    private final WeeklyAvailabilityIndex weeklyAvailabilityIndex;
+
+    /*
+     * What changed relative to the snapshot this one replaced, or null when it wasn't
+     * built from a previous snapshot.
+     */
+    private final RestaurantFeedDiff changes;
+
+    private final int dealCount;
+
+    /*
+     * Canonical suburbs and cuisines of this snapshot's restaurants; the next snapshot
+     * encodes its restaurants against it.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final RestaurantDictionary dictionary;
+
+    /*
+     * Estimated heap the dictionary encoding saves; see RestaurantDictionary.
+     */
+    private final long dictionarySavedBytes;
+
+    /*
+     * See SnapshotFootprint; computed once per snapshot so the heap gauge is free to read.
+     */
+    private final long estimatedHeapBytes;
+
+    public RestaurantSnapshot(long version, SnapshotSource source, Instant loadedAt, List<Restaurant> restaurants,
+            Map<String, List<Deal>> dealsByRestaurantId) {
+        this(version, source, loadedAt, restaurants, dealsByRestaurantId, null);
+    }
+
+    public RestaurantSnapshot(long version, SnapshotSource source, Instant loadedAt, List<Restaurant> restaurants,
+            Map<String, List<Deal>> dealsByRestaurantId, RestaurantSnapshot previous) {
+        this(version, source, loadedAt, restaurants, dealsByRestaurantId, previous, true);
+    }
+
+    public RestaurantSnapshot(long version, SnapshotSource source, Instant loadedAt, List<Restaurant> restaurants,
+            Map<String, List<Deal>> dealsByRestaurantId, RestaurantSnapshot previous, boolean indexDeals) {
+        this.version = version;
+        this.source = source;
+        this.loadedAt = loadedAt;
+        this.dictionary = previous == null ? new RestaurantDictionary() : previous.getDictionary().nextGeneration();
+        dictionary.encode(restaurants);
+        this.dictionarySavedBytes = dictionary.savedBytes();
+        this.dealColumns = new DealColumns(restaurants, dealsByRestaurantId);
+        this.restaurants = dealColumns.getRestaurants();
+
+        this.changes = previous == null ? null : RestaurantFeedDiff.between(previous, this.restaurants, dealsByRestaurantId);
+        this.availabilityIndex = changes != null && changes.isIncremental()
+                ? previous.getAvailabilityIndex().update(this.restaurants, changes.getChangedRestaurantIds())
+                : new RestaurantAvailabilityIndex(this.restaurants);
+        this.dealAvailabilityIndex = indexDeals ? new DealAvailabilityIndex(dealColumns) : null;
+        this.weeklyAvailabilityIndex = indexDeals
+                ? new WeeklyAvailabilityIndex(dealColumns, dealAvailabilityIndex.attributeIndex())
+                : null;
+        this.dealCount = dealColumns.dealCount();
+        this.estimatedHeapBytes = SnapshotFootprint.estimate(this.restaurants, dictionary, dealColumns,
+                availabilityIndex, dealAvailabilityIndex, weeklyAvailabilityIndex);
+    }
+
+    public boolean hasDealIndexes() {
+        return dealAvailabilityIndex != null;
+    }
+
+    public DealAvailabilityIndex getDealAvailabilityIndex() {
+        return requireDealIndex(dealAvailabilityIndex);
+    }
+
+    public WeeklyAvailabilityIndex getWeeklyAvailabilityIndex() {
+        return requireDealIndex(weeklyAvailabilityIndex);
+    }
+
+    private static <T> T requireDealIndex(T index) {
+        if (index == null) {
+            throw new IllegalStateException("This snapshot's deals are indexed by the shards serving it");
+        }
+        return index;
+    }
+
+    public static RestaurantSnapshot empty(long version) {
+        return new RestaurantSnapshot(version, SnapshotSource.NONE, Instant.now(), List.of(), Map.of());
+    }
+
+    public static RestaurantSnapshot of(long version, SnapshotSource source, RestaurantFeed feed) {
+        return new RestaurantSnapshot(version, source, feed.fetchedAt(), feed.restaurants(), feed.dealsByRestaurantId());
+    }
+
+    public static RestaurantSnapshot of(long version, SnapshotSource source, RestaurantFeed feed, RestaurantSnapshot previous) {
+        return new RestaurantSnapshot(version, source, feed.fetchedAt(), feed.restaurants(), feed.dealsByRestaurantId(), previous);
+    }
+
+    public static RestaurantSnapshot of(long version, SnapshotSource source, RestaurantFeed feed, RestaurantSnapshot previous,
+            boolean indexDeals) {
+        return new RestaurantSnapshot(version, source, feed.fetchedAt(), feed.restaurants(), feed.dealsByRestaurantId(), previous,
+                indexDeals);
+    }
+
+    /*
+     * The deals materialised back into Deal objects. Meant for persisting and tests;
+     * queries read the columns.
+     */
+    public Map<String, List<Deal>> getDealsByRestaurantId() {
+        return dealColumns.toDealsByRestaurantId();
+    }
+
+    public RestaurantFeed toFeed() {
+        return new RestaurantFeed(restaurants, dealColumns.toDealsByRestaurantId(), loadedAt);
+    }
+}
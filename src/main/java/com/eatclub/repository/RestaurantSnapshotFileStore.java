@@ -0,0 +1,214 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.OpeningHours;
+import com.eatclub.model.Restaurant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Persists the last good feed to a local file so a restart can serve traffic before
+ * the upstream answers. The file is a gzipped DataOutput stream:
+ *
+ *   int magic, int formatVersion, long fetchedAtEpochMillis, int restaurantCount,
+ *   then per restaurant: objectId, name, address1, suburb (nullable UTF strings),
+ *   int openSecondOfDay, int closeSecondOfDay, (since format 3) int cuisineCount and
+ *   that many UTF strings, (since format 4) int openingHoursCount and per opening hours
+ *   int dayOfWeek (1 Monday to 7 Sunday), int openSecondOfDay, int closeSecondOfDay,
+ *   then int dealCount, and per deal:
+ *   objectId (nullable UTF), float discount, boolean dineIn, boolean lightning, int qtyLeft,
+ *   and (since format 2) int openSecondOfDay, int closeSecondOfDay, both -1 for deals
+ *   without their own window.
+ *
+ * Files written in older formats are still read; format 1 deals have no windows,
+ * restaurants from formats 1 and 2 have no cuisines and those from formats 1 to 3 have
+ * no opening hours.
+ */
+@Component
+public class RestaurantSnapshotFileStore {
+
+    private static final int MAGIC = 0x45435253;
+    private static final int FORMAT_VERSION = 4;
+    private static final int NO_TIME = -1;
+
+    private final boolean enabled;
+    private final Path path;
+
+    public RestaurantSnapshotFileStore(
+            @Value("${restaurants.snapshot.enabled:true}") boolean enabled,
+            @Value("${restaurants.snapshot.path:data/restaurants.snapshot}") Path path) {
+        this.enabled = enabled;
+        this.path = path;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<RestaurantFeed> read() throws IOException {
+        if (!enabled || !Files.exists(path)) {
+            return Optional.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a restaurant snapshot file: " + path);
+            }
+            int formatVersion = in.readInt();
+            if (formatVersion < 1 || formatVersion > FORMAT_VERSION) {
+                throw new IOException("Unsupported restaurant snapshot format " + formatVersion + " in " + path);
+            }
+
+            Instant fetchedAt = Instant.ofEpochMilli(in.readLong());
+            int restaurantCount = in.readInt();
+            List<Restaurant> restaurants = new ArrayList<>(restaurantCount);
+            Map<String, List<Deal>> dealsByRestaurantId = new HashMap<>();
+
+            for (int i = 0; i < restaurantCount; i++) {
+                Restaurant restaurant = new Restaurant(
+                        readNullableString(in),
+                        readNullableString(in),
+                        readNullableString(in),
+                        readNullableString(in),
+                        LocalTime.ofSecondOfDay(in.readInt()),
+                        LocalTime.ofSecondOfDay(in.readInt()),
+                        formatVersion >= 3 ? readStrings(in) : List.of(),
+                        formatVersion >= 4 ? readOpeningHours(in) : List.of());
+
+                int dealCount = in.readInt();
+                List<Deal> deals = new ArrayList<>(dealCount);
+                for (int j = 0; j < dealCount; j++) {
+                    deals.add(new Deal(
+                            readNullableString(in),
+                            restaurant.getObjectId(),
+                            in.readFloat(),
+                            in.readBoolean(),
+                            in.readBoolean(),
+                            in.readInt(),
+                            formatVersion >= 2 ? readNullableTime(in) : null,
+                            formatVersion >= 2 ? readNullableTime(in) : null));
+                }
+                restaurants.add(restaurant);
+                dealsByRestaurantId.put(restaurant.getObjectId(), deals);
+            }
+            return Optional.of(new RestaurantFeed(restaurants, dealsByRestaurantId, fetchedAt));
+        }
+    }
+
+    /*
+     * Writes to a temporary file first and moves it into place, so a crash mid-write
+     * never leaves a truncated snapshot behind.
+     */
+    public void write(RestaurantFeed feed) throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporaryFile = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temporaryFile))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(feed.fetchedAt().toEpochMilli());
+                out.writeInt(feed.restaurants().size());
+
+                for (Restaurant restaurant : feed.restaurants()) {
+                    writeNullableString(out, restaurant.getObjectId());
+                    writeNullableString(out, restaurant.getName());
+                    writeNullableString(out, restaurant.getAddress1());
+                    writeNullableString(out, restaurant.getSuburb());
+                    out.writeInt(restaurant.getOpenTime().toSecondOfDay());
+                    out.writeInt(restaurant.getCloseTime().toSecondOfDay());
+                    List<String> cuisines = restaurant.getCuisines() == null ? List.of() : restaurant.getCuisines();
+                    out.writeInt(cuisines.size());
+                    for (String cuisine : cuisines) {
+                        out.writeUTF(cuisine);
+                    }
+                    List<OpeningHours> openingHours = restaurant.getOpeningHours() == null
+                            ? List.of() : restaurant.getOpeningHours();
+                    out.writeInt(openingHours.size());
+                    for (OpeningHours hours : openingHours) {
+                        out.writeInt(hours.getDay().getValue());
+                        out.writeInt(hours.getOpenTime().toSecondOfDay());
+                        out.writeInt(hours.getCloseTime().toSecondOfDay());
+                    }
+
+                    List<Deal> deals = feed.dealsByRestaurantId().getOrDefault(restaurant.getObjectId(), List.of());
+                    out.writeInt(deals.size());
+                    for (Deal deal : deals) {
+                        writeNullableString(out, deal.getObjectId());
+                        out.writeFloat(deal.getDiscount());
+                        out.writeBoolean(deal.getDineIn());
+                        out.writeBoolean(deal.getLightning());
+                        out.writeInt(deal.getQtyLeft());
+                        writeNullableTime(out, deal.getOpenTime());
+                        writeNullableTime(out, deal.getCloseTime());
+                    }
+                }
+            }
+            Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void writeNullableTime(DataOutputStream out, LocalTime value) throws IOException {
+        out.writeInt(value == null ? NO_TIME : value.toSecondOfDay());
+    }
+
+    private static LocalTime readNullableTime(DataInputStream in) throws IOException {
+        int secondOfDay = in.readInt();
+        return secondOfDay == NO_TIME ? null : LocalTime.ofSecondOfDay(secondOfDay);
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.readUTF());
+        }
+        return List.copyOf(values);
+    }
+
+    private static List<OpeningHours> readOpeningHours(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<OpeningHours> openingHours = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            openingHours.add(new OpeningHours(DayOfWeek.of(in.readInt()), LocalTime.ofSecondOfDay(in.readInt()),
+                    LocalTime.ofSecondOfDay(in.readInt())));
+        }
+        return List.copyOf(openingHours);
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
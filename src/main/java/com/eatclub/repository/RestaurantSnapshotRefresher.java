@@ -0,0 +1,147 @@
+package com.eatclub.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class RestaurantSnapshotRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(RestaurantSnapshotRefresher.class);
+
+    private final InMemoryRestaurantRepository restaurantRepository;
+    private final RestaurantSnapshotFileStore snapshotFileStore;
+    private final MappedSnapshotFileStore mappedSnapshotFileStore;
+    private final boolean enabled;
+    private final Duration interval;
+    private final Duration jitter;
+    private final Duration retryDelay;
+    private final boolean serveStaleOnFailure;
+    private final ScheduledExecutorService scheduler;
+
+    public RestaurantSnapshotRefresher(InMemoryRestaurantRepository restaurantRepository,
+            RestaurantSnapshotFileStore snapshotFileStore,
+            MappedSnapshotFileStore mappedSnapshotFileStore,
+            @Value("${restaurants.refresh.enabled:true}") boolean enabled,
+            @Value("${restaurants.refresh.interval:5m}") Duration interval,
+            @Value("${restaurants.refresh.jitter:30s}") Duration jitter,
+            @Value("${restaurants.refresh.retry-delay:15s}") Duration retryDelay,
+            @Value("${restaurants.refresh.serve-stale-on-failure:true}") boolean serveStaleOnFailure,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("restaurants.refresh.interval must be positive, got " + interval);
+        }
+        if (jitter.isNegative()) {
+            throw new IllegalArgumentException("restaurants.refresh.jitter must not be negative, got " + jitter);
+        }
+        if (retryDelay.isNegative() || retryDelay.isZero()) {
+            throw new IllegalArgumentException("restaurants.refresh.retry-delay must be positive, got " + retryDelay);
+        }
+        this.restaurantRepository = restaurantRepository;
+        this.snapshotFileStore = snapshotFileStore;
+        this.mappedSnapshotFileStore = mappedSnapshotFileStore;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.jitter = jitter;
+        this.retryDelay = retryDelay;
+        this.serveStaleOnFailure = serveStaleOnFailure;
+        /*
+         * In virtual-thread mode the refresh runs on a virtual thread like the request
+         * handlers, so the blocking upstream fetch releases its carrier while it waits on
+         * the network. Virtual threads are always daemons.
+         */
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(virtualThreads
+                ? Thread.ofVirtual().name("restaurant-snapshot-refresh").factory()
+                : Thread.ofPlatform().name("restaurant-snapshot-refresh").daemon().factory());
+    }
+
+    /*
+     * Loads the last persisted snapshot (if any) so traffic can be served straight
+     * away, then fetches from the upstream in the background.
+     */
+    @PostConstruct
+    public void start() {
+        warmStart();
+        if (enabled) {
+            scheduleRefresh(Duration.ZERO);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /*
+     * Runs one refresh. On failure the repository keeps serving the previous snapshot,
+     * unless serving stale data has been disabled, in which case it is dropped.
+     */
+    public boolean refreshNow() {
+        try {
+            if (!restaurantRepository.refresh()) {
+                log.debug("Restaurant feed unchanged, keeping snapshot version {}", restaurantRepository.getSnapshotVersion());
+                return true;
+            }
+            log.info("Refreshed restaurant snapshot to version {}", restaurantRepository.getSnapshotVersion());
+        } catch (Exception e) {
+            if (serveStaleOnFailure) {
+                log.warn("Failed to refresh restaurant snapshot, serving version {} loaded at {}",
+                        restaurantRepository.getSnapshotVersion(), restaurantRepository.getSnapshot().getLoadedAt(), e);
+            } else {
+                log.error("Failed to refresh restaurant snapshot, dropping stale data", e);
+                restaurantRepository.clear();
+            }
+            return false;
+        }
+
+        try {
+            snapshotFileStore.write(restaurantRepository.getSnapshot().toFeed());
+        } catch (Exception e) {
+            log.warn("Failed to persist restaurant snapshot for warm start", e);
+        }
+        try {
+            mappedSnapshotFileStore.write(restaurantRepository.getSnapshot());
+        } catch (Exception e) {
+            log.warn("Failed to write mapped restaurant snapshot", e);
+        }
+        return true;
+    }
+
+    void warmStart() {
+        try {
+            snapshotFileStore.read().ifPresent(feed -> {
+                restaurantRepository.load(feed, SnapshotSource.DISK);
+                log.info("Loaded restaurant snapshot from disk, fetched at {}", feed.fetchedAt());
+            });
+        } catch (Exception e) {
+            log.warn("Failed to load restaurant snapshot from disk, waiting for the upstream", e);
+        }
+    }
+
+    Duration nextDelay(boolean lastRefreshSucceeded) {
+        if (!lastRefreshSucceeded) {
+            return retryDelay;
+        }
+        long jitterMillis = jitter.toMillis() == 0 ? 0 : ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1);
+        return interval.plusMillis(jitterMillis);
+    }
+
+    private void scheduleRefresh(Duration delay) {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            boolean succeeded = refreshNow();
+            scheduleRefresh(nextDelay(succeeded));
+        }, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
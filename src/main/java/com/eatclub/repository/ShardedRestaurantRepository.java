@@ -0,0 +1,478 @@
+package com.eatclub.repository;
+
+import com.eatclub.metrics.RestaurantMetrics;
+import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealPage;
+import com.eatclub.model.DealSort;
+import com.eatclub.model.Restaurant;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/*
+ * The snapshots of InMemoryRestaurantRepository, with the deal queries split across
+ * shards so one query can use every core. Restaurants are partitioned by suburb, and
+ * each shard has its own deal columns and indexes (see RestaurantShard). A query runs on
+ * all shards at once on a fork-join pool, or only on the one shard that can match a
+ * suburb filter, and the shards' sorted results are merged by snapshot ordinal.
+ * Responses are therefore the same, byte for byte, as without shards. Queries that name
+ * a day are split the same way, and the peak-time sweep is reduced shard by shard
+ * through reduceDealColumns.
+ *
+ * Shards are built from a new snapshot by the thread publishing it, before any query can
+ * see it, and the shards of the snapshot being replaced are kept until it is. After an
+ * incremental refresh, only the shards holding a changed or added restaurant are
+ * rebuilt; the others keep their columns and indexes.
+ *
+ * The snapshots are loaded without deal indexes of their own, so the deal indexes exist
+ * once, in the shards. Each refresh still builds the snapshot's deal columns, which the
+ * shards' results refer to, and its restaurant index: time-of-day restaurant lookups,
+ * the snapshot version and change tracking are answered by the snapshot as before.
+ *
+ * Replaces InMemoryRestaurantRepository as the ILocalRepository when
+ * restaurants.repository.shards is above 1, unless queries are served from a
+ * MappedSnapshotFile instead.
+ */
+@Repository
+@Primary
+@ConditionalOnExpression("${restaurants.repository.shards:1} > 1 and !${restaurants.mapped-snapshot.serve:false}")
+public class ShardedRestaurantRepository implements ILocalRepository {
+
+    private final InMemoryRestaurantRepository snapshots;
+    private final int shardCount;
+    private final RestaurantMetrics metrics;
+    private final ForkJoinPool pool;
+    private volatile PublishedShards shards = new PublishedShards(null, null);
+
+    @Autowired
+    public ShardedRestaurantRepository(InMemoryRestaurantRepository snapshots,
+            @Value("${restaurants.repository.shards:1}") int shardCount, RestaurantMetrics metrics) {
+        if (shardCount < 2) {
+            throw new IllegalArgumentException("restaurants.repository.shards must be at least 2, got " + shardCount);
+        }
+        this.snapshots = snapshots;
+        this.shardCount = shardCount;
+        this.metrics = metrics;
+        // Queries are CPU bound, so there is no point in more threads than cores
+        this.pool = new ForkJoinPool(Math.min(shardCount, Runtime.getRuntime().availableProcessors()), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("restaurant-shard-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        snapshots.setIndexDeals(false);
+        snapshots.addSnapshotListener(new ShardBuilder());
+    }
+
+    public ShardedRestaurantRepository(InMemoryRestaurantRepository snapshots, int shardCount) {
+        this(snapshots, shardCount, RestaurantMetrics.noop());
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public List<Restaurant> findAllRestaurants() {
+        return snapshots.findAllRestaurants();
+    }
+
+    @Override
+    public List<Restaurant> findAvailableRestaurantsAt(LocalTime time) {
+        return snapshots.findAvailableRestaurantsAt(time);
+    }
+
+    @Override
+    public List<Restaurant> findAvailableRestaurantsAt(DayOfWeek day, LocalTime time) {
+        return metrics.repositoryLookup("findAvailableRestaurantsAtOnDay").record(() -> {
+            Shards current = current();
+            RestaurantShard[] all = current.shards();
+            int[] restaurantIndexes = merge(fanOut(all.length, i -> all[i].availableRestaurantsAt(day, time)));
+            List<Restaurant> restaurants = new ArrayList<>(restaurantIndexes.length);
+            for (int restaurantIndex : restaurantIndexes) {
+                restaurants.add(current.columns().restaurant(restaurantIndex));
+            }
+            return Collections.unmodifiableList(restaurants);
+        });
+    }
+
+    @Override
+    public List<Deal> findDealsByRestaurantId(String restaurantId) {
+        return snapshots.findDealsByRestaurantId(restaurantId);
+    }
+
+    @Override
+    public DealColumns getDealColumns() {
+        return snapshots.getDealColumns();
+    }
+
+    /*
+     * partial runs on the columns of every shard in parallel, so it must not depend on
+     * seeing all the deals at once.
+     */
+    @Override
+    public <T> T reduceDealColumns(Function<DealColumns, T> partial, BinaryOperator<T> combine) {
+        RestaurantShard[] all = current().shards();
+        return fanOut(all.length, i -> partial.apply(all[i].getColumns())).stream().reduce(combine).orElseThrow();
+    }
+
+    @Override
+    public List<DealAtRestaurant> findAvailableDealsAt(LocalTime time) {
+        return metrics.repositoryLookup("findAvailableDealsAt").record(() -> liveAt(current(), time, new DealFilter()));
+    }
+
+    @Override
+    public List<DealAtRestaurant> findAvailableDealsAt(LocalTime time, DealFilter filter) {
+        return metrics.repositoryLookup("findAvailableDealsAtFiltered").record(() -> liveAt(current(), time, filter));
+    }
+
+    @Override
+    public List<DealAtRestaurant> findAvailableDealsAt(DayOfWeek day, LocalTime time, DealFilter filter) {
+        return metrics.repositoryLookup("findAvailableDealsAtOnDay").record(() -> {
+            Shards current = current();
+            RestaurantShard[] targets = targetsFor(current, filter);
+            return new DealSelection(current.columns(),
+                    merge(fanOut(targets.length, i -> targets[i].liveAt(day, time, filter))));
+        });
+    }
+
+    /*
+     * Every shard returns up to limit deals from fromOrdinal on; the page is the first
+     * limit of their union. The deal after it is the smallest ordinal that was found
+     * but not returned, whether found past the page in one shard or left for the next
+     * call in another.
+     */
+    @Override
+    public DealPage findAvailableDealsPageAt(LocalTime time, DealFilter filter, int fromOrdinal, int limit) {
+        return metrics.repositoryLookup("findAvailableDealsPageAt").record(() -> {
+            Shards current = current();
+            RestaurantShard[] targets = targetsFor(current, filter);
+            List<RestaurantShard.Page> pages = fanOut(targets.length, i -> targets[i].pageAt(time, filter, fromOrdinal, limit));
+
+            int nextOrdinal = -1;
+            List<int[]> ordinals = new ArrayList<>(pages.size());
+            for (RestaurantShard.Page page : pages) {
+                ordinals.add(page.ordinals());
+                if (page.nextOrdinal() >= 0 && (nextOrdinal < 0 || page.nextOrdinal() < nextOrdinal)) {
+                    nextOrdinal = page.nextOrdinal();
+                }
+            }
+            int[] merged = merge(ordinals);
+            if (merged.length > limit) {
+                nextOrdinal = nextOrdinal < 0 ? merged[limit] : Math.min(nextOrdinal, merged[limit]);
+                merged = Arrays.copyOf(merged, limit);
+            }
+            return new DealPage(current.version(), new DealSelection(current.columns(), merged), nextOrdinal);
+        });
+    }
+
+    /*
+     * The shards are queried in parallel before the first deal is handed over, so this
+     * holds the matching ordinals (not the deals) in memory, unlike the unsharded stream.
+     */
+    @Override
+    public void forEachAvailableDealAt(LocalTime time, DealFilter filter, Consumer<DealAtRestaurant> action) {
+        liveAt(current(), time, filter).forEach(action);
+    }
+
+    /*
+     * Ranked again over the union of every shard's best limit, with the same key and tie
+     * order as a single index uses, so the result is the one an unsharded index gives.
+     */
+    @Override
+    public List<DealAtRestaurant> findTopAvailableDealsAt(LocalTime time, DealFilter filter, DealSort sort, int limit) {
+        return metrics.repositoryLookup("findTopAvailableDealsAt").record(() -> {
+            Shards current = current();
+            RestaurantShard[] targets = targetsFor(current, filter);
+            List<int[]> candidates = fanOut(targets.length, i -> {
+                int[] ordinals = targets[i].topAt(time, filter, sort, limit);
+                Arrays.sort(ordinals);
+                return ordinals;
+            });
+            // TopOrdinals breaks ties by the order deals are offered in, so they go in by ordinal
+            TopOrdinals top = new TopOrdinals(limit, ordinal -> DealAttributeIndex.sortKey(current.columns(), sort, ordinal));
+            for (int ordinal : merge(candidates)) {
+                top.offer(ordinal);
+            }
+            return new DealSelection(current.columns(), top.toSortedArray());
+        });
+    }
+
+    @Override
+    public long getSnapshotVersion() {
+        return snapshots.getSnapshotVersion();
+    }
+
+    /*
+     * The heap estimate adds the shards' columns and indexes to the snapshot's.
+     */
+    @Override
+    public SnapshotSummary getSnapshotSummary() {
+        SnapshotSummary snapshot = snapshots.getSnapshotSummary();
+        Shards current = shards.of(snapshot.version());
+        long shardBytes = 0;
+        if (current != null) {
+            for (RestaurantShard shard : current.shards()) {
+                shardBytes += shard.estimatedHeapBytes();
+            }
+        }
+        return new SnapshotSummary(snapshot.source(), snapshot.version(), snapshot.loadedAt(), snapshot.restaurantCount(),
+                snapshot.dealCount(), snapshot.estimatedHeapBytes() + shardBytes, snapshot.dictionarySavedBytes());
+    }
+
+    @Override
+    public Optional<Set<String>> findRestaurantIdsChangedSince(long snapshotVersion) {
+        return snapshots.findRestaurantIdsChangedSince(snapshotVersion);
+    }
+
+    @Override
+    public void addSnapshotListener(ISnapshotListener listener) {
+        snapshots.addSnapshotListener(listener);
+    }
+
+    int shardOf(Restaurant restaurant) {
+        return shardOf(restaurant.getSuburb());
+    }
+
+    /*
+     * Suburbs are compared normalised by filters, so they are sharded normalised too.
+     */
+    int shardOf(String suburb) {
+        return suburb == null ? 0 : Math.floorMod(DealFilter.normalize(suburb).hashCode(), shardCount);
+    }
+
+    RestaurantShard shard(int index) {
+        return current().shards()[index];
+    }
+
+    private DealSelection liveAt(Shards current, LocalTime time, DealFilter filter) {
+        RestaurantShard[] targets = targetsFor(current, filter);
+        return new DealSelection(current.columns(), merge(fanOut(targets.length, i -> targets[i].liveAt(time, filter))));
+    }
+
+    /*
+     * Only the shard of the suburb can have deals matching a suburb filter.
+     */
+    private RestaurantShard[] targetsFor(Shards current, DealFilter filter) {
+        if (filter.getSuburb() == null) {
+            return current.shards();
+        }
+        return new RestaurantShard[] { current.shards()[shardOf(filter.getSuburb())] };
+    }
+
+    /*
+     * The shards of the snapshot being served are always built by now. Only a query that
+     * read a snapshot replaced twice since finds none, and builds them for itself.
+     */
+    private Shards current() {
+        RestaurantSnapshot snapshot = snapshots.getSnapshot();
+        Shards current = shards.of(snapshot.getVersion());
+        return current != null ? current : build(snapshot, null);
+    }
+
+    private Shards build(RestaurantSnapshot snapshot, Shards previous) {
+        DealColumns columns = snapshot.getDealColumns();
+        IntStream.Builder[] members = new IntStream.Builder[shardCount];
+        for (int s = 0; s < shardCount; s++) {
+            members[s] = IntStream.builder();
+        }
+        for (int r = 0; r < columns.restaurantCount(); r++) {
+            members[shardOf(columns.restaurant(r))].add(r);
+        }
+        int[][] restaurantIndexes = new int[shardCount][];
+        for (int s = 0; s < shardCount; s++) {
+            restaurantIndexes[s] = members[s].build().toArray();
+        }
+
+        Set<String> changedRestaurantIds = changedSince(snapshot, previous);
+        List<RestaurantShard> built = fanOut(shardCount, s -> changedRestaurantIds != null
+                && isUnchanged(previous.shards()[s], columns, restaurantIndexes[s], changedRestaurantIds)
+                ? previous.shards()[s].rebase(columns, restaurantIndexes[s])
+                : RestaurantShard.of(columns, restaurantIndexes[s]));
+        return new Shards(snapshot.getVersion(), columns, built.toArray(new RestaurantShard[0]));
+    }
+
+    /*
+     * The restaurants that changed since the snapshot the previous shards were built from,
+     * or null when that isn't known and every shard has to be rebuilt.
+     */
+    private static Set<String> changedSince(RestaurantSnapshot snapshot, Shards previous) {
+        RestaurantFeedDiff changes = snapshot.getChanges();
+        if (previous == null || changes == null || !changes.isIncremental() || changes.getBaseVersion() != previous.version()) {
+            return null;
+        }
+        return changes.getChangedRestaurantIds();
+    }
+
+    /*
+     * Whether none of the shard's restaurants, before or after the change, is one that
+     * changed. Restaurants keep their positions in an incremental change, so the shard
+     * then holds the same restaurants in the same order.
+     */
+    private static boolean isUnchanged(RestaurantShard previous, DealColumns columns, int[] restaurantIndexes,
+            Set<String> changedRestaurantIds) {
+        if (previous.restaurantCount() != restaurantIndexes.length) {
+            return false;
+        }
+        for (int restaurantIndex : restaurantIndexes) {
+            if (changedRestaurantIds.contains(columns.restaurant(restaurantIndex).getObjectId())) {
+                return false;
+            }
+        }
+        return changedRestaurantIds.stream().noneMatch(previous::contains);
+    }
+
+    /*
+     * Runs the tasks on the pool and returns their results in task order. The calling
+     * thread runs the first task itself rather than wait idle. A task's exception is
+     * rethrown as it was thrown.
+     */
+    private <T> List<T> fanOut(int tasks, IntFunction<T> task) {
+        if (tasks == 1) {
+            return List.of(task.apply(0));
+        }
+        List<ForkJoinTask<T>> forked = new ArrayList<>(tasks - 1);
+        for (int i = 1; i < tasks; i++) {
+            int index = i;
+            forked.add(pool.submit(() -> task.apply(index)));
+        }
+        List<T> results = new ArrayList<>(tasks);
+        results.add(task.apply(0));
+        for (ForkJoinTask<T> result : forked) {
+            results.add(join(result));
+        }
+        return results;
+    }
+
+    private static <T> T join(ForkJoinTask<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /*
+     * k-way merge of the shards' ascending results through a min-heap of the shards by
+     * their next value. The shards hold disjoint restaurants, so values never repeat.
+     */
+    static int[] merge(List<int[]> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        int[] merged = new int[parts.stream().mapToInt(part -> part.length).sum()];
+        int[] positions = new int[parts.size()];
+        int[] heap = new int[parts.size()];
+        int heapSize = 0;
+        for (int p = 0; p < parts.size(); p++) {
+            if (parts.get(p).length > 0) {
+                heap[heapSize++] = p;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i, parts, positions);
+        }
+        for (int m = 0; m < merged.length; m++) {
+            int p = heap[0];
+            merged[m] = parts.get(p)[positions[p]++];
+            if (positions[p] == parts.get(p).length) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, 0, parts, positions);
+        }
+        return merged;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, int i, List<int[]> parts, int[] positions) {
+        while (true) {
+            int smallest = i;
+            for (int child = 2 * i + 1; child <= 2 * i + 2 && child < heapSize; child++) {
+                if (head(heap[child], parts, positions) < head(heap[smallest], parts, positions)) {
+                    smallest = child;
+                }
+            }
+            if (smallest == i) {
+                return;
+            }
+            int swap = heap[i];
+            heap[i] = heap[smallest];
+            heap[smallest] = swap;
+            i = smallest;
+        }
+    }
+
+    private static int head(int part, List<int[]> parts, int[] positions) {
+        return parts.get(part)[positions[part]];
+    }
+
+    /*
+     * The shards built from the snapshot with the given version, and that snapshot's
+     * columns, which their ordinals refer to.
+     */
+    private record Shards(long version, DealColumns columns, RestaurantShard[] shards) {
+    }
+
+    /*
+     * The shards of the latest snapshot and, until it is published, of the one before
+     * it. Either may be null.
+     */
+    private record PublishedShards(Shards latest, Shards previous) {
+
+        Shards of(long version) {
+            if (latest != null && latest.version() == version) {
+                return latest;
+            }
+            return previous != null && previous.version() == version ? previous : null;
+        }
+    }
+
+    /*
+     * Shards are rebuilt from the latest ones, so an incremental refresh keeps the
+     * shards it doesn't touch.
+     */
+    private final class ShardBuilder implements ISnapshotListener {
+
+        @Override
+        public void beforePublish(RestaurantSnapshot next) {
+            PublishedShards current = shards;
+            shards = new PublishedShards(build(next, current.latest()), current.latest());
+        }
+
+        @Override
+        public void afterPublish() {
+            shards = new PublishedShards(shards.latest(), null);
+        }
+    }
+}
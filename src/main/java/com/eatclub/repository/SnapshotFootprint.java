@@ -0,0 +1,91 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.OpeningHours;
+import com.eatclub.model.Restaurant;
+
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.List;
+
+/*
+ * Rough estimate of the heap a snapshot retains, for the snapshot heap gauge. Sizes
+ * assume a 64-bit JVM with compressed oops (12-byte object headers, 4-byte references,
+ * 8-byte alignment) and compact Latin-1 strings. Objects that may be shared, like
+ * boxed values and times the feed repeats, are counted as if they weren't, so the
+ * estimate errs high. It's meant for trends and for comparing data layouts, not for
+ * exact accounting.
+ */
+final class SnapshotFootprint {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    private SnapshotFootprint() {
+    }
+
+    static long estimate(List<Restaurant> restaurants, RestaurantDictionary dictionary, DealColumns dealColumns,
+            RestaurantAvailabilityIndex availabilityIndex, DealAvailabilityIndex dealAvailabilityIndex,
+            WeeklyAvailabilityIndex weeklyAvailabilityIndex) {
+        // Suburbs and cuisine lists are shared through the dictionary and counted once, with it
+        long bytes = list(restaurants.size()) + dictionary.estimatedHeapBytes();
+        for (Restaurant restaurant : restaurants) {
+            bytes += object(8, 0)
+                    + string(restaurant.getObjectId()) + string(restaurant.getName())
+                    + string(restaurant.getAddress1())
+                    + time(restaurant.getOpenTime()) + time(restaurant.getCloseTime());
+            if (restaurant.getOpeningHours() != null && !restaurant.getOpeningHours().isEmpty()) {
+                bytes += list(restaurant.getOpeningHours().size());
+                for (OpeningHours hours : restaurant.getOpeningHours()) {
+                    // Day-of-week constants are shared
+                    bytes += object(3, 0) + time(hours.getOpenTime()) + time(hours.getCloseTime());
+                }
+            }
+        }
+
+        bytes += dealColumns.estimatedHeapBytes();
+
+        bytes += availabilityIndex.estimatedHeapBytes();
+        // Absent when the snapshot's deals are indexed by shards, which count their own
+        if (dealAvailabilityIndex != null) {
+            bytes += dealAvailabilityIndex.estimatedHeapBytes() + weeklyAvailabilityIndex.estimatedHeapBytes();
+        }
+        return bytes;
+    }
+
+    static long object(int references, int primitiveBytes) {
+        return align(OBJECT_HEADER + (long) references * REFERENCE + primitiveBytes);
+    }
+
+    static long array(long length, int elementBytes) {
+        return align(ARRAY_HEADER + length * elementBytes);
+    }
+
+    static long list(int size) {
+        return object(1, 4) + array(size, REFERENCE);
+    }
+
+    static long string(String value) {
+        return value == null ? 0 : object(1, 6) + array(value.length(), 1);
+    }
+
+    static long bitSet(BitSet bitSet) {
+        return object(1, 5) + array(bitSet.size() / Long.SIZE, Long.BYTES);
+    }
+
+    /*
+     * Table plus one node per entry, at the default load factor.
+     */
+    static long hashMap(int size) {
+        return object(3, 16) + array(Integer.highestOneBit(Math.max(1, size * 4 / 3)) * 2L, REFERENCE)
+                + size * object(3, 4);
+    }
+
+    private static long time(LocalTime time) {
+        return time == null ? 0 : object(0, 7);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
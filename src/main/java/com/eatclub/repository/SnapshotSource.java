@@ -0,0 +1,11 @@
+package com.eatclub.repository;
+
+public enum SnapshotSource {
+    NONE,
+    DISK,
+    UPSTREAM,
+    /*
+     * Served from a MappedSnapshotFile another process wrote.
+     */
+    MAPPED
+}
@@ -0,0 +1,18 @@
+package com.eatclub.repository;
+
+import java.time.Instant;
+
+/*
+ * What the health indicator and the snapshot gauges report about the data a repository
+ * serves, however the repository holds it. estimatedHeapBytes is as SnapshotFootprint
+ * estimates it for an in-memory snapshot, and only the decoded copies for a mapped file.
+ */
+public record SnapshotSummary(SnapshotSource source, long version, Instant loadedAt, int restaurantCount,
+        int dealCount, long estimatedHeapBytes, long dictionarySavedBytes) {
+
+    public static SnapshotSummary of(RestaurantSnapshot snapshot) {
+        return new SnapshotSummary(snapshot.getSource(), snapshot.getVersion(), snapshot.getLoadedAt(),
+                snapshot.getRestaurants().size(), snapshot.getDealCount(), snapshot.getEstimatedHeapBytes(),
+                snapshot.getDictionarySavedBytes());
+    }
+}
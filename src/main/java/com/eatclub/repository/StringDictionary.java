@@ -0,0 +1,64 @@
+package com.eatclub.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Canonical instances of the values of one low-cardinality string field, so that every
+ * restaurant with the same value references a single String. A dictionary holds the
+ * values of one load only; the next load starts a new generation that looks values up
+ * in this one first, so a value that is still in the feed keeps its instance across
+ * refreshes while values that disappeared are dropped with the old snapshot.
+ *
+ * Not thread-safe: a generation is filled while its snapshot is built and only read
+ * afterwards.
+ */
+final class StringDictionary {
+
+    private final Map<String, String> previous;
+    private final Map<String, String> values = new HashMap<>();
+    private long referencedBytes;
+    private long storedBytes;
+
+    StringDictionary() {
+        this(Map.of());
+    }
+
+    private StringDictionary(Map<String, String> previous) {
+        this.previous = previous;
+    }
+
+    StringDictionary nextGeneration() {
+        return new StringDictionary(values);
+    }
+
+    String encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = values.get(value);
+        if (canonical == null) {
+            canonical = previous.getOrDefault(value, value);
+            values.put(canonical, canonical);
+            storedBytes += SnapshotFootprint.string(canonical);
+        }
+        referencedBytes += SnapshotFootprint.string(canonical);
+        return canonical;
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    /*
+     * What the encoded references would take as one String each, less what the distinct
+     * values take.
+     */
+    long savedBytes() {
+        return referencedBytes - storedBytes;
+    }
+
+    long estimatedHeapBytes() {
+        return SnapshotFootprint.hashMap(values.size()) + storedBytes;
+    }
+}
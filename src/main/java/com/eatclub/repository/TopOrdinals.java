@@ -0,0 +1,99 @@
+package com.eatclub.repository;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/*
+ * Keeps the limit best ordinals offered so far in a bounded min-heap: the root is the
+ * worst one kept, so a new ordinal only costs a comparison unless it beats the root.
+ * Higher keys are better; between equal keys the lower ordinal wins, so results are
+ * stable in feed order. Ordinals must be offered in ascending order.
+ */
+class TopOrdinals {
+
+    private final int limit;
+    private final IntToDoubleFunction key;
+    private int[] heap;
+    private int size;
+
+    TopOrdinals(int limit, IntToDoubleFunction key) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        this.limit = limit;
+        this.key = key;
+        // Grown on demand, so a large limit over a small result doesn't allocate up front
+        this.heap = new int[Math.min(limit, 64)];
+    }
+
+    void offer(int ordinal) {
+        if (size < limit) {
+            if (size == heap.length) {
+                grow();
+            }
+            heap[size] = ordinal;
+            siftUp(size++);
+        } else if (key.applyAsDouble(ordinal) > key.applyAsDouble(heap[0])) {
+            // Offered in ascending order, so an equal key never beats the root
+            heap[0] = ordinal;
+            siftDown(0);
+        }
+    }
+
+    /*
+     * The kept ordinals, best first.
+     */
+    int[] toSortedArray() {
+        Integer[] ordinals = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            ordinals[i] = heap[i];
+        }
+        Arrays.sort(ordinals, (first, second) -> isWorse(first, second) ? 1 : isWorse(second, first) ? -1 : 0);
+        return Arrays.stream(ordinals).mapToInt(Integer::intValue).toArray();
+    }
+
+    private boolean isWorse(int first, int second) {
+        int byKey = Double.compare(key.applyAsDouble(first), key.applyAsDouble(second));
+        return byKey < 0 || (byKey == 0 && first > second);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isWorse(heap[index], heap[parent])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && isWorse(heap[left], heap[worst])) {
+                worst = left;
+            }
+            if (right < size && isWorse(heap[right], heap[worst])) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int first, int second) {
+        int ordinal = heap[first];
+        heap[first] = heap[second];
+        heap[second] = ordinal;
+    }
+
+    private void grow() {
+        heap = Arrays.copyOf(heap, (int) Math.min(limit, 2L * heap.length));
+    }
+}
@@ -0,0 +1,195 @@
+package com.eatclub.repository;
+
+import com.eatclub.common.Constants;
+import com.eatclub.common.MinuteRanges;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.MinuteRange;
+import com.eatclub.model.Restaurant;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/*
+ * Which restaurants are open at each minute of the week, from their opening hours
+ * (see MinuteRanges.weeklyRanges), however many intervals a restaurant has per day.
+ *
+ * The week's 10,080 minutes are cut into segments at every minute where some
+ * restaurant opens or closes, so the restaurants open are the same throughout a
+ * segment and each segment keeps one bitset of restaurant ordinals. A lookup is a
+ * read of segmentOfMinute and of that segment's bitset. Feeds keep their hours on a
+ * handful of distinct times, so there are far fewer segments than minutes and the
+ * index stays smaller than one bitset per minute would be.
+ *
+ * Filtered deal lookups intersect the deals of the open restaurants with the ordinal
+ * sets of the DealAttributeIndex, as DealAvailabilityIndex does for times of day.
+ */
+public class WeeklyAvailabilityIndex {
+
+    private final DealColumns columns;
+    private final DealAttributeIndex attributeIndex;
+    private final int[] segmentOfMinute;
+    private final BitSet[] openBySegment;
+
+    public WeeklyAvailabilityIndex(DealColumns columns) {
+        this(columns, new DealAttributeIndex(columns));
+    }
+
+    /*
+     * Shares the attribute index of the snapshot's DealAvailabilityIndex, built over the
+     * same columns.
+     */
+    WeeklyAvailabilityIndex(DealColumns columns, DealAttributeIndex attributeIndex) {
+        this.columns = columns;
+        this.attributeIndex = attributeIndex;
+        List<List<MinuteRange>> rangesByRestaurant = new ArrayList<>(columns.restaurantCount());
+        BitSet segmentStarts = new BitSet(Constants.MINUTES_PER_WEEK);
+        segmentStarts.set(0);
+        for (int r = 0; r < columns.restaurantCount(); r++) {
+            List<MinuteRange> ranges = MinuteRanges.weeklyRanges(columns.restaurant(r));
+            rangesByRestaurant.add(ranges);
+            for (MinuteRange range : ranges) {
+                segmentStarts.set(range.fromMinute());
+                if (range.toMinute() + 1 < Constants.MINUTES_PER_WEEK) {
+                    segmentStarts.set(range.toMinute() + 1);
+                }
+            }
+        }
+
+        this.segmentOfMinute = new int[Constants.MINUTES_PER_WEEK];
+        int segment = -1;
+        for (int minute = 0; minute < Constants.MINUTES_PER_WEEK; minute++) {
+            if (segmentStarts.get(minute)) {
+                segment++;
+            }
+            segmentOfMinute[minute] = segment;
+        }
+
+        this.openBySegment = new BitSet[segment + 1];
+        for (int s = 0; s < openBySegment.length; s++) {
+            openBySegment[s] = new BitSet(columns.restaurantCount());
+        }
+        for (int r = 0; r < rangesByRestaurant.size(); r++) {
+            for (MinuteRange range : rangesByRestaurant.get(r)) {
+                for (int s = segmentOfMinute[range.fromMinute()]; s <= segmentOfMinute[range.toMinute()]; s++) {
+                    openBySegment[s].set(r);
+                }
+            }
+        }
+    }
+
+    int segmentCount() {
+        return openBySegment.length;
+    }
+
+    long estimatedHeapBytes() {
+        long bytes = SnapshotFootprint.array(segmentOfMinute.length, 4) + SnapshotFootprint.array(openBySegment.length, 4);
+        for (BitSet open : openBySegment) {
+            bytes += SnapshotFootprint.bitSet(open);
+        }
+        return bytes;
+    }
+
+    public List<Restaurant> findAvailableAt(DayOfWeek day, LocalTime time) {
+        BitSet open = openAt(day, time);
+        List<Restaurant> availableRestaurants = new ArrayList<>(open.cardinality());
+        for (int r = open.nextSetBit(0); r >= 0; r = open.nextSetBit(r + 1)) {
+            availableRestaurants.add(columns.restaurant(r));
+        }
+        return Collections.unmodifiableList(availableRestaurants);
+    }
+
+    /*
+     * The deals live at the time on the given day, in feed order: the restaurant is open
+     * then and the deal's own window, which recurs daily, covers the time. Without a
+     * filter only the deals of the open restaurants are looked at; with one, those deals
+     * and the deals of each indexed filter are intersected, driven by the smallest.
+     */
+    public DealSelection findLiveAt(DayOfWeek day, LocalTime time, DealFilter filter) {
+        BitSet open = openAt(day, time);
+        IntStream.Builder liveOrdinals = IntStream.builder();
+        if (filter.isEmpty()) {
+            for (int r = open.nextSetBit(0); r >= 0; r = open.nextSetBit(r + 1)) {
+                for (int ordinal = columns.firstDealOf(r); ordinal < columns.endDealOf(r); ordinal++) {
+                    if (windowCovers(ordinal, time)) {
+                        liveOrdinals.add(ordinal);
+                    }
+                }
+            }
+        } else {
+            List<OrdinalSet> sets = new ArrayList<>(attributeIndex.setsFor(filter));
+            sets.add(dealsOf(open));
+            OrdinalSet.intersect(sets.toArray(new OrdinalSet[0]), 0, Integer.MAX_VALUE,
+                    ordinal -> windowCovers(ordinal, time) && columns.matches(ordinal, filter), liveOrdinals::add);
+        }
+        return new DealSelection(columns, liveOrdinals.build().toArray());
+    }
+
+    /*
+     * The deals of the given restaurants. A restaurant's deals are one run of ordinals,
+     * so the next one is either in the same restaurant or the first of the next open one.
+     */
+    private OrdinalSet dealsOf(BitSet restaurants) {
+        int size = 0;
+        for (int r = restaurants.nextSetBit(0); r >= 0; r = restaurants.nextSetBit(r + 1)) {
+            size += columns.endDealOf(r) - columns.firstDealOf(r);
+        }
+        int dealCount = size;
+        return new OrdinalSet() {
+            @Override
+            public int size() {
+                return dealCount;
+            }
+
+            @Override
+            public int nextFrom(int ordinal) {
+                if (ordinal >= columns.dealCount()) {
+                    return NONE;
+                }
+                int r = columns.restaurantOrdinal(ordinal);
+                if (restaurants.get(r)) {
+                    return ordinal;
+                }
+                for (r = restaurants.nextSetBit(r + 1); r >= 0; r = restaurants.nextSetBit(r + 1)) {
+                    if (columns.firstDealOf(r) < columns.endDealOf(r)) {
+                        return columns.firstDealOf(r);
+                    }
+                }
+                return NONE;
+            }
+        };
+    }
+
+    private boolean windowCovers(int ordinal, LocalTime time) {
+        return !columns.hasOwnWindow(ordinal) || covers(columns.openTime(ordinal), columns.closeTime(ordinal), time);
+    }
+
+    /*
+     * Restaurant ordinals open at the time. Shared with the index and must not be
+     * modified.
+     */
+    BitSet openAt(DayOfWeek day, LocalTime time) {
+        int minute = MinuteRanges.minuteOfWeek(day, time);
+        BitSet open = openBySegment[segmentOfMinute[minute]];
+        int nextSegment = segmentOfMinute[(minute + 1) % Constants.MINUTES_PER_WEEK];
+        if ((time.getSecond() != 0 || time.getNano() != 0) && nextSegment != segmentOfMinute[minute]) {
+            // As in RestaurantAvailabilityIndex: between two minutes, both must be open
+            open = (BitSet) open.clone();
+            open.and(openBySegment[nextSegment]);
+        }
+        return open;
+    }
+
+    /*
+     * Inclusive at both ends, wrapping past midnight when close isn't after open.
+     */
+    private static boolean covers(LocalTime openTime, LocalTime closeTime, LocalTime time) {
+        return openTime.isBefore(closeTime)
+                ? !time.isBefore(openTime) && !time.isAfter(closeTime)
+                : !time.isBefore(openTime) || !time.isAfter(closeTime);
+    }
+}
@@ -1,12 +1,24 @@
 package com.eatclub.service;
 
 import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealPage;
+import com.eatclub.model.DealSort;
 import com.eatclub.model.PeakTimeWindow;
 
+import java.time.DayOfWeek;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IRestaurantService {
     List<DealAtRestaurant> getAvailableRestaurantDealsByTime(LocalTime time);
+    List<DealAtRestaurant> getAvailableRestaurantDealsByTime(LocalTime time, DealFilter filter);
+    List<DealAtRestaurant> getAvailableRestaurantDealsByDayAndTime(DayOfWeek day, LocalTime time, DealFilter filter);
+    DealPage getAvailableRestaurantDealsPage(LocalTime time, DealFilter filter, int fromOrdinal, int limit);
+    void forEachAvailableRestaurantDeal(LocalTime time, DealFilter filter, Consumer<DealAtRestaurant> action);
+    List<DealAtRestaurant> getTopAvailableRestaurantDeals(LocalTime time, DealFilter filter, DealSort sort, int limit);
     PeakTimeWindow getPeakTimeWindow();
+    PeakTimeWindow getPeakTimeWindow(int windowMinutes, int stepMinutes);
+    List<PeakTimeWindow> getPeakTimeWindows(int windowMinutes, int stepMinutes, int limit);
 }
@@ -0,0 +1,153 @@
+package com.eatclub.service;
+
+import com.eatclub.common.Constants;
+import com.eatclub.common.MinuteRanges;
+import com.eatclub.model.MinuteRange;
+import com.eatclub.model.PeakTimeWindow;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class PeakTimeEngine {
+
+    private final int windowMinutes;
+    private final int stepMinutes;
+
+    /*
+     * Difference array over window start minutes. A window starting at minute s
+     * covers [s, s + windowMinutes], cut off at the end of the day, and overlaps an
+     * opening range [open, close] exactly when s lies in [open - windowMinutes, close],
+     * so every opening range adds its deals to one contiguous range of starts. Windows
+     * don't run past midnight, which keeps the default 3-hour windows the same as the
+     * fixed buckets they replaced: the 21:00 bucket never counted deals from 00:00.
+     */
+    private final long[] dealsDeltaByStart = new long[Constants.MINUTES_PER_DAY + 1];
+
+    public PeakTimeEngine(int windowMinutes, int stepMinutes) {
+        if (windowMinutes < 1 || windowMinutes > Constants.MINUTES_PER_DAY) {
+            throw new IllegalArgumentException(
+                    "Window length must be between 1 and " + Constants.MINUTES_PER_DAY + " minutes, got " + windowMinutes);
+        }
+        if (stepMinutes < 1 || stepMinutes > Constants.MINUTES_PER_DAY) {
+            throw new IllegalArgumentException(
+                    "Step must be between 1 and " + Constants.MINUTES_PER_DAY + " minutes, got " + stepMinutes);
+        }
+        this.windowMinutes = windowMinutes;
+        this.stepMinutes = stepMinutes;
+    }
+
+    public void addAvailability(LocalTime openTime, LocalTime closeTime, int deals) {
+        addAvailability(MinuteRanges.of(openTime, closeTime), deals);
+    }
+
+    /*
+     * Adds deals that are available during any of the given ranges (see MinuteRange).
+     * A window overlapping several of the ranges still counts the deals once: the
+     * ranges of window starts are merged before they are added.
+     */
+    public void addAvailability(List<MinuteRange> ranges, int deals) {
+        if (deals == 0) {
+            return;
+        }
+
+        List<int[]> startRanges = new ArrayList<>();
+        for (MinuteRange range : ranges) {
+            int firstStart = Math.max(0, range.fromMinute() - windowMinutes);
+            int endStartExclusive = Math.min(range.toMinute() + 1, Constants.MINUTES_PER_DAY);
+            if (firstStart < endStartExclusive) {
+                startRanges.add(new int[] { firstStart, endStartExclusive });
+            }
+        }
+        if (startRanges.isEmpty()) {
+            return;
+        }
+
+        startRanges.sort(Comparator.comparingInt(startRange -> startRange[0]));
+        int[] merged = startRanges.get(0);
+        for (int[] startRange : startRanges.subList(1, startRanges.size())) {
+            if (startRange[0] <= merged[1]) {
+                merged = new int[] { merged[0], Math.max(merged[1], startRange[1]) };
+            } else {
+                addToStarts(merged[0], merged[1], deals);
+                merged = startRange;
+            }
+        }
+        addToStarts(merged[0], merged[1], deals);
+    }
+
+    /*
+     * Adds everything added to the other engine, which must have the same window and
+     * step. Availability can be added to separate engines in parallel (one per shard of
+     * the deals) and summed here; the result is the same as adding it all to one engine.
+     */
+    public PeakTimeEngine merge(PeakTimeEngine other) {
+        if (other.windowMinutes != windowMinutes || other.stepMinutes != stepMinutes) {
+            throw new IllegalArgumentException("Cannot merge engines with different windows or steps");
+        }
+        for (int start = 0; start < dealsDeltaByStart.length; start++) {
+            dealsDeltaByStart[start] += other.dealsDeltaByStart[start];
+        }
+        return this;
+    }
+
+    public List<PeakTimeWindow> findPeakWindows(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1, got " + limit);
+        }
+
+        long[] dealsByStart = new long[Constants.MINUTES_PER_DAY];
+        long runningDeals = 0;
+        for (int start = 0; start < Constants.MINUTES_PER_DAY; start++) {
+            runningDeals += dealsDeltaByStart[start];
+            dealsByStart[start] = runningDeals;
+        }
+
+        /*
+         * Candidates are visited from most to fewest deals, earliest start first on
+         * ties, and greedily kept when they don't overlap an already selected window.
+         */
+        List<Integer> candidates = IntStream.iterate(0, start -> start < Constants.MINUTES_PER_DAY, start -> start + stepMinutes)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingLong(start -> dealsByStart[start]).reversed()
+                        .thenComparingInt(start -> start))
+                .toList();
+
+        List<Integer> selectedStarts = new ArrayList<>();
+        for (int start : candidates) {
+            if (selectedStarts.size() == limit || (!selectedStarts.isEmpty() && dealsByStart[start] == 0)) {
+                break;
+            }
+            if (selectedStarts.stream().noneMatch(selected -> overlaps(selected, start))) {
+                selectedStarts.add(start);
+            }
+        }
+
+        return selectedStarts.stream().map(this::toPeakTimeWindow).toList();
+    }
+
+    private void addToStarts(int fromStart, int toStartExclusive, long deals) {
+        dealsDeltaByStart[fromStart] += deals;
+        dealsDeltaByStart[toStartExclusive] -= deals;
+    }
+
+    private boolean overlaps(int firstStart, int secondStart) {
+        return Math.abs(secondStart - firstStart) < windowMinutes;
+    }
+
+    /*
+     * A window cut off at the end of the day ends at LocalTime.MAX, as the last of the
+     * fixed buckets did.
+     */
+    private PeakTimeWindow toPeakTimeWindow(int start) {
+        int end = start + windowMinutes;
+        LocalTime endTime = end >= Constants.MINUTES_PER_DAY ? LocalTime.MAX : toLocalTime(end);
+        return new PeakTimeWindow(toLocalTime(start), endTime);
+    }
+
+    private static LocalTime toLocalTime(int minuteOfDay) {
+        return LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+    }
+}
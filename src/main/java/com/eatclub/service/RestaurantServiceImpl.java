@@ -1,96 +1,163 @@
 package com.eatclub.service;
 
-import com.eatclub.model.Deal;
+import com.eatclub.common.Constants;
+import com.eatclub.common.MinuteRanges;
+import com.eatclub.metrics.RestaurantMetrics;
 import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealPage;
+import com.eatclub.model.DealSort;
 import com.eatclub.model.PeakTimeWindow;
 import com.eatclub.model.Restaurant;
+import com.eatclub.repository.DealColumns;
 import com.eatclub.repository.ILocalRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.DayOfWeek;
 import java.time.LocalTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class RestaurantServiceImpl implements IRestaurantService {
 
     private final ILocalRepository restaurantRepository;
+    private final RestaurantMetrics metrics;
 
-    public RestaurantServiceImpl(ILocalRepository restaurantRepository) {
+    @Autowired
+    public RestaurantServiceImpl(ILocalRepository restaurantRepository, RestaurantMetrics metrics) {
         this.restaurantRepository = restaurantRepository;
+        this.metrics = metrics;
+    }
+
+    public RestaurantServiceImpl(ILocalRepository restaurantRepository) {
+        this(restaurantRepository, RestaurantMetrics.noop());
     }
 
     @Override
     public List<DealAtRestaurant> getAvailableRestaurantDealsByTime(LocalTime time) {
         /*
          * This is the implementation of the available restaurant deals by time algorithm.
-         * Finds all the restaurants that are open at the given time and returns the deals for those restaurants.
+         * Returns the deals that are live at the given time: the restaurant is open and,
+         * for deals with their own window, the deal window covers the time too. The
+         * repository answers this from a per-deal interval index.
         */
-        List<Restaurant> availableRestaurants = restaurantRepository.findAvailableRestaurantsAt(time);
-        List<DealAtRestaurant> dealAtRestaurants = new ArrayList<>();
-        for (Restaurant restaurant : availableRestaurants) {
-            List<Deal> deals = restaurantRepository.findDealsByRestaurantId(restaurant.getObjectId());
-            for (Deal deal : deals) {
-                dealAtRestaurants.add(new DealAtRestaurant(restaurant, deal));
-            }
+        return metrics.serviceCall("getAvailableRestaurantDealsByTime").record(() ->
+                restaurantRepository.findAvailableDealsAt(time));
+    }
+
+    /*
+     * Filters are applied by the repository's secondary indexes, so a selective filter
+     * doesn't pay for every deal that is live at the time.
+     */
+    @Override
+    public List<DealAtRestaurant> getAvailableRestaurantDealsByTime(LocalTime time, DealFilter filter) {
+        filter.validate();
+        return metrics.serviceCall("getAvailableRestaurantDealsByTimeFiltered").record(() ->
+                restaurantRepository.findAvailableDealsAt(time, filter));
+    }
+
+    /*
+     * As above on one day of the week, from the restaurants' opening hours for that day
+     * rather than their daily hours.
+     */
+    @Override
+    public List<DealAtRestaurant> getAvailableRestaurantDealsByDayAndTime(DayOfWeek day, LocalTime time, DealFilter filter) {
+        filter.validate();
+        return metrics.serviceCall("getAvailableRestaurantDealsByDayAndTime").record(() ->
+                restaurantRepository.findAvailableDealsAt(day, time, filter));
+    }
+
+    @Override
+    public DealPage getAvailableRestaurantDealsPage(LocalTime time, DealFilter filter, int fromOrdinal, int limit) {
+        filter.validate();
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
         }
-        return dealAtRestaurants;
+        return metrics.serviceCall("getAvailableRestaurantDealsPage").record(() ->
+                restaurantRepository.findAvailableDealsPageAt(time, filter, fromOrdinal, limit));
+    }
+
+    @Override
+    public void forEachAvailableRestaurantDeal(LocalTime time, DealFilter filter, Consumer<DealAtRestaurant> action) {
+        filter.validate();
+        restaurantRepository.forEachAvailableDealAt(time, filter, action);
+    }
+
+    /*
+     * The best limit deals by the sort key, best first. Only those deals are materialised,
+     * so the mapper never sees the rest of the live set.
+     */
+    @Override
+    public List<DealAtRestaurant> getTopAvailableRestaurantDeals(LocalTime time, DealFilter filter, DealSort sort,
+            int limit) {
+        filter.validate();
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return metrics.serviceCall("getTopAvailableRestaurantDeals").record(() ->
+                restaurantRepository.findTopAvailableDealsAt(time, filter, sort, limit));
     }
 
     @Override
     public PeakTimeWindow getPeakTimeWindow() {
+        return getPeakTimeWindow(Constants.PEAK_TIME_DEFAULT_WINDOW_MINUTES, Constants.PEAK_TIME_DEFAULT_STEP_MINUTES);
+    }
+
+    @Override
+    public PeakTimeWindow getPeakTimeWindow(int windowMinutes, int stepMinutes) {
+        List<PeakTimeWindow> peakTimeWindows = getPeakTimeWindows(windowMinutes, stepMinutes, 1);
+        if (peakTimeWindows.isEmpty()) {
+            return new PeakTimeWindow(LocalTime.MIN, LocalTime.MAX);
+        }
+        return peakTimeWindows.get(0);
+    }
+
+    @Override
+    public List<PeakTimeWindow> getPeakTimeWindows(int windowMinutes, int stepMinutes, int limit) {
+        return metrics.serviceCall("getPeakTimeWindows").record(() -> computePeakTimeWindows(windowMinutes, stepMinutes, limit));
+    }
+
+    private List<PeakTimeWindow> computePeakTimeWindows(int windowMinutes, int stepMinutes, int limit) {
         /*
          * This is the implementation of the peak time window algorithm.
-         * Iterates over all the restaurants and count the number of available deals in a time window.
-         * Uses a fixed bucket size of 3 hours.
-         * Returns the time window with the most available deals.
+         * Each deal counts towards every window start that overlaps the minutes it is live
+         * (a prefix-sum sweep over the minutes of the day). Deals without their own window
+         * are live whenever the restaurant is open, so they are added together in one go;
+         * deals with a window are added one by one with their live ranges.
+         * Each partition of the deals (one per shard of a sharded repository) is swept into
+         * its own engine and the engines are summed.
+         * Returns up to limit non-overlapping windows with the most available deals.
          */
-        List<Restaurant> allRestaurants = restaurantRepository.findAllRestaurants();
-        
-        if (allRestaurants.isEmpty()) {
-            return new PeakTimeWindow(LocalTime.MIN, LocalTime.MAX);
-        }
+        PeakTimeEngine peakTimeEngine = new PeakTimeEngine(windowMinutes, stepMinutes);
 
-        int timeWindowFixedBucketSize = 3;
-        int maxAvailableDeals = 0;
-        LocalTime peakStart = LocalTime.MIN;
-        LocalTime peakEnd = LocalTime.of(timeWindowFixedBucketSize, 0);
-
-        for (int hour = 0; hour < 24; hour += timeWindowFixedBucketSize) {
-            LocalTime bucketStart = LocalTime.of(hour, 0);
-            LocalTime bucketEnd = (hour + timeWindowFixedBucketSize == 24) ? LocalTime.MAX : LocalTime.of(hour + timeWindowFixedBucketSize, 0);
-            
-            int availableDealsCount = countAvailableDealsInTimeWindow(allRestaurants, bucketStart, bucketEnd);
-            
-            if (availableDealsCount > maxAvailableDeals) {
-                maxAvailableDeals = availableDealsCount;
-                peakStart = bucketStart;
-                peakEnd = bucketEnd;
-            }
+        if (restaurantRepository.getDealColumns().restaurantCount() == 0) {
+            return List.of();
         }
 
-        return new PeakTimeWindow(peakStart, peakEnd);
+        peakTimeEngine.merge(restaurantRepository.reduceDealColumns(
+                deals -> sweep(new PeakTimeEngine(windowMinutes, stepMinutes), deals), PeakTimeEngine::merge));
+        return peakTimeEngine.findPeakWindows(limit);
     }
 
-    private int countAvailableDealsInTimeWindow(List<Restaurant> restaurants, LocalTime timeWindowStart, LocalTime timeWindowEnd) {
-        int totalDeals = 0;
-        for (Restaurant restaurant : restaurants) {
-            if (isRestaurantOpenDuringTimeWindow(restaurant, timeWindowStart, timeWindowEnd)) {
-                List<Deal> deals = restaurantRepository.findDealsByRestaurantId(restaurant.getObjectId());
-                totalDeals += deals.size();
+    /*
+     * Read from the columns, so no Deal is materialised for the sweep.
+     */
+    private static PeakTimeEngine sweep(PeakTimeEngine peakTimeEngine, DealColumns deals) {
+        for (int r = 0; r < deals.restaurantCount(); r++) {
+            Restaurant restaurant = deals.restaurant(r);
+            int dealsWithoutWindow = 0;
+            for (int ordinal = deals.firstDealOf(r); ordinal < deals.endDealOf(r); ordinal++) {
+                if (deals.hasOwnWindow(ordinal)) {
+                    peakTimeEngine.addAvailability(
+                            MinuteRanges.liveRanges(restaurant, deals.openTime(ordinal), deals.closeTime(ordinal)), 1);
+                } else {
+                    dealsWithoutWindow++;
+                }
             }
+            peakTimeEngine.addAvailability(restaurant.getOpenTime(), restaurant.getCloseTime(), dealsWithoutWindow);
         }
-        return totalDeals;
-    }
-
-    private boolean isRestaurantOpenDuringTimeWindow(Restaurant restaurant, LocalTime timeWindowStart, LocalTime timeWindowEnd) {
-        LocalTime openTime = restaurant.getOpenTime();
-        LocalTime closeTime = restaurant.getCloseTime();
-        
-        if (openTime.isBefore(closeTime)) {
-            return !timeWindowEnd.isBefore(openTime) && !timeWindowStart.isAfter(closeTime);
-        } else {
-            return !timeWindowEnd.isBefore(openTime) || !timeWindowStart.isAfter(closeTime);
-        }
+        return peakTimeEngine;
     }
 }
@@ -0,0 +1,71 @@
+package com.eatclub.perf;
+
+import com.eatclub.mapper.RestaurantMapper;
+import com.eatclub.metrics.RestaurantMetrics;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.dtos.AvailableRestaurantsDTO;
+import com.eatclub.model.dtos.CompactAvailableRestaurantsDTO;
+import com.eatclub.repository.InMemoryRestaurantRepository;
+import com.eatclub.service.RestaurantServiceImpl;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.web.client.RestTemplate;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+
+/*
+ * One loaded dataset per benchmark fork, wired the way the application wires it but
+ * without Spring: the repository is loaded through its RestTemplate from a stubbed
+ * upstream serving a synthetic feed. The deals live at the query time and their DTOs,
+ * JSON and compact, are prepared up front for the mapper and serialization benchmarks.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkData {
+
+    @Param({ "100", "10000", "1000000" })
+    public int restaurants;
+
+    /*
+     * Evening, when most restaurants in the synthetic feed are open.
+     */
+    @Param({ "18:30" })
+    public String timeOfDay;
+
+    public LocalTime time;
+    public InMemoryRestaurantRepository repository;
+    public RestaurantServiceImpl service;
+    public RestaurantMapper mapper;
+    public JsonMapper jsonMapper;
+    public List<DealAtRestaurant> availableDeals;
+    public AvailableRestaurantsDTO availableRestaurants;
+    public CBORMapper cborMapper;
+    public CompactAvailableRestaurantsDTO compactAvailableRestaurants;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path feedFile = new SyntheticFeedGenerator().feedFile(Path.of("target", "perf-feeds"), restaurants);
+        repository = new InMemoryRestaurantRepository(new RestTemplate(new StubFeedRequestFactory(feedFile)));
+        repository.refresh();
+        service = new RestaurantServiceImpl(repository);
+        mapper = new RestaurantMapper(RestaurantMetrics.noop(), JsonMapper.builder().build(), repository);
+        jsonMapper = JsonMapper.builder().build();
+
+        time = LocalTime.parse(timeOfDay);
+        availableDeals = service.getAvailableRestaurantDealsByTime(time);
+        availableRestaurants = mapper.toAvailableRestaurantsDTO(availableDeals);
+        cborMapper = CBORMapper.builder().build();
+        compactAvailableRestaurants = mapper.toCompactAvailableRestaurantsDTO(availableDeals, null);
+
+        // Payload sizes don't vary between iterations, so they're reported once here
+        System.out.printf("%n/available payload for %d deals: JSON %d bytes, compact CBOR %d bytes%n", availableDeals.size(),
+                jsonMapper.writeValueAsBytes(availableRestaurants).length,
+                cborMapper.writeValueAsBytes(compactAvailableRestaurants).length);
+    }
+}
@@ -0,0 +1,40 @@
+package com.eatclub.perf;
+
+import com.eatclub.model.dtos.AvailableRestaurantsDTO;
+import com.eatclub.model.dtos.CompactAvailableRestaurantsDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class MapperBenchmark {
+
+    @Benchmark
+    public AvailableRestaurantsDTO toAvailableRestaurantsDTO(BenchmarkData data) {
+        return data.mapper.toAvailableRestaurantsDTO(data.availableDeals);
+    }
+
+    /*
+     * Mapping and serialization together, from the snapshot's pre-encoded fragments;
+     * compare with toAvailableRestaurantsDTO plus SerializationBenchmark.writeAvailableRestaurantsToBytes.
+     */
+    @Benchmark
+    public byte[] toAvailableRestaurantsJson(BenchmarkData data) {
+        return data.mapper.toAvailableRestaurantsJson(data.availableDeals);
+    }
+
+    @Benchmark
+    public CompactAvailableRestaurantsDTO toCompactAvailableRestaurantsDTO(BenchmarkData data) {
+        return data.mapper.toCompactAvailableRestaurantsDTO(data.availableDeals, null);
+    }
+}
@@ -0,0 +1,45 @@
+package com.eatclub.perf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class SerializationBenchmark {
+
+    /*
+     * Into a byte array, as the response cache stores it.
+     */
+    @Benchmark
+    public byte[] writeAvailableRestaurantsToBytes(BenchmarkData data) {
+        return data.jsonMapper.writeValueAsBytes(data.availableRestaurants);
+    }
+
+    /*
+     * Straight to a stream, as an uncached response is written; this leaves out the cost
+     * of growing a buffer to hold the whole body.
+     */
+    @Benchmark
+    public void writeAvailableRestaurantsToStream(BenchmarkData data) {
+        data.jsonMapper.writeValue(OutputStream.nullOutputStream(), data.availableRestaurants);
+    }
+
+    /*
+     * What an Accept: application/cbor client gets, against writeAvailableRestaurantsToBytes.
+     */
+    @Benchmark
+    public byte[] writeCompactAvailableRestaurantsToCbor(BenchmarkData data) {
+        return data.cborMapper.writeValueAsBytes(data.compactAvailableRestaurants);
+    }
+}
@@ -0,0 +1,32 @@
+package com.eatclub.perf;
+
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.PeakTimeWindow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ServiceBenchmark {
+
+    @Benchmark
+    public List<DealAtRestaurant> getAvailableRestaurantDealsByTime(BenchmarkData data) {
+        return data.service.getAvailableRestaurantDealsByTime(data.time);
+    }
+
+    @Benchmark
+    public PeakTimeWindow getPeakTimeWindow(BenchmarkData data) {
+        return data.service.getPeakTimeWindow();
+    }
+}
@@ -0,0 +1,37 @@
+package com.eatclub.perf;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * Answers every request of a RestTemplate with the given feed file, so the repository
+ * runs its real fetch, parse and snapshot path without a network or an upstream. The
+ * body is streamed from disk rather than held in memory.
+ */
+public class StubFeedRequestFactory implements ClientHttpRequestFactory {
+
+    private final Path feedFile;
+
+    public StubFeedRequestFactory(Path feedFile) {
+        this.feedFile = feedFile;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        MockClientHttpResponse response = new MockClientHttpResponse(Files.newInputStream(feedFile), HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+        request.setResponse(response);
+        return request;
+    }
+}
@@ -0,0 +1,129 @@
+package com.eatclub.perf;
+
+import com.eatclub.common.Constants;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalTime;
+import java.util.Random;
+
+/*
+ * Writes an upstream-shaped feed of the given number of restaurants, so benchmarks load
+ * through the same parser and index build as production. Output depends only on the
+ * size and seed, which keeps runs comparable, and is written to disk once per size:
+ * a million restaurants is several hundred megabytes of JSON that is cheaper to stream
+ * from a file than to rebuild or hold on the heap for every fork.
+ *
+ * The mix roughly follows the real feed: a few deals per restaurant, most restaurants
+ * open for a daytime or evening block, some across midnight, some all day, and about
+ * a third of the deals with their own shorter window.
+ */
+public final class SyntheticFeedGenerator {
+
+    private static final long SEED = 20240101L;
+    private static final String[] SUBURBS = {
+            "Richmond", "Carlton", "Fitzroy", "Collingwood", "Brunswick", "Northcote", "Southbank", "St Kilda",
+            "Prahran", "South Yarra", "Docklands", "Footscray", "Hawthorn", "Kew", "Abbotsford", "Coburg" };
+    private static final String[] CUISINES = {
+            "Thai", "Italian", "Pizza", "Burgers", "Japanese", "Chinese", "Indian", "Mexican", "Vietnamese",
+            "Korean", "Greek", "Cafe", "Dessert", "Seafood", "Vegan", "Middle Eastern" };
+    private static final int QUARTER_HOURS_PER_DAY = Constants.MINUTES_PER_DAY / 15;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /*
+     * The feed for the given size, generated into the directory on first use.
+     */
+    public Path feedFile(Path directory, int restaurantCount) {
+        Path feedFile = directory.resolve("feed-" + restaurantCount + "-" + SEED + ".json");
+        if (Files.exists(feedFile)) {
+            return feedFile;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path partialFile = Files.createTempFile(directory, "feed-", ".partial");
+            try (OutputStream out = Files.newOutputStream(partialFile)) {
+                write(out, restaurantCount);
+            }
+            Files.move(partialFile, feedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return feedFile;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to generate a feed of " + restaurantCount + " restaurants", e);
+        }
+    }
+
+    public void write(OutputStream out, int restaurantCount) {
+        Random random = new Random(SEED);
+        int dealNumber = 0;
+        try (JsonGenerator generator = jsonFactory.createGenerator(ObjectWriteContext.empty(), out)) {
+            generator.writeStartObject();
+            generator.writeArrayPropertyStart("restaurants");
+            for (int restaurant = 0; restaurant < restaurantCount; restaurant++) {
+                int[] hours = restaurantHours(random);
+                generator.writeStartObject();
+                generator.writeStringProperty("objectId", "r" + restaurant);
+                generator.writeStringProperty("name", "Restaurant " + restaurant);
+                generator.writeStringProperty("address1", (1 + random.nextInt(400)) + " Synthetic St");
+                generator.writeStringProperty("suburb", SUBURBS[random.nextInt(SUBURBS.length)]);
+                generator.writeArrayPropertyStart("cuisines");
+                int cuisineCount = 1 + random.nextInt(3);
+                int firstCuisine = random.nextInt(CUISINES.length);
+                for (int i = 0; i < cuisineCount; i++) {
+                    generator.writeString(CUISINES[(firstCuisine + i) % CUISINES.length]);
+                }
+                generator.writeEndArray();
+                generator.writeStringProperty("imageLink", "https://example.com/r" + restaurant + ".jpg");
+                generator.writeStringProperty("open", format(hours[0]));
+                generator.writeStringProperty("close", format(hours[1]));
+                generator.writeArrayPropertyStart("deals");
+                int dealCount = random.nextInt(5);
+                for (int deal = 0; deal < dealCount; deal++) {
+                    generator.writeStartObject();
+                    generator.writeStringProperty("objectId", "d" + dealNumber++);
+                    generator.writeStringProperty("discount", Integer.toString(5 * (1 + random.nextInt(10))));
+                    generator.writeStringProperty("dineIn", Boolean.toString(random.nextInt(3) != 0));
+                    generator.writeStringProperty("lightning", Boolean.toString(random.nextInt(4) == 0));
+                    generator.writeStringProperty("qtyLeft", Integer.toString(random.nextInt(20)));
+                    if (random.nextInt(3) == 0) {
+                        int open = random.nextInt(QUARTER_HOURS_PER_DAY);
+                        generator.writeStringProperty("open", format(open));
+                        generator.writeStringProperty("close", format((open + 4 + random.nextInt(12)) % QUARTER_HOURS_PER_DAY));
+                    }
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /*
+     * Open and close as quarter hours of the day.
+     */
+    private static int[] restaurantHours(Random random) {
+        int shape = random.nextInt(20);
+        if (shape == 0) {
+            // Open all day: the same open and close time
+            return new int[] { 0, 0 };
+        }
+        if (shape <= 3) {
+            // Across midnight, e.g. 6:00pm to 2:00am
+            return new int[] { 68 + random.nextInt(16), random.nextInt(12) };
+        }
+        int open = 24 + random.nextInt(48);
+        return new int[] { open, Math.min(open + 16 + random.nextInt(32), QUARTER_HOURS_PER_DAY - 1) };
+    }
+
+    private static String format(int quarterHour) {
+        return LocalTime.of(quarterHour / 4, quarterHour % 4 * 15).format(Constants.H_MM_A_TIME_FORMATTER).toLowerCase();
+    }
+}
@@ -0,0 +1,92 @@
+package com.eatclub.perf.load;
+
+import com.eatclub.App;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The application under test, booted in its own JVM from the current classpath so its
+ * GC pauses and CPU use don't distort the load generator's clock, and vice versa.
+ */
+class AppProcess implements AutoCloseable {
+
+    private final Process process;
+    private final URI baseUri;
+
+    private AppProcess(Process process, int port) {
+        this.process = process;
+        this.baseUri = URI.create("http://127.0.0.1:" + port);
+    }
+
+    static AppProcess start(String feedUrl, String heap, boolean virtualThreads, Path logFile) throws IOException {
+        int port = freePort();
+        Files.createDirectories(logFile.getParent());
+        Process process = new ProcessBuilder(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xms" + heap,
+                "-Xmx" + heap,
+                "-cp", System.getProperty("java.class.path"),
+                App.class.getName(),
+                "--server.port=" + port,
+                "--restaurants.feed.url=" + feedUrl,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                // Always load from the stub; a snapshot of another dataset size would be served first
+                "--restaurants.snapshot.enabled=false"))
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+        return new AppProcess(process, port);
+    }
+
+    URI baseUri() {
+        return baseUri;
+    }
+
+    /*
+     * Waits for the readiness probe, which only passes once a snapshot has been loaded.
+     */
+    void awaitReady(HttpClient client, Duration timeout) throws Exception {
+        HttpRequest readiness = HttpRequest.newBuilder(baseUri.resolve("/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The application exited with " + process.exitValue() + " before it was ready");
+            }
+            try {
+                if (client.send(readiness, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("The application was not ready within " + timeout);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.eatclub.perf.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Latencies and outcomes of one endpoint. A latency runs from when the request was
+ * scheduled to start, not from when it was actually sent, so time spent queued behind
+ * a stalled server or client is counted instead of hidden (coordinated omission).
+ */
+class EndpointRecorder {
+
+    private final String name;
+    private final Histogram latencyMicros = new ConcurrentHistogram(3);
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    EndpointRecorder(String name) {
+        this.name = name;
+    }
+
+    /*
+     * statusCode is -1 when the request failed without a response, e.g. on a timeout.
+     */
+    void record(long intendedStartNanos, long completedNanos, int statusCode) {
+        latencyMicros.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(completedNanos - intendedStartNanos)));
+        if (statusCode >= 200 && statusCode < 400) {
+            successes.increment();
+        } else {
+            errors.increment();
+        }
+    }
+
+    long count() {
+        return latencyMicros.getTotalCount();
+    }
+
+    void printSummary(PrintStream out, double measuredSeconds) {
+        out.printf("%-12s requests=%d errors=%d throughput=%.1f/s p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n",
+                name, count(), errors.sum(), successes.sum() / measuredSeconds,
+                millis(latencyMicros.getValueAtPercentile(50)),
+                millis(latencyMicros.getValueAtPercentile(90)),
+                millis(latencyMicros.getValueAtPercentile(99)),
+                millis(latencyMicros.getValueAtPercentile(99.9)),
+                millis(latencyMicros.getMaxValue()));
+    }
+
+    /*
+     * The full percentile distribution in milliseconds, in the .hgrm format that the
+     * HdrHistogram plotter reads.
+     */
+    void writeDistribution(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")))) {
+            latencyMicros.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
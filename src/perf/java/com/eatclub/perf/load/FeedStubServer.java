@@ -0,0 +1,50 @@
+package com.eatclub.perf.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * Local stand-in for the challenge-data endpoint, serving one generated feed file. It
+ * sends no validators, so every refresh of the app under test downloads and hashes the
+ * whole feed, like an upstream behind a cache that strips them.
+ */
+class FeedStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Path feedFile;
+
+    private FeedStubServer(Path feedFile) throws IOException {
+        this.feedFile = feedFile;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/misc/challengedata.json", this::handle);
+        server.start();
+    }
+
+    static FeedStubServer start(Path feedFile) throws IOException {
+        return new FeedStubServer(feedFile);
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/misc/challengedata.json";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, Files.size(feedFile));
+        try (OutputStream out = exchange.getResponseBody()) {
+            Files.copy(feedFile, out);
+        }
+    }
+}
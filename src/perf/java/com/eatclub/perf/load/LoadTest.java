@@ -0,0 +1,115 @@
+package com.eatclub.perf.load;
+
+import com.eatclub.perf.SyntheticFeedGenerator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * End-to-end load test of the HTTP stack. Boots the app against a local stub of the
+ * challenge-data endpoint serving a synthetic feed, then starts requests to /available
+ * (at random times of day) and /peak-time at a fixed rate, and reports HDR latency
+ * percentiles and throughput per endpoint. Requests are sent asynchronously on their
+ * schedule whether or not earlier ones have finished, so a server that stalls shows up
+ * as queueing in the tail instead of as a lower request rate.
+ *
+ * Results are printed and the full distributions are written to target/load/.
+ */
+public class LoadTest {
+
+    private static final Path OUTPUT_DIRECTORY = Path.of("target", "load");
+    private static final Path FEED_DIRECTORY = Path.of("target", "perf-feeds");
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        System.out.println("Load test: " + options);
+
+        Path feedFile = new SyntheticFeedGenerator().feedFile(FEED_DIRECTORY, options.restaurants());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        try (FeedStubServer upstream = FeedStubServer.start(feedFile);
+                AppProcess app = AppProcess.start(upstream.url(), options.heap(), options.virtualThreads(), OUTPUT_DIRECTORY.resolve("app.log"))) {
+            app.awaitReady(client, Duration.ofMinutes(5));
+            System.out.println("Application ready at " + app.baseUri());
+
+            if (!options.warmup().isZero()) {
+                run(client, app.baseUri(), options, options.warmup(), new EndpointRecorder("warmup-available"),
+                        new EndpointRecorder("warmup-peak-time"));
+            }
+
+            EndpointRecorder available = new EndpointRecorder("available");
+            EndpointRecorder peakTime = new EndpointRecorder("peak-time");
+            long startNanos = System.nanoTime();
+            run(client, app.baseUri(), options, options.duration(), available, peakTime);
+            double measuredSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+            for (EndpointRecorder recorder : List.of(available, peakTime)) {
+                recorder.printSummary(System.out, measuredSeconds);
+                recorder.writeDistribution(OUTPUT_DIRECTORY);
+            }
+            System.out.println("Latency distributions written to " + OUTPUT_DIRECTORY.toAbsolutePath());
+        }
+    }
+
+    /*
+     * Starts rate requests per second for the duration, then waits for the ones still in
+     * flight. Request i is due at start + i / rate; its latency is measured from then.
+     */
+    private static void run(HttpClient client, URI baseUri, LoadTestOptions options, Duration duration,
+            EndpointRecorder available, EndpointRecorder peakTime) throws InterruptedException {
+        Random random = new Random(42);
+        Phaser inFlight = new Phaser(1);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intendedStartNanos = startNanos + i * intervalNanos;
+            if (intendedStartNanos >= endNanos) {
+                break;
+            }
+            long delay = intendedStartNanos - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            boolean isPeakTime = random.nextDouble() < options.peakTimeShare();
+            EndpointRecorder recorder = isPeakTime ? peakTime : available;
+            URI uri = isPeakTime
+                    ? baseUri.resolve("/api/v1/restaurants/peak-time")
+                    : baseUri.resolve("/api/v1/restaurants/available?timeOfDay=" + randomTimeOfDay(random));
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(options.timeout()).build();
+
+            inFlight.register();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        recorder.record(intendedStartNanos, System.nanoTime(), response == null ? -1 : response.statusCode());
+                        inFlight.arriveAndDeregister();
+                    });
+        }
+
+        try {
+            inFlight.awaitAdvanceInterruptibly(inFlight.arrive(), options.timeout().toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.out.println(inFlight.getUnarrivedParties() + " requests still in flight after the run");
+        }
+    }
+
+    private static String randomTimeOfDay(Random random) {
+        int minute = random.nextInt(24 * 60);
+        return String.format("%02d:%02d", minute / 60, minute % 60);
+    }
+}
@@ -0,0 +1,87 @@
+package com.eatclub.perf.load;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Options of a load test run, given as key=value arguments, e.g. "rate=500 duration=60s".
+ *
+ * rate is the number of requests started per second whatever the response times are
+ * (an open model), so a slow server builds a queue instead of slowing the load down.
+ */
+record LoadTestOptions(int restaurants, int rate, Duration warmup, Duration duration, double peakTimeShare,
+        Duration timeout, String heap, boolean virtualThreads) {
+
+    static final LoadTestOptions DEFAULTS = new LoadTestOptions(10_000, 200, Duration.ofSeconds(10),
+            Duration.ofSeconds(30), 0.1, Duration.ofSeconds(10), "1g", false);
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                intOption(values, "restaurants", DEFAULTS.restaurants()),
+                intOption(values, "rate", DEFAULTS.rate()),
+                durationOption(values, "warmup", DEFAULTS.warmup()),
+                durationOption(values, "duration", DEFAULTS.duration()),
+                Double.parseDouble(values.getOrDefault("peakTimeShare", Double.toString(DEFAULTS.peakTimeShare()))),
+                durationOption(values, "timeout", DEFAULTS.timeout()),
+                values.getOrDefault("heap", DEFAULTS.heap()),
+                threadsOption(values.getOrDefault("threads", DEFAULTS.virtualThreads() ? "virtual" : "platform")));
+        values.keySet().removeAll(Set.of("restaurants", "rate", "warmup", "duration", "peakTimeShare",
+                "timeout", "heap", "threads"));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + values.keySet());
+        }
+        if (options.restaurants() < 1 || options.rate() < 1 || options.duration().isZero()) {
+            throw new IllegalArgumentException("restaurants, rate and duration must be positive");
+        }
+        if (options.peakTimeShare() < 0 || options.peakTimeShare() > 1) {
+            throw new IllegalArgumentException("peakTimeShare must be between 0 and 1");
+        }
+        return options;
+    }
+
+    /*
+     * Which threads the app under test handles requests on: platform or virtual.
+     */
+    private static boolean threadsOption(String value) {
+        return switch (value) {
+            case "virtual" -> true;
+            case "platform" -> false;
+            default -> throw new IllegalArgumentException("threads must be platform or virtual, got '" + value + "'");
+        };
+    }
+
+    private static int intOption(Map<String, String> values, String key, int defaultValue) {
+        return values.containsKey(key) ? Integer.parseInt(values.get(key).replace("_", "")) : defaultValue;
+    }
+
+    /*
+     * Durations as 500ms, 30s or 2m.
+     */
+    private static Duration durationOption(Map<String, String> values, String key, Duration defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        throw new IllegalArgumentException(key + " must be a duration like 500ms, 30s or 2m, got '" + value + "'");
+    }
+}
@@ -0,0 +1,260 @@
+package com.eatclub.cache;
+
+import com.eatclub.common.Constants;
+import com.eatclub.common.MinuteRanges;
+import com.eatclub.mapper.RestaurantMapper;
+import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.Restaurant;
+import com.eatclub.repository.ILocalRepository;
+import com.eatclub.service.RestaurantServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AvailableRestaurantsResponseCacheTest {
+
+    @Mock
+    private ILocalRepository restaurantRepository;
+
+    private RestaurantServiceImpl restaurantService;
+    private RestaurantMapper restaurantMapper;
+    private JsonMapper jsonMapper;
+    private AvailableRestaurantsResponseCache cache;
+    private List<Restaurant> restaurants;
+
+    @BeforeEach
+    void setUp() {
+        restaurants = Arrays.asList(
+                new Restaurant("r1", "Restaurant 1", "123 Main St", "City", LocalTime.of(10, 0), LocalTime.of(22, 0)),
+                new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "Suburb", LocalTime.of(11, 30), LocalTime.of(23, 30)),
+                new Restaurant("r3", "Restaurant 3", "789 Pine St", "Town", LocalTime.of(22, 0), LocalTime.of(2, 0)));
+        stubRepository(restaurants, 1L);
+
+        restaurantService = spy(new RestaurantServiceImpl(restaurantRepository));
+        restaurantMapper = spy(new RestaurantMapper());
+        jsonMapper = JsonMapper.builder().build();
+        cache = new AvailableRestaurantsResponseCache(restaurantRepository, restaurantService, restaurantMapper);
+        cache.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.stop();
+    }
+
+    @Test
+    void testNew_ListensForNewSnapshots() {
+        verify(restaurantRepository).addSnapshotListener(cache);
+    }
+
+    @Test
+    void testAfterPublish_RebuildsOffThePublishingThread() throws Exception {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(restaurantService).getAvailableRestaurantDealsByTime(any(LocalTime.class));
+        doReturn(2L).when(restaurantRepository).getSnapshotVersion();
+
+        cache.afterPublish();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.getAvailableRestaurantsJson(LocalTime.NOON) == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertNotNull(cache.getAvailableRestaurantsJson(LocalTime.NOON));
+        assertEquals(Set.of("available-responses-rebuild"), threads);
+    }
+
+    @Test
+    void testGetAvailableRestaurantsJson_MatchesMappedResponseAtEveryMinute() {
+        for (int minute = 0; minute < Constants.MINUTES_PER_DAY; minute++) {
+            LocalTime time = LocalTime.of(minute / 60, minute % 60);
+            byte[] expected = jsonMapper.writeValueAsBytes(
+                    restaurantMapper.toAvailableRestaurantsDTO(restaurantService.getAvailableRestaurantDealsByTime(time)));
+
+            assertArrayEquals(expected, cache.getAvailableRestaurantsJson(time), "Mismatch at " + time);
+        }
+    }
+
+    @Test
+    void testGetAvailableRestaurantsJson_WithDealWindows_MatchesMappedResponseAtEveryMinute() {
+        doAnswer(invocation -> {
+            String restaurantId = invocation.getArgument(0);
+            return List.of(
+                    new Deal("d-" + restaurantId, restaurantId, 10.0f, true, false, 5),
+                    new Deal("w-" + restaurantId, restaurantId, 40.0f, false, true, 1, LocalTime.of(15, 0), LocalTime.of(17, 30)));
+        }).when(restaurantRepository).findDealsByRestaurantId(any());
+        doReturn(2L).when(restaurantRepository).getSnapshotVersion();
+        cache.rebuild();
+
+        for (int minute = 0; minute < Constants.MINUTES_PER_DAY; minute++) {
+            LocalTime time = LocalTime.of(minute / 60, minute % 60);
+            byte[] expected = jsonMapper.writeValueAsBytes(
+                    restaurantMapper.toAvailableRestaurantsDTO(restaurantService.getAvailableRestaurantDealsByTime(time)));
+
+            assertArrayEquals(expected, cache.getAvailableRestaurantsJson(time), "Mismatch at " + time);
+        }
+        assertTrue(new String(cache.getAvailableRestaurantsJson(LocalTime.of(16, 0))).contains("\"w-r1\""));
+        assertFalse(new String(cache.getAvailableRestaurantsJson(LocalTime.of(17, 31))).contains("\"w-r1\""));
+    }
+
+    @Test
+    void testSegmentStarts_WithDealWindows_AlsoSplitsAtDealBoundaries() {
+        Deal windowedDeal = new Deal("w1", "r1", 40.0f, false, true, 1, LocalTime.of(15, 0), LocalTime.of(17, 30));
+
+        int[] segmentStarts = AvailableRestaurantsResponseCache.segmentStarts(restaurants, List.of(windowedDeal));
+
+        assertArrayEquals(new int[] { 0, 121, 600, 690, 900, 1051, 1320, 1321, 1411 }, segmentStarts);
+    }
+
+    @Test
+    void testGetAvailableRestaurantsJson_WhenCached_DoesNotCallServiceOrMapper() {
+        cache.getAvailableRestaurantsJson(LocalTime.of(12, 0));
+        clearInvocations(restaurantService, restaurantMapper);
+
+        byte[] result = cache.getAvailableRestaurantsJson(LocalTime.of(15, 45));
+
+        assertNotNull(result);
+        verifyNoInteractions(restaurantService, restaurantMapper);
+    }
+
+    @Test
+    void testAfterPublish_BuildsOneResponsePerSegment() {
+        // Segments start at 0:00, 2:01, 10:00, 11:30, 22:00, 22:01 and 23:31
+        verify(restaurantService, times(7)).getAvailableRestaurantDealsByTime(any());
+    }
+
+    @Test
+    void testGetAvailableRestaurantsJson_WhenSnapshotVersionChanges_RebuildsSegments() {
+        byte[] before = cache.getAvailableRestaurantsJson(LocalTime.of(3, 0));
+
+        stubRepository(List.of(new Restaurant("r4", "Restaurant 4", "321 Elm St", "Village",
+                LocalTime.of(0, 0), LocalTime.of(23, 59))), 2L);
+        cache.rebuild();
+        byte[] after = cache.getAvailableRestaurantsJson(LocalTime.of(3, 0));
+
+        assertEquals("{\"deals\":[]}", new String(before));
+        assertTrue(new String(after).contains("\"restaurantObjectId\":\"r4\""));
+    }
+
+    @Test
+    void testGetAvailableRestaurantsJson_WithIncrementalChange_RebuildsOnlyAffectedSegments() {
+        byte[] noonBefore = cache.getAvailableRestaurantsJson(LocalTime.of(12, 0));
+        doReturn(2L).when(restaurantRepository).getSnapshotVersion();
+        doReturn(Optional.of(Set.of("r3"))).when(restaurantRepository).findRestaurantIdsChangedSince(1L);
+        doAnswer(invocation -> {
+            String restaurantId = invocation.getArgument(0);
+            float discount = "r3".equals(restaurantId) ? 50.0f : 10.0f;
+            return List.of(new Deal("d-" + restaurantId, restaurantId, discount, true, false, 5));
+        }).when(restaurantRepository).findDealsByRestaurantId(any());
+        clearInvocations(restaurantService);
+
+        cache.rebuild();
+        byte[] noonAfter = cache.getAvailableRestaurantsJson(LocalTime.of(12, 0));
+
+        // r3 is open in the segments starting at 0:00, 22:00, 22:01 and 23:31 only
+        verify(restaurantService, times(4)).getAvailableRestaurantDealsByTime(any());
+        assertSame(noonBefore, noonAfter);
+        for (int minute = 0; minute < Constants.MINUTES_PER_DAY; minute++) {
+            LocalTime time = LocalTime.of(minute / 60, minute % 60);
+            byte[] expected = jsonMapper.writeValueAsBytes(
+                    restaurantMapper.toAvailableRestaurantsDTO(restaurantService.getAvailableRestaurantDealsByTime(time)));
+
+            assertArrayEquals(expected, cache.getAvailableRestaurantsJson(time), "Mismatch at " + time);
+        }
+    }
+
+    @Test
+    void testGetAvailableRestaurantsResponse_WithIncrementalChange_KeepsEncodingsOfUnchangedSegments() {
+        PrecompressedResponse noonBefore = cache.getAvailableRestaurantsResponse(LocalTime.of(12, 0));
+        PrecompressedResponse lateBefore = cache.getAvailableRestaurantsResponse(LocalTime.of(23, 0));
+        doReturn(2L).when(restaurantRepository).getSnapshotVersion();
+        doReturn(Optional.of(Set.of("r3"))).when(restaurantRepository).findRestaurantIdsChangedSince(1L);
+
+        cache.rebuild();
+        PrecompressedResponse noonAfter = cache.getAvailableRestaurantsResponse(LocalTime.of(12, 0));
+
+        assertSame(noonBefore, noonAfter);
+        assertSame(noonBefore.variantFor("gzip").body(), noonAfter.variantFor("gzip").body());
+        assertNotSame(lateBefore, cache.getAvailableRestaurantsResponse(LocalTime.of(23, 0)));
+    }
+
+    @Test
+    void testGetAvailableRestaurantsJson_BeforeNewSnapshotIsBuilt_ReturnsNullWithoutBuilding() {
+        doReturn(2L).when(restaurantRepository).getSnapshotVersion();
+        clearInvocations(restaurantService, restaurantMapper);
+
+        assertNull(cache.getAvailableRestaurantsJson(LocalTime.of(12, 0)));
+        verifyNoInteractions(restaurantService, restaurantMapper);
+    }
+
+    @Test
+    void testAfterPublish_WhenSnapshotChangesWhileBuilding_KeepsNothing() {
+        stubRepository(restaurants, 2L);
+        doReturn(2L, 3L).when(restaurantRepository).getSnapshotVersion();
+
+        cache.rebuild();
+
+        doReturn(2L).when(restaurantRepository).getSnapshotVersion();
+        assertNull(cache.getAvailableRestaurantsJson(LocalTime.of(12, 0)));
+    }
+
+    @Test
+    void testGetAvailableRestaurantsJson_WithSubMinuteTime_ReturnsNull() {
+        assertNull(cache.getAvailableRestaurantsJson(LocalTime.of(12, 0, 30)));
+    }
+
+    @Test
+    void testSegmentStarts_SplitsDayAtOpeningAndAfterClosingMinutes() {
+        int[] segmentStarts = AvailableRestaurantsResponseCache.segmentStarts(restaurants, List.of());
+
+        assertArrayEquals(new int[] { 0, 121, 600, 690, 1320, 1321, 1411 }, segmentStarts);
+    }
+
+    private void stubRepository(List<Restaurant> restaurants, long snapshotVersion) {
+        doReturn(snapshotVersion).when(restaurantRepository).getSnapshotVersion();
+        doReturn(restaurants).when(restaurantRepository).findAllRestaurants();
+        doAnswer(invocation -> {
+            LocalTime time = invocation.getArgument(0);
+            return restaurants.stream().filter(restaurant -> restaurant.getOpenTime().isBefore(restaurant.getCloseTime())
+                    ? !time.isBefore(restaurant.getOpenTime()) && !time.isAfter(restaurant.getCloseTime())
+                    : !time.isBefore(restaurant.getOpenTime()) || !time.isAfter(restaurant.getCloseTime())).toList();
+        }).when(restaurantRepository).findAvailableRestaurantsAt(any());
+        doAnswer(invocation -> {
+            String restaurantId = invocation.getArgument(0);
+            return List.of(new Deal("d-" + restaurantId, restaurantId, 10.0f, true, false, 5));
+        }).when(restaurantRepository).findDealsByRestaurantId(any());
+        doAnswer(invocation -> {
+            LocalTime time = invocation.getArgument(0);
+            int minute = MinuteRanges.minuteOfDay(time);
+            return restaurantRepository.findAvailableRestaurantsAt(time).stream()
+                    .flatMap(restaurant -> restaurantRepository.findDealsByRestaurantId(restaurant.getObjectId()).stream()
+                            .filter(deal -> MinuteRanges.liveRanges(restaurant, deal).stream()
+                                    .anyMatch(range -> range.fromMinute() <= minute && minute <= range.toMinute()))
+                            .map(deal -> new DealAtRestaurant(restaurant, deal)))
+                    .toList();
+        }).when(restaurantRepository).findAvailableDealsAt(any());
+    }
+}
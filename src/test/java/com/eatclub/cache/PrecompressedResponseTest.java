@@ -0,0 +1,82 @@
+package com.eatclub.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrecompressedResponseTest {
+
+    private static final byte[] JSON = ("{\"deals\":[" + "{\"objectId\":\"d1\",\"discount\":\"10.0\"},".repeat(50) + "{}]}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testVariantFor_WithGzip_ReturnsValidGzipOfTheBody() throws IOException {
+        PrecompressedResponse.Variant variant = new PrecompressedResponse(JSON).variantFor("gzip");
+
+        assertEquals("gzip", variant.contentEncoding());
+        assertTrue(variant.body().length < JSON.length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(variant.body()))) {
+            assertArrayEquals(JSON, gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    void testVariantFor_WithDeflate_ReturnsValidZlibOfTheBody() throws IOException {
+        PrecompressedResponse.Variant variant = new PrecompressedResponse(JSON).variantFor("deflate");
+
+        assertEquals("deflate", variant.contentEncoding());
+        try (InflaterInputStream zlib = new InflaterInputStream(new ByteArrayInputStream(variant.body()))) {
+            assertArrayEquals(JSON, zlib.readAllBytes());
+        }
+    }
+
+    @Test
+    void testVariantFor_WithoutAcceptableCoding_ReturnsIdentity() {
+        PrecompressedResponse response = new PrecompressedResponse(JSON);
+
+        assertIdentity(JSON, response.variantFor(null));
+        assertIdentity(JSON, response.variantFor("br"));
+        assertIdentity(JSON, response.variantFor("gzip;q=0, deflate;q=0"));
+    }
+
+    @Test
+    void testVariantFor_WithSmallBody_ReturnsIdentity() {
+        byte[] json = "{\"deals\":[]}".getBytes(StandardCharsets.UTF_8);
+        PrecompressedResponse response = new PrecompressedResponse(json);
+
+        assertIdentity(json, response.variantFor("gzip"));
+        assertIdentity(json, response.variantFor("deflate"));
+    }
+
+    @Test
+    void testVariantFor_ServesTheBodiesCompressedWhenBuilt() {
+        PrecompressedResponse response = new PrecompressedResponse(JSON);
+
+        assertSame(response.variantFor("gzip").body(), response.variantFor("x-gzip").body());
+        assertSame(response.variantFor("deflate").body(), response.variantFor("deflate;q=1").body());
+    }
+
+    @Test
+    void testPreferredEncoding_FollowsQValues() {
+        assertEquals("gzip", PrecompressedResponse.preferredEncoding("gzip, deflate, br"));
+        assertEquals("gzip", PrecompressedResponse.preferredEncoding("deflate, gzip"));
+        assertEquals("deflate", PrecompressedResponse.preferredEncoding("gzip;q=0.5, deflate"));
+        assertEquals("deflate", PrecompressedResponse.preferredEncoding("gzip;q=0, *"));
+        assertEquals("gzip", PrecompressedResponse.preferredEncoding("*"));
+        assertEquals("gzip", PrecompressedResponse.preferredEncoding("GZIP;Q=1"));
+        assertNull(PrecompressedResponse.preferredEncoding("identity"));
+        assertNull(PrecompressedResponse.preferredEncoding("*;q=0"));
+        assertNull(PrecompressedResponse.preferredEncoding(" "));
+    }
+
+    private static void assertIdentity(byte[] identity, PrecompressedResponse.Variant variant) {
+        assertNull(variant.contentEncoding());
+        assertSame(identity, variant.body());
+    }
+}
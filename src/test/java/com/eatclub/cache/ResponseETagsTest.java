@@ -0,0 +1,89 @@
+package com.eatclub.cache;
+
+import com.eatclub.repository.ILocalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseETagsTest {
+
+    @Mock
+    private ILocalRepository restaurantRepository;
+
+    private ResponseETags responseETags;
+
+    @BeforeEach
+    void setUp() {
+        responseETags = new ResponseETags(restaurantRepository);
+    }
+
+    @Test
+    void testETagFor_IsStrongAndQuoted() {
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(7L);
+
+        String eTag = responseETags.eTagFor("available-14:30");
+
+        assertTrue(eTag.startsWith("\""));
+        assertTrue(eTag.endsWith("-7-available-14:30\""));
+    }
+
+    @Test
+    void testETagFor_ChangesWithSnapshotVersionAndQuery() {
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(7L, 7L, 8L);
+
+        String eTag = responseETags.eTagFor("available-14:30");
+
+        assertNotEquals(eTag, responseETags.eTagFor("available-14:31"));
+        assertNotEquals(eTag, responseETags.eTagFor("available-14:30"));
+    }
+
+    @Test
+    void testETagFor_DiffersBetweenInstances() throws Exception {
+        ResponseETags previousRun = new ResponseETags(restaurantRepository);
+        Thread.sleep(2);
+
+        assertNotEquals(previousRun.eTagFor("available-14:30"), new ResponseETags(restaurantRepository).eTagFor("available-14:30"));
+    }
+
+    @Test
+    void testIsNotModified_WithMatchingTag_ReturnsTrue() {
+        assertTrue(responseETags.isNotModified("\"a-1-q\"", "\"a-1-q\""));
+        assertTrue(responseETags.isNotModified("\"x\", W/\"a-1-q\"", "\"a-1-q\""));
+        assertTrue(responseETags.isNotModified("*", "\"a-1-q\""));
+    }
+
+    @Test
+    void testIsNotModified_WithoutMatchingTag_ReturnsFalse() {
+        assertFalse(responseETags.isNotModified(null, "\"a-1-q\""));
+        assertFalse(responseETags.isNotModified("", "\"a-1-q\""));
+        assertFalse(responseETags.isNotModified("\"a-2-q\"", "\"a-1-q\""));
+        assertFalse(responseETags.isNotModified("a-1-q", "\"a-1-q\""));
+    }
+
+    @Test
+    void testForContentEncoding_AddsCodingInsideQuotes() {
+        assertEquals("\"a-1-q-gzip\"", ResponseETags.forContentEncoding("\"a-1-q\"", "gzip"));
+        assertEquals("\"a-1-q\"", ResponseETags.forContentEncoding("\"a-1-q\"", null));
+    }
+
+    @Test
+    void testIsNotModified_WithCompressedVariantTag_ReturnsTrue() {
+        assertTrue(responseETags.isNotModified("\"a-1-q-gzip\"", "\"a-1-q\""));
+        assertTrue(responseETags.isNotModified("W/\"a-1-q-deflate\"", "\"a-1-q\""));
+        assertFalse(responseETags.isNotModified("\"a-1-q-br\"", "\"a-1-q\""));
+    }
+
+    @Test
+    void testMatchedTag_ReturnsTheVariantTheClientHolds() {
+        assertEquals("\"a-1-q-gzip\"", responseETags.matchedTag("\"x\", W/\"a-1-q-gzip\"", "\"a-1-q\""));
+        assertEquals("\"a-1-q\"", responseETags.matchedTag("\"a-1-q\"", "\"a-1-q\""));
+        assertEquals("\"a-1-q\"", responseETags.matchedTag("*", "\"a-1-q\""));
+        assertNull(responseETags.matchedTag("\"a-2-q\"", "\"a-1-q\""));
+    }
+}
@@ -0,0 +1,99 @@
+package com.eatclub.cache;
+
+import com.eatclub.repository.ILocalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnapshotResponseCacheTest {
+
+    @Mock
+    private ILocalRepository restaurantRepository;
+
+    private SnapshotResponseCache cache;
+    private AtomicInteger computations;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SnapshotResponseCache(restaurantRepository);
+        computations = new AtomicInteger();
+    }
+
+    @Test
+    void testGet_OnSameSnapshot_ComputesOnce() {
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(1L);
+
+        PrecompressedResponse first = cache.get("peak-time-180-180", json("{}"));
+        PrecompressedResponse second = cache.get("peak-time-180-180", json("{}"));
+
+        assertSame(first, second);
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void testGet_WithDifferentKeys_ComputesEach() {
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(1L);
+
+        byte[] first = cache.get("peak-time-180-180", json("{\"a\":1}")).identity();
+        byte[] second = cache.get("peak-time-90-15", json("{\"b\":2}")).identity();
+
+        assertEquals("{\"a\":1}", new String(first));
+        assertEquals("{\"b\":2}", new String(second));
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void testGet_WhenSnapshotVersionChanges_Recomputes() {
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(1L, 2L);
+
+        byte[] before = cache.get("peak-time-180-180", json("{\"v\":1}")).identity();
+        byte[] after = cache.get("peak-time-180-180", json("{\"v\":2}")).identity();
+
+        assertEquals("{\"v\":1}", new String(before));
+        assertEquals("{\"v\":2}", new String(after));
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void testGet_PastMaxEntries_ComputesWithoutKeeping() {
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(1L);
+        for (int i = 0; i < SnapshotResponseCache.MAX_ENTRIES; i++) {
+            cache.get("peak-times-" + i, json("{}"));
+        }
+
+        cache.get("peak-times-overflow", json("{}"));
+        cache.get("peak-times-overflow", json("{}"));
+        cache.get("peak-times-0", json("{}"));
+
+        assertEquals(SnapshotResponseCache.MAX_ENTRIES + 2, computations.get());
+    }
+
+    @Test
+    void testPeek_ReturnsOnlyResponsesKeptForTheCurrentSnapshot() {
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(1L, 1L, 1L, 1L, 2L);
+
+        assertNull(cache.peek("peak-time-180-180"));
+        PrecompressedResponse kept = cache.get("peak-time-180-180", json("{}"));
+
+        assertSame(kept, cache.peek("peak-time-180-180"));
+        assertNull(cache.peek("peak-time-90-15"));
+        assertNull(cache.peek("peak-time-180-180"));
+        assertEquals(1, computations.get());
+    }
+
+    private Supplier<byte[]> json(String json) {
+        return () -> {
+            computations.incrementAndGet();
+            return json.getBytes();
+        };
+    }
+}
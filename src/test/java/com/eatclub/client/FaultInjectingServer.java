@@ -0,0 +1,157 @@
+package com.eatclub.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Local upstream that misbehaves on demand. Serves a feed fixture (gzipped when the
+ * client accepts it), but each request first takes the next queued fault, if any:
+ * an error status, a delay before the headers, a dropped connection, or a body that
+ * stops halfway. Requests without a queued fault are answered normally.
+ */
+class FaultInjectingServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Queue<Fault> faults = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final byte[] body;
+
+    private volatile String lastAcceptEncoding;
+    private volatile boolean lastResponseGzipped;
+
+    private FaultInjectingServer(byte[] body) throws IOException {
+        this.body = body;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/feed.json", this::handle);
+        // Delayed requests mustn't hold up the next one
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    static FaultInjectingServer start(String fixture) throws IOException {
+        try (InputStream in = FaultInjectingServer.class.getResourceAsStream("/feeds/" + fixture)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No such fixture: " + fixture);
+            }
+            return new FaultInjectingServer(in.readAllBytes());
+        }
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/feed.json";
+    }
+
+    FaultInjectingServer thenStatus(int status) {
+        faults.add(new Fault(status, Duration.ZERO, false, false));
+        return this;
+    }
+
+    FaultInjectingServer thenDelay(Duration delay) {
+        faults.add(new Fault(200, delay, false, false));
+        return this;
+    }
+
+    FaultInjectingServer thenDropConnection() {
+        faults.add(new Fault(0, Duration.ZERO, true, false));
+        return this;
+    }
+
+    FaultInjectingServer thenStallHalfwayThroughBody() {
+        faults.add(new Fault(200, Duration.ZERO, false, true));
+        return this;
+    }
+
+    int getRequestCount() {
+        return requestCount.get();
+    }
+
+    String getLastAcceptEncoding() {
+        return lastAcceptEncoding;
+    }
+
+    boolean wasLastResponseGzipped() {
+        return lastResponseGzipped;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        lastAcceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        Fault fault = faults.poll();
+        if (fault == null) {
+            fault = new Fault(200, Duration.ZERO, false, false);
+        }
+
+        if (fault.dropConnection()) {
+            // Closing without a response drops the connection under the client
+            exchange.close();
+            return;
+        }
+        sleep(fault.delay());
+        if (fault.status() != 200) {
+            exchange.sendResponseHeaders(fault.status(), -1);
+            exchange.close();
+            return;
+        }
+
+        boolean gzip = lastAcceptEncoding != null && lastAcceptEncoding.contains("gzip");
+        byte[] responseBody = gzip ? gzip(body) : body;
+        lastResponseGzipped = gzip;
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, responseBody.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (fault.stallHalfway()) {
+                out.write(responseBody, 0, responseBody.length / 2);
+                out.flush();
+                sleep(Duration.ofSeconds(10));
+                return;
+            }
+            out.write(responseBody);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Fault(int status, Duration delay, boolean dropConnection, boolean stallHalfway) {
+    }
+}
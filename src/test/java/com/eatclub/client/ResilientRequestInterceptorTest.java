@@ -0,0 +1,118 @@
+package com.eatclub.client;
+
+import com.eatclub.metrics.RestaurantMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientRequestInterceptorTest {
+
+    private FaultInjectingServer server;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FaultInjectingServer.start("feed-v1.json");
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testIntercept_WithTransientServerErrors_RetriesUntilSuccess() {
+        server.thenStatus(503).thenStatus(502);
+
+        String body = restTemplate(3, 5).getForObject(server.url(), String.class);
+
+        assertTrue(body.contains("restaurants"));
+        assertEquals(3, server.getRequestCount());
+        assertEquals(1.0, registry.get(RestaurantMetrics.FEED_RETRIES).tag("cause", "503").counter().count());
+        assertEquals(1.0, registry.get(RestaurantMetrics.FEED_RETRIES).tag("cause", "502").counter().count());
+    }
+
+    @Test
+    void testIntercept_WithPersistentServerError_GivesUpAfterMaxAttempts() {
+        server.thenStatus(503).thenStatus(503).thenStatus(503).thenStatus(503);
+
+        HttpServerErrorException exception = assertThrows(HttpServerErrorException.class,
+                () -> restTemplate(3, 5).getForObject(server.url(), String.class));
+
+        assertEquals(503, exception.getStatusCode().value());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void testIntercept_WithTooManyRequests_Retries() {
+        server.thenStatus(429);
+
+        restTemplate(2, 5).getForObject(server.url(), String.class);
+
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void testIntercept_WithClientError_DoesNotRetry() {
+        server.thenStatus(404);
+
+        assertThrows(HttpClientErrorException.NotFound.class,
+                () -> restTemplate(3, 5).getForObject(server.url(), String.class));
+
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void testIntercept_WithDroppedConnections_RetriesUntilSuccess() {
+        // The JDK client itself resends a GET once when the connection closes before a response
+        server.thenDropConnection().thenDropConnection();
+
+        String body = restTemplate(3, 5).getForObject(server.url(), String.class);
+
+        assertTrue(body.contains("restaurants"));
+        assertEquals(3, server.getRequestCount());
+        assertEquals(1.0, registry.get(RestaurantMetrics.FEED_RETRIES).tag("cause", "io_error").counter().count());
+    }
+
+    @Test
+    void testIntercept_AfterRepeatedFailures_OpensCircuitAndFailsFast() {
+        server.thenStatus(500).thenStatus(500);
+        RestTemplate restTemplate = restTemplate(1, 2);
+
+        assertThrows(HttpServerErrorException.class, () -> restTemplate.getForObject(server.url(), String.class));
+        assertThrows(HttpServerErrorException.class, () -> restTemplate.getForObject(server.url(), String.class));
+        ResourceAccessException exception = assertThrows(ResourceAccessException.class,
+                () -> restTemplate.getForObject(server.url(), String.class));
+
+        assertInstanceOf(CircuitBreakerOpenException.class, exception.getCause());
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1.0, registry.get(RestaurantMetrics.FEED_REJECTIONS).counter().count());
+    }
+
+    @Test
+    void testIntercept_WhenRetryRecovers_CountsAsSuccessForCircuit() {
+        server.thenStatus(503);
+        RestTemplate restTemplate = restTemplate(2, 1);
+
+        restTemplate.getForObject(server.url(), String.class);
+        restTemplate.getForObject(server.url(), String.class);
+
+        assertEquals(3, server.getRequestCount());
+    }
+
+    private RestTemplate restTemplate(int maxAttempts, int failureThreshold) {
+        return UpstreamClients.restTemplate(new UpstreamClientSettings(Duration.ofSeconds(1), Duration.ofSeconds(5),
+                false, true, new RetryPolicy(maxAttempts, Duration.ofMillis(1), Duration.ofMillis(10)),
+                failureThreshold, Duration.ofMinutes(1)), new RestaurantMetrics(registry));
+    }
+}
@@ -0,0 +1,47 @@
+package com.eatclub.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatusCode;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private final RetryPolicy retryPolicy = new RetryPolicy(5, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+    @Test
+    void testBackoffCeiling_DoublesUpToMaxBackoff() {
+        assertEquals(Duration.ofMillis(100), retryPolicy.backoffCeiling(1));
+        assertEquals(Duration.ofMillis(200), retryPolicy.backoffCeiling(2));
+        assertEquals(Duration.ofMillis(800), retryPolicy.backoffCeiling(4));
+        assertEquals(Duration.ofSeconds(1), retryPolicy.backoffCeiling(5));
+        assertEquals(Duration.ofSeconds(1), retryPolicy.backoffCeiling(1_000));
+    }
+
+    @Test
+    void testBackoff_StaysWithinCeiling() {
+        for (int i = 0; i < 100; i++) {
+            Duration backoff = retryPolicy.backoff(3);
+            assertFalse(backoff.isNegative());
+            assertTrue(backoff.compareTo(Duration.ofMillis(400)) <= 0);
+        }
+    }
+
+    @Test
+    void testIsRetryable_ServerErrorsAndTooManyRequests() {
+        assertTrue(RetryPolicy.isRetryable(HttpStatusCode.valueOf(500)));
+        assertTrue(RetryPolicy.isRetryable(HttpStatusCode.valueOf(503)));
+        assertTrue(RetryPolicy.isRetryable(HttpStatusCode.valueOf(429)));
+        assertFalse(RetryPolicy.isRetryable(HttpStatusCode.valueOf(404)));
+        assertFalse(RetryPolicy.isRetryable(HttpStatusCode.valueOf(304)));
+    }
+
+    @Test
+    void testConstructor_WithInvalidSettings_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(0, Duration.ZERO, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RetryPolicy(3, Duration.ofSeconds(2), Duration.ofSeconds(1)));
+    }
+}
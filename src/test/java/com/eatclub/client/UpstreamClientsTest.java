@@ -0,0 +1,109 @@
+package com.eatclub.client;
+
+import com.eatclub.metrics.RestaurantMetrics;
+import com.eatclub.repository.InMemoryRestaurantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamClientsTest {
+
+    private FaultInjectingServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FaultInjectingServer.start("feed-v1.json");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testRestTemplate_WithCompression_AcceptsGzipAndInflatesBody() {
+        String body = restTemplate(true, Duration.ofSeconds(5), 3).getForObject(server.url(), String.class);
+
+        assertTrue(server.getLastAcceptEncoding().contains("gzip"));
+        assertTrue(server.wasLastResponseGzipped());
+        assertTrue(body.startsWith("{"));
+        assertTrue(body.contains("restaurants"));
+    }
+
+    @Test
+    void testRestTemplate_WithoutCompression_GetsPlainBody() {
+        String body = restTemplate(false, Duration.ofSeconds(5), 3).getForObject(server.url(), String.class);
+
+        assertFalse(server.wasLastResponseGzipped());
+        assertTrue(body.contains("restaurants"));
+    }
+
+    @Test
+    void testRestTemplate_WithSlowHeaders_TimesOut() {
+        server.thenDelay(Duration.ofSeconds(5));
+        long start = System.nanoTime();
+
+        assertThrows(ResourceAccessException.class,
+                () -> restTemplate(true, Duration.ofMillis(300), 1).getForObject(server.url(), String.class));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(3)) < 0);
+    }
+
+    @Test
+    void testRestTemplate_WithSlowHeadersOnce_RecoversOnRetry() {
+        server.thenDelay(Duration.ofSeconds(5));
+
+        String body = restTemplate(true, Duration.ofMillis(300), 2).getForObject(server.url(), String.class);
+
+        assertTrue(body.contains("restaurants"));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void testRestTemplate_WithBodyStalledHalfway_TimesOut() {
+        server.thenStallHalfwayThroughBody();
+        long start = System.nanoTime();
+
+        // The timeout hits while the body is read, after the exchange itself succeeded
+        assertThrows(RestClientException.class,
+                () -> restTemplate(false, Duration.ofMillis(500), 1).getForObject(server.url(), String.class));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(5)) < 0);
+    }
+
+    @Test
+    void testRefresh_ThroughUpstreamClient_LoadsGzippedFeedAfterTransientFailures() throws Exception {
+        server.thenStatus(503).thenDropConnection();
+        InMemoryRestaurantRepository repository = new InMemoryRestaurantRepository(
+                restTemplate(true, Duration.ofSeconds(5), 3), server.url());
+
+        assertTrue(repository.refresh());
+
+        assertTrue(server.wasLastResponseGzipped());
+        assertFalse(repository.findAllRestaurants().isEmpty());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void testRefresh_WithBodyStalledHalfway_FailsWithinTimeout() {
+        server.thenStallHalfwayThroughBody();
+        InMemoryRestaurantRepository repository = new InMemoryRestaurantRepository(
+                restTemplate(true, Duration.ofMillis(500), 1), server.url());
+
+        assertThrows(Exception.class, repository::refresh);
+        assertTrue(repository.findAllRestaurants().isEmpty());
+    }
+
+    private static RestTemplate restTemplate(boolean compression, Duration responseTimeout, int maxAttempts) {
+        return UpstreamClients.restTemplate(new UpstreamClientSettings(Duration.ofSeconds(1), responseTimeout, true,
+                compression, new RetryPolicy(maxAttempts, Duration.ofMillis(1), Duration.ofMillis(10)), 5, Duration.ofMinutes(1)),
+                RestaurantMetrics.noop());
+    }
+}
@@ -0,0 +1,88 @@
+package com.eatclub.common;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.MinuteRange;
+import com.eatclub.model.OpeningHours;
+import com.eatclub.model.Restaurant;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinuteRangesTest {
+
+    private final Restaurant dayRestaurant = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+            LocalTime.of(10, 0), LocalTime.of(22, 0));
+    private final Restaurant nightRestaurant = new Restaurant("r2", "Restaurant 2", "789 Pine St", "Town",
+            LocalTime.of(22, 0), LocalTime.of(2, 0));
+
+    @Test
+    void testOf_WithSameDayHours_ReturnsOneRange() {
+        assertEquals(List.of(new MinuteRange(600, 1320)), MinuteRanges.of(LocalTime.of(10, 0), LocalTime.of(22, 0)));
+    }
+
+    @Test
+    void testOf_WithOvernightHours_ReturnsRangesOnBothSidesOfMidnight() {
+        assertEquals(List.of(new MinuteRange(0, 120), new MinuteRange(1320, 1440)),
+                MinuteRanges.of(LocalTime.of(22, 0), LocalTime.of(2, 0)));
+    }
+
+    @Test
+    void testOf_WithOpenEqualToClose_ReturnsWholeDay() {
+        assertEquals(List.of(new MinuteRange(0, 1440)), MinuteRanges.of(LocalTime.of(9, 15), LocalTime.of(9, 15)));
+    }
+
+    @Test
+    void testWeeklyRanges_WithoutOpeningHours_RepeatsDailyHoursEveryDay() {
+        List<MinuteRange> ranges = MinuteRanges.weeklyRanges(nightRestaurant);
+
+        assertEquals(8, ranges.size());
+        assertTrue(ranges.contains(new MinuteRange(0, 120)));
+        assertTrue(ranges.contains(new MinuteRange(1320, 1440 + 120)));
+        assertTrue(ranges.contains(new MinuteRange(6 * 1440 + 1320, Constants.MINUTES_PER_WEEK - 1)));
+    }
+
+    @Test
+    void testWeeklyRanges_WithOpeningHours_PlacesEachIntervalOnItsDay() {
+        Restaurant restaurant = new Restaurant("r3", "Restaurant 3", "1 Elm St", "City", LocalTime.of(10, 0),
+                LocalTime.of(22, 0), List.of(), List.of(
+                        new OpeningHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0)),
+                        new OpeningHours(DayOfWeek.WEDNESDAY, LocalTime.of(17, 0), LocalTime.of(21, 30))));
+
+        assertEquals(List.of(new MinuteRange(660, 840), new MinuteRange(2 * 1440 + 1020, 2 * 1440 + 1290)),
+                MinuteRanges.weeklyRanges(restaurant));
+        assertEquals(2 * 1440 + 1020, MinuteRanges.minuteOfWeek(DayOfWeek.WEDNESDAY, LocalTime.of(17, 0, 45)));
+    }
+
+    @Test
+    void testLiveRanges_WithoutDealWindow_ReturnsRestaurantHours() {
+        Deal deal = new Deal("d1", "r2", 10.0f, true, false, 5);
+
+        assertEquals(MinuteRanges.of(LocalTime.of(22, 0), LocalTime.of(2, 0)), MinuteRanges.liveRanges(nightRestaurant, deal));
+    }
+
+    @Test
+    void testLiveRanges_WithDealWindow_IntersectsRestaurantHours() {
+        Deal deal = new Deal("d1", "r1", 10.0f, true, false, 5, LocalTime.of(8, 0), LocalTime.of(11, 0));
+
+        assertEquals(List.of(new MinuteRange(600, 660)), MinuteRanges.liveRanges(dayRestaurant, deal));
+    }
+
+    @Test
+    void testLiveRanges_WithDaytimeWindowAtNightRestaurant_ReturnsSortedPieces() {
+        Deal deal = new Deal("d1", "r2", 10.0f, true, false, 5, LocalTime.of(1, 0), LocalTime.of(23, 0));
+
+        assertEquals(List.of(new MinuteRange(60, 120), new MinuteRange(1320, 1380)),
+                MinuteRanges.liveRanges(nightRestaurant, deal));
+    }
+
+    @Test
+    void testLiveRanges_WithWindowOutsideRestaurantHours_ReturnsNoRanges() {
+        Deal deal = new Deal("d1", "r1", 10.0f, true, false, 5, LocalTime.of(23, 0), LocalTime.of(23, 30));
+
+        assertTrue(MinuteRanges.liveRanges(dayRestaurant, deal).isEmpty());
+    }
+}
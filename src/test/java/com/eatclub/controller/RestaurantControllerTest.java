@@ -1,13 +1,25 @@
 package com.eatclub.controller;
 
+import com.eatclub.cache.AvailableRestaurantsResponseCache;
+import com.eatclub.cache.PrecompressedResponse;
+import com.eatclub.cache.ResponseETags;
+import com.eatclub.cache.SnapshotResponseCache;
+import com.eatclub.common.Constants;
 import com.eatclub.mapper.IRestaurantMapper;
 import com.eatclub.model.Deal;
 import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealCursor;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealPage;
+import com.eatclub.model.DealSort;
 import com.eatclub.model.PeakTimeWindow;
 import com.eatclub.model.Restaurant;
-import com.eatclub.model.dtos.AvailableRestaurantsDTO;
+import com.eatclub.model.dtos.CompactAvailableRestaurantsDTO;
+import com.eatclub.model.dtos.DealDTO;
 import com.eatclub.model.dtos.ErrorDTO;
 import com.eatclub.model.dtos.PeakTimeDTO;
+import com.eatclub.model.dtos.PeakTimesDTO;
+import com.eatclub.repository.ILocalRepository;
 import com.eatclub.service.IRestaurantService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,16 +27,31 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
 import java.time.LocalTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
 class RestaurantControllerTest {
@@ -35,12 +62,22 @@ class RestaurantControllerTest {
     @Mock
     private IRestaurantMapper restaurantMapper;
 
+    @Mock
+    private AvailableRestaurantsResponseCache availableRestaurantsCache;
+
+    @Mock
+    private ILocalRepository restaurantRepository;
+
     @InjectMocks
     private RestaurantController restaurantController;
 
+    private ResponseETags responseETags;
+
     @BeforeEach
     void setUp() {
-        restaurantController = new RestaurantController(restaurantService, restaurantMapper);
+        responseETags = new ResponseETags(restaurantRepository);
+        restaurantController = new RestaurantController(restaurantService, restaurantMapper, availableRestaurantsCache,
+                new SnapshotResponseCache(restaurantRepository), responseETags, JsonMapper.builder().build());
     }
 
     @Test
@@ -54,24 +91,25 @@ class RestaurantControllerTest {
         DealAtRestaurant dealAtRestaurant = new DealAtRestaurant(restaurant, deal);
         List<DealAtRestaurant> dealAtRestaurants = Arrays.asList(dealAtRestaurant);
 
-        AvailableRestaurantsDTO expectedDTO = new AvailableRestaurantsDTO();
+        byte[] expectedJson = "{\"deals\":[]}".getBytes(StandardCharsets.UTF_8);
 
         when(restaurantService.getAvailableRestaurantDealsByTime(parsedTime)).thenReturn(dealAtRestaurants);
-        when(restaurantMapper.toAvailableRestaurantsDTO(dealAtRestaurants)).thenReturn(expectedDTO);
+        when(restaurantMapper.toAvailableRestaurantsJson(dealAtRestaurants)).thenReturn(expectedJson);
 
-        ResponseEntity<?> response = restaurantController.getAvailableRestaurants(timeOfDay);
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants(timeOfDay, null, new DealFilter(), null, null, null, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(expectedDTO, response.getBody());
+        assertSame(expectedJson, response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
         verify(restaurantService).getAvailableRestaurantDealsByTime(parsedTime);
-        verify(restaurantMapper).toAvailableRestaurantsDTO(dealAtRestaurants);
+        verify(restaurantMapper).toAvailableRestaurantsJson(dealAtRestaurants);
     }
 
     @Test
     void testGetAvailableRestaurants_WithInvalidTimeFormat_ReturnsBadRequest() {
         String timeOfDay = "invalid-time";
 
-        ResponseEntity<?> response = restaurantController.getAvailableRestaurants(timeOfDay);
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants(timeOfDay, null, new DealFilter(), null, null, null, null, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(response.getBody() instanceof ErrorDTO);
@@ -80,14 +118,14 @@ class RestaurantControllerTest {
         assertEquals("INVALID_TIME_FORMAT", error.getError());
         assertTrue(error.getMessage().contains("Invalid time format"));
         verify(restaurantService, never()).getAvailableRestaurantDealsByTime(any());
-        verify(restaurantMapper, never()).toAvailableRestaurantsDTO(any());
+        verify(restaurantMapper, never()).toAvailableRestaurantsJson(any());
     }
 
     @Test
     void testGetAvailableRestaurants_WithInvalidTimeFormat_EmptyString_ReturnsBadRequest() {
         String timeOfDay = "";
 
-        ResponseEntity<?> response = restaurantController.getAvailableRestaurants(timeOfDay);
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants(timeOfDay, null, new DealFilter(), null, null, null, null, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(response.getBody() instanceof ErrorDTO);
@@ -100,7 +138,7 @@ class RestaurantControllerTest {
     void testGetAvailableRestaurants_WithInvalidTimeFormat_WrongFormat_ReturnsBadRequest() {
         String timeOfDay = "2:30 PM";
 
-        ResponseEntity<?> response = restaurantController.getAvailableRestaurants(timeOfDay);
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants(timeOfDay, null, new DealFilter(), null, null, null, null, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(response.getBody() instanceof ErrorDTO);
@@ -109,6 +147,18 @@ class RestaurantControllerTest {
         verify(restaurantService, never()).getAvailableRestaurantDealsByTime(any());
     }
 
+    @Test
+    void testGetAvailableRestaurants_WithIllegalArgumentFromService_IsNotReportedAsPaginationError() {
+        DealFilter filter = new DealFilter("City", null, null, null, null, null);
+        when(restaurantService.getAvailableRestaurantDealsByTime(LocalTime.of(14, 30), filter))
+                .thenThrow(new IllegalArgumentException("Unexpected"));
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, filter, null, null, null, null, null);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals("INTERNAL_ERROR", ((ErrorDTO) response.getBody()).getError());
+    }
+
     @Test
     void testGetAvailableRestaurants_WithServiceException_ReturnsInternalServerError() {
         String timeOfDay = "14:30";
@@ -117,7 +167,7 @@ class RestaurantControllerTest {
         when(restaurantService.getAvailableRestaurantDealsByTime(parsedTime))
                 .thenThrow(new RuntimeException("Database connection failed"));
 
-        ResponseEntity<?> response = restaurantController.getAvailableRestaurants(timeOfDay);
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants(timeOfDay, null, new DealFilter(), null, null, null, null, null);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertTrue(response.getBody() instanceof ErrorDTO);
@@ -126,7 +176,7 @@ class RestaurantControllerTest {
         assertEquals("INTERNAL_ERROR", error.getError());
         assertTrue(error.getMessage().contains("An unexpected error occurred"));
         verify(restaurantService).getAvailableRestaurantDealsByTime(parsedTime);
-        verify(restaurantMapper, never()).toAvailableRestaurantsDTO(any());
+        verify(restaurantMapper, never()).toAvailableRestaurantsJson(any());
     }
 
     @Test
@@ -135,17 +185,564 @@ class RestaurantControllerTest {
         LocalTime parsedTime = LocalTime.of(2, 0);
 
         List<DealAtRestaurant> emptyList = Arrays.asList();
-        AvailableRestaurantsDTO expectedDTO = new AvailableRestaurantsDTO();
+        byte[] expectedJson = "{\"deals\":[]}".getBytes(StandardCharsets.UTF_8);
 
         when(restaurantService.getAvailableRestaurantDealsByTime(parsedTime)).thenReturn(emptyList);
-        when(restaurantMapper.toAvailableRestaurantsDTO(emptyList)).thenReturn(expectedDTO);
+        when(restaurantMapper.toAvailableRestaurantsJson(emptyList)).thenReturn(expectedJson);
 
-        ResponseEntity<?> response = restaurantController.getAvailableRestaurants(timeOfDay);
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants(timeOfDay, null, new DealFilter(), null, null, null, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(expectedDTO, response.getBody());
+        assertSame(expectedJson, response.getBody());
         verify(restaurantService).getAvailableRestaurantDealsByTime(parsedTime);
-        verify(restaurantMapper).toAvailableRestaurantsDTO(emptyList);
+        verify(restaurantMapper).toAvailableRestaurantsJson(emptyList);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithCachedResponse_ReturnsCachedJson() {
+        LocalTime parsedTime = LocalTime.of(14, 30);
+        byte[] cachedJson = "{\"deals\":[]}".getBytes();
+
+        when(availableRestaurantsCache.getAvailableRestaurantsResponse(parsedTime)).thenReturn(new PrecompressedResponse(cachedJson));
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, null, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertSame(cachedJson, response.getBody());
+        verifyNoInteractions(restaurantService, restaurantMapper);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithCachedResponseAndGzipAccepted_ReturnsGzipVariant() throws Exception {
+        byte[] cachedJson = ("{\"deals\":[" + "{\"objectId\":\"d1\"},".repeat(100) + "{}]}").getBytes(StandardCharsets.UTF_8);
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(3L);
+        when(availableRestaurantsCache.getAvailableRestaurantsResponse(LocalTime.of(14, 30)))
+                .thenReturn(new PrecompressedResponse(cachedJson));
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, null, null, null,
+                "gzip, deflate, br");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals(ResponseETags.forContentEncoding(responseETags.eTagFor("available-14:30"), "gzip"),
+                response.getHeaders().getETag());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream((byte[]) response.getBody()))) {
+            assertArrayEquals(cachedJson, gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithCachedResponseAndNoAcceptEncoding_ReturnsIdentity() {
+        byte[] cachedJson = ("{\"deals\":[" + "{\"objectId\":\"d1\"},".repeat(100) + "{}]}").getBytes(StandardCharsets.UTF_8);
+        when(availableRestaurantsCache.getAvailableRestaurantsResponse(LocalTime.of(14, 30)))
+                .thenReturn(new PrecompressedResponse(cachedJson));
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, null, null, null, null);
+
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertSame(cachedJson, response.getBody());
+    }
+
+    @Test
+    void testGetAvailableRestaurants_VariesByAcceptAndAcceptEncoding() {
+        when(availableRestaurantsCache.getAvailableRestaurantsResponse(LocalTime.of(14, 30)))
+                .thenReturn(new PrecompressedResponse("{}".getBytes()));
+        String eTag = responseETags.eTagFor("available-14:30");
+
+        ResponseEntity<?> ok = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, null, null, null, "gzip");
+        ResponseEntity<?> notModified = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, null, null,
+                eTag, "gzip");
+
+        assertEquals(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING), ok.getHeaders().getVary());
+        assertEquals(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING), notModified.getHeaders().getVary());
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithGzipVariantETag_ReturnsNotModifiedWithGzipVariantETag() {
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(3L);
+        when(availableRestaurantsCache.getAvailableRestaurantsResponse(LocalTime.of(14, 30)))
+                .thenReturn(new PrecompressedResponse(largeJson()));
+        String gzipETag = ResponseETags.forContentEncoding(responseETags.eTagFor("available-14:30"), "gzip");
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, null, null,
+                gzipETag, "gzip");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(gzipETag, response.getHeaders().getETag());
+        verifyNoInteractions(restaurantService, restaurantMapper);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithBaseETagAndGzip_ReturnsNotModifiedWithTheTagAnOkWouldHave() {
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(3L);
+        when(availableRestaurantsCache.getAvailableRestaurantsResponse(LocalTime.of(14, 30)))
+                .thenReturn(new PrecompressedResponse(largeJson()));
+        String eTag = responseETags.eTagFor("available-14:30");
+
+        ResponseEntity<?> ok = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, null, null, null, "gzip");
+        ResponseEntity<?> notModified = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, null, null,
+                eTag, "gzip");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertEquals(ResponseETags.forContentEncoding(eTag, "gzip"), notModified.getHeaders().getETag());
+        assertEquals(ok.getHeaders().getETag(), notModified.getHeaders().getETag());
+    }
+
+    @Test
+    void testGetAvailableRestaurants_ReturnsETagAndNoCache() {
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(3L);
+        when(availableRestaurantsCache.getAvailableRestaurantsResponse(LocalTime.of(14, 30)))
+                .thenReturn(new PrecompressedResponse("{}".getBytes()));
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, null, null, null, null);
+
+        assertEquals(responseETags.eTagFor("available-14:30"), response.getHeaders().getETag());
+        assertEquals("no-cache", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithMatchingIfNoneMatch_ReturnsNotModifiedWithoutWork() {
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(3L);
+        String eTag = responseETags.eTagFor("available-14:30");
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, null, null, eTag, null);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(eTag, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        verifyNoInteractions(restaurantService, restaurantMapper);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithETagFromPreviousSnapshot_ReturnsOk() {
+        when(restaurantRepository.getSnapshotVersion()).thenReturn(3L, 4L);
+        String previousETag = responseETags.eTagFor("available-14:30");
+        when(availableRestaurantsCache.getAvailableRestaurantsResponse(LocalTime.of(14, 30)))
+                .thenReturn(new PrecompressedResponse("{}".getBytes()));
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, null, null, previousETag, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(previousETag, response.getHeaders().getETag());
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithETagForOtherTime_ReturnsOk() {
+        String otherETag = responseETags.eTagFor("available-14:31");
+        when(availableRestaurantsCache.getAvailableRestaurantsResponse(LocalTime.of(14, 30)))
+                .thenReturn(new PrecompressedResponse("{}".getBytes()));
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, null, null, otherETag, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithFilter_QueriesIndexesAndSkipsCache() {
+        LocalTime parsedTime = LocalTime.of(14, 30);
+        DealFilter filter = new DealFilter("Richmond", null, true, null, null, null);
+        List<DealAtRestaurant> filteredDeals = List.of();
+        byte[] expectedJson = "{\"deals\":[]}".getBytes(StandardCharsets.UTF_8);
+
+        when(restaurantService.getAvailableRestaurantDealsByTime(parsedTime, filter)).thenReturn(filteredDeals);
+        when(restaurantMapper.toAvailableRestaurantsJson(filteredDeals)).thenReturn(expectedJson);
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, filter, null, null, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(expectedJson, response.getBody());
+        assertEquals(responseETags.eTagFor("available-14:30" + filter.toQueryKey()), response.getHeaders().getETag());
+        verifyNoInteractions(availableRestaurantsCache);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithBlankFilter_ReturnsBadRequest() {
+        DealFilter filter = new DealFilter(" ", null, null, null, null, null);
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, filter, null, null, null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("INVALID_FILTER_PARAMETERS", ((ErrorDTO) response.getBody()).getError());
+        verifyNoInteractions(restaurantService, availableRestaurantsCache);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithFilterAndLimit_PassesFilterToPagedQuery() {
+        LocalTime parsedTime = LocalTime.of(14, 30);
+        DealFilter filter = new DealFilter(null, "Thai", null, null, null, null);
+        DealPage page = new DealPage(5L, List.of(), -1);
+
+        when(restaurantService.getAvailableRestaurantDealsPage(parsedTime, filter, 0, 5)).thenReturn(page);
+        when(restaurantMapper.toAvailableRestaurantsPageJson(page, null)).thenReturn(new byte[0]);
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, filter, 5, null, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(responseETags.eTagFor("available-14:30-cuisine=thai-0-5"), response.getHeaders().getETag());
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithSort_ReturnsTopDeals() {
+        LocalTime parsedTime = LocalTime.of(14, 30);
+        DealFilter filter = new DealFilter(null, null, true, null, null, null);
+        List<DealAtRestaurant> topDeals = List.of();
+        byte[] expectedJson = "{\"deals\":[]}".getBytes(StandardCharsets.UTF_8);
+
+        when(restaurantService.getTopAvailableRestaurantDeals(parsedTime, filter, DealSort.DISCOUNT, 3)).thenReturn(topDeals);
+        when(restaurantMapper.toAvailableRestaurantsJson(topDeals)).thenReturn(expectedJson);
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, filter, 3, null, "discount", null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(expectedJson, response.getBody());
+        assertEquals(responseETags.eTagFor("available-14:30-dineIn=true-top-discount-3"), response.getHeaders().getETag());
+        verifyNoInteractions(availableRestaurantsCache);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithSortAndNoLimit_UsesDefaultLimit() {
+        LocalTime parsedTime = LocalTime.of(14, 30);
+        DealFilter filter = new DealFilter();
+
+        when(restaurantService.getTopAvailableRestaurantDeals(parsedTime, filter, DealSort.QTY_LEFT,
+                Constants.AVAILABLE_DEFAULT_PAGE_LIMIT)).thenReturn(List.of());
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, filter, null, null, "qtyLeft", null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(restaurantService).getTopAvailableRestaurantDeals(parsedTime, filter, DealSort.QTY_LEFT,
+                Constants.AVAILABLE_DEFAULT_PAGE_LIMIT);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithSortAndMatchingETag_ReturnsNotModified() {
+        String eTag = responseETags.eTagFor("available-14:30-top-discount-10");
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), 10, null, "discount", eTag, null);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verifyNoInteractions(restaurantService, restaurantMapper);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithUnknownSort_ReturnsBadRequest() {
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), 10, null, "name", null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("INVALID_SORT_PARAMETER", ((ErrorDTO) response.getBody()).getError());
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithDay_QueriesThatDaysHours() {
+        Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+                LocalTime.of(10, 0), LocalTime.of(22, 0));
+        List<DealAtRestaurant> deals = List.of(new DealAtRestaurant(restaurant, new Deal("d1", "r1", 10.0f, true, false, 5)));
+        byte[] expectedJson = "{\"deals\":[]}".getBytes(StandardCharsets.UTF_8);
+        DealFilter filter = new DealFilter();
+        when(restaurantService.getAvailableRestaurantDealsByDayAndTime(DayOfWeek.SATURDAY, LocalTime.of(14, 30), filter))
+                .thenReturn(deals);
+        when(restaurantMapper.toAvailableRestaurantsJson(deals)).thenReturn(expectedJson);
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", "Sat", filter, null, null, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(expectedJson, response.getBody());
+        assertTrue(response.getHeaders().getETag().contains("saturday-"));
+        verify(restaurantService, never()).getAvailableRestaurantDealsByTime(any(LocalTime.class), any(DealFilter.class));
+        verifyNoInteractions(availableRestaurantsCache);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithInvalidDay_ReturnsBadRequest() {
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", "funday", new DealFilter(), null, null, null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("INVALID_DAY_PARAMETER", ((ErrorDTO) response.getBody()).getError());
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithDayAndLimit_ReturnsBadRequest() {
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", "monday", new DealFilter(), 10, null, null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("INVALID_DAY_PARAMETER", ((ErrorDTO) response.getBody()).getError());
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithSortAndCursor_ReturnsBadRequest() {
+        String cursor = new DealCursor(5L, 870, 7).encode();
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), 10, cursor, "discount", null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("INVALID_SORT_PARAMETER", ((ErrorDTO) response.getBody()).getError());
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithSortAndLimitAboveMax_ReturnsBadRequest() {
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(),
+                Constants.AVAILABLE_MAX_PAGE_LIMIT + 1, null, "discount", null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("INVALID_PAGINATION_PARAMETERS", ((ErrorDTO) response.getBody()).getError());
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void testGetAvailableRestaurantsCbor_ReturnsCompactDTOWithoutCache() {
+        LocalTime parsedTime = LocalTime.of(14, 30);
+        List<DealAtRestaurant> deals = List.of();
+        CompactAvailableRestaurantsDTO expectedDTO = new CompactAvailableRestaurantsDTO(List.of(), List.of(), null);
+
+        when(restaurantService.getAvailableRestaurantDealsByTime(parsedTime)).thenReturn(deals);
+        when(restaurantMapper.toCompactAvailableRestaurantsDTO(deals, null)).thenReturn(expectedDTO);
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurantsCbor("14:30", null, new DealFilter(), null, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_CBOR, response.getHeaders().getContentType());
+        assertSame(expectedDTO, response.getBody());
+        assertEquals(responseETags.eTagFor("available-14:30-cbor"), response.getHeaders().getETag());
+        verifyNoInteractions(availableRestaurantsCache);
+    }
+
+    @Test
+    void testGetAvailableRestaurantsCbor_WithLimit_ReturnsCompactPageWithNextCursor() {
+        LocalTime parsedTime = LocalTime.of(14, 30);
+        DealPage page = new DealPage(5L, List.of(), 7);
+        String nextCursor = new DealCursor(5L, 870, 7).encode();
+        CompactAvailableRestaurantsDTO expectedDTO = new CompactAvailableRestaurantsDTO(List.of(), List.of(), nextCursor);
+
+        when(restaurantService.getAvailableRestaurantDealsPage(parsedTime, new DealFilter(), 0, 2)).thenReturn(page);
+        when(restaurantMapper.toCompactAvailableRestaurantsDTO(page.getDeals(), nextCursor)).thenReturn(expectedDTO);
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurantsCbor("14:30", null, new DealFilter(), 2, null, null, null);
+
+        assertSame(expectedDTO, response.getBody());
+        assertEquals(responseETags.eTagFor("available-14:30-0-2-cbor"), response.getHeaders().getETag());
+        verify(restaurantMapper, never()).toAvailableRestaurantsPageJson(any(), any());
+    }
+
+    @Test
+    void testGetAvailableRestaurantsCbor_WithSortAndFilter_ReturnsCompactTopDeals() {
+        LocalTime parsedTime = LocalTime.of(14, 30);
+        DealFilter filter = new DealFilter(null, null, true, null, null, null);
+        List<DealAtRestaurant> topDeals = List.of();
+        CompactAvailableRestaurantsDTO expectedDTO = new CompactAvailableRestaurantsDTO(List.of(), List.of(), null);
+
+        when(restaurantService.getTopAvailableRestaurantDeals(parsedTime, filter, DealSort.DISCOUNT, 3)).thenReturn(topDeals);
+        when(restaurantMapper.toCompactAvailableRestaurantsDTO(topDeals, null)).thenReturn(expectedDTO);
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurantsCbor("14:30", null, filter, 3, null, "discount", null);
+
+        assertSame(expectedDTO, response.getBody());
+        assertEquals(responseETags.eTagFor("available-14:30-dineIn=true-top-discount-3-cbor"), response.getHeaders().getETag());
+    }
+
+    @Test
+    void testGetAvailableRestaurantsCbor_WithJsonETag_ReturnsOk() {
+        String jsonETag = responseETags.eTagFor("available-14:30");
+        when(restaurantService.getAvailableRestaurantDealsByTime(LocalTime.of(14, 30))).thenReturn(List.of());
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurantsCbor("14:30", null, new DealFilter(), null, null, null,
+                jsonETag);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void testGetAvailableRestaurantsCbor_WithBlankFilter_ReturnsJsonBadRequest() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(restaurantController).build();
+
+        mockMvc.perform(get("/restaurants/available").param("timeOfDay", "14:30").param("suburb", " ")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.error").value("INVALID_FILTER_PARAMETERS"));
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void testGetAvailableRestaurantsNdjson_WithBlankFilter_ReturnsJsonBadRequest() throws Exception {
+        DealFilter filter = new DealFilter(null, " ", null, null, null, null);
+
+        ResponseEntity<StreamingResponseBody> response = restaurantController.getAvailableRestaurantsNdjson("14:30", null, filter, null, null, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("\"error\":\"INVALID_FILTER_PARAMETERS\""));
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void testGetAvailableRestaurantsNdjson_WithIllegalArgumentAfterValidation_ReturnsInternalServerError() throws Exception {
+        when(restaurantRepository.getSnapshotVersion()).thenThrow(new IllegalArgumentException("Unexpected"));
+
+        ResponseEntity<StreamingResponseBody> response = restaurantController.getAvailableRestaurantsNdjson("14:30", null,
+                new DealFilter(), null, null, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("\"error\":\"INTERNAL_ERROR\""));
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithLimit_ReturnsFirstPageWithNextCursor() {
+        LocalTime parsedTime = LocalTime.of(14, 30);
+        DealPage page = new DealPage(5L, List.of(), 7);
+        byte[] expectedJson = "{\"deals\":[],\"nextCursor\":null}".getBytes(StandardCharsets.UTF_8);
+        String nextCursor = new DealCursor(5L, 870, 7).encode();
+
+        when(restaurantService.getAvailableRestaurantDealsPage(parsedTime, new DealFilter(), 0, 2)).thenReturn(page);
+        when(restaurantMapper.toAvailableRestaurantsPageJson(page, nextCursor)).thenReturn(expectedJson);
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), 2, null, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(expectedJson, response.getBody());
+        verifyNoInteractions(availableRestaurantsCache);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithCursor_ResumesFromCursorWithDefaultLimit() {
+        LocalTime parsedTime = LocalTime.of(14, 30);
+        DealPage lastPage = new DealPage(5L, List.of(), -1);
+        String cursor = new DealCursor(5L, 870, 7).encode();
+
+        when(restaurantService.getAvailableRestaurantDealsPage(parsedTime, new DealFilter(), 7, Constants.AVAILABLE_DEFAULT_PAGE_LIMIT))
+                .thenReturn(lastPage);
+        when(restaurantMapper.toAvailableRestaurantsPageJson(lastPage, null)).thenReturn(new byte[0]);
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, cursor, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(restaurantMapper).toAvailableRestaurantsPageJson(lastPage, null);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithCursorFromOlderSnapshot_ReturnsGone() {
+        LocalTime parsedTime = LocalTime.of(14, 30);
+        String cursor = new DealCursor(4L, 870, 7).encode();
+
+        when(restaurantService.getAvailableRestaurantDealsPage(parsedTime, new DealFilter(), 7, 10)).thenReturn(new DealPage(5L, List.of(), -1));
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), 10, cursor, null, null, null);
+
+        assertEquals(HttpStatus.GONE, response.getStatusCode());
+        assertEquals("CURSOR_EXPIRED", ((ErrorDTO) response.getBody()).getError());
+        verifyNoInteractions(restaurantMapper);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithCursorForOtherTime_ReturnsBadRequest() {
+        String cursor = new DealCursor(5L, 871, 7).encode();
+
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, cursor, null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("INVALID_PAGINATION_PARAMETERS", ((ErrorDTO) response.getBody()).getError());
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithMalformedCursor_ReturnsBadRequest() {
+        ResponseEntity<?> response = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), null, "not-a-cursor!", null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("INVALID_PAGINATION_PARAMETERS", ((ErrorDTO) response.getBody()).getError());
+    }
+
+    @Test
+    void testGetAvailableRestaurants_WithLimitOutOfRange_ReturnsBadRequest() {
+        ResponseEntity<?> zeroLimit = restaurantController.getAvailableRestaurants("14:30", null, new DealFilter(), 0, null, null, null, null);
+        ResponseEntity<?> hugeLimit = restaurantController.getAvailableRestaurants("14:30", null,
+                new DealFilter(), Constants.AVAILABLE_MAX_PAGE_LIMIT + 1, null, null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, zeroLimit.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, hugeLimit.getStatusCode());
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void testGetAvailableRestaurantsNdjson_WritesOneDealPerLine() throws Exception {
+        LocalTime parsedTime = LocalTime.of(14, 30);
+        Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+                LocalTime.of(10, 0), LocalTime.of(22, 0));
+        DealAtRestaurant first = new DealAtRestaurant(restaurant, new Deal("d1", "r1", 10.0f, true, false, 5));
+        DealAtRestaurant second = new DealAtRestaurant(restaurant, new Deal("d2", "r1", 20.0f, true, false, 5));
+        DealDTO firstDTO = new DealDTO();
+        firstDTO.setObjectId("d1");
+        DealDTO secondDTO = new DealDTO();
+        secondDTO.setObjectId("d2");
+
+        doAnswer(invocation -> {
+            Consumer<DealAtRestaurant> action = invocation.getArgument(2);
+            action.accept(first);
+            action.accept(second);
+            return null;
+        }).when(restaurantService).forEachAvailableRestaurantDeal(eq(parsedTime), eq(new DealFilter()), any());
+        when(restaurantMapper.toDealDTO(first)).thenReturn(firstDTO);
+        when(restaurantMapper.toDealDTO(second)).thenReturn(secondDTO);
+
+        ResponseEntity<StreamingResponseBody> response = restaurantController.getAvailableRestaurantsNdjson("14:30", null, new DealFilter(), null, null, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"objectId\":\"d1\""));
+        assertTrue(lines[1].contains("\"objectId\":\"d2\""));
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("\n"));
+    }
+
+    @Test
+    void testGetAvailableRestaurantsNdjson_WithLimitOrSort_ReturnsJsonBadRequest() throws Exception {
+        ResponseEntity<StreamingResponseBody> paged = restaurantController.getAvailableRestaurantsNdjson("14:30", null, new DealFilter(), 10, null, null, null);
+        ResponseEntity<StreamingResponseBody> sorted = restaurantController.getAvailableRestaurantsNdjson("14:30", null, new DealFilter(), null, null, "discount", null);
+        ByteArrayOutputStream pagedOut = new ByteArrayOutputStream();
+        paged.getBody().writeTo(pagedOut);
+        ByteArrayOutputStream sortedOut = new ByteArrayOutputStream();
+        sorted.getBody().writeTo(sortedOut);
+
+        assertEquals(HttpStatus.BAD_REQUEST, paged.getStatusCode());
+        assertTrue(pagedOut.toString(StandardCharsets.UTF_8).contains("\"error\":\"INVALID_PAGINATION_PARAMETERS\""));
+        assertEquals(HttpStatus.BAD_REQUEST, sorted.getStatusCode());
+        assertTrue(sortedOut.toString(StandardCharsets.UTF_8).contains("\"error\":\"INVALID_SORT_PARAMETER\""));
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void testGetAvailableRestaurantsNdjson_WithInvalidTime_ReturnsJsonBadRequest() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = restaurantController.getAvailableRestaurantsNdjson("25:00", null, new DealFilter(), null, null, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("\"error\":\"INVALID_TIME_FORMAT\""));
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void testGetAvailableRestaurantsNdjson_WithMatchingIfNoneMatch_ReturnsNotModifiedWithoutWork() {
+        String eTag = responseETags.eTagFor("available-14:30-ndjson");
+
+        ResponseEntity<StreamingResponseBody> response = restaurantController.getAvailableRestaurantsNdjson("14:30", null, new DealFilter(), null, null, null, eTag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verifyNoInteractions(restaurantService, restaurantMapper);
     }
 
     @Test
@@ -155,17 +752,31 @@ class RestaurantControllerTest {
                 LocalTime.of(15, 0));
         PeakTimeDTO expectedDTO = new PeakTimeDTO("12:00PM", "3:00PM");
 
-        when(restaurantService.getPeakTimeWindow()).thenReturn(peakTimeWindow);
+        when(restaurantService.getPeakTimeWindow(180, 180)).thenReturn(peakTimeWindow);
         when(restaurantMapper.toPeakTimeDTO(peakTimeWindow)).thenReturn(expectedDTO);
 
-        ResponseEntity<PeakTimeDTO> response = restaurantController.getPeakTimeWindow();
+        ResponseEntity<?> response = restaurantController.getPeakTimeWindow(null, null, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(expectedDTO, response.getBody());
-        verify(restaurantService).getPeakTimeWindow();
+        assertArrayEquals(json(expectedDTO), (byte[]) response.getBody());
+        verify(restaurantService).getPeakTimeWindow(180, 180);
         verify(restaurantMapper).toPeakTimeDTO(peakTimeWindow);
     }
 
+    @Test
+    void testGetPeakTimeWindow_SecondRequestOnSameSnapshot_ReusesResponse() {
+        PeakTimeWindow peakTimeWindow = new PeakTimeWindow(LocalTime.of(12, 0), LocalTime.of(15, 0));
+        when(restaurantService.getPeakTimeWindow(180, 180)).thenReturn(peakTimeWindow);
+        when(restaurantMapper.toPeakTimeDTO(peakTimeWindow)).thenReturn(new PeakTimeDTO("12:00PM", "3:00PM"));
+
+        ResponseEntity<?> first = restaurantController.getPeakTimeWindow(null, null, null, null);
+        ResponseEntity<?> second = restaurantController.getPeakTimeWindow(null, null, null, "gzip");
+
+        assertSame(first.getBody(), second.getBody());
+        assertNull(second.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        verify(restaurantService, times(1)).getPeakTimeWindow(180, 180);
+    }
+
     @Test
     void testGetPeakTimeWindow_WithMinMaxTimes_ReturnsOk() {
         PeakTimeWindow peakTimeWindow = new PeakTimeWindow(
@@ -173,14 +784,136 @@ class RestaurantControllerTest {
                 LocalTime.MAX);
         PeakTimeDTO expectedDTO = new PeakTimeDTO("12:00AM", "11:59PM");
 
-        when(restaurantService.getPeakTimeWindow()).thenReturn(peakTimeWindow);
+        when(restaurantService.getPeakTimeWindow(180, 180)).thenReturn(peakTimeWindow);
         when(restaurantMapper.toPeakTimeDTO(peakTimeWindow)).thenReturn(expectedDTO);
 
-        ResponseEntity<PeakTimeDTO> response = restaurantController.getPeakTimeWindow();
+        ResponseEntity<?> response = restaurantController.getPeakTimeWindow(null, null, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(expectedDTO, response.getBody());
-        verify(restaurantService).getPeakTimeWindow();
+        assertArrayEquals(json(expectedDTO), (byte[]) response.getBody());
+        verify(restaurantService).getPeakTimeWindow(180, 180);
         verify(restaurantMapper).toPeakTimeDTO(peakTimeWindow);
     }
+
+    @Test
+    void testGetPeakTimeWindow_WithWindowAndStep_PassesParametersToService() {
+        PeakTimeWindow peakTimeWindow = new PeakTimeWindow(
+                LocalTime.of(12, 15),
+                LocalTime.of(13, 45));
+        PeakTimeDTO expectedDTO = new PeakTimeDTO("12:15PM", "1:45PM");
+
+        when(restaurantService.getPeakTimeWindow(90, 15)).thenReturn(peakTimeWindow);
+        when(restaurantMapper.toPeakTimeDTO(peakTimeWindow)).thenReturn(expectedDTO);
+
+        ResponseEntity<?> response = restaurantController.getPeakTimeWindow(90, 15, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(json(expectedDTO), (byte[]) response.getBody());
+    }
+
+    @Test
+    void testGetPeakTimeWindow_WithMatchingIfNoneMatch_ReturnsNotModifiedWithoutWork() {
+        String eTag = responseETags.eTagFor("peak-time-180-180");
+
+        ResponseEntity<?> response = restaurantController.getPeakTimeWindow(null, null, "W/" + eTag, "gzip");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(eTag, response.getHeaders().getETag());
+        verifyNoInteractions(restaurantService, restaurantMapper);
+    }
+
+    @Test
+    void testGetPeakTimeWindow_WithMatchingIfNoneMatchAfterOk_ReturnsNotModifiedWithTheOkTag() {
+        PeakTimeWindow peakTimeWindow = new PeakTimeWindow(LocalTime.of(12, 0), LocalTime.of(15, 0));
+        when(restaurantService.getPeakTimeWindow(180, 180)).thenReturn(peakTimeWindow);
+        when(restaurantMapper.toPeakTimeDTO(peakTimeWindow)).thenReturn(new PeakTimeDTO("12:00PM", "3:00PM"));
+        String eTag = responseETags.eTagFor("peak-time-180-180");
+
+        ResponseEntity<?> ok = restaurantController.getPeakTimeWindow(null, null, null, "gzip");
+        ResponseEntity<?> response = restaurantController.getPeakTimeWindow(null, null, "W/" + eTag, "gzip");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(ok.getHeaders().getETag(), response.getHeaders().getETag());
+        verify(restaurantService, times(1)).getPeakTimeWindow(180, 180);
+        verify(restaurantMapper, times(1)).toPeakTimeDTO(peakTimeWindow);
+    }
+
+    @Test
+    void testGetPeakTimeWindow_WithETagForOtherParameters_ReturnsOk() {
+        PeakTimeWindow peakTimeWindow = new PeakTimeWindow(LocalTime.of(12, 15), LocalTime.of(13, 45));
+        when(restaurantService.getPeakTimeWindow(90, 15)).thenReturn(peakTimeWindow);
+        when(restaurantMapper.toPeakTimeDTO(peakTimeWindow)).thenReturn(new PeakTimeDTO("12:15PM", "1:45PM"));
+
+        ResponseEntity<?> response = restaurantController.getPeakTimeWindow(90, 15, responseETags.eTagFor("peak-time-180-180"), null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(responseETags.eTagFor("peak-time-90-15"), response.getHeaders().getETag());
+    }
+
+    @Test
+    void testGetPeakTimeWindow_WithInvalidWindow_ReturnsBadRequest() {
+        when(restaurantService.getPeakTimeWindow(0, 180))
+                .thenThrow(new IllegalArgumentException("Window length must be between 1 and 1440 minutes, got 0"));
+
+        ResponseEntity<?> response = restaurantController.getPeakTimeWindow(0, null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody() instanceof ErrorDTO);
+        assertEquals("INVALID_PEAK_TIME_PARAMETERS", ((ErrorDTO) response.getBody()).getError());
+        verify(restaurantMapper, never()).toPeakTimeDTO(any());
+    }
+
+    @Test
+    void testGetPeakTimeWindows_WithDefaults_ReturnsOk() {
+        List<PeakTimeWindow> peakTimeWindows = Arrays.asList(
+                new PeakTimeWindow(LocalTime.of(12, 0), LocalTime.of(15, 0)),
+                new PeakTimeWindow(LocalTime.of(18, 0), LocalTime.of(21, 0)));
+        PeakTimesDTO expectedDTO = new PeakTimesDTO(Arrays.asList(
+                new PeakTimeDTO("12:00PM", "3:00PM"),
+                new PeakTimeDTO("6:00PM", "9:00PM")));
+
+        when(restaurantService.getPeakTimeWindows(180, 180, 3)).thenReturn(peakTimeWindows);
+        when(restaurantMapper.toPeakTimesDTO(peakTimeWindows)).thenReturn(expectedDTO);
+
+        ResponseEntity<?> response = restaurantController.getPeakTimeWindows(null, null, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(json(expectedDTO), (byte[]) response.getBody());
+    }
+
+    @Test
+    void testGetPeakTimeWindows_WithGzipVariantETagOnCacheMiss_ReturnsNotModifiedWithoutWork() {
+        String gzipETag = ResponseETags.forContentEncoding(responseETags.eTagFor("peak-times-180-180-3"), "gzip");
+
+        ResponseEntity<?> response = restaurantController.getPeakTimeWindows(null, null, null, gzipETag, "gzip");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(gzipETag, response.getHeaders().getETag());
+        verifyNoInteractions(restaurantService, restaurantMapper);
+    }
+
+    @Test
+    void testGetPeakTimeWindows_WithMatchingIfNoneMatch_ReturnsNotModifiedWithGzipVariantETag() {
+        List<PeakTimeWindow> peakTimeWindows = List.of(new PeakTimeWindow(LocalTime.of(12, 0), LocalTime.of(15, 0)));
+        List<PeakTimeDTO> peakTimes = Collections.nCopies(20, new PeakTimeDTO("12:00PM", "3:00PM"));
+        when(restaurantService.getPeakTimeWindows(180, 180, 3)).thenReturn(peakTimeWindows);
+        when(restaurantMapper.toPeakTimesDTO(peakTimeWindows)).thenReturn(new PeakTimesDTO(peakTimes));
+        String eTag = responseETags.eTagFor("peak-times-180-180-3");
+
+        ResponseEntity<?> ok = restaurantController.getPeakTimeWindows(null, null, null, null, "gzip");
+        ResponseEntity<?> response = restaurantController.getPeakTimeWindows(null, null, null, eTag, "gzip");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(ResponseETags.forContentEncoding(eTag, "gzip"), response.getHeaders().getETag());
+        assertEquals(ok.getHeaders().getETag(), response.getHeaders().getETag());
+        verify(restaurantService, times(1)).getPeakTimeWindows(180, 180, 3);
+    }
+
+    private static byte[] json(Object dto) {
+        return JsonMapper.builder().build().writeValueAsBytes(dto);
+    }
+
+    private static byte[] largeJson() {
+        return ("{\"deals\":[" + "{\"objectId\":\"d1\"},".repeat(40) + "{}]}").getBytes(StandardCharsets.UTF_8);
+    }
 }
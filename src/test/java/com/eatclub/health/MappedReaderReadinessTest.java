@@ -0,0 +1,65 @@
+package com.eatclub.health;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.Restaurant;
+import com.eatclub.repository.ILocalRepository;
+import com.eatclub.repository.MappedRestaurantRepository;
+import com.eatclub.repository.MappedSnapshotFile;
+import com.eatclub.repository.RestaurantFeed;
+import com.eatclub.repository.RestaurantSnapshot;
+import com.eatclub.repository.SnapshotSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.health.actuate.endpoint.HealthEndpoint;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * A reader process that only serves a file another process wrote: no upstream fetch
+ * and no disk snapshot, so the mapped file is the only data it ever has.
+ */
+@SpringBootTest(properties = {
+        "restaurants.mapped-snapshot.serve=true",
+        "restaurants.refresh.enabled=false",
+        "restaurants.snapshot.enabled=false"
+})
+class MappedReaderReadinessTest {
+
+    @TempDir
+    static Path tempDir;
+
+    @Autowired
+    private HealthEndpoint healthEndpoint;
+
+    @Autowired
+    private ILocalRepository restaurantRepository;
+
+    @DynamicPropertySource
+    static void mappedSnapshot(DynamicPropertyRegistry registry) throws Exception {
+        Path path = tempDir.resolve("restaurants.mapped");
+        RestaurantFeed feed = new RestaurantFeed(
+                List.of(new Restaurant("r1", "Restaurant 1", "123 Main St", "Richmond", LocalTime.of(10, 0), LocalTime.of(22, 0))),
+                Map.of("r1", List.of(new Deal("d1", "r1", 10.0f, true, false, 5))),
+                Instant.parse("2024-01-01T10:00:00Z"));
+        MappedSnapshotFile.write(RestaurantSnapshot.of(1, SnapshotSource.UPSTREAM, feed), path);
+        registry.add("restaurants.mapped-snapshot.path", path::toString);
+    }
+
+    @Test
+    void testReadiness_WithMappedFileOnly_IsUp() {
+        assertInstanceOf(MappedRestaurantRepository.class, restaurantRepository);
+        assertEquals(Status.UP, healthEndpoint.healthForPath("readiness").getStatus());
+        assertEquals(Status.UP, healthEndpoint.healthForPath("restaurantSnapshot").getStatus());
+    }
+}
@@ -0,0 +1,59 @@
+package com.eatclub.health;
+
+import com.eatclub.repository.ILocalRepository;
+import com.eatclub.repository.RestaurantFeed;
+import com.eatclub.repository.RestaurantSnapshot;
+import com.eatclub.repository.SnapshotSource;
+import com.eatclub.repository.SnapshotSummary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantSnapshotHealthIndicatorTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+
+    @Mock
+    private ILocalRepository restaurantRepository;
+
+    @Test
+    void testHealth_WithNoSnapshot_IsOutOfService() {
+        when(restaurantRepository.getSnapshotSummary()).thenReturn(SnapshotSummary.of(RestaurantSnapshot.empty(0)));
+
+        Health health = newIndicator().health();
+
+        assertEquals(Status.OUT_OF_SERVICE, health.getStatus());
+        assertEquals(SnapshotSource.NONE, health.getDetails().get("source"));
+    }
+
+    @Test
+    void testHealth_WithDiskSnapshot_IsUpAndReportsAge() {
+        RestaurantFeed feed = new RestaurantFeed(List.of(), Map.of(), NOW.minusSeconds(90));
+        when(restaurantRepository.getSnapshotSummary())
+                .thenReturn(SnapshotSummary.of(RestaurantSnapshot.of(1, SnapshotSource.DISK, feed)));
+
+        Health health = newIndicator().health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(SnapshotSource.DISK, health.getDetails().get("source"));
+        assertEquals(90L, health.getDetails().get("ageSeconds"));
+        assertEquals(1L, health.getDetails().get("version"));
+    }
+
+    private RestaurantSnapshotHealthIndicator newIndicator() {
+        return new RestaurantSnapshotHealthIndicator(restaurantRepository, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,144 @@
+package com.eatclub.mapper;
+
+import com.eatclub.metrics.RestaurantMetrics;
+import com.eatclub.model.Deal;
+import com.eatclub.model.Restaurant;
+import com.eatclub.model.dtos.AvailableRestaurantsDTO;
+import com.eatclub.model.dtos.AvailableRestaurantsPageDTO;
+import com.eatclub.model.dtos.DealDTO;
+import com.eatclub.repository.DealColumns;
+import com.eatclub.repository.DealSelection;
+import com.eatclub.repository.RestaurantSnapshot;
+import com.eatclub.repository.SnapshotSource;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.PropertyNamingStrategies;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealJsonFragmentsTest {
+
+    private final RestaurantMapper restaurantMapper = new RestaurantMapper();
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    void testAvailableRestaurants_WritesEachSelectedDealInSelectionOrder() {
+        DealColumns columns = columns();
+        DealJsonFragments fragments = fragments(columns, jsonMapper);
+
+        String json = new String(fragments.availableRestaurants(new DealSelection(columns, new int[] {2, 0})),
+                StandardCharsets.UTF_8);
+
+        assertTrue(fragments.isByteCompatible());
+        assertEquals("{\"deals\":["
+                + "{\"restaurantObjectId\":\"r3\",\"restaurantName\":\"Restaurant 3\",\"restaurantAddress1\":\"789 Elm St\","
+                + "\"restarantSuburb\":\"Village\",\"restaurantOpen\":\"6:00PM\",\"restaurantClose\":\"11:00PM\","
+                + "\"objectId\":\"d3\",\"discount\":\"30.0\",\"dineIn\":\"false\",\"lightning\":\"true\","
+                + "\"open\":\"7:00PM\",\"close\":\"8:00PM\",\"qtyLeft\":\"1\"},"
+                + "{\"restaurantObjectId\":\"r1\",\"restaurantName\":\"Restaurant 1\",\"restaurantAddress1\":\"123 Main St\","
+                + "\"restarantSuburb\":\"City\",\"restaurantOpen\":\"10:00AM\",\"restaurantClose\":\"10:00PM\","
+                + "\"objectId\":\"d1\",\"discount\":\"10.5\",\"dineIn\":\"true\",\"lightning\":\"false\","
+                + "\"open\":\"10:00AM\",\"close\":\"10:00PM\",\"qtyLeft\":\"5\"}]}", json);
+    }
+
+    @Test
+    void testAvailableRestaurants_WithEveryDeal_MatchesTheDTO() {
+        DealColumns columns = columns();
+        DealSelection all = new DealSelection(columns, new int[] {0, 1, 2});
+
+        byte[] result = fragments(columns, jsonMapper).availableRestaurants(all);
+
+        assertArrayEquals(jsonMapper.writeValueAsBytes(restaurantMapper.toAvailableRestaurantsDTO(all)), result);
+    }
+
+    @Test
+    void testAvailableRestaurants_WithEmptySelection_WritesEmptyDeals() {
+        DealColumns columns = columns();
+
+        byte[] result = fragments(columns, jsonMapper).availableRestaurants(new DealSelection(columns, new int[0]));
+
+        assertArrayEquals(jsonMapper.writeValueAsBytes(new AvailableRestaurantsDTO(List.of())), result);
+    }
+
+    @Test
+    void testAvailableRestaurantsPage_WithCursor_MatchesTheDTO() {
+        DealColumns columns = columns();
+        DealSelection page = new DealSelection(columns, new int[] {1});
+
+        byte[] result = fragments(columns, jsonMapper).availableRestaurantsPage(page, "abc");
+
+        assertArrayEquals(jsonMapper.writeValueAsBytes(
+                new AvailableRestaurantsPageDTO(restaurantMapper.toAvailableRestaurantsDTO(page).getDeals(), "abc")), result);
+    }
+
+    @Test
+    void testNew_WithNoDeals_IsByteCompatible() {
+        DealColumns columns = new DealColumns(List.of(), Map.of());
+
+        DealJsonFragments fragments = fragments(columns, jsonMapper);
+
+        assertTrue(fragments.isByteCompatible());
+        assertEquals("{\"deals\":[]}",
+                new String(fragments.availableRestaurants(new DealSelection(columns, new int[0])), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testNew_WithMapperThatNamesPropertiesDifferently_IsNotByteCompatible() {
+        JsonMapper snakeCaseMapper = JsonMapper.builder().propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE).build();
+
+        DealJsonFragments fragments = fragments(columns(), snakeCaseMapper);
+
+        assertFalse(fragments.isByteCompatible());
+    }
+
+    @Test
+    void testMapper_WithMapperThatNamesPropertiesDifferently_FallsBackToTheDTO() {
+        JsonMapper snakeCaseMapper = JsonMapper.builder().propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE).build();
+        RestaurantMapper snakeCaseRestaurantMapper = new RestaurantMapper(RestaurantMetrics.noop(), snakeCaseMapper);
+        DealColumns columns = columns();
+        RestaurantSnapshot snapshot = new RestaurantSnapshot(1L, SnapshotSource.DISK, Instant.EPOCH,
+                columns.getRestaurants(), columns.toDealsByRestaurantId());
+        snakeCaseRestaurantMapper.beforePublish(snapshot);
+        DealSelection all = new DealSelection(snapshot.getDealColumns(), new int[] {0, 1, 2});
+
+        byte[] result = snakeCaseRestaurantMapper.toAvailableRestaurantsJson(all);
+
+        assertArrayEquals(snakeCaseMapper.writeValueAsBytes(snakeCaseRestaurantMapper.toAvailableRestaurantsDTO(all)), result);
+    }
+
+    private DealJsonFragments fragments(DealColumns columns, JsonMapper mapper) {
+        List<DealDTO> dealDTOs = new ArrayList<>(restaurantMapper.toAvailableRestaurantsDTO(
+                new DealSelection(columns, allOrdinals(columns))).getDeals());
+        return new DealJsonFragments(columns, mapper, dealDTOs::get);
+    }
+
+    private static int[] allOrdinals(DealColumns columns) {
+        int[] ordinals = new int[columns.dealCount()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = i;
+        }
+        return ordinals;
+    }
+
+    /*
+     * r2 has no deals, so its header is never written.
+     */
+    private static DealColumns columns() {
+        Restaurant restaurant1 = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+                LocalTime.of(10, 0), LocalTime.of(22, 0));
+        Restaurant restaurant2 = new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "Town",
+                LocalTime.of(9, 0), LocalTime.of(17, 0));
+        Restaurant restaurant3 = new Restaurant("r3", "Restaurant 3", "789 Elm St", "Village",
+                LocalTime.of(18, 0), LocalTime.of(23, 0));
+        return new DealColumns(List.of(restaurant1, restaurant2, restaurant3), Map.of(
+                "r1", List.of(new Deal("d1", "r1", 10.5f, true, false, 5), new Deal("d2", "r1", 20.0f, false, false, 2)),
+                "r3", List.of(new Deal("d3", "r3", 30.0f, false, true, 1, LocalTime.of(19, 0), LocalTime.of(20, 0)))));
+    }
+}
@@ -1,28 +1,51 @@
 package com.eatclub.mapper;
 
+import com.eatclub.metrics.RestaurantMetrics;
 import com.eatclub.model.Deal;
 import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealPage;
 import com.eatclub.model.PeakTimeWindow;
 import com.eatclub.model.Restaurant;
 import com.eatclub.model.dtos.AvailableRestaurantsDTO;
+import com.eatclub.model.dtos.AvailableRestaurantsPageDTO;
+import com.eatclub.model.dtos.CompactAvailableRestaurantsDTO;
+import com.eatclub.model.dtos.CompactDealDTO;
+import com.eatclub.model.dtos.CompactRestaurantDTO;
 import com.eatclub.model.dtos.DealDTO;
 import com.eatclub.model.dtos.PeakTimeDTO;
+import com.eatclub.model.dtos.PeakTimesDTO;
+import com.eatclub.repository.DealColumns;
+import com.eatclub.repository.DealSelection;
+import com.eatclub.repository.ISnapshotListener;
+import com.eatclub.repository.InMemoryRestaurantRepository;
+import com.eatclub.repository.RestaurantFeed;
+import com.eatclub.repository.RestaurantSnapshot;
+import com.eatclub.repository.SnapshotSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class RestaurantMapperTest {
 
     private RestaurantMapper restaurantMapper;
+    private JsonMapper jsonMapper;
 
     @BeforeEach
     void setUp() {
         restaurantMapper = new RestaurantMapper();
+        jsonMapper = JsonMapper.builder().build();
     }
 
     @Test
@@ -117,6 +140,167 @@ class RestaurantMapperTest {
         assertEquals("11:59PM", dealDTO.getRestaurantClose());
     }
 
+    @Test
+    void testToAvailableRestaurantsDTO_WithDealWindow_UsesDealWindow() {
+        Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+                LocalTime.of(10, 0), LocalTime.of(22, 0));
+        Deal deal = new Deal("d1", "r1", 10.0f, true, false, 5, LocalTime.of(15, 0), LocalTime.of(17, 30));
+        List<DealAtRestaurant> dealAtRestaurants = Arrays.asList(new DealAtRestaurant(restaurant, deal));
+
+        AvailableRestaurantsDTO result = restaurantMapper.toAvailableRestaurantsDTO(dealAtRestaurants);
+
+        DealDTO dealDTO = result.getDeals().get(0);
+        assertEquals("10:00AM", dealDTO.getRestaurantOpen());
+        assertEquals("10:00PM", dealDTO.getRestaurantClose());
+        assertEquals("3:00PM", dealDTO.getOpen());
+        assertEquals("5:30PM", dealDTO.getClose());
+    }
+
+    @Test
+    void testToAvailableRestaurantsPageDTO_MapsDealsAndCursor() {
+        Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+                LocalTime.of(10, 0), LocalTime.of(22, 0));
+        DealAtRestaurant dealAtRestaurant = new DealAtRestaurant(restaurant, new Deal("d1", "r1", 10.0f, true, false, 5));
+
+        AvailableRestaurantsPageDTO result = restaurantMapper.toAvailableRestaurantsPageDTO(
+                new DealPage(3L, List.of(dealAtRestaurant), 1), "next");
+
+        assertEquals(List.of(restaurantMapper.toDealDTO(dealAtRestaurant)), result.getDeals());
+        assertEquals("next", result.getNextCursor());
+    }
+
+    @Test
+    void testToAvailableRestaurantsDTO_WithDealSelection_MapsFromColumnsLikeTheModel() {
+        Restaurant restaurant1 = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+                LocalTime.of(10, 0), LocalTime.of(22, 0));
+        Restaurant restaurant2 = new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "Town",
+                LocalTime.of(18, 0), LocalTime.of(2, 0));
+        Deal deal1 = new Deal("d1", "r1", 10.5f, true, false, 5);
+        Deal deal2 = new Deal("d2", "r2", 30.0f, false, true, 0, LocalTime.of(23, 0), LocalTime.of(1, 30));
+        DealColumns columns = new DealColumns(List.of(restaurant1, restaurant2),
+                Map.of("r1", List.of(deal1), "r2", List.of(deal2)));
+
+        AvailableRestaurantsDTO result = restaurantMapper.toAvailableRestaurantsDTO(
+                new DealSelection(columns, new int[] {1, 0}));
+
+        assertEquals(List.of(
+                restaurantMapper.toDealDTO(new DealAtRestaurant(restaurant2, deal2)),
+                restaurantMapper.toDealDTO(new DealAtRestaurant(restaurant1, deal1))), result.getDeals());
+    }
+
+    @Test
+    void testToAvailableRestaurantsJson_WithDealSelection_WritesSameBytesAsTheDTO() {
+        DealColumns columns = publish(snapshotWithEscapedText());
+        DealSelection selection = new DealSelection(columns, new int[] {2, 0, 1});
+
+        byte[] result = restaurantMapper.toAvailableRestaurantsJson(selection);
+
+        assertArrayEquals(jsonMapper.writeValueAsBytes(restaurantMapper.toAvailableRestaurantsDTO(selection)), result);
+    }
+
+    @Test
+    void testToAvailableRestaurantsJson_WithPlainList_WritesSameBytesAsTheDTO() {
+        Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+                LocalTime.of(10, 0), LocalTime.of(22, 0));
+        List<DealAtRestaurant> dealAtRestaurants = List.of(new DealAtRestaurant(restaurant, new Deal("d1", "r1", 10.0f, true, false, 5)));
+
+        byte[] result = restaurantMapper.toAvailableRestaurantsJson(dealAtRestaurants);
+
+        assertArrayEquals(jsonMapper.writeValueAsBytes(restaurantMapper.toAvailableRestaurantsDTO(dealAtRestaurants)), result);
+    }
+
+    @Test
+    void testToAvailableRestaurantsPageJson_WithDealSelection_WritesSameBytesAsTheDTO() {
+        DealColumns columns = publish(snapshotWithEscapedText());
+        DealPage page = new DealPage(3L, new DealSelection(columns, new int[] {0, 1}), 2);
+        DealPage lastPage = new DealPage(3L, new DealSelection(columns, new int[] {}), -1);
+
+        assertArrayEquals(jsonMapper.writeValueAsBytes(restaurantMapper.toAvailableRestaurantsPageDTO(page, "next")),
+                restaurantMapper.toAvailableRestaurantsPageJson(page, "next"));
+        assertArrayEquals(jsonMapper.writeValueAsBytes(restaurantMapper.toAvailableRestaurantsPageDTO(lastPage, null)),
+                restaurantMapper.toAvailableRestaurantsPageJson(lastPage, null));
+    }
+
+    @Test
+    void testToAvailableRestaurantsJson_WithNewSnapshotColumns_WritesTheNewData() {
+        DealColumns columns = publish(snapshotWithEscapedText());
+        restaurantMapper.toAvailableRestaurantsJson(new DealSelection(columns, new int[] {0}));
+        Restaurant renamed = new Restaurant("r1", "Renamed", "123 Main St", "City", LocalTime.of(10, 0), LocalTime.of(22, 0));
+        DealColumns newColumns = publish(new RestaurantSnapshot(2L, SnapshotSource.DISK, Instant.EPOCH, List.of(renamed),
+                Map.of("r1", List.of(new Deal("d1", "r1", 10.0f, true, false, 5)))));
+
+        String result = new String(restaurantMapper.toAvailableRestaurantsJson(new DealSelection(newColumns, new int[] {0})),
+                StandardCharsets.UTF_8);
+
+        assertTrue(result.contains("\"restaurantName\":\"Renamed\""));
+        assertFalse(restaurantMapper.hasFragmentsFor(columns));
+    }
+
+    @Test
+    void testNew_WithRepository_RendersFragmentsBeforeEachSnapshotIsPublished() {
+        InMemoryRestaurantRepository repository = new InMemoryRestaurantRepository(new RestTemplate());
+        RestaurantSnapshot first = snapshotWithEscapedText();
+        repository.load(first.toFeed(), SnapshotSource.DISK);
+        RestaurantMapper listeningMapper = new RestaurantMapper(RestaurantMetrics.noop(), jsonMapper, repository);
+        DealColumns firstColumns = repository.getDealColumns();
+        List<Boolean> readyBeforePublish = new ArrayList<>();
+        repository.addSnapshotListener(new ISnapshotListener() {
+            @Override
+            public void beforePublish(RestaurantSnapshot next) {
+                readyBeforePublish.add(listeningMapper.hasFragmentsFor(next.getDealColumns())
+                        && listeningMapper.hasFragmentsFor(repository.getDealColumns()));
+            }
+        });
+
+        repository.load(new RestaurantFeed(first.getRestaurants(), first.getDealsByRestaurantId(), Instant.now()),
+                SnapshotSource.UPSTREAM);
+
+        assertEquals(List.of(true, true), readyBeforePublish);
+        assertFalse(listeningMapper.hasFragmentsFor(firstColumns));
+        DealSelection selection = new DealSelection(repository.getDealColumns(), new int[] {2, 0, 1});
+        assertArrayEquals(jsonMapper.writeValueAsBytes(listeningMapper.toAvailableRestaurantsDTO(selection)),
+                listeningMapper.toAvailableRestaurantsJson(selection));
+    }
+
+    @Test
+    void testToAvailableRestaurantsJson_RecordsMapping() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RestaurantMapper timedMapper = new RestaurantMapper(new RestaurantMetrics(registry));
+
+        timedMapper.toAvailableRestaurantsJson(new DealSelection(columnsWithEscapedText(), new int[] {0}));
+
+        assertEquals(1, registry.get(RestaurantMetrics.MAPPING).tag("operation", "toAvailableRestaurantsJson").timer().count());
+    }
+
+    @Test
+    void testToCompactAvailableRestaurantsDTO_WithDealSelection_ListsEachRestaurantOnce() {
+        DealColumns columns = columnsWithEscapedText();
+
+        CompactAvailableRestaurantsDTO result = restaurantMapper.toCompactAvailableRestaurantsDTO(
+                new DealSelection(columns, new int[] {2, 0, 1}), "next");
+
+        assertEquals(2, result.getRestaurants().size());
+        assertEquals(new CompactRestaurantDTO("r2", "Restaurant 2 \u2603", "456 Oak Ave", "Town\t", "6:00PM", "2:00AM"),
+                result.getRestaurants().get(0));
+        assertEquals("r1", result.getRestaurants().get(1).getObjectId());
+        assertEquals(List.of(
+                new CompactDealDTO(0, "d2", 30.0f, false, true, "11:00PM", "1:30AM", 0),
+                new CompactDealDTO(1, "d1", 10.5f, true, false, "10:00AM", "10:00PM", 5),
+                new CompactDealDTO(1, "d</1>", 0.0f, false, false, "10:00AM", "10:00PM", 0)), result.getDeals());
+        assertEquals("next", result.getNextCursor());
+    }
+
+    @Test
+    void testToCompactAvailableRestaurantsDTO_WithPlainList_MapsLikeTheDealSelection() {
+        DealColumns columns = columnsWithEscapedText();
+        DealSelection selection = new DealSelection(columns, new int[] {0, 2, 1});
+
+        CompactAvailableRestaurantsDTO result = restaurantMapper.toCompactAvailableRestaurantsDTO(List.copyOf(selection), null);
+
+        assertEquals(restaurantMapper.toCompactAvailableRestaurantsDTO(selection, null), result);
+        assertNull(result.getNextCursor());
+    }
+
     @Test
     void testToAvailableRestaurantsDTO_WithRestaurantOpenAtNoon() {
         Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
@@ -213,4 +397,50 @@ class RestaurantMapperTest {
         assertEquals("6:00PM", result.getPeakTimeStart());
         assertEquals("10:30PM", result.getPeakTimeEnd());
     }
+
+    @Test
+    void testToPeakTimesDTO_WithMultipleWindows() {
+        List<PeakTimeWindow> peakTimeWindows = Arrays.asList(
+                new PeakTimeWindow(LocalTime.of(12, 0), LocalTime.of(15, 0)),
+                new PeakTimeWindow(LocalTime.of(21, 0), LocalTime.MAX));
+
+        PeakTimesDTO result = restaurantMapper.toPeakTimesDTO(peakTimeWindows);
+
+        assertEquals(2, result.getPeakTimes().size());
+        assertEquals(new PeakTimeDTO("12:00PM", "3:00PM"), result.getPeakTimes().get(0));
+        assertEquals(new PeakTimeDTO("9:00PM", "11:59PM"), result.getPeakTimes().get(1));
+    }
+
+    @Test
+    void testToPeakTimesDTO_RecordsMapping() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RestaurantMapper timedMapper = new RestaurantMapper(new RestaurantMetrics(registry));
+
+        timedMapper.toPeakTimesDTO(List.of(new PeakTimeWindow(LocalTime.of(12, 0), LocalTime.of(15, 0))));
+
+        assertEquals(1, registry.get(RestaurantMetrics.MAPPING).tag("operation", "toPeakTimesDTO").timer().count());
+    }
+
+    private DealColumns publish(RestaurantSnapshot snapshot) {
+        restaurantMapper.beforePublish(snapshot);
+        restaurantMapper.afterPublish();
+        assertTrue(restaurantMapper.hasFragmentsFor(snapshot.getDealColumns()));
+        return snapshot.getDealColumns();
+    }
+
+    private static RestaurantSnapshot snapshotWithEscapedText() {
+        DealColumns columns = columnsWithEscapedText();
+        return new RestaurantSnapshot(1L, SnapshotSource.DISK, Instant.EPOCH, columns.getRestaurants(),
+                columns.toDealsByRestaurantId());
+    }
+
+    private static DealColumns columnsWithEscapedText() {
+        Restaurant restaurant1 = new Restaurant("r1", "Joe's \"Best\" Café", "12\\3 Main St\n", null,
+                LocalTime.of(10, 0), LocalTime.of(22, 0));
+        Restaurant restaurant2 = new Restaurant("r2", "Restaurant 2 \u2603", "456 Oak Ave", "Town\t",
+                LocalTime.of(18, 0), LocalTime.of(2, 0));
+        return new DealColumns(List.of(restaurant1, restaurant2), Map.of(
+                "r1", List.of(new Deal("d1", "r1", 10.5f, true, false, 5), new Deal("d</1>", "r1", 0.0f, false, false, 0)),
+                "r2", List.of(new Deal("d2", "r2", 30.0f, false, true, 0, LocalTime.of(23, 0), LocalTime.of(1, 30)))));
+    }
 }
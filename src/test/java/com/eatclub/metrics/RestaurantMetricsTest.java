@@ -0,0 +1,70 @@
+package com.eatclub.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private RestaurantMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new RestaurantMetrics(registry);
+    }
+
+    @Test
+    void testRepositoryLookup_WithSameOperation_ReusesTimer() {
+        Timer first = metrics.repositoryLookup("findAvailableDealsAt");
+
+        assertSame(first, metrics.repositoryLookup("findAvailableDealsAt"));
+        assertNotSame(first, metrics.repositoryLookup("findAllRestaurants"));
+    }
+
+    @Test
+    void testStageTimers_AreTaggedByOperationOrEndpoint() {
+        metrics.repositoryLookup("findAllRestaurants").record(() -> { });
+        metrics.serviceCall("getPeakTimeWindows").record(() -> { });
+        metrics.mapping("toPeakTimesDTO").record(() -> { });
+        metrics.serialization("/api/v1/restaurants/available").record(() -> { });
+
+        assertEquals(1, registry.get(RestaurantMetrics.REPOSITORY_LOOKUP).tag("operation", "findAllRestaurants").timer().count());
+        assertEquals(1, registry.get(RestaurantMetrics.SERVICE_CALL).tag("operation", "getPeakTimeWindows").timer().count());
+        assertEquals(1, registry.get(RestaurantMetrics.MAPPING).tag("operation", "toPeakTimesDTO").timer().count());
+        assertEquals(1, registry.get(RestaurantMetrics.SERIALIZATION).tag("endpoint", "/api/v1/restaurants/available").timer().count());
+    }
+
+    @Test
+    void testCountFeedRefresh_CountsByOutcome() {
+        metrics.countFeedRefresh("updated");
+        metrics.countFeedRefresh("updated");
+        metrics.countFeedRefresh("failed");
+
+        assertEquals(2.0, registry.get(RestaurantMetrics.FEED_REFRESHES).tag("outcome", "updated").counter().count());
+        assertEquals(1.0, registry.get(RestaurantMetrics.FEED_REFRESHES).tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void testCountFeedRetryAndRejection_CountsUpstreamFailures() {
+        metrics.countFeedRetry("503");
+        metrics.countFeedRetry("io_error");
+        metrics.countFeedRejection();
+
+        assertEquals(1.0, registry.get(RestaurantMetrics.FEED_RETRIES).tag("cause", "503").counter().count());
+        assertEquals(1.0, registry.get(RestaurantMetrics.FEED_RETRIES).tag("cause", "io_error").counter().count());
+        assertEquals(1.0, registry.get(RestaurantMetrics.FEED_REJECTIONS).counter().count());
+    }
+
+    @Test
+    void testNoop_RunsTimedCodeWithoutRecording() {
+        RestaurantMetrics noop = RestaurantMetrics.noop();
+
+        assertEquals("result", noop.serviceCall("getPeakTimeWindows").record(() -> "result"));
+        assertEquals(0, noop.serviceCall("getPeakTimeWindows").count());
+    }
+}
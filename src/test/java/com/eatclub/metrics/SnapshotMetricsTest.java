@@ -0,0 +1,72 @@
+package com.eatclub.metrics;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.Restaurant;
+import com.eatclub.repository.ILocalRepository;
+import com.eatclub.repository.RestaurantFeed;
+import com.eatclub.repository.RestaurantSnapshot;
+import com.eatclub.repository.SnapshotSource;
+import com.eatclub.repository.SnapshotSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnapshotMetricsTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+
+    @Mock
+    private ILocalRepository restaurantRepository;
+
+    @Test
+    void testBindTo_GaugesFollowCurrentSnapshot() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new SnapshotMetrics(restaurantRepository, Clock.fixed(NOW, ZoneOffset.UTC)).bindTo(registry);
+        Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "1 Main St", "City", LocalTime.of(9, 0), LocalTime.of(17, 0));
+        RestaurantFeed feed = new RestaurantFeed(List.of(restaurant),
+                Map.of("r1", List.of(new Deal("d1", "r1", 10.0f, true, false, 5), new Deal("d2", "r1", 20.0f, false, false, 1))),
+                NOW.minusSeconds(90));
+
+        when(restaurantRepository.getSnapshotSummary()).thenReturn(SnapshotSummary.of(RestaurantSnapshot.empty(0)));
+        double emptyHeap = registry.get("eatclub.snapshot.heap").gauge().value();
+        assertEquals(0.0, registry.get("eatclub.snapshot.deals").gauge().value());
+
+        when(restaurantRepository.getSnapshotSummary())
+                .thenReturn(SnapshotSummary.of(RestaurantSnapshot.of(3, SnapshotSource.UPSTREAM, feed)));
+
+        assertEquals(1.0, registry.get("eatclub.snapshot.restaurants").gauge().value());
+        assertEquals(2.0, registry.get("eatclub.snapshot.deals").gauge().value());
+        assertEquals(3.0, registry.get("eatclub.snapshot.version").gauge().value());
+        assertEquals(90.0, registry.get("eatclub.snapshot.age").timeGauge().value(TimeUnit.SECONDS));
+        assertTrue(registry.get("eatclub.snapshot.heap").gauge().value() > emptyHeap);
+    }
+
+    @Test
+    void testBindTo_DictionarySavedGaugeCountsSharedValues() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new SnapshotMetrics(restaurantRepository, Clock.fixed(NOW, ZoneOffset.UTC)).bindTo(registry);
+        RestaurantFeed feed = new RestaurantFeed(List.of(
+                new Restaurant("r1", "Restaurant 1", "1 Main St", new String("City"), LocalTime.of(9, 0), LocalTime.of(17, 0)),
+                new Restaurant("r2", "Restaurant 2", "2 Main St", new String("City"), LocalTime.of(9, 0), LocalTime.of(17, 0))),
+                Map.of(), NOW);
+
+        when(restaurantRepository.getSnapshotSummary())
+                .thenReturn(SnapshotSummary.of(RestaurantSnapshot.of(1, SnapshotSource.UPSTREAM, feed)));
+
+        assertTrue(registry.get("eatclub.snapshot.dictionary.saved").gauge().value() > 0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.eatclub.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimedJacksonJsonHttpMessageConverterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TimedJacksonJsonHttpMessageConverter converter =
+            new TimedJacksonJsonHttpMessageConverter(JsonMapper.builder().build(), new RestaurantMetrics(registry));
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testWrite_WithinRequest_RecordsUnderMatchedRoute() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/restaurants/peak-time");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/restaurants/peak-time");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        converter.write(Map.of("peakTimeStart", "6:00pm"), MediaType.APPLICATION_JSON, output);
+
+        assertEquals("{\"peakTimeStart\":\"6:00pm\"}", output.getBodyAsString(StandardCharsets.UTF_8));
+        assertEquals(1, registry.get(RestaurantMetrics.SERIALIZATION)
+                .tag("endpoint", "/api/v1/restaurants/peak-time").timer().count());
+    }
+
+    @Test
+    void testWrite_OutsideRequest_RecordsUnderUnknown() throws Exception {
+        converter.write(Map.of("a", 1), MediaType.APPLICATION_JSON, new MockHttpOutputMessage());
+
+        assertEquals(1, registry.get(RestaurantMetrics.SERIALIZATION).tag("endpoint", "UNKNOWN").timer().count());
+    }
+}
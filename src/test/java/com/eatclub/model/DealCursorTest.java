@@ -0,0 +1,34 @@
+package com.eatclub.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealCursorTest {
+
+    @Test
+    void testEncodeThenDecode_RoundTripsCursor() {
+        DealCursor cursor = new DealCursor(12L, 870, 345);
+
+        assertEquals(cursor, DealCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void testEncode_IsUrlSafe() {
+        String encoded = new DealCursor(Long.MAX_VALUE, 1439, Integer.MAX_VALUE).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void testDecode_WithMalformedCursor_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> DealCursor.decode("not-a-cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> DealCursor.decode("MS4yLjMuNA"));
+        assertThrows(IllegalArgumentException.class, () -> DealCursor.decode("MS4y"));
+    }
+
+    @Test
+    void testDecode_WithNegativeOrdinal_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> DealCursor.decode(new DealCursor(1L, 2, -1).encode()));
+    }
+}
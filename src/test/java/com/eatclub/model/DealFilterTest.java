@@ -0,0 +1,60 @@
+package com.eatclub.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealFilterTest {
+
+    private final Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "123 Main St", "Richmond",
+            LocalTime.of(10, 0), LocalTime.of(22, 0), List.of("Thai", "Vegan"));
+    private final DealAtRestaurant dealAtRestaurant = new DealAtRestaurant(restaurant,
+            new Deal("d1", "r1", 20.0f, true, false, 4));
+
+    @Test
+    void testMatches_WithNoFilters_MatchesEveryDeal() {
+        assertTrue(new DealFilter().isEmpty());
+        assertTrue(new DealFilter().matches(dealAtRestaurant));
+    }
+
+    @Test
+    void testMatches_WithSuburbAndCuisine_IgnoresCaseAndSurroundingSpaces() {
+        assertTrue(new DealFilter(" richmond ", "VEGAN", null, null, null, null).matches(dealAtRestaurant));
+        assertFalse(new DealFilter("Carlton", null, null, null, null, null).matches(dealAtRestaurant));
+        assertFalse(new DealFilter(null, "Pizza", null, null, null, null).matches(dealAtRestaurant));
+    }
+
+    @Test
+    void testMatches_WithFlagsAndThresholds_ComparesDealValues() {
+        assertTrue(new DealFilter(null, null, true, false, 20.0f, 4).matches(dealAtRestaurant));
+        assertFalse(new DealFilter(null, null, false, null, null, null).matches(dealAtRestaurant));
+        assertFalse(new DealFilter(null, null, null, true, null, null).matches(dealAtRestaurant));
+        assertFalse(new DealFilter(null, null, null, null, 20.5f, null).matches(dealAtRestaurant));
+        assertFalse(new DealFilter(null, null, null, null, null, 5).matches(dealAtRestaurant));
+    }
+
+    @Test
+    void testToQueryKey_IsEmptyWithoutFiltersAndCanonicalOtherwise() {
+        assertEquals("", new DealFilter().toQueryKey());
+        assertEquals(new DealFilter("North Melbourne", "thai", null, null, null, null).toQueryKey(),
+                new DealFilter(" north melbourne", "THAI", null, null, null, null).toQueryKey());
+        assertEquals("-suburb=north+melbourne-dineIn=true-minQtyLeft=2",
+                new DealFilter("North Melbourne", null, true, null, null, 2).toQueryKey());
+    }
+
+    @Test
+    void testToQueryKey_EncodesQuotes() {
+        assertFalse(new DealFilter("\"quoted\"", null, null, null, null, null).toQueryKey().contains("\""));
+    }
+
+    @Test
+    void testValidate_WithBlankValues_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new DealFilter(" ", null, null, null, null, null).validate());
+        assertThrows(IllegalArgumentException.class, () -> new DealFilter(null, "", null, null, null, null).validate());
+        assertThrows(IllegalArgumentException.class, () -> new DealFilter(null, null, null, null, Float.NaN, null).validate());
+        assertDoesNotThrow(() -> new DealFilter("Richmond", "Thai", true, true, 10.0f, 1).validate());
+    }
+}
@@ -0,0 +1,25 @@
+package com.eatclub.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealSortTest {
+
+    @Test
+    void testFromParameter_WithKnownSorts_ReturnsSort() {
+        assertEquals(DealSort.DISCOUNT, DealSort.fromParameter("discount"));
+        assertEquals(DealSort.QTY_LEFT, DealSort.fromParameter("qtyLeft"));
+    }
+
+    @Test
+    void testFromParameter_IgnoresCase() {
+        assertEquals(DealSort.QTY_LEFT, DealSort.fromParameter("QTYLEFT"));
+    }
+
+    @Test
+    void testFromParameter_WithUnknownSort_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> DealSort.fromParameter("name"));
+        assertThrows(IllegalArgumentException.class, () -> DealSort.fromParameter(""));
+    }
+}
@@ -0,0 +1,24 @@
+package com.eatclub.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningHoursTest {
+
+    @Test
+    void testParseDay_WithFullNamesAndAbbreviations_ReturnsDay() {
+        assertEquals(DayOfWeek.MONDAY, OpeningHours.parseDay("monday"));
+        assertEquals(DayOfWeek.WEDNESDAY, OpeningHours.parseDay("Wed"));
+        assertEquals(DayOfWeek.SUNDAY, OpeningHours.parseDay(" SUNDAY "));
+    }
+
+    @Test
+    void testParseDay_WithUnknownDay_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> OpeningHours.parseDay("funday"));
+        assertThrows(IllegalArgumentException.class, () -> OpeningHours.parseDay("3"));
+        assertThrows(IllegalArgumentException.class, () -> OpeningHours.parseDay(null));
+    }
+}
@@ -0,0 +1,277 @@
+package com.eatclub.repository;
+
+import com.eatclub.common.Constants;
+import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealSort;
+import com.eatclub.model.Restaurant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealAvailabilityIndexTest {
+
+    private List<Restaurant> restaurants;
+    private Map<String, List<Deal>> dealsByRestaurantId;
+    private DealAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        restaurants = Arrays.asList(
+                new Restaurant("r1", "Restaurant 1", "123 Main St", "City", LocalTime.of(10, 0), LocalTime.of(22, 0),
+                        List.of("Pizza", "Italian", "pizza")),
+                new Restaurant("r2", "Restaurant 2", "789 Pine St", "Town", LocalTime.of(22, 0), LocalTime.of(2, 0),
+                        List.of("Thai")),
+                new Restaurant("r3", "Restaurant 3", "111 Same St", "City", LocalTime.of(9, 15), LocalTime.of(9, 15),
+                        List.of("Thai", "Burgers")),
+                new Restaurant("r4", "Restaurant 4", "999 Test St", "City", LocalTime.of(18, 0), LocalTime.of(0, 0)));
+
+        dealsByRestaurantId = new LinkedHashMap<>();
+        dealsByRestaurantId.put("r1", List.of(
+                new Deal("d1", "r1", 10.0f, true, false, 5),
+                new Deal("d2", "r1", 20.0f, false, true, 2, LocalTime.of(15, 0), LocalTime.of(17, 30)),
+                new Deal("d3", "r1", 30.0f, true, false, 5, LocalTime.of(8, 0), LocalTime.of(11, 0)),
+                new Deal("d4", "r1", 40.0f, true, false, 5, LocalTime.of(23, 0), LocalTime.of(23, 30))));
+        dealsByRestaurantId.put("r2", List.of(
+                new Deal("d5", "r2", 10.0f, true, false, 5, LocalTime.of(23, 0), LocalTime.of(1, 0)),
+                new Deal("d6", "r2", 20.0f, true, false, 5, LocalTime.of(1, 30), LocalTime.of(22, 30))));
+        dealsByRestaurantId.put("r3", List.of(
+                new Deal("d7", "r3", 10.0f, true, false, 5, LocalTime.of(20, 0), LocalTime.of(4, 0)),
+                new Deal("d8", "r3", 20.0f, true, true, 1, LocalTime.of(6, 0), LocalTime.of(6, 0))));
+        dealsByRestaurantId.put("r4", List.of(
+                new Deal("d9", "r4", 10.0f, true, false, 5, LocalTime.of(23, 45), LocalTime.of(0, 0))));
+
+        index = new DealAvailabilityIndex(restaurants, dealsByRestaurantId);
+    }
+
+    @Test
+    void testFindLiveAt_MatchesLinearScanAtEveryMinute() {
+        for (int minute = 0; minute < Constants.MINUTES_PER_DAY; minute++) {
+            LocalTime time = LocalTime.of(minute / 60, minute % 60);
+
+            assertEquals(scan(time), index.findLiveAt(time), "Mismatch at " + time);
+        }
+    }
+
+    @Test
+    void testFindLiveAt_MatchesLinearScanBetweenMinutes() {
+        for (int minute = 0; minute < Constants.MINUTES_PER_DAY; minute++) {
+            LocalTime halfPast = LocalTime.of(minute / 60, minute % 60, 30);
+            LocalTime lastNano = LocalTime.of(minute / 60, minute % 60, 59, 999_999_999);
+
+            assertEquals(scan(halfPast), index.findLiveAt(halfPast), "Mismatch at " + halfPast);
+            assertEquals(scan(lastNano), index.findLiveAt(lastNano), "Mismatch at " + lastNano);
+        }
+    }
+
+    @Test
+    void testFindLiveAt_WithWindowOutsideRestaurantHours_IsNeverLive() {
+        for (int minute = 0; minute < Constants.MINUTES_PER_DAY; minute++) {
+            LocalTime time = LocalTime.of(minute / 60, minute % 60);
+
+            assertFalse(dealIds(time).contains("d4"), "d4 live at " + time);
+        }
+    }
+
+    @Test
+    void testFindLiveAt_WithWindowOverlappingOpening_IsCutToRestaurantHours() {
+        assertFalse(dealIds(LocalTime.of(9, 59)).contains("d3"));
+        assertTrue(dealIds(LocalTime.of(10, 0)).contains("d3"));
+        assertTrue(dealIds(LocalTime.of(11, 0)).contains("d3"));
+        assertFalse(dealIds(LocalTime.of(11, 1)).contains("d3"));
+    }
+
+    @Test
+    void testFindLiveAt_WithOvernightWindow_IsLiveOnBothSidesOfMidnight() {
+        assertTrue(dealIds(LocalTime.of(23, 0)).contains("d5"));
+        assertTrue(dealIds(LocalTime.MIDNIGHT).contains("d5"));
+        assertTrue(dealIds(LocalTime.of(1, 0)).contains("d5"));
+        assertFalse(dealIds(LocalTime.of(1, 1)).contains("d5"));
+        assertFalse(dealIds(LocalTime.of(22, 59)).contains("d5"));
+    }
+
+    @Test
+    void testFindLiveAt_KeepsRestaurantThenDealOrder() {
+        assertEquals(List.of("d5", "d7", "d8", "d9"), dealIds(LocalTime.of(23, 50)));
+        assertEquals(List.of("d1", "d2", "d8"), dealIds(LocalTime.of(16, 0)));
+    }
+
+    @Test
+    void testForEachLiveAt_InPages_MatchesFullResultAtEveryMinute() {
+        for (int minute = 0; minute < Constants.MINUTES_PER_DAY; minute++) {
+            LocalTime time = LocalTime.of(minute / 60, minute % 60, minute % 2 == 0 ? 0 : 30);
+            List<DealAtRestaurant> paged = new ArrayList<>();
+            int nextOrdinal = 0;
+            do {
+                nextOrdinal = index.forEachLiveAt(time, nextOrdinal, 2, paged::add);
+            } while (nextOrdinal >= 0);
+
+            assertEquals(index.findLiveAt(time), paged, "Mismatch at " + time);
+        }
+    }
+
+    @Test
+    void testForEachLiveAt_WithLimit_ReturnsOrdinalOfNextLiveDeal() {
+        List<String> firstPage = new ArrayList<>();
+        List<String> secondPage = new ArrayList<>();
+
+        int nextOrdinal = index.forEachLiveAt(LocalTime.of(23, 50), 0, 2,
+                dealAtRestaurant -> firstPage.add(dealAtRestaurant.getDeal().getObjectId()));
+        int lastOrdinal = index.forEachLiveAt(LocalTime.of(23, 50), nextOrdinal, 2,
+                dealAtRestaurant -> secondPage.add(dealAtRestaurant.getDeal().getObjectId()));
+
+        assertEquals(List.of("d5", "d7"), firstPage);
+        assertEquals(7, nextOrdinal);
+        assertEquals(List.of("d8", "d9"), secondPage);
+        assertEquals(-1, lastOrdinal);
+    }
+
+    @Test
+    void testForEachLiveAt_FromOrdinalPastEnd_ReturnsNothing() {
+        List<DealAtRestaurant> result = new ArrayList<>();
+
+        assertEquals(-1, index.forEachLiveAt(LocalTime.NOON, 100, 10, result::add));
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void testForEachLiveAt_WithFilters_MatchesFilteredScanAtEveryMinute() {
+        List<DealFilter> filters = List.of(
+                new DealFilter("city", null, null, null, null, null),
+                new DealFilter(null, "THAI", null, null, null, null),
+                new DealFilter(null, null, true, null, null, null),
+                new DealFilter(null, null, false, null, null, null),
+                new DealFilter(null, null, null, true, null, null),
+                new DealFilter(null, null, null, null, 20.0f, null),
+                new DealFilter(null, null, null, null, null, 3),
+                new DealFilter("City", "pizza", true, false, 15.0f, 1),
+                new DealFilter("Nowhere", null, null, null, null, null));
+
+        for (DealFilter filter : filters) {
+            for (int minute = 0; minute < Constants.MINUTES_PER_DAY; minute++) {
+                LocalTime time = LocalTime.of(minute / 60, minute % 60, minute % 2 == 0 ? 0 : 30);
+                List<DealAtRestaurant> expected = scan(time).stream().filter(filter::matches).toList();
+                List<DealAtRestaurant> actual = new ArrayList<>();
+
+                assertEquals(-1, index.forEachLiveAt(time, filter, 0, Integer.MAX_VALUE, actual::add));
+                assertEquals(expected, actual, "Mismatch at " + time + " for " + filter);
+            }
+        }
+    }
+
+    @Test
+    void testForEachLiveAt_WithFilterInPages_ResumesAfterLastMatch() {
+        DealFilter filter = new DealFilter(null, null, true, null, null, null);
+        List<String> firstPage = new ArrayList<>();
+        List<String> secondPage = new ArrayList<>();
+
+        int nextOrdinal = index.forEachLiveAt(LocalTime.of(16, 0), filter, 0, 1,
+                dealAtRestaurant -> firstPage.add(dealAtRestaurant.getDeal().getObjectId()));
+        int lastOrdinal = index.forEachLiveAt(LocalTime.of(16, 0), filter, nextOrdinal, 1,
+                dealAtRestaurant -> secondPage.add(dealAtRestaurant.getDeal().getObjectId()));
+
+        assertEquals(List.of("d1"), firstPage);
+        assertEquals(7, nextOrdinal);
+        assertEquals(List.of("d8"), secondPage);
+        assertEquals(-1, lastOrdinal);
+    }
+
+    @Test
+    void testFindTopLiveAt_MatchesSortedScanAtEveryMinute() {
+        List<DealFilter> filters = List.of(
+                new DealFilter(),
+                new DealFilter("City", null, null, null, null, null),
+                new DealFilter(null, null, true, null, 15.0f, null));
+
+        for (DealSort sort : DealSort.values()) {
+            for (DealFilter filter : filters) {
+                for (int minute = 0; minute < Constants.MINUTES_PER_DAY; minute += 7) {
+                    LocalTime time = LocalTime.of(minute / 60, minute % 60);
+                    for (int limit = 1; limit <= 10; limit++) {
+                        // List.sort is stable, so ties stay in feed order
+                        List<DealAtRestaurant> expected = new ArrayList<>(scan(time).stream().filter(filter::matches).toList());
+                        expected.sort(Comparator.comparingDouble((DealAtRestaurant dealAtRestaurant) -> sortKey(sort, dealAtRestaurant)).reversed());
+
+                        assertEquals(expected.subList(0, Math.min(limit, expected.size())),
+                                index.findTopLiveAt(time, filter, sort, limit),
+                                "Mismatch at " + time + " for " + sort + " " + filter + " limit " + limit);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFindTopLiveAt_ByDiscount_ReturnsHighestFirst() {
+        List<String> topDeals = index.findTopLiveAt(LocalTime.of(23, 15), new DealFilter(), DealSort.DISCOUNT, 2).stream()
+                .map(dealAtRestaurant -> dealAtRestaurant.getDeal().getObjectId())
+                .toList();
+
+        assertEquals(List.of("d8", "d5"), topDeals);
+    }
+
+    @Test
+    void testFindTopLiveAt_WithEqualKeys_KeepsFeedOrder() {
+        List<String> topDeals = index.findTopLiveAt(LocalTime.of(23, 50), new DealFilter(), DealSort.QTY_LEFT, 2).stream()
+                .map(dealAtRestaurant -> dealAtRestaurant.getDeal().getObjectId())
+                .toList();
+
+        assertEquals(List.of("d5", "d7"), topDeals);
+    }
+
+    @Test
+    void testFindTopLiveAt_WithZeroLimit_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> index.findTopLiveAt(LocalTime.NOON, new DealFilter(), DealSort.DISCOUNT, 0));
+    }
+
+    @Test
+    void testFindLiveAt_WithNoDeals_ReturnsEmptyList() {
+        DealAvailabilityIndex emptyIndex = new DealAvailabilityIndex(restaurants, Map.of());
+
+        assertTrue(emptyIndex.findLiveAt(LocalTime.NOON).isEmpty());
+    }
+
+    private List<String> dealIds(LocalTime time) {
+        return index.findLiveAt(time).stream().map(dealAtRestaurant -> dealAtRestaurant.getDeal().getObjectId()).toList();
+    }
+
+    private List<DealAtRestaurant> scan(LocalTime time) {
+        List<DealAtRestaurant> liveDeals = new ArrayList<>();
+        for (Restaurant restaurant : restaurants) {
+            if (!isWithin(restaurant.getOpenTime(), restaurant.getCloseTime(), time)) {
+                continue;
+            }
+            for (Deal deal : dealsByRestaurantId.get(restaurant.getObjectId())) {
+                if (!deal.hasOwnWindow() || isWithin(deal.getOpenTime(), deal.getCloseTime(), time)) {
+                    liveDeals.add(new DealAtRestaurant(restaurant, deal));
+                }
+            }
+        }
+        return liveDeals;
+    }
+
+    private static double sortKey(DealSort sort, DealAtRestaurant dealAtRestaurant) {
+        return sort == DealSort.DISCOUNT
+                ? dealAtRestaurant.getDeal().getDiscount()
+                : dealAtRestaurant.getDeal().getQtyLeft();
+    }
+
+    private static boolean isWithin(LocalTime openTime, LocalTime closeTime, LocalTime time) {
+        if (openTime.isBefore(closeTime)) {
+            return !time.isBefore(openTime) && !time.isAfter(closeTime);
+        } else {
+            return !time.isBefore(openTime) || !time.isAfter(closeTime);
+        }
+    }
+}
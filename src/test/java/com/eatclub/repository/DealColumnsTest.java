@@ -0,0 +1,164 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.Restaurant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealColumnsTest {
+
+    private Restaurant restaurant1;
+    private Restaurant restaurant2;
+    private Restaurant restaurant3;
+    private Map<String, List<Deal>> dealsByRestaurantId;
+    private DealColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        restaurant1 = new Restaurant("r1", "Restaurant 1", "123 Main St", "City", LocalTime.of(10, 0), LocalTime.of(22, 0),
+                List.of("Pizza"));
+        restaurant2 = new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "Town", LocalTime.of(18, 0), LocalTime.of(2, 0));
+        restaurant3 = new Restaurant("r3", "Restaurant 3", "789 Pine St", "City", LocalTime.of(9, 0), LocalTime.of(17, 0));
+
+        dealsByRestaurantId = new LinkedHashMap<>();
+        dealsByRestaurantId.put("r2", List.of(
+                new Deal("d3", "r2", 30.0f, false, true, 0, LocalTime.of(23, 0), LocalTime.of(1, 30))));
+        dealsByRestaurantId.put("r1", List.of(
+                new Deal("d1", "r1", 10.5f, true, false, 5),
+                new Deal("d2", "r1", 20.0f, false, false, 2)));
+        dealsByRestaurantId.put("orphan", List.of(new Deal("d4", "orphan", 50.0f, true, true, 9)));
+
+        columns = new DealColumns(List.of(restaurant1, restaurant2, restaurant3), dealsByRestaurantId);
+    }
+
+    @Test
+    void testConstructor_GroupsDealsContiguouslyInRestaurantOrder() {
+        assertEquals(3, columns.dealCount());
+        assertEquals(0, columns.firstDealOf(0));
+        assertEquals(2, columns.endDealOf(0));
+        assertEquals(2, columns.firstDealOf(1));
+        assertEquals(3, columns.endDealOf(1));
+        assertEquals(3, columns.firstDealOf(2));
+        assertEquals(3, columns.endDealOf(2));
+        assertEquals("d1", columns.objectId(0));
+        assertEquals("d3", columns.objectId(2));
+        assertEquals(1, columns.restaurantOrdinal(2));
+        assertSame(restaurant2, columns.restaurantOf(2));
+    }
+
+    @Test
+    void testColumns_HoldTheDealValuesAsPrimitives() {
+        assertEquals(10.5f, columns.discount(0));
+        assertEquals(5, columns.qtyLeft(0));
+        assertTrue(columns.isDineIn(0));
+        assertFalse(columns.isLightning(0));
+        assertFalse(columns.hasOwnWindow(0));
+        assertNull(columns.openTime(0));
+
+        assertTrue(columns.isLightning(2));
+        assertTrue(columns.hasOwnWindow(2));
+        assertEquals(LocalTime.of(23, 0), columns.openTime(2));
+        assertEquals(LocalTime.of(1, 30), columns.closeTime(2));
+    }
+
+    @Test
+    void testToDeal_MaterialisesTheOriginalDeal() {
+        assertEquals(dealsByRestaurantId.get("r1").get(1), columns.toDeal(1));
+        assertEquals(new DealAtRestaurant(restaurant2, dealsByRestaurantId.get("r2").get(0)), columns.toDealAtRestaurant(2));
+    }
+
+    @Test
+    void testDealsOf_WithUnknownOrOrphanedId_ReturnsEmptyList() {
+        assertEquals(dealsByRestaurantId.get("r1"), columns.dealsOf("r1"));
+        assertTrue(columns.dealsOf("r3").isEmpty());
+        assertTrue(columns.dealsOf("orphan").isEmpty());
+        assertTrue(columns.dealsOf(null).isEmpty());
+        assertEquals(-1, columns.restaurantIndexOf("orphan"));
+    }
+
+    @Test
+    void testToDealsByRestaurantId_RoundTripsTheListedRestaurants() {
+        assertEquals(Map.of("r1", dealsByRestaurantId.get("r1"), "r2", dealsByRestaurantId.get("r2"), "r3", List.of()),
+                columns.toDealsByRestaurantId());
+    }
+
+    @Test
+    void testMatches_AgreesWithDealFilterOnTheModel() {
+        List<DealFilter> filters = List.of(
+                new DealFilter(),
+                new DealFilter(" city ", null, null, null, null, null),
+                new DealFilter(null, "PIZZA", null, null, null, null),
+                new DealFilter(null, null, true, null, null, null),
+                new DealFilter(null, null, null, true, null, null),
+                new DealFilter(null, null, false, false, null, null),
+                new DealFilter(null, null, null, null, 20.0f, null),
+                new DealFilter(null, null, null, null, null, 3));
+
+        for (DealFilter filter : filters) {
+            for (int ordinal = 0; ordinal < columns.dealCount(); ordinal++) {
+                assertEquals(filter.matches(columns.toDealAtRestaurant(ordinal)), columns.matches(ordinal, filter),
+                        filter + " on " + columns.objectId(ordinal));
+            }
+        }
+    }
+
+    @Test
+    void testMatches_WithMissingDiscount_NeverPassesMinDiscount() {
+        DealColumns withMissing = new DealColumns(List.of(restaurant1),
+                Map.of("r1", List.of(new Deal("d1", "r1", null, null, null, null))));
+
+        assertTrue(Float.isNaN(withMissing.discount(0)));
+        assertEquals(Integer.MIN_VALUE, withMissing.qtyLeft(0));
+        assertFalse(withMissing.matches(0, new DealFilter(null, null, null, null, 0.0f, null)));
+        assertFalse(withMissing.matches(0, new DealFilter(null, null, null, null, null, 0)));
+    }
+
+    @Test
+    void testHasDeals_ComparesAgainstTheColumns() {
+        assertTrue(columns.hasDeals(0, dealsByRestaurantId.get("r1")));
+        assertTrue(columns.hasDeals(2, List.of()));
+        assertFalse(columns.hasDeals(0, List.of(dealsByRestaurantId.get("r1").get(0))));
+        assertFalse(columns.hasDeals(0, List.of(
+                new Deal("d1", "r1", 10.5f, true, false, 5),
+                new Deal("d2", "r1", 20.0f, false, false, 1))));
+        assertFalse(columns.hasDeals(1, List.of(
+                new Deal("d3", "r2", 30.0f, false, true, 0, LocalTime.of(23, 0), LocalTime.of(2, 0)))));
+    }
+
+    @Test
+    void testSelect_CopiesTheRestaurantsAndTheirDealsWithOwnOrdinals() {
+        DealColumns selected = columns.select(new int[] {1, 2, 0});
+
+        assertEquals(List.of(restaurant2, restaurant3, restaurant1), selected.getRestaurants());
+        assertEquals(3, selected.dealCount());
+        assertEquals(0, selected.firstDealOf(0));
+        assertEquals(1, selected.firstDealOf(1));
+        assertEquals(1, selected.endDealOf(1));
+        assertEquals(List.of("d3", "d1", "d2"), List.of(selected.objectId(0), selected.objectId(1), selected.objectId(2)));
+        assertEquals(columns.toDeal(2), selected.toDeal(0));
+        assertEquals(columns.toDeal(0), selected.toDeal(1));
+        assertEquals(columns.toDeal(1), selected.toDeal(2));
+        assertSame(restaurant1, selected.restaurantOf(2));
+        assertEquals(2, selected.restaurantIndexOf("r1"));
+        assertEquals(-1, columns.select(new int[] {0}).restaurantIndexOf("r2"));
+    }
+
+    @Test
+    void testDealSelection_MaterialisesOnlyWhenRead() {
+        DealSelection selection = new DealSelection(columns, new int[] {2, 0});
+
+        assertEquals(2, selection.size());
+        assertEquals(2, selection.ordinalAt(0));
+        assertEquals(new DealAtRestaurant(restaurant1, dealsByRestaurantId.get("r1").get(0)), selection.get(1));
+        assertNotSame(selection.get(1), selection.get(1));
+    }
+}
@@ -1,20 +1,33 @@
 package com.eatclub.repository;
 
 import com.eatclub.common.Constants;
+import com.eatclub.metrics.RestaurantMetrics;
 import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealPage;
+import com.eatclub.model.DealSort;
+import com.eatclub.model.OpeningHours;
 import com.eatclub.model.Restaurant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.DayOfWeek;
+import java.time.Instant;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 class InMemoryRestaurantRepositoryTest {
@@ -31,6 +44,7 @@ class InMemoryRestaurantRepositoryTest {
         mockServer = MockRestServiceServer.bindTo(restTemplate).build();
         setupMockRestTemplateResponse();
         repository = new InMemoryRestaurantRepository(restTemplate);
+        repository.refresh();
         testRestaurants = repository.findAllRestaurants();
         testDeals = new ArrayList<>();
         testDeals.addAll(repository.findDealsByRestaurantId("r1"));
@@ -125,6 +139,7 @@ class InMemoryRestaurantRepositoryTest {
                 .andRespond(withSuccess(jsonResponse, MediaType.APPLICATION_JSON));
         
         InMemoryRestaurantRepository emptyRepo = new InMemoryRestaurantRepository(emptyRestTemplate);
+        emptyRepo.refresh();
         List<Restaurant> result = emptyRepo.findAllRestaurants();
         
         assertTrue(result.isEmpty());
@@ -275,11 +290,11 @@ class InMemoryRestaurantRepositoryTest {
     }
 
     @Test
-    void testFindDealsByRestaurantId_ReturnsSameListReference() {
+    void testFindDealsByRestaurantId_MaterialisesEqualListsFromColumns() {
         List<Deal> result1 = repository.findDealsByRestaurantId("r1");
         List<Deal> result2 = repository.findDealsByRestaurantId("r1");
         
-        assertSame(result1, result2);
+        assertNotSame(result1, result2);
         assertEquals(result1, result2);
     }
 
@@ -308,6 +323,7 @@ class InMemoryRestaurantRepositoryTest {
                 .andRespond(withSuccess(jsonResponse, MediaType.APPLICATION_JSON));
         
         InMemoryRestaurantRepository allDayRepo = new InMemoryRestaurantRepository(allDayRestTemplate);
+        allDayRepo.refresh();
         LocalTime queryTime = LocalTime.of(12, 0);
         List<Restaurant> result = allDayRepo.findAvailableRestaurantsAt(queryTime);
         
@@ -327,4 +343,367 @@ class InMemoryRestaurantRepositoryTest {
         assertTrue(result1.stream().anyMatch(r -> r.getObjectId().equals("r1")));
         assertTrue(result2.stream().anyMatch(r -> r.getObjectId().equals("r1")));
     }
+
+    @Test
+    void testGetSnapshotVersion_AfterInitialLoad_ReturnsFirstVersion() {
+        assertEquals(1L, repository.getSnapshotVersion());
+    }
+
+    @Test
+    void testRefresh_WithUpdatedFeed_PublishesNewSnapshot() throws Exception {
+        RestaurantSnapshot previousSnapshot = repository.getSnapshot();
+        mockServer.reset();
+        mockServer.expect(requestTo(Constants.EC_API_CHALLENGE_ENDPOINT))
+                .andRespond(withSuccess("""
+                    {
+                      "restaurants": [
+                        {
+                          "objectId": "r9",
+                          "name": "Restaurant 9",
+                          "address1": "1 New St",
+                          "suburb": "City",
+                          "open": "8:00am",
+                          "close": "4:00pm",
+                          "deals": [
+                            {"objectId": "d9", "discount": "30.0", "dineIn": "true", "lightning": "true", "qtyLeft": "2"}
+                          ]
+                        }
+                      ]
+                    }
+                    """, MediaType.APPLICATION_JSON));
+
+        repository.refresh();
+
+        assertEquals(2L, repository.getSnapshotVersion());
+        assertEquals(1, repository.findAllRestaurants().size());
+        assertEquals("d9", repository.findDealsByRestaurantId("r9").get(0).getObjectId());
+        assertTrue(repository.findDealsByRestaurantId("r1").isEmpty());
+        assertEquals(4, previousSnapshot.getRestaurants().size());
+        mockServer.verify();
+    }
+
+    @Test
+    void testRefresh_WhenFetchFails_KeepsPreviousSnapshot() {
+        RestaurantSnapshot previousSnapshot = repository.getSnapshot();
+        mockServer.reset();
+        mockServer.expect(requestTo(Constants.EC_API_CHALLENGE_ENDPOINT))
+                .andRespond(withServerError());
+
+        assertThrows(Exception.class, () -> repository.refresh());
+
+        assertSame(previousSnapshot, repository.getSnapshot());
+        assertEquals(1L, repository.getSnapshotVersion());
+        assertEquals(4, repository.findAllRestaurants().size());
+    }
+
+    @Test
+    void testClear_DropsDataAndBumpsVersion() {
+        repository.clear();
+
+        assertEquals(2L, repository.getSnapshotVersion());
+        assertTrue(repository.findAllRestaurants().isEmpty());
+        assertTrue(repository.findAvailableRestaurantsAt(LocalTime.NOON).isEmpty());
+        assertTrue(repository.findDealsByRestaurantId("r1").isEmpty());
+    }
+
+    @Test
+    void testAddSnapshotListener_IsToldAboutCurrentSnapshotThenEachPublishedOne() {
+        List<String> calls = new ArrayList<>();
+        repository.addSnapshotListener(new ISnapshotListener() {
+            @Override
+            public void beforePublish(RestaurantSnapshot next) {
+                calls.add("before " + next.getVersion() + " serving " + repository.getSnapshotVersion());
+            }
+
+            @Override
+            public void afterPublish() {
+                calls.add("after serving " + repository.getSnapshotVersion());
+            }
+        });
+
+        repository.load(new RestaurantFeed(List.of(), Map.of(), Instant.now()), SnapshotSource.DISK);
+        repository.clear();
+
+        assertEquals(List.of("before 1 serving 1", "after serving 1",
+                "before 2 serving 1", "after serving 2",
+                "before 3 serving 2", "after serving 3"), calls);
+    }
+
+    @Test
+    void testLoad_WhenSnapshotListenerFails_StillPublishes() {
+        repository.addSnapshotListener(new ISnapshotListener() {
+            @Override
+            public void beforePublish(RestaurantSnapshot next) {
+                if (next.getVersion() > 1) {
+                    throw new IllegalStateException("boom");
+                }
+            }
+        });
+
+        repository.load(new RestaurantFeed(List.of(), Map.of(), Instant.now()), SnapshotSource.DISK);
+
+        assertEquals(2L, repository.getSnapshotVersion());
+    }
+
+    @Test
+    void testConstructor_DoesNotFetchFromApi() {
+        RestTemplate lazyRestTemplate = new RestTemplate();
+        MockRestServiceServer lazyMockServer = MockRestServiceServer.bindTo(lazyRestTemplate).build();
+
+        InMemoryRestaurantRepository lazyRepo = new InMemoryRestaurantRepository(lazyRestTemplate);
+
+        assertEquals(0L, lazyRepo.getSnapshotVersion());
+        assertEquals(SnapshotSource.NONE, lazyRepo.getSnapshot().getSource());
+        assertTrue(lazyRepo.findAllRestaurants().isEmpty());
+        lazyMockServer.verify();
+    }
+
+    @Test
+    void testLoad_WithFeedFromDisk_PublishesSnapshotWithSource() {
+        Restaurant restaurant = new Restaurant("r8", "Restaurant 8", "8 Disk St", "City",
+                LocalTime.of(9, 0), LocalTime.of(17, 0));
+        Instant fetchedAt = Instant.parse("2024-01-01T10:00:00Z");
+
+        repository.load(new RestaurantFeed(List.of(restaurant), Map.of("r8", List.of()), fetchedAt), SnapshotSource.DISK);
+
+        assertEquals(2L, repository.getSnapshotVersion());
+        assertEquals(SnapshotSource.DISK, repository.getSnapshot().getSource());
+        assertEquals(fetchedAt, repository.getSnapshot().getLoadedAt());
+        assertEquals(List.of(restaurant), repository.findAvailableRestaurantsAt(LocalTime.NOON));
+    }
+
+    @Test
+    void testFindAvailableDealsAt_HonoursDealWindowsWithinRestaurantHours() {
+        Restaurant restaurant = new Restaurant("r8", "Restaurant 8", "8 Disk St", "City",
+                LocalTime.of(9, 0), LocalTime.of(17, 0));
+        Deal plainDeal = new Deal("d8", "r8", 10.0f, true, false, 5);
+        Deal lunchDeal = new Deal("d9", "r8", 20.0f, true, false, 5, LocalTime.of(11, 30), LocalTime.of(14, 0));
+        Deal lateDeal = new Deal("d10", "r8", 30.0f, true, false, 5, LocalTime.of(16, 0), LocalTime.of(20, 0));
+        repository.load(new RestaurantFeed(List.of(restaurant), Map.of("r8", List.of(plainDeal, lunchDeal, lateDeal)),
+                Instant.now()), SnapshotSource.DISK);
+
+        assertEquals(List.of(plainDeal, lunchDeal), dealsAt(LocalTime.NOON));
+        assertEquals(List.of(plainDeal, lateDeal), dealsAt(LocalTime.of(16, 30)));
+        assertEquals(List.of(), dealsAt(LocalTime.of(18, 0)));
+    }
+
+    @Test
+    void testFindAvailableDealsAt_OnDay_UsesThatDaysOpeningHours() {
+        Restaurant restaurant = new Restaurant("r8", "Restaurant 8", "8 Disk St", "City",
+                LocalTime.of(9, 0), LocalTime.of(17, 0), List.of(), List.of(
+                        new OpeningHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0)),
+                        new OpeningHours(DayOfWeek.MONDAY, LocalTime.of(18, 0), LocalTime.of(21, 0))));
+        Deal plainDeal = new Deal("d8", "r8", 10.0f, true, false, 5);
+        repository.load(new RestaurantFeed(List.of(restaurant), Map.of("r8", List.of(plainDeal)), Instant.now()),
+                SnapshotSource.DISK);
+
+        assertEquals(List.of(new DealAtRestaurant(restaurant, plainDeal)),
+                repository.findAvailableDealsAt(DayOfWeek.MONDAY, LocalTime.of(19, 0), new DealFilter()));
+        assertEquals(List.of(), repository.findAvailableDealsAt(DayOfWeek.MONDAY, LocalTime.of(16, 0), new DealFilter()));
+        assertEquals(List.of(), repository.findAvailableDealsAt(DayOfWeek.TUESDAY, LocalTime.NOON, new DealFilter()));
+        assertEquals(List.of(restaurant), repository.findAvailableRestaurantsAt(DayOfWeek.MONDAY, LocalTime.NOON));
+        // Queries without a day keep using the daily hours
+        assertEquals(List.of(restaurant), repository.findAvailableRestaurantsAt(LocalTime.of(16, 0)));
+    }
+
+    @Test
+    void testFindAvailableDealsPageAt_ReturnsPagesOfCurrentSnapshot() {
+        LocalTime time = LocalTime.of(14, 0);
+        List<DealAtRestaurant> allDeals = repository.findAvailableDealsAt(time);
+
+        DealPage firstPage = repository.findAvailableDealsPageAt(time, new DealFilter(), 0, 2);
+        DealPage secondPage = repository.findAvailableDealsPageAt(time, new DealFilter(), firstPage.getNextOrdinal(), 2);
+
+        assertEquals(repository.getSnapshotVersion(), firstPage.getSnapshotVersion());
+        assertEquals(allDeals.subList(0, 2), firstPage.getDeals());
+        assertTrue(firstPage.hasNext());
+        assertEquals(allDeals.subList(2, allDeals.size()), secondPage.getDeals());
+        assertFalse(secondPage.hasNext());
+    }
+
+    @Test
+    void testFindAvailableDealsAt_WithFilter_ReturnsMatchingLiveDeals() {
+        Restaurant richmond = new Restaurant("r8", "Restaurant 8", "8 Disk St", "Richmond",
+                LocalTime.of(9, 0), LocalTime.of(17, 0), List.of("Thai"));
+        Restaurant carlton = new Restaurant("r9", "Restaurant 9", "9 Disk St", "Carlton",
+                LocalTime.of(9, 0), LocalTime.of(17, 0), List.of("Pizza", "Thai"));
+        Deal richmondDeal = new Deal("d8", "r8", 10.0f, true, false, 5);
+        Deal carltonDeal = new Deal("d9", "r9", 30.0f, false, true, 1);
+        repository.load(new RestaurantFeed(List.of(richmond, carlton),
+                Map.of("r8", List.of(richmondDeal), "r9", List.of(carltonDeal)), Instant.now()), SnapshotSource.DISK);
+
+        assertEquals(List.of(new DealAtRestaurant(richmond, richmondDeal)),
+                repository.findAvailableDealsAt(LocalTime.NOON, new DealFilter("richmond", null, null, null, null, null)));
+        assertEquals(List.of(new DealAtRestaurant(richmond, richmondDeal), new DealAtRestaurant(carlton, carltonDeal)),
+                repository.findAvailableDealsAt(LocalTime.NOON, new DealFilter(null, "thai", null, null, null, null)));
+        assertEquals(List.of(new DealAtRestaurant(carlton, carltonDeal)),
+                repository.findAvailableDealsAt(LocalTime.NOON, new DealFilter(null, null, null, true, 25.0f, null)));
+        assertEquals(List.of(),
+                repository.findAvailableDealsAt(LocalTime.of(18, 0), new DealFilter(null, "thai", null, null, null, null)));
+    }
+
+    @Test
+    void testFindTopAvailableDealsAt_ReturnsBestMatchingLiveDeals() {
+        Restaurant richmond = new Restaurant("r8", "Restaurant 8", "8 Disk St", "Richmond",
+                LocalTime.of(9, 0), LocalTime.of(17, 0), List.of("Thai"));
+        Deal smallDeal = new Deal("d8", "r8", 10.0f, true, false, 9);
+        Deal bigDeal = new Deal("d9", "r8", 50.0f, true, false, 1);
+        Deal takeawayDeal = new Deal("d10", "r8", 40.0f, false, false, 3);
+        repository.load(new RestaurantFeed(List.of(richmond),
+                Map.of("r8", List.of(smallDeal, bigDeal, takeawayDeal)), Instant.now()), SnapshotSource.DISK);
+
+        assertEquals(List.of(new DealAtRestaurant(richmond, bigDeal), new DealAtRestaurant(richmond, takeawayDeal)),
+                repository.findTopAvailableDealsAt(LocalTime.NOON, new DealFilter(), DealSort.DISCOUNT, 2));
+        assertEquals(List.of(new DealAtRestaurant(richmond, smallDeal)),
+                repository.findTopAvailableDealsAt(LocalTime.NOON, new DealFilter(null, null, true, null, null, null),
+                        DealSort.QTY_LEFT, 1));
+        assertEquals(List.of(),
+                repository.findTopAvailableDealsAt(LocalTime.of(18, 0), new DealFilter(), DealSort.DISCOUNT, 2));
+    }
+
+    @Test
+    void testForEachAvailableDealAt_VisitsSameDealsAsFindAvailableDealsAt() {
+        LocalTime time = LocalTime.of(14, 0);
+        List<DealAtRestaurant> visited = new ArrayList<>();
+
+        repository.forEachAvailableDealAt(time, new DealFilter(), visited::add);
+
+        assertEquals(repository.findAvailableDealsAt(time), visited);
+    }
+
+    @Test
+    void testRefresh_WhenFeedNotModified_SkipsParsingAndKeepsSnapshot() throws Exception {
+        try (StubFeedServer server = StubFeedServer.start()) {
+            server.serve("feed-v1.json");
+            InMemoryRestaurantRepository stubRepo = new InMemoryRestaurantRepository(new RestTemplate(), server.url());
+            assertTrue(stubRepo.refresh());
+            RestaurantSnapshot firstSnapshot = stubRepo.getSnapshot();
+
+            assertFalse(stubRepo.refresh());
+
+            assertSame(firstSnapshot, stubRepo.getSnapshot());
+            assertEquals(2, server.getRequestCount());
+            assertEquals(1, server.getFullResponseCount());
+        }
+    }
+
+    @Test
+    void testRefresh_RecordsFetchParseBuildAndOutcome() throws Exception {
+        try (StubFeedServer server = StubFeedServer.start()) {
+            server.serve("feed-v1.json");
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            InMemoryRestaurantRepository stubRepo = new InMemoryRestaurantRepository(new RestTemplate(), server.url(),
+                    new RestaurantMetrics(registry));
+
+            stubRepo.refresh();
+            stubRepo.refresh();
+            stubRepo.findAvailableRestaurantsAt(LocalTime.NOON);
+
+            assertEquals(2, registry.get(RestaurantMetrics.FEED_FETCH).timer().count());
+            assertEquals(1, registry.get(RestaurantMetrics.FEED_PARSE).timer().count());
+            assertEquals(1, registry.get(RestaurantMetrics.SNAPSHOT_BUILD).timer().count());
+            assertEquals(1.0, registry.get(RestaurantMetrics.FEED_REFRESHES).tag("outcome", "updated").counter().count());
+            assertEquals(1.0, registry.get(RestaurantMetrics.FEED_REFRESHES).tag("outcome", "not_modified").counter().count());
+            assertEquals(1, registry.get(RestaurantMetrics.REPOSITORY_LOOKUP)
+                    .tag("operation", "findAvailableRestaurantsAt").timer().count());
+        }
+    }
+
+    @Test
+    void testRefresh_WhenFetchFails_CountsFailure() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        InMemoryRestaurantRepository unreachableRepo = new InMemoryRestaurantRepository(new RestTemplate(),
+                "http://127.0.0.1:1/feed.json", new RestaurantMetrics(registry));
+
+        assertThrows(Exception.class, unreachableRepo::refresh);
+        assertEquals(1.0, registry.get(RestaurantMetrics.FEED_REFRESHES).tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void testRefresh_WithoutValidatorsAndSameContent_KeepsSnapshot() throws Exception {
+        try (StubFeedServer server = StubFeedServer.start()) {
+            server.serve("feed-v1.json");
+            server.disableValidators();
+            InMemoryRestaurantRepository stubRepo = new InMemoryRestaurantRepository(new RestTemplate(), server.url());
+            assertTrue(stubRepo.refresh());
+            RestaurantSnapshot firstSnapshot = stubRepo.getSnapshot();
+
+            assertFalse(stubRepo.refresh());
+
+            assertSame(firstSnapshot, stubRepo.getSnapshot());
+            assertEquals(2, server.getFullResponseCount());
+        }
+    }
+
+    @Test
+    void testRefresh_WithEditedAndAppendedRestaurants_PublishesIncrementalChanges() throws Exception {
+        try (StubFeedServer server = StubFeedServer.start()) {
+            server.serve("feed-v1.json");
+            InMemoryRestaurantRepository stubRepo = new InMemoryRestaurantRepository(new RestTemplate(), server.url());
+            stubRepo.refresh();
+            server.serve("feed-v2.json");
+
+            assertTrue(stubRepo.refresh());
+
+            assertEquals(2L, stubRepo.getSnapshotVersion());
+            assertEquals(Optional.of(Set.of("r2", "r4")), stubRepo.findRestaurantIdsChangedSince(1L));
+            assertEquals(Optional.empty(), stubRepo.findRestaurantIdsChangedSince(0L));
+            assertEquals(9, stubRepo.findDealsByRestaurantId("r2").get(0).getQtyLeft());
+            assertEquals(List.of("r1", "r2", "r4"), stubRepo.findAvailableRestaurantsAt(LocalTime.NOON).stream()
+                    .map(Restaurant::getObjectId).toList());
+        }
+    }
+
+    @Test
+    void testRefresh_WithUpdatedFeed_ReusesCanonicalSuburbsAndCuisines() throws Exception {
+        try (StubFeedServer server = StubFeedServer.start()) {
+            server.serve("feed-v1.json");
+            InMemoryRestaurantRepository stubRepo = new InMemoryRestaurantRepository(new RestTemplate(), server.url());
+            stubRepo.refresh();
+            Restaurant before = stubRepo.getSnapshot().getRestaurants().get(0);
+            server.serve("feed-v2.json");
+
+            stubRepo.refresh();
+
+            Restaurant after = stubRepo.getSnapshot().getRestaurants().get(0);
+            assertNotSame(before, after);
+            assertSame(before.getSuburb(), after.getSuburb());
+            assertSame(before.getCuisines(), after.getCuisines());
+        }
+    }
+
+    @Test
+    void testRefresh_WithRemovedRestaurant_PublishesNonIncrementalChanges() throws Exception {
+        try (StubFeedServer server = StubFeedServer.start()) {
+            server.serve("feed-v1.json");
+            InMemoryRestaurantRepository stubRepo = new InMemoryRestaurantRepository(new RestTemplate(), server.url());
+            stubRepo.refresh();
+            server.serve("feed-v3.json");
+
+            assertTrue(stubRepo.refresh());
+
+            assertEquals(Optional.empty(), stubRepo.findRestaurantIdsChangedSince(1L));
+            assertEquals(List.of("r2"), stubRepo.findAvailableRestaurantsAt(LocalTime.NOON).stream()
+                    .map(Restaurant::getObjectId).toList());
+        }
+    }
+
+    @Test
+    void testRefresh_AfterClear_FetchesFullFeedAgain() throws Exception {
+        try (StubFeedServer server = StubFeedServer.start()) {
+            server.serve("feed-v1.json");
+            InMemoryRestaurantRepository stubRepo = new InMemoryRestaurantRepository(new RestTemplate(), server.url());
+            stubRepo.refresh();
+            stubRepo.clear();
+
+            assertTrue(stubRepo.refresh());
+
+            assertEquals(3, stubRepo.findAllRestaurants().size());
+            assertEquals(2, server.getFullResponseCount());
+        }
+    }
+
+    private List<Deal> dealsAt(LocalTime time) {
+        return repository.findAvailableDealsAt(time).stream().map(DealAtRestaurant::getDeal).toList();
+    }
 }
@@ -0,0 +1,213 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealPage;
+import com.eatclub.model.DealSort;
+import com.eatclub.model.OpeningHours;
+import com.eatclub.model.Restaurant;
+import com.eatclub.service.RestaurantServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedRestaurantRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryRestaurantRepository snapshots;
+    private MappedSnapshotFileStore store;
+    private MappedRestaurantRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        snapshots = new InMemoryRestaurantRepository(new RestTemplate());
+        snapshots.load(new RestaurantFeed(List.of(
+                new Restaurant("r1", "Restaurant 1", "123 Main St", "Richmond",
+                        LocalTime.of(10, 0), LocalTime.of(22, 0), List.of("Thai")),
+                new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "Carlton",
+                        LocalTime.of(18, 0), LocalTime.of(2, 0), List.of("Pizza")),
+                new Restaurant("r3", "Restaurant 3", "789 Pine St", "Richmond",
+                        LocalTime.of(11, 0), LocalTime.of(15, 0), List.of(), List.of(
+                                new OpeningHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(15, 0)),
+                                new OpeningHours(DayOfWeek.SATURDAY, LocalTime.of(18, 0), LocalTime.of(23, 0))))),
+                Map.of(
+                        "r1", List.of(new Deal("d1", "r1", 10.0f, true, false, 5),
+                                new Deal("d2", "r1", 40.0f, false, true, 2, LocalTime.of(12, 0), LocalTime.of(14, 0))),
+                        "r2", List.of(new Deal("d3", "r2", 25.0f, true, true, 9)),
+                        "r3", List.of(new Deal("d4", "r3", 15.0f, true, false, 1))),
+                Instant.parse("2024-01-01T10:00:00Z")), SnapshotSource.DISK);
+        store = new MappedSnapshotFileStore(true, tempDir.resolve("restaurants.mapped"));
+        repository = new MappedRestaurantRepository(store, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.stop();
+    }
+
+    @Test
+    void testQueries_BeforeFileIsWritten_ReturnNothing() {
+        assertEquals(0L, repository.getSnapshotVersion());
+        assertEquals(List.of(), repository.findAllRestaurants());
+        assertEquals(List.of(), repository.findAvailableDealsAt(LocalTime.NOON));
+        assertEquals(0, repository.getDealColumns().restaurantCount());
+    }
+
+    @Test
+    void testQueries_ReturnSameResultsAsTheSnapshotTheFileWasWrittenFrom() throws Exception {
+        store.write(snapshots.getSnapshot());
+        repository.checkForNewFile();
+
+        assertEquals(1L, repository.getSnapshotVersion());
+        assertEquals(snapshots.findAllRestaurants(), repository.findAllRestaurants());
+        assertEquals(snapshots.findDealsByRestaurantId("r1"), repository.findDealsByRestaurantId("r1"));
+        for (LocalTime time : List.of(LocalTime.of(1, 0), LocalTime.NOON, LocalTime.of(13, 30, 15), LocalTime.of(19, 0))) {
+            assertEquals(snapshots.findAvailableRestaurantsAt(time), repository.findAvailableRestaurantsAt(time));
+            assertEquals(snapshots.findAvailableDealsAt(time), repository.findAvailableDealsAt(time));
+            DealFilter filter = new DealFilter("RICHMOND", null, true, null, null, null);
+            assertEquals(snapshots.findAvailableDealsAt(time, filter), repository.findAvailableDealsAt(time, filter));
+            assertEquals(snapshots.findTopAvailableDealsAt(time, new DealFilter(), DealSort.DISCOUNT, 2),
+                    repository.findTopAvailableDealsAt(time, new DealFilter(), DealSort.DISCOUNT, 2));
+        }
+        for (DayOfWeek day : List.of(DayOfWeek.MONDAY, DayOfWeek.SATURDAY)) {
+            for (LocalTime time : List.of(LocalTime.NOON, LocalTime.of(19, 0))) {
+                assertEquals(snapshots.findAvailableRestaurantsAt(day, time), repository.findAvailableRestaurantsAt(day, time));
+                assertEquals(snapshots.findAvailableDealsAt(day, time, new DealFilter()),
+                        repository.findAvailableDealsAt(day, time, new DealFilter()));
+            }
+        }
+        assertEquals(new RestaurantServiceImpl(snapshots).getPeakTimeWindows(60, 30, 2),
+                new RestaurantServiceImpl(repository).getPeakTimeWindows(60, 30, 2));
+    }
+
+    @Test
+    void testFindAvailableDealsPageAt_PagesThroughTheLiveDeals() throws Exception {
+        store.write(snapshots.getSnapshot());
+        repository.checkForNewFile();
+
+        DealPage firstPage = repository.findAvailableDealsPageAt(LocalTime.of(13, 0), new DealFilter(), 0, 2);
+        DealPage secondPage = repository.findAvailableDealsPageAt(LocalTime.of(13, 0), new DealFilter(),
+                firstPage.getNextOrdinal(), 2);
+
+        assertEquals(repository.getSnapshotVersion(), firstPage.getSnapshotVersion());
+        List<DealAtRestaurant> allDeals = snapshots.findAvailableDealsAt(LocalTime.of(13, 0));
+        assertEquals(allDeals.subList(0, 2), firstPage.getDeals());
+        assertEquals(allDeals.subList(2, allDeals.size()), secondPage.getDeals());
+        assertFalse(secondPage.hasNext());
+    }
+
+    @Test
+    void testForEachAvailableDealAt_VisitsSameDealsAsFindAvailableDealsAt() throws Exception {
+        store.write(snapshots.getSnapshot());
+        repository.checkForNewFile();
+        List<DealAtRestaurant> visited = new ArrayList<>();
+
+        repository.forEachAvailableDealAt(LocalTime.NOON, new DealFilter(), visited::add);
+
+        assertEquals(repository.findAvailableDealsAt(LocalTime.NOON), visited);
+    }
+
+    @Test
+    void testGetSnapshotSummary_DescribesTheMappedFile() throws Exception {
+        assertEquals(SnapshotSource.NONE, repository.getSnapshotSummary().source());
+
+        store.write(snapshots.getSnapshot());
+        repository.checkForNewFile();
+        SnapshotSummary summary = repository.getSnapshotSummary();
+
+        assertEquals(SnapshotSource.MAPPED, summary.source());
+        assertEquals(1L, summary.version());
+        assertEquals(Instant.parse("2024-01-01T10:00:00Z"), summary.loadedAt());
+        assertEquals(3, summary.restaurantCount());
+        assertEquals(4, summary.dealCount());
+        assertTrue(summary.estimatedHeapBytes() > 0);
+    }
+
+    @Test
+    void testGetSnapshotVersion_WhenFileIsReplaced_MapsTheNewFile() throws Exception {
+        store.write(snapshots.getSnapshot());
+        repository.checkForNewFile();
+        assertEquals(1L, repository.getSnapshotVersion());
+        assertEquals(1L, repository.getSnapshotVersion());
+
+        store.write(RestaurantSnapshot.empty(1));
+        repository.checkForNewFile();
+
+        assertEquals(2L, repository.getSnapshotVersion());
+        assertEquals(List.of(), repository.findAllRestaurants());
+        assertEquals(Optional.empty(), repository.findRestaurantIdsChangedSince(1L));
+    }
+
+    @Test
+    void testGetSnapshotVersion_WhenNewFileIsUnreadable_KeepsServingTheMappedOne() throws Exception {
+        store.write(snapshots.getSnapshot());
+        repository.checkForNewFile();
+        assertEquals(1L, repository.getSnapshotVersion());
+
+        Path corrupt = Files.write(tempDir.resolve("corrupt.mapped"), new byte[] { 1, 2, 3 });
+        Files.move(corrupt, store.getPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        repository.checkForNewFile();
+
+        assertEquals(1L, repository.getSnapshotVersion());
+        assertEquals(3, repository.findAllRestaurants().size());
+    }
+
+    @Test
+    void testQueries_WhenFileIsReplacedBetweenChecks_ServeTheMappedOne() throws Exception {
+        store.write(snapshots.getSnapshot());
+        repository.checkForNewFile();
+
+        store.write(RestaurantSnapshot.empty(1));
+
+        assertEquals(1L, repository.getSnapshotVersion());
+        assertEquals(3, repository.findAllRestaurants().size());
+    }
+
+    @Test
+    void testStart_WithFileAlreadyWritten_MapsItBeforeTheFirstRequest() throws Exception {
+        store.write(snapshots.getSnapshot());
+        MappedRestaurantRepository started = new MappedRestaurantRepository(store, Duration.ofHours(1));
+
+        started.start();
+        try {
+            assertEquals(1L, started.getSnapshotVersion());
+            assertEquals(snapshots.findAllRestaurants(), started.findAllRestaurants());
+        } finally {
+            started.stop();
+        }
+    }
+
+    @Test
+    void testConstructor_WithZeroCheckInterval_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new MappedRestaurantRepository(store, Duration.ZERO));
+    }
+
+    @Test
+    void testWrite_WhenDisabled_WritesNothing() throws Exception {
+        MappedSnapshotFileStore disabled = new MappedSnapshotFileStore(false, tempDir.resolve("disabled.mapped"));
+
+        disabled.write(snapshots.getSnapshot());
+
+        assertFalse(Files.exists(disabled.getPath()));
+        assertEquals(Optional.empty(), disabled.currentFileKey());
+    }
+}
@@ -0,0 +1,180 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealSort;
+import com.eatclub.model.OpeningHours;
+import com.eatclub.model.Restaurant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSnapshotFileTest {
+
+    private static final List<LocalTime> TIMES = List.of(
+            LocalTime.MIDNIGHT, LocalTime.of(1, 0), LocalTime.of(11, 30), LocalTime.of(12, 0, 30), LocalTime.of(15, 0),
+            LocalTime.of(22, 0), LocalTime.of(23, 59, 30));
+    private static final List<DealFilter> FILTERS = List.of(
+            new DealFilter(),
+            new DealFilter("city", null, null, null, null, null),
+            new DealFilter(null, "PIZZA", null, null, null, null),
+            new DealFilter(null, null, true, null, null, null),
+            new DealFilter(null, null, null, null, 12.0f, 2));
+
+    @TempDir
+    Path tempDir;
+
+    private RestaurantSnapshot snapshot;
+    private MappedSnapshotFile file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        snapshot = snapshotOf(7, List.of(
+                new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+                        LocalTime.of(10, 0), LocalTime.of(22, 0), List.of("Pizza", "Italian")),
+                new Restaurant("r2", "Restaurant 2", null, "Town", LocalTime.of(22, 0), LocalTime.of(2, 0)),
+                new Restaurant("r3", "Café Trois", "3 Rue St", null, LocalTime.of(9, 0), LocalTime.of(9, 0)),
+                new Restaurant("r4", "Restaurant 4", "4 Elm St", "City", LocalTime.of(11, 0), LocalTime.of(15, 0),
+                        List.of(), List.of(new OpeningHours(DayOfWeek.TUESDAY, LocalTime.of(11, 0), LocalTime.of(15, 0)),
+                                new OpeningHours(DayOfWeek.SUNDAY, LocalTime.of(17, 0), LocalTime.of(0, 30))))),
+                Map.of(
+                        "r1", List.of(new Deal("d1", "r1", 10.5f, true, false, 5),
+                                new Deal("d2", "r1", 15.0f, false, true, 3, LocalTime.of(11, 0), LocalTime.of(12, 0))),
+                        "r2", List.of(new Deal("d3", "r2", 30.0f, true, true, 1)),
+                        "r3", List.of(new Deal("d4", "r3", 20.0f, false, false, 8, LocalTime.of(23, 0), LocalTime.of(1, 30)),
+                                new Deal("d5", "r3", 12.0f, true, false, 2))));
+        Path path = tempDir.resolve("restaurants.mapped");
+        MappedSnapshotFile.write(snapshot, path);
+        file = MappedSnapshotFile.open(path);
+    }
+
+    @Test
+    void testOpen_ReadsHeaderAndRestaurants() {
+        assertEquals(7L, file.getSnapshotVersion());
+        assertEquals(snapshot.getLoadedAt(), file.getLoadedAt());
+        assertEquals(4, file.restaurantCount());
+        assertEquals(5, file.dealCount());
+        assertEquals(snapshot.getRestaurants(), file.restaurants());
+        assertSame(file.restaurant(0), file.restaurant(0));
+    }
+
+    @Test
+    void testToDealColumns_RoundTripsTheDeals() {
+        assertEquals(snapshot.getDealsByRestaurantId(), file.toDealColumns().toDealsByRestaurantId());
+        assertEquals(snapshot.getDealColumns().dealsOf("r3"), file.dealsOf("r3"));
+    }
+
+    @Test
+    void testRestaurantIndexOf_FindsIdsInTheSortedIdColumn() {
+        for (int r = 0; r < file.restaurantCount(); r++) {
+            assertEquals(r, file.restaurantIndexOf(file.restaurant(r).getObjectId()));
+        }
+        assertEquals(-1, file.restaurantIndexOf("r0"));
+        assertEquals(-1, file.restaurantIndexOf("r5"));
+        assertEquals(-1, file.restaurantIndexOf(null));
+        assertEquals(List.of(), file.dealsOf("missing"));
+    }
+
+    @Test
+    void testFindAvailableRestaurantsAt_MatchesTheSnapshotIndex() {
+        for (LocalTime time : TIMES) {
+            assertEquals(snapshot.getAvailabilityIndex().findAvailableAt(time), file.findAvailableRestaurantsAt(time),
+                    time.toString());
+        }
+    }
+
+    @Test
+    void testForEachLiveOrdinalAt_MatchesTheSnapshotIndex() {
+        DealAvailabilityIndex index = snapshot.getDealAvailabilityIndex();
+        for (LocalTime time : TIMES) {
+            for (DealFilter filter : FILTERS) {
+                assertEquals(index.findLiveAt(time, filter), file.select(liveOrdinals(time, filter)), time + " " + filter);
+            }
+        }
+    }
+
+    @Test
+    void testForEachLiveOrdinalAt_WithLimit_ResumesWhereTheSnapshotIndexDoes() {
+        DealAvailabilityIndex index = snapshot.getDealAvailabilityIndex();
+        for (DealFilter filter : FILTERS) {
+            List<Integer> expected = new ArrayList<>();
+            List<Integer> actual = new ArrayList<>();
+
+            int expectedNext = index.forEachLiveOrdinalAt(LocalTime.of(11, 30), filter, 1, 1, expected::add);
+            int actualNext = file.forEachLiveOrdinalAt(LocalTime.of(11, 30), filter, 1, 1, actual::add);
+
+            assertEquals(expected, actual);
+            assertEquals(expectedNext, actualNext);
+        }
+    }
+
+    @Test
+    void testFindTopLiveAt_RanksLikeTheSnapshotIndex() {
+        DealAvailabilityIndex index = snapshot.getDealAvailabilityIndex();
+        for (LocalTime time : TIMES) {
+            for (DealSort sort : DealSort.values()) {
+                assertEquals(index.findTopLiveAt(time, new DealFilter(), sort, 2),
+                        file.select(file.findTopLiveAt(time, new DealFilter(), sort, 2)), time + " " + sort);
+            }
+        }
+    }
+
+    @Test
+    void testOpen_AfterFileIsReplaced_KeepsReadingTheMappedCopy() throws Exception {
+        Path path = tempDir.resolve("restaurants.mapped");
+
+        MappedSnapshotFile.write(RestaurantSnapshot.empty(8), path);
+
+        assertEquals(4, file.restaurantCount());
+        assertEquals("Café Trois", file.restaurant(2).getName());
+        assertEquals(0, MappedSnapshotFile.open(path).restaurantCount());
+    }
+
+    @Test
+    void testOpen_WithOtherOrTruncatedFile_ThrowsIOException() throws Exception {
+        Path other = tempDir.resolve("other.bin");
+        Files.write(other, new byte[128]);
+        Path path = tempDir.resolve("restaurants.mapped");
+        byte[] bytes = Files.readAllBytes(path);
+        Path truncated = tempDir.resolve("truncated.mapped");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 4));
+
+        assertThrows(IOException.class, () -> MappedSnapshotFile.open(other));
+        assertThrows(IOException.class, () -> MappedSnapshotFile.open(truncated));
+    }
+
+    @Test
+    void testOf_WithEmptySnapshot_HasNothingLive() {
+        MappedSnapshotFile empty = MappedSnapshotFile.of(RestaurantSnapshot.empty(0));
+
+        assertEquals(0, empty.restaurantCount());
+        assertEquals(List.of(), empty.findAvailableRestaurantsAt(LocalTime.NOON));
+        assertEquals(-1, empty.forEachLiveOrdinalAt(LocalTime.NOON, new DealFilter(), 0, 10, ordinal -> fail()));
+    }
+
+    private int[] liveOrdinals(LocalTime time, DealFilter filter) {
+        IntStream.Builder ordinals = IntStream.builder();
+        file.forEachLiveOrdinalAt(time, filter, 0, Integer.MAX_VALUE, ordinals::add);
+        return ordinals.build().toArray();
+    }
+
+    private static RestaurantSnapshot snapshotOf(long version, List<Restaurant> restaurants,
+            Map<String, List<Deal>> dealsByRestaurantId) {
+        return RestaurantSnapshot.of(version, SnapshotSource.DISK,
+                new RestaurantFeed(restaurants, dealsByRestaurantId, Instant.parse("2024-01-01T10:00:00Z")));
+    }
+}
@@ -0,0 +1,140 @@
+package com.eatclub.repository;
+
+import com.eatclub.common.Constants;
+import com.eatclub.model.Restaurant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantAvailabilityIndexTest {
+
+    private List<Restaurant> restaurants;
+    private RestaurantAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        restaurants = Arrays.asList(
+                new Restaurant("r1", "Restaurant 1", "123 Main St", "City", LocalTime.of(10, 0), LocalTime.of(22, 0)),
+                new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "Suburb", LocalTime.of(11, 30), LocalTime.of(23, 30)),
+                new Restaurant("r3", "Restaurant 3", "789 Pine St", "Town", LocalTime.of(22, 0), LocalTime.of(2, 0)),
+                new Restaurant("r4", "Restaurant 4", "321 Elm St", "Village", LocalTime.of(0, 0), LocalTime.of(23, 59)),
+                new Restaurant("r5", "Restaurant 5", "999 Test St", "City", LocalTime.of(18, 0), LocalTime.of(0, 0)),
+                new Restaurant("r6", "Restaurant 6", "111 Same St", "City", LocalTime.of(9, 15), LocalTime.of(9, 15)),
+                new Restaurant("r7", "Restaurant 7", "222 Late St", "City", LocalTime.of(23, 59), LocalTime.of(0, 1)));
+        index = new RestaurantAvailabilityIndex(restaurants);
+    }
+
+    @Test
+    void testFindAvailableAt_MatchesLinearScanAtEveryMinute() {
+        for (int minute = 0; minute < Constants.MINUTES_PER_DAY; minute++) {
+            LocalTime time = LocalTime.of(minute / 60, minute % 60);
+
+            assertEquals(scan(time), index.findAvailableAt(time), "Mismatch at " + time);
+        }
+    }
+
+    @Test
+    void testFindAvailableAt_MatchesLinearScanBetweenMinutes() {
+        for (int minute = 0; minute < Constants.MINUTES_PER_DAY; minute++) {
+            LocalTime halfPast = LocalTime.of(minute / 60, minute % 60, 30);
+            LocalTime lastNano = LocalTime.of(minute / 60, minute % 60, 59, 999_999_999);
+
+            assertEquals(scan(halfPast), index.findAvailableAt(halfPast), "Mismatch at " + halfPast);
+            assertEquals(scan(lastNano), index.findAvailableAt(lastNano), "Mismatch at " + lastNano);
+        }
+    }
+
+    @Test
+    void testFindAvailableAt_AtBoundaryMinutes() {
+        assertTrue(ids(LocalTime.of(10, 0)).contains("r1"));
+        assertTrue(ids(LocalTime.of(22, 0)).contains("r1"));
+        assertFalse(ids(LocalTime.of(22, 1)).contains("r1"));
+        assertFalse(ids(LocalTime.of(9, 59)).contains("r1"));
+
+        assertTrue(ids(LocalTime.of(2, 0)).contains("r3"));
+        assertFalse(ids(LocalTime.of(2, 1)).contains("r3"));
+        assertFalse(ids(LocalTime.of(21, 59)).contains("r3"));
+
+        assertTrue(ids(LocalTime.MIDNIGHT).contains("r5"));
+        assertFalse(ids(LocalTime.of(0, 1)).contains("r5"));
+    }
+
+    @Test
+    void testFindAvailableAt_WithOpenEqualToClose_IsOpenAllDay() {
+        assertTrue(ids(LocalTime.of(3, 0)).contains("r6"));
+        assertTrue(ids(LocalTime.of(9, 15)).contains("r6"));
+        assertTrue(ids(LocalTime.MAX).contains("r6"));
+    }
+
+    @Test
+    void testFindAvailableAt_KeepsRestaurantOrder() {
+        List<Restaurant> result = index.findAvailableAt(LocalTime.of(22, 0));
+
+        assertEquals(List.of("r1", "r2", "r3", "r4", "r5", "r6"),
+                result.stream().map(Restaurant::getObjectId).toList());
+    }
+
+    @Test
+    void testFindAvailableAt_WithNoRestaurants_ReturnsEmptyList() {
+        RestaurantAvailabilityIndex emptyIndex = new RestaurantAvailabilityIndex(List.of());
+
+        assertTrue(emptyIndex.findAvailableAt(LocalTime.NOON).isEmpty());
+    }
+
+    @Test
+    void testUpdate_WithMovedHoursAndAppendedRestaurant_MatchesLinearScan() {
+        List<Restaurant> updatedRestaurants = new ArrayList<>(restaurants);
+        updatedRestaurants.set(0, new Restaurant("r1", "Restaurant 1", "123 Main St", "City", LocalTime.of(6, 0), LocalTime.of(1, 0)));
+        updatedRestaurants.set(2, new Restaurant("r3", "Restaurant 3", "789 Pine St", "Town", LocalTime.of(12, 0), LocalTime.of(13, 0)));
+        updatedRestaurants.add(new Restaurant("r8", "Restaurant 8", "333 New St", "City", LocalTime.of(8, 0), LocalTime.of(8, 30)));
+
+        RestaurantAvailabilityIndex updatedIndex = index.update(updatedRestaurants, Set.of("r1", "r3", "r8"));
+
+        for (int minute = 0; minute < Constants.MINUTES_PER_DAY; minute++) {
+            LocalTime time = LocalTime.of(minute / 60, minute % 60);
+            LocalTime halfPast = time.plusSeconds(30);
+
+            assertEquals(scan(updatedRestaurants, time), updatedIndex.findAvailableAt(time), "Mismatch at " + time);
+            assertEquals(scan(updatedRestaurants, halfPast), updatedIndex.findAvailableAt(halfPast), "Mismatch at " + halfPast);
+            assertEquals(scan(time), index.findAvailableAt(time), "Previous index changed at " + time);
+        }
+    }
+
+    @Test
+    void testUpdate_WithUnchangedHours_ReturnsUpdatedRestaurants() {
+        List<Restaurant> updatedRestaurants = new ArrayList<>(restaurants);
+        updatedRestaurants.set(1, new Restaurant("r2", "Renamed 2", "456 Oak Ave", "Suburb", LocalTime.of(11, 30), LocalTime.of(23, 30)));
+
+        RestaurantAvailabilityIndex updatedIndex = index.update(updatedRestaurants, Set.of("r2"));
+
+        assertEquals("Renamed 2", updatedIndex.findAvailableAt(LocalTime.NOON).get(1).getName());
+        assertEquals("Restaurant 2", index.findAvailableAt(LocalTime.NOON).get(1).getName());
+    }
+
+    private List<String> ids(LocalTime time) {
+        return index.findAvailableAt(time).stream().map(Restaurant::getObjectId).toList();
+    }
+
+    private List<Restaurant> scan(LocalTime time) {
+        return scan(restaurants, time);
+    }
+
+    private static List<Restaurant> scan(List<Restaurant> restaurants, LocalTime time) {
+        return restaurants.stream().filter(restaurant -> {
+            LocalTime openTime = restaurant.getOpenTime();
+            LocalTime closeTime = restaurant.getCloseTime();
+            if (openTime.isBefore(closeTime)) {
+                return !time.isBefore(openTime) && !time.isAfter(closeTime);
+            } else {
+                return !time.isBefore(openTime) || !time.isAfter(closeTime);
+            }
+        }).toList();
+    }
+}
@@ -0,0 +1,77 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Restaurant;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantDictionaryTest {
+
+    @Test
+    void testEncode_SharesSuburbsCuisinesAndCuisineLists() {
+        Restaurant restaurant1 = restaurant("r1", "City", "Thai", "Asian");
+        Restaurant restaurant2 = restaurant("r2", "City", "Thai", "Asian");
+        Restaurant restaurant3 = restaurant("r3", "Town", "Thai");
+        RestaurantDictionary dictionary = new RestaurantDictionary();
+
+        dictionary.encode(List.of(restaurant1, restaurant2, restaurant3));
+
+        assertSame(restaurant1.getSuburb(), restaurant2.getSuburb());
+        assertSame(restaurant1.getCuisines(), restaurant2.getCuisines());
+        assertSame(restaurant1.getCuisines().get(0), restaurant3.getCuisines().get(0));
+        assertEquals(List.of("Thai", "Asian"), restaurant2.getCuisines());
+        assertEquals(2, dictionary.suburbCount());
+        assertEquals(2, dictionary.cuisineCount());
+        assertTrue(dictionary.savedBytes() > 0);
+    }
+
+    @Test
+    void testEncode_WithNullSuburbAndCuisines_LeavesThemNull() {
+        Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "1 Main St", null, LocalTime.of(9, 0),
+                LocalTime.of(17, 0), null);
+        RestaurantDictionary dictionary = new RestaurantDictionary();
+
+        dictionary.encode(List.of(restaurant));
+
+        assertNull(restaurant.getSuburb());
+        assertNull(restaurant.getCuisines());
+        assertEquals(0, dictionary.savedBytes());
+    }
+
+    @Test
+    void testNextGeneration_KeepsInstancesAcrossLoads() {
+        Restaurant before = restaurant("r1", "City", "Thai");
+        RestaurantDictionary dictionary = new RestaurantDictionary();
+        dictionary.encode(List.of(before));
+
+        Restaurant after = restaurant("r1", "City", "Thai");
+        dictionary.nextGeneration().encode(List.of(after));
+
+        assertSame(before.getSuburb(), after.getSuburb());
+        assertSame(before.getCuisines(), after.getCuisines());
+    }
+
+    @Test
+    void testEstimatedHeapBytes_CountsDistinctValuesOnly() {
+        RestaurantDictionary one = new RestaurantDictionary();
+        one.encode(List.of(restaurant("r1", "City", "Thai")));
+        RestaurantDictionary many = new RestaurantDictionary();
+        many.encode(List.of(restaurant("r1", "City", "Thai"), restaurant("r2", "City", "Thai"),
+                restaurant("r3", "City", "Thai")));
+
+        assertEquals(one.estimatedHeapBytes(), many.estimatedHeapBytes());
+    }
+
+    private static Restaurant restaurant(String objectId, String suburb, String... cuisines) {
+        List<String> cuisineList = new ArrayList<>();
+        for (String cuisine : cuisines) {
+            cuisineList.add(new String(cuisine));
+        }
+        return new Restaurant(objectId, "Restaurant " + objectId, "1 Main St", new String(suburb),
+                LocalTime.of(9, 0), LocalTime.of(17, 0), cuisineList);
+    }
+}
@@ -0,0 +1,87 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.Restaurant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantFeedDiffTest {
+
+    private Restaurant restaurant1;
+    private Restaurant restaurant2;
+    private Deal deal1;
+    private Deal deal2;
+    private RestaurantSnapshot previous;
+
+    @BeforeEach
+    void setUp() {
+        restaurant1 = new Restaurant("r1", "Restaurant 1", "123 Main St", "City", LocalTime.of(10, 0), LocalTime.of(22, 0));
+        restaurant2 = new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "Suburb", LocalTime.of(22, 0), LocalTime.of(2, 0));
+        deal1 = new Deal("d1", "r1", 10.0f, true, false, 5);
+        deal2 = new Deal("d2", "r2", 20.0f, false, true, 3);
+        previous = new RestaurantSnapshot(4, SnapshotSource.UPSTREAM, Instant.now(), List.of(restaurant1, restaurant2),
+                Map.of("r1", List.of(deal1), "r2", List.of(deal2)));
+    }
+
+    @Test
+    void testBetween_WithIdenticalData_HasNoChanges() {
+        RestaurantFeedDiff diff = RestaurantFeedDiff.between(previous, List.of(copy(restaurant1), copy(restaurant2)),
+                Map.of("r1", List.of(deal1), "r2", List.of(deal2)));
+
+        assertTrue(diff.isIncremental());
+        assertEquals(4L, diff.getBaseVersion());
+        assertEquals(Set.of(), diff.getChangedRestaurantIds());
+    }
+
+    @Test
+    void testBetween_WithEditedHoursAndDeals_ReportsChangedRestaurants() {
+        Restaurant movedRestaurant1 = copy(restaurant1);
+        movedRestaurant1.setCloseTime(LocalTime.of(23, 0));
+        Deal changedDeal2 = new Deal("d2", "r2", 20.0f, false, true, 2);
+
+        RestaurantFeedDiff diff = RestaurantFeedDiff.between(previous, List.of(movedRestaurant1, restaurant2),
+                Map.of("r1", List.of(deal1), "r2", List.of(changedDeal2)));
+
+        assertTrue(diff.isIncremental());
+        assertEquals(Set.of("r1", "r2"), diff.getChangedRestaurantIds());
+    }
+
+    @Test
+    void testBetween_WithAppendedRestaurant_ReportsOnlyNewRestaurant() {
+        Restaurant restaurant3 = new Restaurant("r3", "Restaurant 3", "789 Pine St", "Town", LocalTime.of(9, 0), LocalTime.of(17, 0));
+
+        RestaurantFeedDiff diff = RestaurantFeedDiff.between(previous, List.of(restaurant1, restaurant2, restaurant3),
+                Map.of("r1", List.of(deal1), "r2", List.of(deal2)));
+
+        assertTrue(diff.isIncremental());
+        assertEquals(Set.of("r3"), diff.getChangedRestaurantIds());
+    }
+
+    @Test
+    void testBetween_WithRemovedRestaurant_IsNotIncremental() {
+        RestaurantFeedDiff diff = RestaurantFeedDiff.between(previous, List.of(restaurant2), Map.of("r2", List.of(deal2)));
+
+        assertFalse(diff.isIncremental());
+    }
+
+    @Test
+    void testBetween_WithReorderedRestaurants_IsNotIncremental() {
+        RestaurantFeedDiff diff = RestaurantFeedDiff.between(previous, List.of(restaurant2, restaurant1),
+                Map.of("r1", List.of(deal1), "r2", List.of(deal2)));
+
+        assertFalse(diff.isIncremental());
+    }
+
+    private static Restaurant copy(Restaurant restaurant) {
+        return new Restaurant(restaurant.getObjectId(), restaurant.getName(), restaurant.getAddress1(),
+                restaurant.getSuburb(), restaurant.getOpenTime(), restaurant.getCloseTime());
+    }
+}
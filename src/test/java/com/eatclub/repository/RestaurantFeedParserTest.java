@@ -0,0 +1,215 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.OpeningHours;
+import com.eatclub.model.Restaurant;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantFeedParserTest {
+
+    private final RestaurantFeedParser parser = new RestaurantFeedParser();
+
+    @Test
+    void testParse_WithFeed_ReturnsRestaurantsAndDeals() throws Exception {
+        RestaurantFeed feed = parse("""
+            {
+              "restaurants": [
+                {
+                  "objectId": "r1",
+                  "name": "Restaurant 1",
+                  "address1": "123 Main St",
+                  "suburb": "City",
+                  "cuisines": ["Pizza", "Italian"],
+                  "imageLink": "https://example.com/r1.jpg",
+                  "open": "10:00am",
+                  "close": "10:00pm",
+                  "deals": [
+                    {"objectId": "d1", "discount": "10.5", "dineIn": "true", "lightning": "false", "qtyLeft": "5"},
+                    {"objectId": "d2", "discount": "15", "dineIn": "false", "lightning": "true", "open": "3:00pm", "qtyLeft": "3"}
+                  ]
+                },
+                {
+                  "objectId": "r2",
+                  "name": "Restaurant 2",
+                  "address1": "456 Oak Ave",
+                  "suburb": "Suburb",
+                  "open": "10:00PM",
+                  "close": " 2:00am ",
+                  "deals": []
+                }
+              ]
+            }
+            """);
+
+        assertEquals(List.of(
+                new Restaurant("r1", "Restaurant 1", "123 Main St", "City", LocalTime.of(10, 0), LocalTime.of(22, 0),
+                        List.of("Pizza", "Italian")),
+                new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "Suburb", LocalTime.of(22, 0), LocalTime.of(2, 0))),
+                feed.restaurants());
+        assertEquals(List.of(
+                new Deal("d1", "r1", 10.5f, true, false, 5),
+                new Deal("d2", "r1", 15.0f, false, true, 3)),
+                feed.dealsByRestaurantId().get("r1"));
+        assertEquals(List.of(), feed.dealsByRestaurantId().get("r2"));
+    }
+
+    @Test
+    void testParse_WithObjectIdAfterDeals_LinksDealsToRestaurant() throws Exception {
+        RestaurantFeed feed = parse("""
+            {"restaurants": [{
+              "deals": [{"objectId": "d1", "discount": "10", "dineIn": "true", "lightning": "false", "qtyLeft": "1"}],
+              "open": "9:00am", "close": "5:00pm", "objectId": "r1"
+            }]}
+            """);
+
+        assertEquals("r1", feed.dealsByRestaurantId().get("r1").get(0).getRestaurantId());
+    }
+
+    @Test
+    void testParse_WithNonStringScalars_ReadsValues() throws Exception {
+        RestaurantFeed feed = parse("""
+            {"restaurants": [{
+              "objectId": "r1", "open": "9:00am", "close": "5:00pm",
+              "deals": [{"objectId": "d1", "discount": 20, "dineIn": true, "lightning": false, "qtyLeft": 4}]
+            }]}
+            """);
+
+        assertEquals(new Deal("d1", "r1", 20.0f, true, false, 4), feed.dealsByRestaurantId().get("r1").get(0));
+    }
+
+    @Test
+    void testParse_WithUnknownTopLevelFields_SkipsThem() throws Exception {
+        RestaurantFeed feed = parse("""
+            {"meta": {"generated": "today", "tags": [1, 2, {"a": []}]},
+             "restaurants": [{"objectId": "r1", "open": "9:00am", "close": "5:00pm"}],
+             "count": 1}
+            """);
+
+        assertEquals(1, feed.restaurants().size());
+        assertEquals(List.of(), feed.dealsByRestaurantId().get("r1"));
+    }
+
+    @Test
+    void testParse_WithDealWindows_ReadsOpenCloseAndStartEnd() throws Exception {
+        RestaurantFeed feed = parse("""
+            {"restaurants": [{
+              "objectId": "r1", "open": "9:00am", "close": "11:00pm",
+              "deals": [
+                {"objectId": "d1", "discount": "10", "dineIn": "true", "lightning": "false", "qtyLeft": "1", "open": "3:00pm", "close": "6:00pm"},
+                {"objectId": "d2", "discount": "20", "dineIn": "true", "lightning": "false", "qtyLeft": "1", "start": "9:00pm", "end": "1:00am"},
+                {"objectId": "d3", "discount": "30", "dineIn": "true", "lightning": "false", "qtyLeft": "1", "end": "1:00pm"}
+              ]
+            }]}
+            """);
+
+        List<Deal> deals = feed.dealsByRestaurantId().get("r1");
+        assertEquals(new Deal("d1", "r1", 10.0f, true, false, 1, LocalTime.of(15, 0), LocalTime.of(18, 0)), deals.get(0));
+        assertEquals(new Deal("d2", "r1", 20.0f, true, false, 1, LocalTime.of(21, 0), LocalTime.of(1, 0)), deals.get(1));
+        assertFalse(deals.get(2).hasOwnWindow());
+    }
+
+    @Test
+    void testParse_WithOpeningHours_ReadsEveryInterval() throws Exception {
+        RestaurantFeed feed = parse("""
+            {"restaurants": [{"objectId": "r1", "open": "11:30am", "close": "10:00pm", "openingHours": [
+              {"day": "Monday", "open": "11:30am", "close": "2:30pm"},
+              {"day": "mon", "open": "5:30pm", "close": "10:00pm"},
+              {"day": "SAT", "open": "6:00pm", "close": "1:00am", "note": "late"}
+            ]}]}
+            """);
+
+        assertEquals(List.of(
+                new OpeningHours(DayOfWeek.MONDAY, LocalTime.of(11, 30), LocalTime.of(14, 30)),
+                new OpeningHours(DayOfWeek.MONDAY, LocalTime.of(17, 30), LocalTime.of(22, 0)),
+                new OpeningHours(DayOfWeek.SATURDAY, LocalTime.of(18, 0), LocalTime.of(1, 0))),
+                feed.restaurants().get(0).getOpeningHours());
+    }
+
+    @Test
+    void testParse_WithInvalidOpeningHoursDay_ThrowsException() {
+        InputStream feed = new ByteArrayInputStream("""
+            {"restaurants": [{"objectId": "r1", "open": "9:00am", "close": "5:00pm",
+              "openingHours": [{"day": "someday", "open": "9:00am", "close": "5:00pm"}]}]}
+            """.getBytes(StandardCharsets.UTF_8));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> parser.parse(feed));
+        assertTrue(exception.getMessage().contains("r1"));
+    }
+
+    @Test
+    void testParse_WithInvalidDealTime_ThrowsException() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> parse("""
+            {"restaurants": [{"objectId": "r1", "open": "9:00am", "close": "5:00pm", "deals": [
+              {"objectId": "d1", "discount": "10", "dineIn": "true", "lightning": "false", "qtyLeft": "1", "open": "noon", "close": "5:00pm"}
+            ]}]}
+            """));
+
+        assertTrue(exception.getMessage().contains("d1"));
+    }
+
+    @Test
+    void testParse_WithNonStringCuisines_KeepsScalarsAndSkipsNestedValues() throws Exception {
+        RestaurantFeed feed = parse("""
+            {"restaurants": [{
+              "objectId": "r1", "open": "9:00am", "close": "5:00pm",
+              "cuisines": ["Thai", {"name": "Nested"}, ["Array"], 42]
+            }]}
+            """);
+
+        assertEquals(List.of("Thai", "42"), feed.restaurants().get(0).getCuisines());
+    }
+
+    @Test
+    void testParse_WithInvalidTime_ThrowsException() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> parse("""
+            {"restaurants": [{"objectId": "r1", "open": "25:00", "close": "5:00pm"}]}
+            """));
+
+        assertTrue(exception.getMessage().contains("r1"));
+    }
+
+    @Test
+    void testParse_WithNonObjectRoot_ThrowsIOException() {
+        assertThrows(IOException.class, () -> parse("[]"));
+    }
+
+    @Test
+    void testParse_WithLargeStreamedFeed_ReadsEveryRecord() throws Exception {
+        int restaurantCount = 20_000;
+        List<InputStream> parts = new ArrayList<>();
+        parts.add(stream("{\"restaurants\":["));
+        IntStream.range(0, restaurantCount).forEach(i -> parts.add(stream((i == 0 ? "" : ",")
+                + "{\"objectId\":\"r" + i + "\",\"open\":\"9:00am\",\"close\":\"5:00pm\",\"deals\":["
+                + "{\"objectId\":\"d" + i + "a\",\"discount\":\"10\",\"dineIn\":\"true\",\"lightning\":\"false\",\"qtyLeft\":\"1\"},"
+                + "{\"objectId\":\"d" + i + "b\",\"discount\":\"20\",\"dineIn\":\"false\",\"lightning\":\"true\",\"qtyLeft\":\"2\"}]}")));
+        parts.add(stream("]}"));
+
+        RestaurantFeed feed = parser.parse(new SequenceInputStream(Collections.enumeration(parts)));
+
+        assertEquals(restaurantCount, feed.restaurants().size());
+        assertEquals(restaurantCount, feed.dealsByRestaurantId().size());
+        assertEquals("d19999b", feed.dealsByRestaurantId().get("r19999").get(1).getObjectId());
+    }
+
+    private RestaurantFeed parse(String json) throws IOException {
+        return parser.parse(stream(json));
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
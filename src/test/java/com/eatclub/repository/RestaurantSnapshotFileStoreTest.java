@@ -0,0 +1,138 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.OpeningHours;
+import com.eatclub.model.Restaurant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantSnapshotFileStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteThenRead_RoundTripsFeed() throws Exception {
+        RestaurantSnapshotFileStore store = new RestaurantSnapshotFileStore(true, tempDir.resolve("snapshots/restaurants.snapshot"));
+        Restaurant restaurant1 = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+                LocalTime.of(10, 0), LocalTime.of(22, 0), List.of("Pizza", "Italian"));
+        Restaurant restaurant2 = new Restaurant("r2", "Restaurant 2", null, "Town",
+                LocalTime.of(22, 0), LocalTime.of(2, 0));
+        Deal deal1 = new Deal("d1", "r1", 10.5f, true, false, 5);
+        Deal deal2 = new Deal("d2", "r1", 15.0f, false, true, 3);
+        RestaurantFeed feed = new RestaurantFeed(List.of(restaurant1, restaurant2),
+                Map.of("r1", List.of(deal1, deal2), "r2", List.of()), Instant.parse("2024-01-01T10:00:00Z"));
+
+        store.write(feed);
+        Optional<RestaurantFeed> result = store.read();
+
+        assertTrue(result.isPresent());
+        assertEquals(feed.restaurants(), result.get().restaurants());
+        assertEquals(feed.dealsByRestaurantId(), result.get().dealsByRestaurantId());
+        assertEquals(feed.fetchedAt(), result.get().fetchedAt());
+    }
+
+    @Test
+    void testWriteThenRead_RoundTripsDealWindows() throws Exception {
+        RestaurantSnapshotFileStore store = new RestaurantSnapshotFileStore(true, tempDir.resolve("restaurants.snapshot"));
+        Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+                LocalTime.of(10, 0), LocalTime.of(22, 0));
+        Deal windowedDeal = new Deal("d1", "r1", 10.5f, true, false, 5, LocalTime.of(15, 0), LocalTime.of(17, 30));
+        Deal plainDeal = new Deal("d2", "r1", 15.0f, false, true, 3);
+        RestaurantFeed feed = new RestaurantFeed(List.of(restaurant),
+                Map.of("r1", List.of(windowedDeal, plainDeal)), Instant.parse("2024-01-01T10:00:00Z"));
+
+        store.write(feed);
+
+        assertEquals(List.of(windowedDeal, plainDeal), store.read().orElseThrow().dealsByRestaurantId().get("r1"));
+    }
+
+    @Test
+    void testWriteThenRead_RoundTripsOpeningHours() throws Exception {
+        RestaurantSnapshotFileStore store = new RestaurantSnapshotFileStore(true, tempDir.resolve("restaurants.snapshot"));
+        Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+                LocalTime.of(11, 0), LocalTime.of(22, 0), List.of("Thai"), List.of(
+                        new OpeningHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0)),
+                        new OpeningHours(DayOfWeek.MONDAY, LocalTime.of(17, 0), LocalTime.of(22, 0)),
+                        new OpeningHours(DayOfWeek.SUNDAY, LocalTime.of(18, 0), LocalTime.of(1, 0))));
+        RestaurantFeed feed = new RestaurantFeed(List.of(restaurant), Map.of("r1", List.of()),
+                Instant.parse("2024-01-01T10:00:00Z"));
+
+        store.write(feed);
+
+        assertEquals(List.of(restaurant), store.read().orElseThrow().restaurants());
+    }
+
+    @Test
+    void testRead_WithFormat1File_ReadsDealsWithoutWindows() throws Exception {
+        Path path = tempDir.resolve("restaurants.snapshot");
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(0x45435253);
+            out.writeInt(1);
+            out.writeLong(Instant.parse("2024-01-01T10:00:00Z").toEpochMilli());
+            out.writeInt(1);
+            writeString(out, "r1");
+            writeString(out, "Restaurant 1");
+            writeString(out, "123 Main St");
+            writeString(out, "City");
+            out.writeInt(LocalTime.of(10, 0).toSecondOfDay());
+            out.writeInt(LocalTime.of(22, 0).toSecondOfDay());
+            out.writeInt(1);
+            writeString(out, "d1");
+            out.writeFloat(10.0f);
+            out.writeBoolean(true);
+            out.writeBoolean(false);
+            out.writeInt(5);
+        }
+
+        RestaurantFeed feed = new RestaurantSnapshotFileStore(true, path).read().orElseThrow();
+
+        assertEquals(List.of(new Deal("d1", "r1", 10.0f, true, false, 5)), feed.dealsByRestaurantId().get("r1"));
+    }
+
+    @Test
+    void testRead_WithNoFile_ReturnsEmpty() throws Exception {
+        RestaurantSnapshotFileStore store = new RestaurantSnapshotFileStore(true, tempDir.resolve("missing.snapshot"));
+
+        assertTrue(store.read().isEmpty());
+    }
+
+    @Test
+    void testReadAndWrite_WhenDisabled_DoNothing() throws Exception {
+        Path path = tempDir.resolve("restaurants.snapshot");
+        RestaurantSnapshotFileStore store = new RestaurantSnapshotFileStore(false, path);
+
+        store.write(new RestaurantFeed(List.of(), Map.of(), Instant.now()));
+
+        assertFalse(Files.exists(path));
+        assertTrue(store.read().isEmpty());
+    }
+
+    @Test
+    void testRead_WithForeignFile_ThrowsIOException() throws Exception {
+        Path path = tempDir.resolve("restaurants.snapshot");
+        Files.writeString(path, "not a snapshot");
+        RestaurantSnapshotFileStore store = new RestaurantSnapshotFileStore(true, path);
+
+        assertThrows(IOException.class, store::read);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(true);
+        out.writeUTF(value);
+    }
+}
@@ -0,0 +1,169 @@
+package com.eatclub.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantSnapshotRefresherTest {
+
+    @Mock
+    private InMemoryRestaurantRepository restaurantRepository;
+
+    @Mock
+    private RestaurantSnapshotFileStore snapshotFileStore;
+
+    @Mock
+    private MappedSnapshotFileStore mappedSnapshotFileStore;
+
+    @Test
+    void testRefreshNow_RefreshesRepositoryAndPersistsSnapshot() throws Exception {
+        RestaurantSnapshotRefresher refresher = newRefresher(true);
+        RestaurantSnapshot snapshot = RestaurantSnapshot.empty(1);
+        when(restaurantRepository.refresh()).thenReturn(true);
+        when(restaurantRepository.getSnapshot()).thenReturn(snapshot);
+
+        assertTrue(refresher.refreshNow());
+
+        verify(restaurantRepository).refresh();
+        verify(restaurantRepository, never()).clear();
+        verify(snapshotFileStore).write(any(RestaurantFeed.class));
+        verify(mappedSnapshotFileStore).write(snapshot);
+    }
+
+    @Test
+    void testRefreshNow_WhenWritingMappedSnapshotFails_StillSucceeds() throws Exception {
+        RestaurantSnapshotRefresher refresher = newRefresher(true);
+        when(restaurantRepository.refresh()).thenReturn(true);
+        when(restaurantRepository.getSnapshot()).thenReturn(RestaurantSnapshot.empty(1));
+        doThrow(new IOException("Disk full")).when(mappedSnapshotFileStore).write(any());
+
+        assertTrue(refresher.refreshNow());
+        verify(snapshotFileStore).write(any(RestaurantFeed.class));
+    }
+
+    @Test
+    void testRefreshNow_WhenPersistingFails_StillSucceeds() throws Exception {
+        RestaurantSnapshotRefresher refresher = newRefresher(true);
+        when(restaurantRepository.refresh()).thenReturn(true);
+        when(restaurantRepository.getSnapshot()).thenReturn(RestaurantSnapshot.empty(1));
+        doThrow(new IOException("Disk full")).when(snapshotFileStore).write(any());
+
+        assertTrue(refresher.refreshNow());
+    }
+
+    @Test
+    void testRefreshNow_WhenFeedUnchanged_DoesNotPersistSnapshot() throws Exception {
+        RestaurantSnapshotRefresher refresher = newRefresher(true);
+        when(restaurantRepository.refresh()).thenReturn(false);
+
+        assertTrue(refresher.refreshNow());
+
+        verifyNoInteractions(snapshotFileStore);
+    }
+
+    @Test
+    void testRefreshNow_WhenRefreshFailsAndServeStale_KeepsSnapshot() throws Exception {
+        RestaurantSnapshotRefresher refresher = newRefresher(true);
+        doThrow(new Exception("Failed to fetch data from API")).when(restaurantRepository).refresh();
+        when(restaurantRepository.getSnapshot()).thenReturn(RestaurantSnapshot.empty(1));
+
+        assertFalse(refresher.refreshNow());
+
+        verify(restaurantRepository, never()).clear();
+        verifyNoInteractions(snapshotFileStore);
+    }
+
+    @Test
+    void testRefreshNow_WhenRefreshFailsAndNotServeStale_ClearsSnapshot() throws Exception {
+        RestaurantSnapshotRefresher refresher = newRefresher(false);
+        doThrow(new Exception("Failed to fetch data from API")).when(restaurantRepository).refresh();
+
+        assertFalse(refresher.refreshNow());
+
+        verify(restaurantRepository).clear();
+    }
+
+    @Test
+    void testWarmStart_WithSnapshotOnDisk_LoadsItIntoRepository() throws Exception {
+        RestaurantSnapshotRefresher refresher = newRefresher(true);
+        RestaurantFeed feed = new RestaurantFeed(List.of(), Map.of(), Instant.parse("2024-01-01T10:00:00Z"));
+        when(snapshotFileStore.read()).thenReturn(Optional.of(feed));
+
+        refresher.warmStart();
+
+        verify(restaurantRepository).load(feed, SnapshotSource.DISK);
+    }
+
+    @Test
+    void testWarmStart_WhenSnapshotUnreadable_LeavesRepositoryEmpty() throws Exception {
+        RestaurantSnapshotRefresher refresher = newRefresher(true);
+        when(snapshotFileStore.read()).thenThrow(new IOException("Not a restaurant snapshot file"));
+
+        refresher.warmStart();
+
+        verify(restaurantRepository, never()).load(any(), any());
+    }
+
+    @Test
+    void testNextDelay_StaysWithinIntervalPlusJitter() {
+        RestaurantSnapshotRefresher refresher = newRefresher(true);
+
+        for (int i = 0; i < 100; i++) {
+            Duration delay = refresher.nextDelay(true);
+            assertTrue(delay.compareTo(Duration.ofMinutes(5)) >= 0);
+            assertTrue(delay.compareTo(Duration.ofMinutes(5).plusSeconds(30)) <= 0);
+        }
+    }
+
+    @Test
+    void testNextDelay_AfterFailure_UsesRetryDelay() {
+        RestaurantSnapshotRefresher refresher = newRefresher(true);
+
+        assertEquals(Duration.ofSeconds(15), refresher.nextDelay(false));
+    }
+
+    @Test
+    void testConstructor_WithNonPositiveInterval_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new RestaurantSnapshotRefresher(
+                restaurantRepository, snapshotFileStore, mappedSnapshotFileStore, true, Duration.ZERO, Duration.ZERO, Duration.ofSeconds(15), true, false));
+    }
+
+    @Test
+    void testStart_WithVirtualThreads_RefreshesOnVirtualThread() throws Exception {
+        CompletableFuture<Boolean> refreshedOnVirtualThread = new CompletableFuture<>();
+        when(restaurantRepository.refresh()).thenAnswer(invocation -> {
+            refreshedOnVirtualThread.complete(Thread.currentThread().isVirtual());
+            return false;
+        });
+        RestaurantSnapshotRefresher refresher = new RestaurantSnapshotRefresher(restaurantRepository, snapshotFileStore, mappedSnapshotFileStore,
+                true, Duration.ofMinutes(5), Duration.ZERO, Duration.ofSeconds(15), true, true);
+
+        try {
+            refresher.start();
+
+            assertTrue(refreshedOnVirtualThread.get(5, TimeUnit.SECONDS));
+        } finally {
+            refresher.stop();
+        }
+    }
+
+    private RestaurantSnapshotRefresher newRefresher(boolean serveStaleOnFailure) {
+        return new RestaurantSnapshotRefresher(restaurantRepository, snapshotFileStore, mappedSnapshotFileStore, false,
+                Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofSeconds(15), serveStaleOnFailure, false);
+    }
+}
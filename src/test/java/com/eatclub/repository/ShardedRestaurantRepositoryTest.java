@@ -0,0 +1,255 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealPage;
+import com.eatclub.model.DealSort;
+import com.eatclub.model.Restaurant;
+import com.eatclub.service.RestaurantServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedRestaurantRepositoryTest {
+
+    private static final int SHARDS = 4;
+    private static final List<LocalTime> TIMES = List.of(
+            LocalTime.of(0, 30), LocalTime.of(9, 0), LocalTime.NOON, LocalTime.of(14, 0), LocalTime.of(18, 30),
+            LocalTime.of(23, 0));
+    private static final List<DealFilter> FILTERS = List.of(
+            new DealFilter(),
+            new DealFilter("richmond", null, null, null, null, null),
+            new DealFilter("CARLTON", null, true, null, null, null),
+            new DealFilter(null, "thai", null, null, null, null),
+            new DealFilter(null, null, null, true, 20.0f, null),
+            new DealFilter(null, null, null, null, null, 4),
+            new DealFilter("Nowhere", null, null, null, null, null));
+
+    private InMemoryRestaurantRepository snapshots;
+    private InMemoryRestaurantRepository unsharded;
+    private ShardedRestaurantRepository repository;
+    private List<Restaurant> restaurants;
+    private Map<String, List<Deal>> dealsByRestaurantId;
+
+    @BeforeEach
+    void setUp() {
+        restaurants = new ArrayList<>();
+        dealsByRestaurantId = new HashMap<>();
+        String[] suburbs = { "Richmond", "Carlton", "Fitzroy", "Collingwood", "Brunswick", "Southbank" };
+        String[] cuisines = { "Thai", "Pizza", "Burgers" };
+        for (int i = 0; i < 24; i++) {
+            String id = "r" + i;
+            LocalTime open = LocalTime.of(8 + i % 5, (i % 2) * 30);
+            LocalTime close = i % 4 == 0 ? LocalTime.of(1, 0) : LocalTime.of(15 + i % 6, 0);
+            restaurants.add(new Restaurant(id, "Restaurant " + i, i + " Main St", suburbs[i % suburbs.length],
+                    open, close, List.of(cuisines[i % cuisines.length])));
+            List<Deal> deals = new ArrayList<>();
+            for (int d = 0; d < i % 4; d++) {
+                String dealId = id + "-d" + d;
+                if (d == 1) {
+                    deals.add(new Deal(dealId, id, 5.0f * (i % 7) + d, i % 3 == 0, d % 2 == 0, (i + d) % 9,
+                            LocalTime.of(11, 30), LocalTime.of(14, 0)));
+                } else {
+                    deals.add(new Deal(dealId, id, 5.0f * (i % 7) + d, i % 3 == 0, d % 2 == 0, (i + d) % 9));
+                }
+            }
+            dealsByRestaurantId.put(id, deals);
+        }
+        snapshots = new InMemoryRestaurantRepository(new RestTemplate());
+        unsharded = new InMemoryRestaurantRepository(new RestTemplate());
+        repository = new ShardedRestaurantRepository(snapshots, SHARDS);
+        load(new RestaurantFeed(restaurants, dealsByRestaurantId, Instant.now()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.stop();
+    }
+
+    @Test
+    void testConstructor_WithFewerThanTwoShards_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedRestaurantRepository(snapshots, 1));
+    }
+
+    @Test
+    void testFindAvailableDealsAt_ReturnsSameDealsAsUnshardedRepository() {
+        for (LocalTime time : TIMES) {
+            assertEquals(unsharded.findAvailableDealsAt(time), repository.findAvailableDealsAt(time));
+            for (DealFilter filter : FILTERS) {
+                assertEquals(unsharded.findAvailableDealsAt(time, filter), repository.findAvailableDealsAt(time, filter),
+                        time + " " + filter);
+            }
+        }
+    }
+
+    @Test
+    void testFindAvailableDealsPageAt_ReturnsSamePagesAsUnshardedRepository() {
+        for (LocalTime time : TIMES) {
+            for (DealFilter filter : FILTERS) {
+                int fromOrdinal = 0;
+                do {
+                    DealPage expected = unsharded.findAvailableDealsPageAt(time, filter, fromOrdinal, 3);
+                    DealPage actual = repository.findAvailableDealsPageAt(time, filter, fromOrdinal, 3);
+                    assertEquals(expected, actual, time + " " + filter + " from " + fromOrdinal);
+                    fromOrdinal = expected.getNextOrdinal();
+                } while (fromOrdinal >= 0);
+            }
+        }
+    }
+
+    @Test
+    void testFindTopAvailableDealsAt_ReturnsSameDealsAsUnshardedRepository() {
+        for (LocalTime time : TIMES) {
+            for (DealFilter filter : FILTERS) {
+                for (DealSort sort : DealSort.values()) {
+                    for (int limit : new int[] { 1, 5, 100 }) {
+                        assertEquals(unsharded.findTopAvailableDealsAt(time, filter, sort, limit),
+                                repository.findTopAvailableDealsAt(time, filter, sort, limit),
+                                time + " " + filter + " " + sort + " " + limit);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testForEachAvailableDealAt_VisitsSameDealsAsFindAvailableDealsAt() {
+        List<DealAtRestaurant> visited = new ArrayList<>();
+
+        repository.forEachAvailableDealAt(LocalTime.NOON, new DealFilter(), visited::add);
+
+        assertEquals(unsharded.findAvailableDealsAt(LocalTime.NOON), visited);
+    }
+
+    @Test
+    void testReduceDealColumns_SweepsEveryShardIntoSamePeaks() {
+        AtomicInteger partitions = new AtomicInteger();
+        int deals = repository.reduceDealColumns(columns -> {
+            partitions.incrementAndGet();
+            return columns.dealCount();
+        }, Integer::sum);
+
+        assertEquals(SHARDS, partitions.get());
+        assertEquals(snapshots.getDealColumns().dealCount(), deals);
+        assertEquals(new RestaurantServiceImpl(unsharded).getPeakTimeWindows(60, 15, 3),
+                new RestaurantServiceImpl(repository).getPeakTimeWindows(60, 15, 3));
+    }
+
+    @Test
+    void testShardOf_KeepsEachSuburbInOneShardWhateverTheCase() {
+        for (int s = 0; s < SHARDS; s++) {
+            for (Restaurant restaurant : repository.shard(s).getColumns().getRestaurants()) {
+                assertEquals(s, repository.shardOf(restaurant));
+            }
+        }
+        assertEquals(repository.shardOf("Richmond"), repository.shardOf(" RICHMOND "));
+    }
+
+    @Test
+    void testLoad_WithEditedRestaurant_RebuildsOnlyItsShard() {
+        RestaurantShard[] before = new RestaurantShard[SHARDS];
+        for (int s = 0; s < SHARDS; s++) {
+            before[s] = repository.shard(s);
+        }
+        Restaurant edited = restaurants.get(3);
+        Map<String, List<Deal>> editedDeals = new HashMap<>(dealsByRestaurantId);
+        editedDeals.put("r3", List.of(new Deal("r3-d0", "r3", 45.0f, true, true, 1)));
+
+        load(new RestaurantFeed(restaurants, editedDeals, Instant.now()));
+
+        for (int s = 0; s < SHARDS; s++) {
+            if (s == repository.shardOf(edited)) {
+                assertNotSame(before[s].getColumns(), repository.shard(s).getColumns());
+            } else {
+                assertSame(before[s].getColumns(), repository.shard(s).getColumns());
+            }
+        }
+        assertEquals(unsharded.findAvailableDealsAt(LocalTime.of(14, 0)), repository.findAvailableDealsAt(LocalTime.of(14, 0)));
+        assertEquals(unsharded.findAvailableDealsPageAt(LocalTime.NOON, new DealFilter(), 5, 4),
+                repository.findAvailableDealsPageAt(LocalTime.NOON, new DealFilter(), 5, 4));
+    }
+
+    @Test
+    void testLoad_WithRemovedRestaurant_RebuildsEveryShard() {
+        RestaurantShard[] before = new RestaurantShard[SHARDS];
+        for (int s = 0; s < SHARDS; s++) {
+            before[s] = repository.shard(s);
+        }
+
+        load(new RestaurantFeed(restaurants.subList(1, restaurants.size()), dealsByRestaurantId, Instant.now()));
+
+        for (int s = 0; s < SHARDS; s++) {
+            assertNotSame(before[s].getColumns(), repository.shard(s).getColumns());
+        }
+        assertEquals(snapshots.getSnapshotVersion(), repository.getSnapshotVersion());
+        assertEquals(unsharded.findAvailableDealsAt(LocalTime.NOON), repository.findAvailableDealsAt(LocalTime.NOON));
+    }
+
+    @Test
+    void testLoad_BuildsShardsBeforePublishingAndServesThePreviousOnesUntilThen() {
+        RestaurantShard served = repository.shard(0);
+        List<RestaurantShard> seenWhilePublishing = new ArrayList<>();
+        snapshots.addSnapshotListener(new ISnapshotListener() {
+            @Override
+            public void beforePublish(RestaurantSnapshot next) {
+                seenWhilePublishing.add(repository.shard(0));
+            }
+        });
+
+        load(new RestaurantFeed(restaurants.subList(1, restaurants.size()), dealsByRestaurantId, Instant.now()));
+
+        assertEquals(2, seenWhilePublishing.size());
+        seenWhilePublishing.forEach(shard -> assertSame(served, shard));
+        RestaurantShard published = repository.shard(0);
+        assertNotSame(served, published);
+        assertSame(published, repository.shard(0));
+    }
+
+    @Test
+    void testFindAvailableAtOnDay_ReturnsSameAsUnshardedRepository() {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (LocalTime time : TIMES) {
+                assertEquals(unsharded.findAvailableRestaurantsAt(day, time), repository.findAvailableRestaurantsAt(day, time),
+                        day + " " + time);
+                for (DealFilter filter : FILTERS) {
+                    assertEquals(unsharded.findAvailableDealsAt(day, time, filter), repository.findAvailableDealsAt(day, time, filter),
+                            day + " " + time + " " + filter);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testLoad_KeepsDealIndexesOnlyInTheShards() {
+        RestaurantSnapshot snapshot = snapshots.getSnapshot();
+
+        assertFalse(snapshot.hasDealIndexes());
+        assertThrows(IllegalStateException.class, snapshot::getDealAvailabilityIndex);
+        assertTrue(repository.getSnapshotSummary().estimatedHeapBytes() > snapshot.getEstimatedHeapBytes());
+    }
+
+    @Test
+    void testMerge_InterleavesSortedPartsInOrder() {
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4, 5, 6, 9 },
+                ShardedRestaurantRepository.merge(List.of(new int[] { 1, 4, 9 }, new int[0], new int[] { 0, 2, 3 }, new int[] { 5, 6 })));
+        assertArrayEquals(new int[0], ShardedRestaurantRepository.merge(List.of(new int[0], new int[0])));
+    }
+
+    private void load(RestaurantFeed feed) {
+        snapshots.load(feed, SnapshotSource.DISK);
+        unsharded.load(feed, SnapshotSource.DISK);
+    }
+}
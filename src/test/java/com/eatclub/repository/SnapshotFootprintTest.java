@@ -0,0 +1,49 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.Restaurant;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFootprintTest {
+
+    @Test
+    void testObjectAndArray_AreAlignedToEightBytes() {
+        assertEquals(16, SnapshotFootprint.object(0, 0));
+        assertEquals(24, SnapshotFootprint.object(2, 4));
+        assertEquals(16, SnapshotFootprint.array(0, 4));
+        assertEquals(56, SnapshotFootprint.array(10, 4));
+    }
+
+    @Test
+    void testString_WithNull_IsFree() {
+        assertEquals(0, SnapshotFootprint.string(null));
+        assertTrue(SnapshotFootprint.string("a restaurant name") > SnapshotFootprint.string("a"));
+    }
+
+    @Test
+    void testEstimatedHeapBytes_GrowsWithRestaurantsAndDeals() {
+        Restaurant restaurant1 = new Restaurant("r1", "Restaurant 1", "1 Main St", "City", LocalTime.of(9, 0), LocalTime.of(17, 0));
+        Restaurant restaurant2 = new Restaurant("r2", "Restaurant 2", "2 Main St", "City", LocalTime.of(12, 0), LocalTime.of(23, 0));
+        RestaurantFeed small = new RestaurantFeed(List.of(restaurant1),
+                Map.of("r1", List.of(new Deal("d1", "r1", 10.0f, true, false, 5))), Instant.EPOCH);
+        RestaurantFeed large = new RestaurantFeed(List.of(restaurant1, restaurant2),
+                Map.of("r1", List.of(new Deal("d1", "r1", 10.0f, true, false, 5)),
+                        "r2", List.of(new Deal("d2", "r2", 20.0f, false, true, 3), new Deal("d3", "r2", 30.0f, true, true, 1))),
+                Instant.EPOCH);
+
+        long emptyBytes = RestaurantSnapshot.empty(0).getEstimatedHeapBytes();
+        long smallBytes = RestaurantSnapshot.of(1, SnapshotSource.UPSTREAM, small).getEstimatedHeapBytes();
+        long largeBytes = RestaurantSnapshot.of(2, SnapshotSource.UPSTREAM, large).getEstimatedHeapBytes();
+
+        assertTrue(emptyBytes > 0);
+        assertTrue(smallBytes > emptyBytes);
+        assertTrue(largeBytes > smallBytes);
+    }
+}
@@ -0,0 +1,43 @@
+package com.eatclub.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @Test
+    void testEncode_WithRepeatedValue_ReturnsFirstInstance() {
+        StringDictionary dictionary = new StringDictionary();
+        String first = new String("Richmond");
+
+        assertSame(first, dictionary.encode(first));
+        assertSame(first, dictionary.encode(new String("Richmond")));
+        assertNull(dictionary.encode(null));
+        assertEquals(1, dictionary.size());
+        assertEquals(SnapshotFootprint.string("Richmond"), dictionary.savedBytes());
+    }
+
+    @Test
+    void testNextGeneration_ReusesInstancesOfValuesStillPresent() {
+        StringDictionary previous = new StringDictionary();
+        String richmond = previous.encode(new String("Richmond"));
+        previous.encode(new String("Carlton"));
+
+        StringDictionary next = previous.nextGeneration();
+
+        assertSame(richmond, next.encode(new String("Richmond")));
+        assertEquals(1, next.size());
+        assertEquals(0, next.savedBytes());
+    }
+
+    @Test
+    void testNextGeneration_DropsValuesNoLongerPresent() {
+        StringDictionary first = new StringDictionary();
+        String carlton = first.encode(new String("Carlton"));
+
+        StringDictionary third = first.nextGeneration().nextGeneration();
+
+        assertNotSame(carlton, third.encode(new String("Carlton")));
+    }
+}
@@ -0,0 +1,114 @@
+package com.eatclub.repository;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Local stand-in for the upstream feed. Serves one of the versioned fixtures under
+ * src/test/resources/feeds with an ETag and Last-Modified per fixture version, and
+ * answers matching If-None-Match/If-Modified-Since requests with 304.
+ */
+class StubFeedServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger fullResponseCount = new AtomicInteger();
+
+    private volatile byte[] body;
+    private volatile String eTag;
+    private volatile String lastModified;
+    private volatile boolean validatorsEnabled = true;
+    private int fixtureVersion;
+
+    private StubFeedServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/feed.json", this::handle);
+        server.start();
+    }
+
+    static StubFeedServer start() throws IOException {
+        return new StubFeedServer();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/feed.json";
+    }
+
+    /*
+     * Starts serving the given fixture, e.g. "feed-v1.json", as a new feed version.
+     */
+    synchronized void serve(String fixture) {
+        try (InputStream in = StubFeedServer.class.getResourceAsStream("/feeds/" + fixture)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No such fixture: " + fixture);
+            }
+            body = in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fixtureVersion++;
+        eTag = "\"" + fixture + "-" + fixtureVersion + "\"";
+        lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).plusMinutes(fixtureVersion));
+    }
+
+    /*
+     * Stops sending ETag/Last-Modified, like an upstream behind a cache that strips them.
+     */
+    void disableValidators() {
+        validatorsEnabled = false;
+    }
+
+    int getRequestCount() {
+        return requestCount.get();
+    }
+
+    int getFullResponseCount() {
+        return fullResponseCount.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        byte[] currentBody = body;
+        String currentETag = eTag;
+        String currentLastModified = lastModified;
+
+        if (validatorsEnabled) {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+            boolean notModified = ifNoneMatch != null
+                    ? ifNoneMatch.equals(currentETag)
+                    : currentLastModified.equals(ifModifiedSince);
+            exchange.getResponseHeaders().set("ETag", currentETag);
+            exchange.getResponseHeaders().set("Last-Modified", currentLastModified);
+            if (notModified) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+        }
+
+        fullResponseCount.incrementAndGet();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, currentBody.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(currentBody);
+        }
+    }
+}
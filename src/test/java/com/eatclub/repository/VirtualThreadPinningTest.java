@@ -0,0 +1,105 @@
+package com.eatclub.repository;
+
+import com.eatclub.cache.AvailableRestaurantsResponseCache;
+import com.eatclub.mapper.RestaurantMapper;
+import com.eatclub.metrics.RestaurantMetrics;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealSort;
+import com.eatclub.service.RestaurantServiceImpl;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Runs the request and refresh hot paths concurrently on virtual threads and fails if
+ * any of them pins its carrier thread while blocked, e.g. by parking or doing I/O
+ * inside a synchronized block. Pinning is picked up from JFR's jdk.VirtualThreadPinned
+ * event with no duration threshold, so even short pins are reported.
+ */
+class VirtualThreadPinningTest {
+
+    private static final String[] FIXTURES = {"feed-v1.json", "feed-v2.json", "feed-v3.json"};
+
+    @Test
+    void testHotPaths_OnVirtualThreads_DoNotPinCarrier() throws Exception {
+        try (StubFeedServer server = StubFeedServer.start()) {
+            server.serve(FIXTURES[0]);
+            InMemoryRestaurantRepository repository = new InMemoryRestaurantRepository(new RestTemplate(), server.url());
+            RestaurantServiceImpl restaurantService = new RestaurantServiceImpl(repository);
+            RestaurantMapper restaurantMapper = new RestaurantMapper(RestaurantMetrics.noop(), JsonMapper.builder().build(),
+                    repository);
+            AvailableRestaurantsResponseCache responseCache = new AvailableRestaurantsResponseCache(repository,
+                    restaurantService, restaurantMapper);
+
+            // Once on this thread first, so class initialisation isn't mistaken for pinning
+            repository.refresh();
+            exercise(repository, restaurantService, restaurantMapper, responseCache, 0);
+
+            List<String> pinnedEvents = new CopyOnWriteArrayList<>();
+            try (RecordingStream recording = new RecordingStream()) {
+                recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+                recording.onEvent("jdk.VirtualThreadPinned", event -> pinnedEvents.add(describe(event)));
+                recording.startAsync();
+
+                try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                    List<Future<?>> tasks = new ArrayList<>();
+                    for (int i = 0; i < 64; i++) {
+                        int task = i;
+                        tasks.add(executor.submit(() -> {
+                            if (task % 8 == 0) {
+                                // Refreshes contend on the refresh lock and block on the upstream
+                                server.serve(FIXTURES[task / 8 % FIXTURES.length]);
+                                repository.refresh();
+                            }
+                            exercise(repository, restaurantService, restaurantMapper, responseCache, task);
+                            return null;
+                        }));
+                    }
+                    for (Future<?> task : tasks) {
+                        task.get();
+                    }
+                }
+                recording.stop();
+            }
+
+            assertEquals(List.of(), pinnedEvents);
+        }
+    }
+
+    private static void exercise(InMemoryRestaurantRepository repository, RestaurantServiceImpl restaurantService,
+            RestaurantMapper restaurantMapper, AvailableRestaurantsResponseCache responseCache, int task) {
+        LocalTime time = LocalTime.of(task % 24, 0);
+        DealFilter dineIn = new DealFilter(null, null, true, null, null, null);
+        responseCache.getAvailableRestaurantsJson(time);
+        restaurantMapper.toAvailableRestaurantsJson(restaurantService.getAvailableRestaurantDealsByTime(time));
+        restaurantMapper.toAvailableRestaurantsPageJson(
+                restaurantService.getAvailableRestaurantDealsPage(time, new DealFilter(), 0, 10), null);
+        restaurantService.getTopAvailableRestaurantDeals(time, dineIn, DealSort.DISCOUNT, 5);
+        restaurantService.forEachAvailableRestaurantDeal(time, dineIn, deal -> { });
+        restaurantMapper.toPeakTimesDTO(restaurantService.getPeakTimeWindows(60, 30, 3));
+        repository.findAvailableRestaurantsAt(time);
+    }
+
+    private static String describe(RecordedEvent event) {
+        StringBuilder description = new StringBuilder("pinned for " + event.getDuration());
+        if (event.getStackTrace() != null) {
+            event.getStackTrace().getFrames().stream().limit(12)
+                    .forEach(frame -> description.append("\n  at ").append(frame.getMethod().getType().getName())
+                            .append('.').append(frame.getMethod().getName()));
+        }
+        return description.toString();
+    }
+}
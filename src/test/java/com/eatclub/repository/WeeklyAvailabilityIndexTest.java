@@ -0,0 +1,161 @@
+package com.eatclub.repository;
+
+import com.eatclub.model.Deal;
+import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.OpeningHours;
+import com.eatclub.model.Restaurant;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeeklyAvailabilityIndexTest {
+
+    // Lunch and dinner on weekdays, all afternoon on Saturday, closed on Sunday
+    private final Restaurant splitShifts = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+            LocalTime.of(11, 0), LocalTime.of(22, 0), List.of("Thai"), List.of(
+                    new OpeningHours(DayOfWeek.MONDAY, LocalTime.of(11, 30), LocalTime.of(14, 30)),
+                    new OpeningHours(DayOfWeek.MONDAY, LocalTime.of(17, 30), LocalTime.of(22, 0)),
+                    new OpeningHours(DayOfWeek.FRIDAY, LocalTime.of(11, 30), LocalTime.of(14, 30)),
+                    new OpeningHours(DayOfWeek.FRIDAY, LocalTime.of(17, 30), LocalTime.of(23, 30)),
+                    new OpeningHours(DayOfWeek.SATURDAY, LocalTime.of(12, 0), LocalTime.of(23, 0))));
+    // Sunday night into Monday morning only
+    private final Restaurant lateNight = new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "Town",
+            LocalTime.of(22, 0), LocalTime.of(2, 0), List.of(), List.of(
+                    new OpeningHours(DayOfWeek.SUNDAY, LocalTime.of(22, 0), LocalTime.of(2, 0))));
+    // No opening hours: its daily hours on every day
+    private final Restaurant everyDay = new Restaurant("r3", "Restaurant 3", "789 Pine St", "City",
+            LocalTime.of(9, 0), LocalTime.of(17, 0));
+
+    private final Deal lunchDeal = new Deal("d1", "r1", 20.0f, true, false, 5, LocalTime.of(11, 0), LocalTime.of(15, 0));
+    private final Deal anyTimeDeal = new Deal("d2", "r1", 10.0f, false, true, 2);
+    private final Deal lateDeal = new Deal("d3", "r2", 30.0f, true, true, 1);
+    private final Deal dayDeal = new Deal("d4", "r3", 15.0f, true, false, 8);
+
+    private final WeeklyAvailabilityIndex index = new WeeklyAvailabilityIndex(new DealColumns(
+            List.of(splitShifts, lateNight, everyDay),
+            Map.of("r1", List.of(lunchDeal, anyTimeDeal), "r2", List.of(lateDeal), "r3", List.of(dayDeal))));
+
+    @Test
+    void testFindAvailableAt_WithSplitShifts_IsClosedBetweenThem() {
+        assertEquals(List.of(splitShifts, everyDay), index.findAvailableAt(DayOfWeek.MONDAY, LocalTime.of(12, 0)));
+        assertEquals(List.of(everyDay), index.findAvailableAt(DayOfWeek.MONDAY, LocalTime.of(15, 0)));
+        assertEquals(List.of(splitShifts), index.findAvailableAt(DayOfWeek.MONDAY, LocalTime.of(18, 0)));
+    }
+
+    @Test
+    void testFindAvailableAt_UsesEachDaysOwnHours() {
+        assertEquals(List.of(), index.findAvailableAt(DayOfWeek.MONDAY, LocalTime.of(23, 0)));
+        assertEquals(List.of(splitShifts), index.findAvailableAt(DayOfWeek.FRIDAY, LocalTime.of(23, 0)));
+        assertEquals(List.of(everyDay), index.findAvailableAt(DayOfWeek.TUESDAY, LocalTime.of(12, 0)));
+        assertEquals(List.of(splitShifts, everyDay), index.findAvailableAt(DayOfWeek.SATURDAY, LocalTime.of(16, 0)));
+    }
+
+    @Test
+    void testFindAvailableAt_WithHoursPastSundayMidnight_IsOpenOnMondayMorning() {
+        assertEquals(List.of(lateNight), index.findAvailableAt(DayOfWeek.SUNDAY, LocalTime.of(23, 59, 30)));
+        assertEquals(List.of(lateNight), index.findAvailableAt(DayOfWeek.MONDAY, LocalTime.of(1, 0)));
+        assertEquals(List.of(lateNight), index.findAvailableAt(DayOfWeek.MONDAY, LocalTime.of(2, 0)));
+        assertEquals(List.of(), index.findAvailableAt(DayOfWeek.MONDAY, LocalTime.of(2, 0, 30)));
+        assertEquals(List.of(), index.findAvailableAt(DayOfWeek.TUESDAY, LocalTime.of(1, 0)));
+    }
+
+    @Test
+    void testFindAvailableAt_AtClosingTime_IsOpenOnlyOnTheMinute() {
+        assertEquals(List.of(splitShifts, everyDay), index.findAvailableAt(DayOfWeek.MONDAY, LocalTime.of(14, 30)));
+        assertEquals(List.of(everyDay), index.findAvailableAt(DayOfWeek.MONDAY, LocalTime.of(14, 30, 1)));
+    }
+
+    @Test
+    void testFindLiveAt_AppliesDealWindowsAndFilters() {
+        assertEquals(List.of(new DealAtRestaurant(splitShifts, lunchDeal), new DealAtRestaurant(splitShifts, anyTimeDeal),
+                new DealAtRestaurant(everyDay, dayDeal)), index.findLiveAt(DayOfWeek.MONDAY, LocalTime.of(12, 0), new DealFilter()));
+        assertEquals(List.of(new DealAtRestaurant(splitShifts, anyTimeDeal)),
+                index.findLiveAt(DayOfWeek.MONDAY, LocalTime.of(18, 0), new DealFilter()));
+        assertEquals(List.of(new DealAtRestaurant(splitShifts, lunchDeal), new DealAtRestaurant(everyDay, dayDeal)),
+                index.findLiveAt(DayOfWeek.MONDAY, LocalTime.of(12, 0), new DealFilter(null, null, true, false, null, null)));
+        assertEquals(List.of(new DealAtRestaurant(splitShifts, lunchDeal), new DealAtRestaurant(splitShifts, anyTimeDeal)),
+                index.findLiveAt(DayOfWeek.MONDAY, LocalTime.of(12, 0), new DealFilter(null, "thai", null, null, null, null)));
+    }
+
+    @Test
+    void testFindLiveAt_WithoutOpeningHours_MatchesTheDailyIndexesOnEveryDay() {
+        Random random = new Random(25);
+        List<Restaurant> restaurants = new ArrayList<>();
+        Map<String, List<Deal>> dealsByRestaurantId = new HashMap<>();
+        for (int r = 0; r < 40; r++) {
+            String id = "r" + r;
+            restaurants.add(new Restaurant(id, "Restaurant " + r, null, r % 2 == 0 ? "City" : "Town",
+                    LocalTime.of(random.nextInt(24), 15 * random.nextInt(4)), LocalTime.of(random.nextInt(24), 15 * random.nextInt(4))));
+            dealsByRestaurantId.put(id, List.of(
+                    new Deal(id + "-a", id, 10.0f, true, false, 3),
+                    new Deal(id + "-b", id, 20.0f, false, true, 1,
+                            LocalTime.of(random.nextInt(24), 30 * random.nextInt(2)), LocalTime.of(random.nextInt(24), 0))));
+        }
+        RestaurantSnapshot snapshot = RestaurantSnapshot.of(1, SnapshotSource.DISK,
+                new RestaurantFeed(restaurants, dealsByRestaurantId, Instant.EPOCH));
+        WeeklyAvailabilityIndex weeklyIndex = snapshot.getWeeklyAvailabilityIndex();
+
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (int minute = 0; minute < 24 * 60; minute += 7) {
+                LocalTime time = LocalTime.of(minute / 60, minute % 60, minute % 2 == 0 ? 0 : 30);
+                assertEquals(snapshot.getAvailabilityIndex().findAvailableAt(time), weeklyIndex.findAvailableAt(day, time),
+                        day + " " + time);
+                assertEquals(snapshot.getDealAvailabilityIndex().findLiveAt(time),
+                        weeklyIndex.findLiveAt(day, time, new DealFilter()), day + " " + time);
+            }
+        }
+        // The same few opening times every day make for a few segments, not one per minute
+        assertTrue(weeklyIndex.segmentCount() <= 7 * 2 * 40 + 1);
+    }
+
+    @Test
+    void testFindLiveAt_WithFilters_MatchesTheDailyDealIndexOnEveryDay() {
+        Random random = new Random(26);
+        List<Restaurant> restaurants = new ArrayList<>();
+        Map<String, List<Deal>> dealsByRestaurantId = new HashMap<>();
+        for (int r = 0; r < 40; r++) {
+            String id = "r" + r;
+            restaurants.add(new Restaurant(id, "Restaurant " + r, null, r % 3 == 0 ? "City" : "Town",
+                    LocalTime.of(random.nextInt(24), 0), LocalTime.of(random.nextInt(24), 0), List.of(r % 2 == 0 ? "Thai" : "Pizza")));
+            dealsByRestaurantId.put(id, r % 5 == 0 ? List.of() : List.of(
+                    new Deal(id + "-a", id, 10.0f * random.nextInt(4), random.nextBoolean(), random.nextBoolean(), 3),
+                    new Deal(id + "-b", id, 25.0f, random.nextBoolean(), true, 1,
+                            LocalTime.of(random.nextInt(24), 0), LocalTime.of(random.nextInt(24), 0))));
+        }
+        RestaurantSnapshot snapshot = RestaurantSnapshot.of(1, SnapshotSource.DISK,
+                new RestaurantFeed(restaurants, dealsByRestaurantId, Instant.EPOCH));
+        List<DealFilter> filters = List.of(
+                new DealFilter("city", null, null, null, null, null),
+                new DealFilter(null, "thai", true, null, null, null),
+                new DealFilter(null, null, null, false, 15.0f, null),
+                new DealFilter("town", "pizza", null, true, null, 2));
+
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (int minute = 0; minute < 24 * 60; minute += 11) {
+                LocalTime time = LocalTime.of(minute / 60, minute % 60);
+                for (DealFilter filter : filters) {
+                    assertEquals(snapshot.getDealAvailabilityIndex().findLiveAt(time, filter),
+                            snapshot.getWeeklyAvailabilityIndex().findLiveAt(day, time, filter), day + " " + time + " " + filter);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFindAvailableAt_WithNoRestaurants_ReturnsEmpty() {
+        WeeklyAvailabilityIndex empty = new WeeklyAvailabilityIndex(new DealColumns(List.of(), Map.of()));
+
+        assertEquals(List.of(), empty.findAvailableAt(DayOfWeek.SUNDAY, LocalTime.of(23, 59, 59)));
+        assertEquals(List.of(), empty.findLiveAt(DayOfWeek.MONDAY, LocalTime.NOON, new DealFilter()));
+    }
+}
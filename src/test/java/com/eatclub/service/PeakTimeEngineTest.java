@@ -0,0 +1,184 @@
+package com.eatclub.service;
+
+import com.eatclub.model.MinuteRange;
+import com.eatclub.model.PeakTimeWindow;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PeakTimeEngineTest {
+
+    @Test
+    void testFindPeakWindows_WithMinuteStep_FindsPeakStraddlingBucketEdge() {
+        PeakTimeEngine engine = new PeakTimeEngine(60, 1);
+        engine.addAvailability(LocalTime.of(2, 30), LocalTime.of(3, 30), 5);
+        engine.addAvailability(LocalTime.of(10, 0), LocalTime.of(11, 0), 4);
+
+        List<PeakTimeWindow> result = engine.findPeakWindows(1);
+
+        assertEquals(1, result.size());
+        assertEquals(LocalTime.of(1, 30), result.get(0).getPeakTimeStart());
+        assertEquals(LocalTime.of(2, 30), result.get(0).getPeakTimeEnd());
+    }
+
+    @Test
+    void testFindPeakWindows_WithOverlappingRanges_CountsOnlyOverlappingDeals() {
+        PeakTimeEngine engine = new PeakTimeEngine(30, 1);
+        engine.addAvailability(LocalTime.of(12, 0), LocalTime.of(13, 0), 2);
+        engine.addAvailability(LocalTime.of(13, 20), LocalTime.of(14, 0), 3);
+        engine.addAvailability(LocalTime.of(18, 0), LocalTime.of(19, 0), 4);
+
+        List<PeakTimeWindow> result = engine.findPeakWindows(1);
+
+        assertEquals(LocalTime.of(12, 50), result.get(0).getPeakTimeStart());
+        assertEquals(LocalTime.of(13, 20), result.get(0).getPeakTimeEnd());
+    }
+
+    @Test
+    void testFindPeakWindows_WithWindowNearMidnight_DoesNotWrapIntoNextDay() {
+        PeakTimeEngine engine = new PeakTimeEngine(120, 30);
+        engine.addAvailability(LocalTime.of(23, 0), LocalTime.of(23, 20), 2);
+        engine.addAvailability(LocalTime.of(0, 0), LocalTime.of(0, 40), 3);
+
+        List<PeakTimeWindow> result = engine.findPeakWindows(1);
+
+        // A window from 23:00 to 01:00 would have counted all 5
+        assertEquals(new PeakTimeWindow(LocalTime.MIN, LocalTime.of(2, 0)), result.get(0));
+    }
+
+    @Test
+    void testFindPeakWindows_WithWindowPastEndOfDay_EndsAtMidnight() {
+        PeakTimeEngine engine = new PeakTimeEngine(120, 90);
+        engine.addAvailability(LocalTime.of(23, 40), LocalTime.of(23, 50), 2);
+        engine.addAvailability(LocalTime.of(12, 0), LocalTime.of(12, 30), 1);
+
+        List<PeakTimeWindow> result = engine.findPeakWindows(1);
+
+        assertEquals(List.of(new PeakTimeWindow(LocalTime.of(22, 30), LocalTime.MAX)), result);
+    }
+
+    @Test
+    void testFindPeakWindows_WithWindowEndingAtMidnight_ReturnsMaxEndTime() {
+        PeakTimeEngine engine = new PeakTimeEngine(180, 180);
+        engine.addAvailability(LocalTime.of(22, 0), LocalTime.of(23, 0), 1);
+
+        List<PeakTimeWindow> result = engine.findPeakWindows(1);
+
+        assertEquals(LocalTime.of(21, 0), result.get(0).getPeakTimeStart());
+        assertEquals(LocalTime.MAX, result.get(0).getPeakTimeEnd());
+    }
+
+    @Test
+    void testFindPeakWindows_WithLimit_ReturnsNonOverlappingWindowsByDealCount() {
+        PeakTimeEngine engine = new PeakTimeEngine(60, 60);
+        engine.addAvailability(LocalTime.of(8, 10), LocalTime.of(8, 50), 2);
+        engine.addAvailability(LocalTime.of(12, 10), LocalTime.of(12, 50), 5);
+        engine.addAvailability(LocalTime.of(18, 10), LocalTime.of(18, 50), 3);
+
+        List<PeakTimeWindow> result = engine.findPeakWindows(3);
+
+        assertEquals(List.of(
+                new PeakTimeWindow(LocalTime.of(12, 0), LocalTime.of(13, 0)),
+                new PeakTimeWindow(LocalTime.of(18, 0), LocalTime.of(19, 0)),
+                new PeakTimeWindow(LocalTime.of(8, 0), LocalTime.of(9, 0))), result);
+    }
+
+    @Test
+    void testFindPeakWindows_WithOvernightRange_CountsBothSidesOfMidnight() {
+        PeakTimeEngine engine = new PeakTimeEngine(60, 60);
+        engine.addAvailability(LocalTime.of(22, 30), LocalTime.of(0, 30), 3);
+        engine.addAvailability(LocalTime.of(1, 0), LocalTime.of(1, 30), 2);
+
+        List<PeakTimeWindow> result = engine.findPeakWindows(1);
+
+        assertEquals(LocalTime.MIN, result.get(0).getPeakTimeStart());
+        assertEquals(LocalTime.of(1, 0), result.get(0).getPeakTimeEnd());
+    }
+
+    @Test
+    void testFindPeakWindows_WithSeveralRangesOfOneDeal_CountsDealOncePerWindow() {
+        PeakTimeEngine engine = new PeakTimeEngine(60, 1);
+        engine.addAvailability(List.of(new MinuteRange(600, 630), new MinuteRange(640, 660)), 1);
+        engine.addAvailability(LocalTime.of(9, 0), LocalTime.of(9, 30), 1);
+        engine.addAvailability(LocalTime.of(9, 0), LocalTime.of(9, 30), 1);
+
+        List<PeakTimeWindow> result = engine.findPeakWindows(1);
+
+        // A window over both ranges of the first deal still counts it once
+        assertEquals(LocalTime.of(9, 0), result.get(0).getPeakTimeStart());
+        assertEquals(LocalTime.of(10, 0), result.get(0).getPeakTimeEnd());
+    }
+
+    @Test
+    void testFindPeakWindows_WithRangesMeetingAtMidnight_CountsEachSideOfTheDay() {
+        PeakTimeEngine engine = new PeakTimeEngine(60, 1);
+        engine.addAvailability(List.of(new MinuteRange(0, 30), new MinuteRange(1410, 1440)), 2);
+        engine.addAvailability(LocalTime.of(23, 0), LocalTime.of(23, 20), 1);
+
+        List<PeakTimeWindow> result = engine.findPeakWindows(2);
+
+        assertEquals(List.of(
+                new PeakTimeWindow(LocalTime.of(22, 30), LocalTime.of(23, 30)),
+                new PeakTimeWindow(LocalTime.MIN, LocalTime.of(1, 0))), result);
+    }
+
+    @Test
+    void testFindPeakWindows_WithLimit_SkipsOverlappingCandidates() {
+        PeakTimeEngine engine = new PeakTimeEngine(120, 30);
+        engine.addAvailability(LocalTime.of(12, 0), LocalTime.of(12, 30), 5);
+
+        List<PeakTimeWindow> result = engine.findPeakWindows(3);
+
+        assertEquals(List.of(
+                new PeakTimeWindow(LocalTime.of(10, 0), LocalTime.of(12, 0)),
+                new PeakTimeWindow(LocalTime.of(12, 0), LocalTime.of(14, 0))), result);
+    }
+
+    @Test
+    void testFindPeakWindows_WithNoDeals_ReturnsFirstWindow() {
+        PeakTimeEngine engine = new PeakTimeEngine(180, 180);
+        engine.addAvailability(LocalTime.of(10, 0), LocalTime.of(11, 0), 0);
+
+        List<PeakTimeWindow> result = engine.findPeakWindows(2);
+
+        assertEquals(List.of(new PeakTimeWindow(LocalTime.MIN, LocalTime.of(3, 0))), result);
+    }
+
+    @Test
+    void testConstructor_WithInvalidWindowOrStep_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new PeakTimeEngine(0, 60));
+        assertThrows(IllegalArgumentException.class, () -> new PeakTimeEngine(1441, 60));
+        assertThrows(IllegalArgumentException.class, () -> new PeakTimeEngine(60, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PeakTimeEngine(60, 1441));
+    }
+
+    @Test
+    void testFindPeakWindows_WithInvalidLimit_ThrowsIllegalArgumentException() {
+        PeakTimeEngine engine = new PeakTimeEngine(60, 60);
+
+        assertThrows(IllegalArgumentException.class, () -> engine.findPeakWindows(0));
+    }
+
+    @Test
+    void testMerge_SumsAvailabilityAddedToSeparateEngines() {
+        PeakTimeEngine whole = new PeakTimeEngine(60, 15);
+        whole.addAvailability(LocalTime.of(12, 0), LocalTime.of(14, 0), 2);
+        whole.addAvailability(LocalTime.of(13, 30), LocalTime.of(1, 0), 3);
+        PeakTimeEngine first = new PeakTimeEngine(60, 15);
+        first.addAvailability(LocalTime.of(12, 0), LocalTime.of(14, 0), 2);
+        PeakTimeEngine second = new PeakTimeEngine(60, 15);
+        second.addAvailability(LocalTime.of(13, 30), LocalTime.of(1, 0), 3);
+
+        assertEquals(whole.findPeakWindows(3), first.merge(second).findPeakWindows(3));
+    }
+
+    @Test
+    void testMerge_WithDifferentStep_ThrowsIllegalArgumentException() {
+        PeakTimeEngine engine = new PeakTimeEngine(60, 15);
+
+        assertThrows(IllegalArgumentException.class, () -> engine.merge(new PeakTimeEngine(60, 30)));
+    }
+}
@@ -1,10 +1,18 @@
 package com.eatclub.service;
 
+import com.eatclub.metrics.RestaurantMetrics;
 import com.eatclub.model.Deal;
 import com.eatclub.model.DealAtRestaurant;
+import com.eatclub.model.DealFilter;
+import com.eatclub.model.DealPage;
+import com.eatclub.model.DealSort;
 import com.eatclub.model.PeakTimeWindow;
 import com.eatclub.model.Restaurant;
+import com.eatclub.repository.DealColumns;
 import com.eatclub.repository.ILocalRepository;
+import com.eatclub.repository.RestaurantFeed;
+import com.eatclub.repository.RestaurantFeedParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,10 +20,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.InputStream;
+import java.time.DayOfWeek;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -43,15 +59,15 @@ class RestaurantServiceImplTest {
         Restaurant restaurant2 = new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "City", 
             LocalTime.of(11, 0), LocalTime.of(23, 0));
         
-        List<Restaurant> availableRestaurants = Arrays.asList(restaurant1, restaurant2);
-        
         Deal deal1 = new Deal("d1", "r1", 10.0f, true, false, 5);
         Deal deal2 = new Deal("d2", "r1", 15.0f, false, true, 3);
         Deal deal3 = new Deal("d3", "r2", 20.0f, true, false, 10);
         
-        when(restaurantRepository.findAvailableRestaurantsAt(queryTime)).thenReturn(availableRestaurants);
-        when(restaurantRepository.findDealsByRestaurantId("r1")).thenReturn(Arrays.asList(deal1, deal2));
-        when(restaurantRepository.findDealsByRestaurantId("r2")).thenReturn(Arrays.asList(deal3));
+        List<DealAtRestaurant> liveDeals = Arrays.asList(
+            new DealAtRestaurant(restaurant1, deal1),
+            new DealAtRestaurant(restaurant1, deal2),
+            new DealAtRestaurant(restaurant2, deal3));
+        when(restaurantRepository.findAvailableDealsAt(queryTime)).thenReturn(liveDeals);
         
         List<DealAtRestaurant> result = restaurantService.getAvailableRestaurantDealsByTime(queryTime);
         
@@ -63,53 +79,128 @@ class RestaurantServiceImplTest {
         assertEquals(restaurant2, result.get(2).getRestaurant());
         assertEquals(deal3, result.get(2).getDeal());
         
-        verify(restaurantRepository).findAvailableRestaurantsAt(queryTime);
-        verify(restaurantRepository).findDealsByRestaurantId("r1");
-        verify(restaurantRepository).findDealsByRestaurantId("r2");
+        verify(restaurantRepository).findAvailableDealsAt(queryTime);
+        verify(restaurantRepository, never()).findDealsByRestaurantId(anyString());
     }
 
     @Test
     void testGetAvailableRestaurantDealsByTime_WithNoAvailableRestaurants() {
         LocalTime queryTime = LocalTime.of(2, 0);
         
-        when(restaurantRepository.findAvailableRestaurantsAt(queryTime)).thenReturn(new ArrayList<>());
+        when(restaurantRepository.findAvailableDealsAt(queryTime)).thenReturn(new ArrayList<>());
         
         List<DealAtRestaurant> result = restaurantService.getAvailableRestaurantDealsByTime(queryTime);
         
         assertTrue(result.isEmpty());
-        verify(restaurantRepository).findAvailableRestaurantsAt(queryTime);
+        verify(restaurantRepository).findAvailableDealsAt(queryTime);
         verify(restaurantRepository, never()).findDealsByRestaurantId(anyString());
     }
 
     @Test
-    void testGetAvailableRestaurantDealsByTime_WithRestaurantsButNoDeals() {
-        LocalTime queryTime = LocalTime.of(14, 0);
-        
-        Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "123 Main St", "City", 
+    void testGetAvailableRestaurantDealsByTime_WithFilter_DelegatesToRepository() {
+        LocalTime queryTime = LocalTime.of(12, 0);
+        DealFilter filter = new DealFilter("City", null, true, null, null, null);
+        List<DealAtRestaurant> filteredDeals = new ArrayList<>();
+        when(restaurantRepository.findAvailableDealsAt(queryTime, filter)).thenReturn(filteredDeals);
+
+        List<DealAtRestaurant> result = restaurantService.getAvailableRestaurantDealsByTime(queryTime, filter);
+
+        assertSame(filteredDeals, result);
+        verify(restaurantRepository, never()).findAvailableDealsAt(queryTime);
+    }
+
+    @Test
+    void testGetAvailableRestaurantDealsByTime_WithBlankFilter_ThrowsIllegalArgumentException() {
+        DealFilter filter = new DealFilter(null, " ", null, null, null, null);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> restaurantService.getAvailableRestaurantDealsByTime(LocalTime.NOON, filter));
+        verifyNoInteractions(restaurantRepository);
+    }
+
+    @Test
+    void testGetAvailableRestaurantDealsByDayAndTime_DelegatesToRepository() {
+        DealFilter filter = new DealFilter("City", null, null, null, null, null);
+        List<DealAtRestaurant> deals = new ArrayList<>();
+        when(restaurantRepository.findAvailableDealsAt(DayOfWeek.FRIDAY, LocalTime.NOON, filter)).thenReturn(deals);
+
+        assertSame(deals, restaurantService.getAvailableRestaurantDealsByDayAndTime(DayOfWeek.FRIDAY, LocalTime.NOON, filter));
+        verify(restaurantRepository, never()).findAvailableDealsAt(LocalTime.NOON, filter);
+    }
+
+    @Test
+    void testGetAvailableRestaurantDealsPage_DelegatesToRepository() {
+        LocalTime queryTime = LocalTime.of(12, 0);
+        DealPage page = new DealPage(3L, new ArrayList<>(), 4);
+        when(restaurantRepository.findAvailableDealsPageAt(queryTime, new DealFilter(), 2, 2)).thenReturn(page);
+
+        DealPage result = restaurantService.getAvailableRestaurantDealsPage(queryTime, new DealFilter(), 2, 2);
+
+        assertSame(page, result);
+    }
+
+    @Test
+    void testGetAvailableRestaurantDealsPage_WithInvalidLimit_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+            () -> restaurantService.getAvailableRestaurantDealsPage(LocalTime.NOON, new DealFilter(), 0, 0));
+        verifyNoInteractions(restaurantRepository);
+    }
+
+    @Test
+    void testGetTopAvailableRestaurantDeals_DelegatesToRepository() {
+        LocalTime queryTime = LocalTime.of(12, 0);
+        List<DealAtRestaurant> topDeals = new ArrayList<>();
+        when(restaurantRepository.findTopAvailableDealsAt(queryTime, new DealFilter(), DealSort.DISCOUNT, 5)).thenReturn(topDeals);
+
+        List<DealAtRestaurant> result = restaurantService.getTopAvailableRestaurantDeals(queryTime, new DealFilter(), DealSort.DISCOUNT, 5);
+
+        assertSame(topDeals, result);
+    }
+
+    @Test
+    void testGetTopAvailableRestaurantDeals_WithInvalidLimit_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+            () -> restaurantService.getTopAvailableRestaurantDeals(LocalTime.NOON, new DealFilter(), DealSort.DISCOUNT, 0));
+        verifyNoInteractions(restaurantRepository);
+    }
+
+    @Test
+    void testForEachAvailableRestaurantDeal_DelegatesToRepository() {
+        LocalTime queryTime = LocalTime.of(12, 0);
+        Consumer<DealAtRestaurant> action = dealAtRestaurant -> { };
+
+        restaurantService.forEachAvailableRestaurantDeal(queryTime, new DealFilter(), action);
+
+        verify(restaurantRepository).forEachAvailableDealAt(queryTime, new DealFilter(), action);
+    }
+
+    @Test
+    void testGetPeakTimeWindow_WithDealWindows_CountsDealsOnlyWhileTheirWindowIsOpen() {
+        Restaurant restaurant = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
             LocalTime.of(10, 0), LocalTime.of(22, 0));
-        
-        List<Restaurant> availableRestaurants = Arrays.asList(restaurant);
-        
-        when(restaurantRepository.findAvailableRestaurantsAt(queryTime)).thenReturn(availableRestaurants);
-        when(restaurantRepository.findDealsByRestaurantId("r1")).thenReturn(new ArrayList<>());
-        
-        List<DealAtRestaurant> result = restaurantService.getAvailableRestaurantDealsByTime(queryTime);
-        
-        assertTrue(result.isEmpty());
-        verify(restaurantRepository).findAvailableRestaurantsAt(queryTime);
-        verify(restaurantRepository).findDealsByRestaurantId("r1");
+        Deal allDayDeal = new Deal("d1", "r1", 10.0f, true, false, 5);
+        Deal happyHour = new Deal("d2", "r1", 30.0f, true, false, 5, LocalTime.of(17, 0), LocalTime.of(19, 0));
+        Deal lateNight = new Deal("d3", "r1", 20.0f, true, false, 5, LocalTime.of(18, 30), LocalTime.of(23, 30));
+
+        givenDealColumns(new DealColumns(Arrays.asList(restaurant),
+            Map.of("r1", Arrays.asList(allDayDeal, happyHour, lateNight))));
+
+        PeakTimeWindow result = restaurantService.getPeakTimeWindow(60, 60);
+
+        assertEquals(LocalTime.of(18, 0), result.getPeakTimeStart());
+        assertEquals(LocalTime.of(19, 0), result.getPeakTimeEnd());
     }
 
     @Test
     void testGetPeakTimeWindow_WithEmptyRestaurantList() {
-        when(restaurantRepository.findAllRestaurants()).thenReturn(new ArrayList<>());
+        givenDealColumns(new DealColumns(new ArrayList<>(), Map.of()));
         
         PeakTimeWindow result = restaurantService.getPeakTimeWindow();
         
         assertNotNull(result);
         assertEquals(LocalTime.MIN, result.getPeakTimeStart());
         assertEquals(LocalTime.MAX, result.getPeakTimeEnd());
-        verify(restaurantRepository).findAllRestaurants();
+        verify(restaurantRepository).getDealColumns();
     }
 
     @Test
@@ -120,16 +211,16 @@ class RestaurantServiceImplTest {
         Deal deal1 = new Deal("d1", "r1", 10.0f, true, false, 5);
         Deal deal2 = new Deal("d2", "r1", 15.0f, false, true, 3);
         
-        when(restaurantRepository.findAllRestaurants()).thenReturn(Arrays.asList(restaurant));
-        when(restaurantRepository.findDealsByRestaurantId("r1")).thenReturn(Arrays.asList(deal1, deal2));
+        givenDealColumns(new DealColumns(Arrays.asList(restaurant),
+            Map.of("r1", Arrays.asList(deal1, deal2))));
         
         PeakTimeWindow result = restaurantService.getPeakTimeWindow();
         
         assertNotNull(result);
         assertEquals(LocalTime.of(9, 0), result.getPeakTimeStart());
         assertEquals(LocalTime.of(12, 0), result.getPeakTimeEnd());
-        verify(restaurantRepository).findAllRestaurants();
-        verify(restaurantRepository, atLeastOnce()).findDealsByRestaurantId("r1");
+        verify(restaurantRepository).getDealColumns();
+        verify(restaurantRepository, never()).findDealsByRestaurantId(anyString());
     }
 
     @Test
@@ -149,19 +240,17 @@ class RestaurantServiceImplTest {
         Deal deal4 = new Deal("d4", "r3", 25.0f, true, false, 8);
         Deal deal5 = new Deal("d5", "r4", 30.0f, true, false, 12);
         
-        when(restaurantRepository.findAllRestaurants()).thenReturn(
-            Arrays.asList(restaurant1, restaurant2, restaurant3, restaurant4));
-        when(restaurantRepository.findDealsByRestaurantId("r1")).thenReturn(Arrays.asList(deal1));
-        when(restaurantRepository.findDealsByRestaurantId("r2")).thenReturn(Arrays.asList(deal2, deal3));
-        when(restaurantRepository.findDealsByRestaurantId("r3")).thenReturn(Arrays.asList(deal4));
-        when(restaurantRepository.findDealsByRestaurantId("r4")).thenReturn(Arrays.asList(deal5));
+        givenDealColumns(new DealColumns(
+            Arrays.asList(restaurant1, restaurant2, restaurant3, restaurant4),
+            Map.of("r1", Arrays.asList(deal1), "r2", Arrays.asList(deal2, deal3),
+                "r3", Arrays.asList(deal4), "r4", Arrays.asList(deal5))));
         
         PeakTimeWindow result = restaurantService.getPeakTimeWindow();
         
         assertNotNull(result);
         assertEquals(LocalTime.of(12, 0), result.getPeakTimeStart());
         assertEquals(LocalTime.of(15, 0), result.getPeakTimeEnd());
-        verify(restaurantRepository).findAllRestaurants();
+        verify(restaurantRepository).getDealColumns();
     }
 
     @Test
@@ -172,15 +261,15 @@ class RestaurantServiceImplTest {
         Deal deal1 = new Deal("d1", "r1", 10.0f, true, false, 5);
         Deal deal2 = new Deal("d2", "r1", 15.0f, false, true, 3);
         
-        when(restaurantRepository.findAllRestaurants()).thenReturn(Arrays.asList(restaurant));
-        when(restaurantRepository.findDealsByRestaurantId("r1")).thenReturn(Arrays.asList(deal1, deal2));
+        givenDealColumns(new DealColumns(Arrays.asList(restaurant),
+            Map.of("r1", Arrays.asList(deal1, deal2))));
         
         PeakTimeWindow result = restaurantService.getPeakTimeWindow();
         
         assertNotNull(result);
         assertEquals(LocalTime.of(0, 0), result.getPeakTimeStart());
         assertEquals(LocalTime.of(3, 0), result.getPeakTimeEnd());
-        verify(restaurantRepository).findAllRestaurants();
+        verify(restaurantRepository).getDealColumns();
     }
 
     @Test
@@ -199,19 +288,17 @@ class RestaurantServiceImplTest {
         Deal deal3 = new Deal("d3", "r3", 20.0f, true, false, 10);
         Deal deal4 = new Deal("d4", "r4", 25.0f, true, false, 8);
         
-        when(restaurantRepository.findAllRestaurants()).thenReturn(
-            Arrays.asList(restaurant1, restaurant2, restaurant3, restaurant4));
-        when(restaurantRepository.findDealsByRestaurantId("r1")).thenReturn(Arrays.asList(deal1));
-        when(restaurantRepository.findDealsByRestaurantId("r2")).thenReturn(Arrays.asList(deal2));
-        when(restaurantRepository.findDealsByRestaurantId("r3")).thenReturn(Arrays.asList(deal3));
-        when(restaurantRepository.findDealsByRestaurantId("r4")).thenReturn(Arrays.asList(deal4));
+        givenDealColumns(new DealColumns(
+            Arrays.asList(restaurant1, restaurant2, restaurant3, restaurant4),
+            Map.of("r1", Arrays.asList(deal1), "r2", Arrays.asList(deal2),
+                "r3", Arrays.asList(deal3), "r4", Arrays.asList(deal4))));
         
         PeakTimeWindow result = restaurantService.getPeakTimeWindow();
         
         assertNotNull(result);
         assertEquals(LocalTime.of(15, 0), result.getPeakTimeStart());
         assertEquals(LocalTime.of(18, 0), result.getPeakTimeEnd());
-        verify(restaurantRepository).findAllRestaurants();
+        verify(restaurantRepository).getDealColumns();
     }
 
     @Test
@@ -223,15 +310,190 @@ class RestaurantServiceImplTest {
         Deal deal2 = new Deal("d2", "r1", 15.0f, false, true, 3);
         Deal deal3 = new Deal("d3", "r1", 20.0f, true, false, 10);
         
-        when(restaurantRepository.findAllRestaurants()).thenReturn(Arrays.asList(restaurant));
-        when(restaurantRepository.findDealsByRestaurantId("r1")).thenReturn(
-            Arrays.asList(deal1, deal2, deal3));
+        givenDealColumns(new DealColumns(Arrays.asList(restaurant),
+            Map.of("r1", Arrays.asList(deal1, deal2, deal3))));
         
         PeakTimeWindow result = restaurantService.getPeakTimeWindow();
         
         assertNotNull(result);
         assertEquals(LocalTime.MIN, result.getPeakTimeStart());
         assertEquals(LocalTime.of(3, 0), result.getPeakTimeEnd());
-        verify(restaurantRepository).findAllRestaurants();
+        verify(restaurantRepository).getDealColumns();
+    }
+
+    @Test
+    void testGetPeakTimeWindow_WithCustomWindowAndStep_FindsPeakAcrossBucketEdge() {
+        Restaurant restaurant1 = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+            LocalTime.of(14, 30), LocalTime.of(15, 30));
+        Restaurant restaurant2 = new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "City",
+            LocalTime.of(9, 0), LocalTime.of(9, 30));
+
+        Deal deal1 = new Deal("d1", "r1", 10.0f, true, false, 5);
+        Deal deal2 = new Deal("d2", "r1", 15.0f, false, true, 3);
+        Deal deal3 = new Deal("d3", "r2", 20.0f, true, false, 10);
+
+        givenDealColumns(new DealColumns(Arrays.asList(restaurant1, restaurant2),
+            Map.of("r1", Arrays.asList(deal1, deal2), "r2", Arrays.asList(deal3))));
+
+        PeakTimeWindow result = restaurantService.getPeakTimeWindow(90, 15);
+
+        assertEquals(LocalTime.of(13, 0), result.getPeakTimeStart());
+        assertEquals(LocalTime.of(14, 30), result.getPeakTimeEnd());
+        verify(restaurantRepository, never()).findDealsByRestaurantId(anyString());
+    }
+
+    @Test
+    void testGetPeakTimeWindows_WithLimit_ReturnsTopNonOverlappingWindows() {
+        Restaurant restaurant1 = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+            LocalTime.of(12, 10), LocalTime.of(12, 30));
+        Restaurant restaurant2 = new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "City",
+            LocalTime.of(19, 10), LocalTime.of(19, 30));
+
+        Deal deal1 = new Deal("d1", "r1", 10.0f, true, false, 5);
+        Deal deal2 = new Deal("d2", "r2", 15.0f, false, true, 3);
+        Deal deal3 = new Deal("d3", "r2", 20.0f, true, false, 10);
+
+        givenDealColumns(new DealColumns(Arrays.asList(restaurant1, restaurant2),
+            Map.of("r1", Arrays.asList(deal1), "r2", Arrays.asList(deal2, deal3))));
+
+        List<PeakTimeWindow> result = restaurantService.getPeakTimeWindows(60, 60, 2);
+
+        assertEquals(2, result.size());
+        assertEquals(LocalTime.of(19, 0), result.get(0).getPeakTimeStart());
+        assertEquals(LocalTime.of(12, 0), result.get(1).getPeakTimeStart());
+    }
+
+    @Test
+    void testGetPeakTimeWindow_WithInvalidWindow_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> restaurantService.getPeakTimeWindow(0, 60));
+        verify(restaurantRepository, never()).getDealColumns();
+    }
+
+    @Test
+    void testGetPeakTimeWindow_WithPartitionedDeals_SumsEveryPartition() {
+        Restaurant restaurant1 = new Restaurant("r1", "Restaurant 1", "123 Main St", "City",
+            LocalTime.of(12, 10), LocalTime.of(12, 50));
+        Restaurant restaurant2 = new Restaurant("r2", "Restaurant 2", "456 Oak Ave", "Town",
+            LocalTime.of(12, 10), LocalTime.of(12, 50));
+        Restaurant restaurant3 = new Restaurant("r3", "Restaurant 3", "789 Pine St", "City",
+            LocalTime.of(18, 10), LocalTime.of(18, 50));
+        Map<String, List<Deal>> dealsByRestaurantId = Map.of(
+            "r1", Arrays.asList(new Deal("d1", "r1", 10.0f, true, false, 5)),
+            "r2", Arrays.asList(new Deal("d2", "r2", 15.0f, true, false, 5), new Deal("d3", "r2", 20.0f, true, false, 5)),
+            "r3", Arrays.asList(new Deal("d4", "r3", 10.0f, true, false, 5), new Deal("d5", "r3", 25.0f, true, false, 5)));
+        when(restaurantRepository.getDealColumns()).thenReturn(
+            new DealColumns(Arrays.asList(restaurant1, restaurant2, restaurant3), dealsByRestaurantId));
+        List<DealColumns> partitions = List.of(
+            new DealColumns(Arrays.asList(restaurant1, restaurant3), dealsByRestaurantId),
+            new DealColumns(Arrays.asList(restaurant2), dealsByRestaurantId));
+        when(restaurantRepository.reduceDealColumns(any(), any())).thenAnswer(invocation -> {
+            Function<DealColumns, Object> partial = invocation.getArgument(0);
+            BinaryOperator<Object> combine = invocation.getArgument(1);
+            return combine.apply(partial.apply(partitions.get(0)), partial.apply(partitions.get(1)));
+        });
+
+        PeakTimeWindow result = restaurantService.getPeakTimeWindow(60, 60);
+
+        // 18:00 has the most deals in the first partition alone
+        assertEquals(LocalTime.of(12, 0), result.getPeakTimeStart());
+        assertEquals(LocalTime.of(13, 0), result.getPeakTimeEnd());
+    }
+
+    @Test
+    void testGetAvailableRestaurantDealsByTime_RecordsServiceCall() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RestaurantServiceImpl timedService = new RestaurantServiceImpl(restaurantRepository, new RestaurantMetrics(registry));
+        when(restaurantRepository.findAvailableDealsAt(LocalTime.NOON)).thenReturn(List.of());
+
+        timedService.getAvailableRestaurantDealsByTime(LocalTime.NOON);
+
+        assertEquals(1, registry.get(RestaurantMetrics.SERVICE_CALL)
+                .tag("operation", "getAvailableRestaurantDealsByTime").timer().count());
+    }
+
+    /*
+     * Stubs the repository's columns, swept as a single partition.
+     */
+    @Test
+    void testGetPeakTimeWindow_WithDefaults_MatchesFixedThreeHourBuckets() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/feeds/feed-v3.json")) {
+            RestaurantFeed feed = new RestaurantFeedParser().parse(in);
+            givenDealColumns(new DealColumns(feed.restaurants(), feed.dealsByRestaurantId()));
+
+            assertEquals(baselinePeakTimeWindow(feed.restaurants(), feed.dealsByRestaurantId()),
+                restaurantService.getPeakTimeWindow());
+        }
+
+        // Opening at midnight never counted towards the 21:00 bucket
+        reset(restaurantRepository);
+        List<Restaurant> midnight = List.of(
+            new Restaurant("r1", "Restaurant 1", null, "City", LocalTime.MIDNIGHT, LocalTime.of(2, 0)),
+            new Restaurant("r2", "Restaurant 2", null, "City", LocalTime.of(21, 30), LocalTime.of(23, 0)));
+        Map<String, List<Deal>> midnightDeals = Map.of(
+            "r1", List.of(new Deal("d1", "r1", 10.0f, true, false, 1), new Deal("d2", "r1", 10.0f, true, false, 1)),
+            "r2", List.of(new Deal("d3", "r2", 10.0f, true, false, 1)));
+        givenDealColumns(new DealColumns(midnight, midnightDeals));
+        assertEquals(baselinePeakTimeWindow(midnight, midnightDeals), restaurantService.getPeakTimeWindow());
+
+        // Hours on or next to the bucket edges, midnight included
+        Random random = new Random(2);
+        for (int fixture = 0; fixture < 500; fixture++) {
+            reset(restaurantRepository);
+            List<Restaurant> restaurants = new ArrayList<>();
+            Map<String, List<Deal>> dealsByRestaurantId = new HashMap<>();
+            for (int r = 0; r < 1 + random.nextInt(6); r++) {
+                String id = "r" + r;
+                restaurants.add(new Restaurant(id, "Restaurant " + r, null, "City",
+                    LocalTime.of(3 * random.nextInt(8), 30 * random.nextInt(2)),
+                    LocalTime.of(3 * random.nextInt(8), 30 * random.nextInt(2))));
+                List<Deal> deals = new ArrayList<>();
+                for (int d = 0; d < random.nextInt(4); d++) {
+                    deals.add(new Deal(id + "-" + d, id, 10.0f, true, false, 1));
+                }
+                dealsByRestaurantId.put(id, deals);
+            }
+            givenDealColumns(new DealColumns(restaurants, dealsByRestaurantId));
+
+            assertEquals(baselinePeakTimeWindow(restaurants, dealsByRestaurantId), restaurantService.getPeakTimeWindow(),
+                restaurants.toString());
+        }
+    }
+
+    /*
+     * The fixed 3-hour bucket algorithm /peak-time had before windows were configurable.
+     */
+    private static PeakTimeWindow baselinePeakTimeWindow(List<Restaurant> restaurants,
+            Map<String, List<Deal>> dealsByRestaurantId) {
+        if (restaurants.isEmpty()) {
+            return new PeakTimeWindow(LocalTime.MIN, LocalTime.MAX);
+        }
+        int maxAvailableDeals = 0;
+        PeakTimeWindow peak = new PeakTimeWindow(LocalTime.MIN, LocalTime.of(3, 0));
+        for (int hour = 0; hour < 24; hour += 3) {
+            LocalTime bucketStart = LocalTime.of(hour, 0);
+            LocalTime bucketEnd = hour + 3 == 24 ? LocalTime.MAX : LocalTime.of(hour + 3, 0);
+            int availableDeals = 0;
+            for (Restaurant restaurant : restaurants) {
+                boolean open = restaurant.getOpenTime().isBefore(restaurant.getCloseTime())
+                    ? !bucketEnd.isBefore(restaurant.getOpenTime()) && !bucketStart.isAfter(restaurant.getCloseTime())
+                    : !bucketEnd.isBefore(restaurant.getOpenTime()) || !bucketStart.isAfter(restaurant.getCloseTime());
+                if (open) {
+                    availableDeals += dealsByRestaurantId.get(restaurant.getObjectId()).size();
+                }
+            }
+            if (availableDeals > maxAvailableDeals) {
+                maxAvailableDeals = availableDeals;
+                peak = new PeakTimeWindow(bucketStart, bucketEnd);
+            }
+        }
+        return peak;
+    }
+
+    private void givenDealColumns(DealColumns columns) {
+        when(restaurantRepository.getDealColumns()).thenReturn(columns);
+        lenient().when(restaurantRepository.reduceDealColumns(any(), any())).thenAnswer(invocation -> {
+            Function<DealColumns, Object> partial = invocation.getArgument(0);
+            return partial.apply(columns);
+        });
     }
 }